@@ -0,0 +1,36 @@
+package org.sagebionetworks.migration;
+
+import org.sagebionetworks.migration.async.SharedSourceJobs;
+import org.sagebionetworks.migration.config.AdditionalDestinationConfiguration;
+import org.sagebionetworks.migration.config.Configuration;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.name.Names;
+
+/**
+ * Overrides the {@link MigrationModule} to migrate the source to one of the
+ * additional destinations. Each destination has its own injector, so each has
+ * its own restore queue, state and checksum deltas, while the source jobs are
+ * shared by all destinations.
+ *
+ */
+public class AdditionalDestinationModule extends AbstractModule {
+
+	private final String destinationName;
+	private final SharedSourceJobs sharedSourceJobs;
+
+	public AdditionalDestinationModule(String destinationName, SharedSourceJobs sharedSourceJobs) {
+		super();
+		this.destinationName = destinationName;
+		this.sharedSourceJobs = sharedSourceJobs;
+	}
+
+	@Override
+	protected void configure() {
+		bindConstant().annotatedWith(Names.named(AdditionalDestinationConfiguration.DESTINATION_NAME))
+				.to(destinationName);
+		bind(Configuration.class).to(AdditionalDestinationConfiguration.class);
+		bind(SharedSourceJobs.class).toInstance(sharedSourceJobs);
+	}
+
+}
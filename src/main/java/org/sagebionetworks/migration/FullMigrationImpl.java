@@ -1,32 +1,54 @@
 package org.sagebionetworks.migration;
 
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.migration.async.MigrationDriver;
 import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.migration.async.checksum.RestoredBinVerifier;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.PlanMode;
+import org.sagebionetworks.migration.metrics.PhaseListener;
+import org.sagebionetworks.migration.metrics.TraceSpan;
+import org.sagebionetworks.migration.shard.ShardPartitioner;
 import org.sagebionetworks.migration.utils.ToolMigrationUtils;
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
 import org.sagebionetworks.repo.model.migration.MigrationType;
 import org.sagebionetworks.repo.model.migration.MigrationTypeChecksum;
 import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
 
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 
 public class FullMigrationImpl implements FullMigration {
 
+	public static final String PHASE_TYPE_COUNTS = "type counts";
+	public static final String PHASE_FINAL_CHECKS = "final checks";
+
 	Logger logger;
 	StackStatusService stackStatusService;
 	TypeService typeService;
 	Reporter typeReporter;
 	MigrationDriver migrationDriver;
 	Configuration config;
+	RestoredBinVerifier restoredBinVerifier;
+	ShardPartitioner shardPartitioner;
+	PhaseListener phaseListener;
 
 	@Inject
 	public FullMigrationImpl(LoggerFactory loggerFactory, StackStatusService stackStatusService,
 			TypeService typeService, Reporter typeReporter, MigrationDriver migrationDriver,
-			Configuration config) {
+			Configuration config, RestoredBinVerifier restoredBinVerifier, ShardPartitioner shardPartitioner,
+			PhaseListener phaseListener) {
 		super();
 		this.logger = loggerFactory.getLogger(FullMigrationImpl.class);
 		this.stackStatusService = stackStatusService;
@@ -34,6 +56,9 @@ public class FullMigrationImpl implements FullMigration {
 		this.typeReporter = typeReporter;
 		this.migrationDriver = migrationDriver;
 		this.config = config;
+		this.restoredBinVerifier = restoredBinVerifier;
+		this.shardPartitioner = shardPartitioner;
+		this.phaseListener = phaseListener;
 	}
 
 	@Override
@@ -44,32 +69,174 @@ public class FullMigrationImpl implements FullMigration {
 		List<MigrationType> allCommonTypes = typeService.getAllCommonMigrationTypes();
 		List<MigrationType> commonPrimaryTypes = typeService.getCommonPrimaryMigrationTypes();
 
-		// Get the counts for all types
-		logger.info("Computing counts for migrating types...");
-		ResultPair<List<MigrationTypeCount>> countResults = typeService.getMigrationTypeCounts(allCommonTypes);
-		typeReporter.reportMetaDifferences(countResults);
+		PlanMode planMode = config.getPlanMode();
+		if (PlanMode.EXECUTE == planMode) {
+			// Give the caller a chance to cancel before the plan is executed
+			typeReporter.runCountDownBeforeStart();
+			logger.info("Executing the migration plan...");
+			migrationDriver.executePlan();
+		} else if (PlanMode.NONE == planMode && config.getTypeCountGroupSize() > 0) {
+			migrateTypesAsCountsArrive(allCommonTypes, commonPrimaryTypes);
+		} else {
+			// Get the counts for all types
+			logger.info("Computing counts for migrating types...");
+			ResultPair<List<MigrationTypeCount>> countResults;
+			try (TraceSpan span = phaseListener.startPhase(PHASE_TYPE_COUNTS)) {
+				countResults = typeService.getMigrationTypeCounts(allCommonTypes);
+			}
+			typeReporter.reportMetaDifferences(countResults);
 
-		// Give the caller a chance to cancel before migration starts
-		typeReporter.runCountDownBeforeStart();
+			// Give the caller a chance to cancel before migration starts
+			typeReporter.runCountDownBeforeStart();
 
-		// Build the metadata for each type
-		List<TypeToMigrateMetadata> typesToMigrate = ToolMigrationUtils.buildTypeToMigrateMetadata(
-				stackStatusService.isSourceReadOnly(),
-				countResults.getSourceResult(), countResults.getDestinationResult(), commonPrimaryTypes);
-		// run the migration process asynchronously
-		logger.info("Starting the asynchronous of all types...");
-		migrationDriver.migratePrimaryTypes(typesToMigrate);
+			// Build the metadata for each type of this shard
+			List<TypeToMigrateMetadata> typesToMigrate = shardPartitioner.getShardTypes(ToolMigrationUtils
+					.buildTypeToMigrateMetadata(stackStatusService.isSourceReadOnly(), countResults.getSourceResult(),
+							countResults.getDestinationResult(), commonPrimaryTypes));
+			if (PlanMode.PLAN == planMode) {
+				// the destination is not changed so there is nothing to verify.
+				logger.info("Planning the migration of all types...");
+				migrationDriver.planPrimaryTypes(typesToMigrate);
+				return;
+			}
+			if (PlanMode.ESTIMATE == planMode) {
+				logger.info("Estimating the migration of all types...");
+				migrationDriver.estimatePrimaryTypes(typesToMigrate);
+				return;
+			}
+			// run the migration process asynchronously
+			logger.info("Starting the asynchronous of all types...");
+			migrationDriver.migratePrimaryTypes(typesToMigrate);
+		}
 
+		try (TraceSpan span = phaseListener.startPhase(PHASE_FINAL_CHECKS)) {
+			reportFinalChecks(allCommonTypes);
+		}
+	}
+
+	/**
+	 * Report the final counts and, when included, the full table checksums of all
+	 * types.
+	 * 
+	 * @param allCommonTypes
+	 */
+	void reportFinalChecks(List<MigrationType> allCommonTypes) {
 		if (config.includeFullTableChecksums()) {
 			logger.info("Starting full table checksums...");
-			for(MigrationType type: allCommonTypes) {
-				ResultPair<MigrationTypeChecksum> checksum = typeService.getFullTableChecksums(type);
-				typeReporter.reportChecksums(type, checksum);
+			ExecutorService executor = Executors.newFixedThreadPool(
+					Math.max(1, config.getMaxConcurrentFullTableChecksums()),
+					new ThreadFactoryBuilder().setDaemon(true).setNameFormat("checksum-%d").build());
+			try {
+				List<Future<?>> checksums = new LinkedList<>();
+				for (MigrationType type : allCommonTypes) {
+					checksums.add(executor.submit(() -> verifyChecksums(type)));
+				}
+				// the final counts overlap with the checksums.
+				reportFinalCounts(allCommonTypes);
+				waitForAll(checksums);
+			} finally {
+				executor.shutdownNow();
 			}
+		} else {
+			reportFinalCounts(allCommonTypes);
 		}
+	}
+
+	/**
+	 * Count the types in groups and start migrating each primary type as soon as
+	 * the counts of its group are available. The counts are computed during the
+	 * count down, so the differences of each group are reported when the group
+	 * arrives, after the count down. The differences of all types are only
+	 * reported before the count down when the types are counted with a single
+	 * request.
+	 * 
+	 * @param allCommonTypes
+	 * @param commonPrimaryTypes
+	 */
+	void migrateTypesAsCountsArrive(List<MigrationType> allCommonTypes, List<MigrationType> commonPrimaryTypes) {
+		logger.info("Computing counts for migrating types in groups...");
+		Iterator<ResultPair<List<MigrationTypeCount>>> groupCounts = typeService.streamMigrationTypeCounts(
+				allCommonTypes, config.getTypeCountGroupSize(), config.getMaxConcurrentTypeCounts());
+
+		// The counts are computed during the count down.
+		logger.info("The differences of each group of types are reported as the group's counts arrive.");
+		typeReporter.runCountDownBeforeStart();
 
-		countResults = typeService.getMigrationTypeCounts(allCommonTypes);
-		typeReporter.reportMetaDifferences(countResults);
+		boolean isSourceReadOnly = stackStatusService.isSourceReadOnly();
+		Iterator<List<TypeToMigrateMetadata>> typesToMigrate = Iterators.transform(groupCounts, counts -> {
+			typeReporter.reportMetaDifferences(counts);
+			return shardPartitioner.getShardTypes(ToolMigrationUtils.buildTypeToMigrateMetadata(isSourceReadOnly,
+					counts.getSourceResult(), counts.getDestinationResult(),
+					getPrimaryTypesOfGroup(counts, commonPrimaryTypes)));
+		});
+		logger.info("Starting the asynchronous of all types...");
+		migrationDriver.migratePrimaryTypes(typesToMigrate);
+	}
+
+	/**
+	 * Get the primary types that are included in the given group counts.
+	 * 
+	 * @param groupCounts
+	 * @param commonPrimaryTypes
+	 * @return
+	 */
+	static List<MigrationType> getPrimaryTypesOfGroup(ResultPair<List<MigrationTypeCount>> groupCounts,
+			List<MigrationType> commonPrimaryTypes) {
+		List<MigrationType> groupTypes = groupCounts.getSourceResult().stream().map(MigrationTypeCount::getType)
+				.collect(Collectors.toList());
+		return commonPrimaryTypes.stream().filter(groupTypes::contains).collect(Collectors.toList());
+	}
+
+	/**
+	 * Compute and report the checksum verdict of a single type.
+	 * 
+	 * @param type
+	 */
+	void verifyChecksums(MigrationType type) {
+		// primary types fully compared with the destination in phase two only need their restored bins verified.
+		Optional<Boolean> verdict = restoredBinVerifier.verifyRestoredBins(type);
+		if(verdict.isPresent()) {
+			typeReporter.reportChecksumVerdict(type, verdict.get());
+		}else {
+			ResultPair<MigrationTypeChecksum> checksum = typeService.getFullTableChecksums(type);
+			typeReporter.reportChecksums(type, checksum);
+		}
+	}
+
+	/**
+	 * Report the differences between the counts at the end of the migration.
+	 * 
+	 * @param allCommonTypes
+	 */
+	void reportFinalCounts(List<MigrationType> allCommonTypes) {
+		if (config.getTypeCountGroupSize() > 0) {
+			typeService.streamMigrationTypeCounts(allCommonTypes, config.getTypeCountGroupSize(),
+					config.getMaxConcurrentTypeCounts()).forEachRemaining(typeReporter::reportMetaDifferences);
+		} else {
+			ResultPair<List<MigrationTypeCount>> countResults = typeService.getMigrationTypeCounts(allCommonTypes);
+			typeReporter.reportMetaDifferences(countResults);
+		}
+	}
+
+	/**
+	 * Wait for all of the given futures, re-throwing the first failure.
+	 * 
+	 * @param futures
+	 */
+	static void waitForAll(List<Future<?>> futures) {
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				// interrupt will trigger failure.
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new RuntimeException(e.getCause());
+			}
+		}
 	}
 
 }
@@ -14,4 +14,14 @@ public interface LoggerFactory {
 	 * @return
 	 */
 	 public Logger getLogger(final Class<?> clazz);
+
+	/**
+	 * Create a logger that appends each message as a single line of the given
+	 * rolling file. The file is written by a background thread and events are
+	 * dropped rather than blocking the caller when the writer falls behind.
+	 * 
+	 * @param filePath
+	 * @return
+	 */
+	public Logger getEventLogger(final String filePath);
 }
@@ -1,7 +1,18 @@
 package org.sagebionetworks.migration;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AsyncAppender;
+import org.apache.logging.log4j.core.appender.RollingRandomAccessFileAppender;
+import org.apache.logging.log4j.core.appender.rolling.DefaultRolloverStrategy;
+import org.apache.logging.log4j.core.appender.rolling.SizeBasedTriggeringPolicy;
+import org.apache.logging.log4j.core.config.AppenderRef;
+import org.apache.logging.log4j.core.config.Configuration;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.layout.PatternLayout;
 
 /**
  * Simple wrapper for the static LogManager.getLogger(clazz) method.
@@ -9,9 +20,58 @@ import org.apache.logging.log4j.Logger;
  */
 public class LoggerFactoryImpl implements LoggerFactory {
 
+	static final String EVENT_LOGGER_PREFIX = "org.sagebionetworks.migration.events.";
+	static final String EVENT_FILE_MAX_SIZE = "100 MB";
+	static final String EVENT_FILE_MAX_COUNT = "10";
+	static final int EVENT_BUFFER_SIZE = 8192;
+
 	@Override
 	public Logger getLogger(Class<?> clazz) {
 		return LogManager.getLogger(clazz);
 	}
 
+	/**
+	 * The file is written by a rolling random access file appender that only
+	 * flushes at the end of each batch of events, behind a non-blocking
+	 * asynchronous appender. The appenders of each file are only added once.
+	 */
+	@Override
+	public synchronized Logger getEventLogger(String filePath) {
+		String loggerName = EVENT_LOGGER_PREFIX + filePath;
+		LoggerContext context = (LoggerContext) LogManager.getContext(false);
+		Configuration logConfig = context.getConfiguration();
+		if (!logConfig.getLoggers().containsKey(loggerName)) {
+			Appender file = RollingRandomAccessFileAppender.newBuilder()
+					.setName(loggerName + ".file")
+					.withFileName(filePath)
+					.withFilePattern(filePath + ".%i")
+					.withPolicy(SizeBasedTriggeringPolicy.createPolicy(EVENT_FILE_MAX_SIZE))
+					.withStrategy(DefaultRolloverStrategy.newBuilder().withMax(EVENT_FILE_MAX_COUNT)
+							.withConfig(logConfig).build())
+					.withImmediateFlush(false)
+					.setLayout(PatternLayout.newBuilder().withPattern("%m%n").withConfiguration(logConfig).build())
+					.setConfiguration(logConfig)
+					.build();
+			file.start();
+			logConfig.addAppender(file);
+			Appender async = AsyncAppender.newBuilder()
+					.setName(loggerName + ".async")
+					.setAppenderRefs(new AppenderRef[] { AppenderRef.createAppenderRef(file.getName(), null, null) })
+					.setBlocking(false)
+					.setBufferSize(EVENT_BUFFER_SIZE)
+					.setConfiguration(logConfig)
+					.build();
+			async.start();
+			logConfig.addAppender(async);
+			// the events are not passed to the console.
+			LoggerConfig loggerConfig = LoggerConfig.createLogger(false, Level.INFO, loggerName, "false",
+					new AppenderRef[] { AppenderRef.createAppenderRef(async.getName(), null, null) }, null, logConfig,
+					null);
+			loggerConfig.addAppender(async, Level.INFO, null);
+			logConfig.addLogger(loggerName, loggerConfig);
+			context.updateLoggers();
+		}
+		return context.getLogger(loggerName);
+	}
+
 }
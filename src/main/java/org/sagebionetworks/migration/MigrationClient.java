@@ -10,4 +10,11 @@ public interface MigrationClient {
 	 * Execute the full migration.
 	 */
 	public void migrate();
+
+	/**
+	 * Repeat migration passes on a schedule, keeping the destination in
+	 * READ-ONLY mode, until a final pass is requested. The final pass is run as
+	 * a normal migration before returning.
+	 */
+	public void runDaemon();
 }
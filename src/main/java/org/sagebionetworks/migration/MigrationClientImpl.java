@@ -1,32 +1,131 @@
 package org.sagebionetworks.migration;
 
+import java.io.File;
+import java.util.Optional;
+
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorder;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.metrics.RunReporter;
+import org.sagebionetworks.migration.metrics.TraceRecorder;
+import org.sagebionetworks.migration.shard.RestoreLeaseCoordinator;
+import org.sagebionetworks.util.Clock;
 
 import com.google.inject.Inject;
 
 public class MigrationClientImpl implements MigrationClient {
 
+	public static final long DAEMON_SLEEP_TIME_MS = 1000L;
+
 	Logger logger;
 	Configuration config;
 	StackStatusService stackStatus;
 	FullMigration fullMigration;
+	FileProvider fileProvider;
+	MigrationMetrics metrics;
+	JobTimelineRecorder timelineRecorder;
+	TraceRecorder traceRecorder;
+	RunReporter runReporter;
+	RestoreLeaseCoordinator leaseCoordinator;
+	Clock clock;
 
 	@Inject
-	public MigrationClientImpl(Configuration config, StackStatusService stackStatus, FullMigration fullMigration, LoggerFactory loggerFactory) {
+	public MigrationClientImpl(Configuration config, StackStatusService stackStatus, FullMigration fullMigration,
+			FileProvider fileProvider, MigrationMetrics metrics, JobTimelineRecorder timelineRecorder,
+			TraceRecorder traceRecorder, RunReporter runReporter, RestoreLeaseCoordinator leaseCoordinator, Clock clock,
+			LoggerFactory loggerFactory) {
 		super();
 		this.logger = loggerFactory.getLogger(MigrationClientImpl.class);
 		this.config = config;
 		this.stackStatus = stackStatus;
 		this.fullMigration = fullMigration;
+		this.fileProvider = fileProvider;
+		this.metrics = metrics;
+		this.timelineRecorder = timelineRecorder;
+		this.traceRecorder = traceRecorder;
+		this.runReporter = runReporter;
+		this.leaseCoordinator = leaseCoordinator;
+		this.clock = clock;
 	}
 
 	@Override
 	public void migrate() {
 		config.logConfiguration();
-		stackStatus.setDestinationReadOnly();
+		if (config.getPlanMode().isDryRun()) {
+			// planning and estimating do not change the destination.
+			attemptMigraionWithRetry();
+			return;
+		}
+		startMigration();
 		attemptMigraionWithRetry();
-		if (! config.remainInReadOnlyAfterMigration()) {
+		finishMigration(true);
+	}
+
+	@Override
+	public void runDaemon() {
+		config.logConfiguration();
+		if (!config.isIncrementalMigration()) {
+			logger.warn("Daemon passes are not incremental so each pass verifies every type.");
+		}
+		startMigration();
+		boolean successful = false;
+		try {
+			int passNumber = 0;
+			while (true) {
+				passNumber++;
+				long start = clock.currentTimeMillis();
+				try {
+					logger.info("Starting daemon pass number: " + passNumber + "...");
+					attemptMigraionWithRetry();
+				} catch (AsyncMigrationException e) {
+					// the next pass will try again.
+					logger.error("Daemon pass failed:", e);
+				}
+				long elapsedMs = clock.currentTimeMillis() - start;
+				if (waitForNextPass(getDaemonWaitMs(elapsedMs))) {
+					break;
+				}
+			}
+			logger.info("Final pass requested.");
+			if (!stackStatus.isSourceReadOnly()) {
+				logger.warn("The source is not in READ-ONLY mode so the final pass might not include all changes.");
+			}
+			attemptMigraionWithRetry();
+			successful = true;
+		} finally {
+			// a failed pass must not leave the destination in READ-ONLY mode.
+			finishMigration(successful);
+		}
+	}
+
+	/**
+	 * Set the destination to READ-ONLY mode. A shard first clears its finished
+	 * mark from an earlier run.
+	 */
+	void startMigration() {
+		if (config.getShardCount() > 1) {
+			leaseCoordinator.shardStarted(config.getShardIndex());
+		}
+		stackStatus.setDestinationReadOnly();
+	}
+
+	/**
+	 * Restore the destination to READ-WRITE mode unless configured otherwise.
+	 * When sharded, only the last shard to finish restores READ-WRITE mode, and a
+	 * shard that failed leaves the destination in READ-ONLY mode.
+	 * 
+	 * @param successful Did this worker finish its part of the migration?
+	 */
+	void finishMigration(boolean successful) {
+		if (config.getShardCount() > 1 && !successful) {
+			logger.warn("Destination remains in READ-ONLY mode since this shard did not finish.");
+		} else if (config.getShardCount() > 1
+				&& !leaseCoordinator.shardFinished(config.getShardIndex(), config.getShardCount())) {
+			logger.info("Destination remains in READ-ONLY mode until every shard finishes."
+					+ " Without a shard lease directory, the operator must restore READ-WRITE mode.");
+		} else if (! config.remainInReadOnlyAfterMigration()) {
 			logger.info("Setting the destination to READ-WRITE mode.");
 			stackStatus.setDestinationReadWrite();
 		} else {
@@ -34,23 +133,96 @@ public class MigrationClientImpl implements MigrationClient {
 		}
 	}
 
+	/**
+	 * The time to wait before starting the next daemon pass. The wait fills the
+	 * rest of the interval, but is extended after a long pass so the daemon stays
+	 * within its duty cycle.
+	 * 
+	 * @param elapsedMs The duration of the last pass.
+	 * @return
+	 */
+	long getDaemonWaitMs(long elapsedMs) {
+		long remainingIntervalMs = config.getDaemonPassIntervalMs() - elapsedMs;
+		int dutyCyclePercent = Math.min(100, Math.max(1, config.getDaemonMaxDutyCyclePercent()));
+		long budgetWaitMs = elapsedMs * (100 - dutyCyclePercent) / dutyCyclePercent;
+		return Math.max(0L, Math.max(remainingIntervalMs, budgetWaitMs));
+	}
+
+	/**
+	 * Wait up to the given time, checking for a final pass request.
+	 * 
+	 * @param waitMs
+	 * @return True if a final pass was requested.
+	 */
+	boolean waitForNextPass(long waitMs) {
+		logger.info("Next daemon pass in MS: " + waitMs);
+		long start = clock.currentTimeMillis();
+		while (true) {
+			if (isFinalPassRequested()) {
+				return true;
+			}
+			if (clock.currentTimeMillis() - start >= waitMs) {
+				return false;
+			}
+			try {
+				clock.sleep(DAEMON_SLEEP_TIME_MS);
+			} catch (InterruptedException e) {
+				// interrupt will trigger failure.
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Has the final pass been requested? The request file is consumed.
+	 * 
+	 * @return
+	 */
+	boolean isFinalPassRequested() {
+		Optional<String> path = config.getDaemonFinalPassFilePath();
+		if (!path.isPresent()) {
+			return false;
+		}
+		File file = fileProvider.getFile(path.get());
+		if (!file.exists()) {
+			return false;
+		}
+		if (!file.delete()) {
+			throw new IllegalStateException("Unable to delete the final pass file: " + path.get());
+		}
+		return true;
+	}
+
 	/**
 	 * Attempt the migration. If there is a failure, retry until the max number of
-	 * retries are exhausted.
+	 * retries are exhausted. The job latency is reported, and the trace, metrics
+	 * and run report are exported once the attempts end so each run has a final
+	 * snapshot.
 	 */
 	void attemptMigraionWithRetry() {
-		for (int tryCount = 0; tryCount < config.getMaxRetries(); tryCount++) {
-			try {
-				logger.info("Attempting migration try number: " + tryCount + "...");
-				fullMigration.runFullMigration();
-				logger.info("migration successful");
-				return;
-			} catch (AsyncMigrationException e) {
-				logger.error("Migration Failed:", e);
+		runReporter.beginRun();
+		boolean successful = false;
+		try {
+			for (int tryCount = 0; tryCount < config.getMaxRetries(); tryCount++) {
+				try {
+					logger.info("Attempting migration try number: " + tryCount + "...");
+					runReporter.attemptStarted();
+					fullMigration.runFullMigration();
+					logger.info("migration successful");
+					successful = true;
+					return;
+				} catch (AsyncMigrationException e) {
+					logger.error("Migration Failed:", e);
+				}
 			}
+			// all attempts were exhausted.
+			throw new AsyncMigrationException("Migration failed to run to completion without error.");
+		} finally {
+			timelineRecorder.reportCriticalPath();
+			traceRecorder.export();
+			metrics.export();
+			runReporter.writeReport(successful);
 		}
-		// all attempts were exhausted.
-		throw new AsyncMigrationException("Migration failed to run to completion without error.");
 	}
 
 }
@@ -1,10 +1,16 @@
 package org.sagebionetworks.migration;
 
+import java.util.LinkedList;
+import java.util.List;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.migration.async.SharedSourceJobs;
+import org.sagebionetworks.migration.config.Configuration;
 
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.util.Modules;
 
 /**
  * The main entry point for the migration process
@@ -18,8 +24,20 @@ public class MigrationClientMain {
 		try {
 			// Start IoC
 			Injector injector = Guice.createInjector(new MigrationModule());
+			Configuration config = injector.getInstance(Configuration.class);
+			if (!config.getAdditionalDestinationNames().isEmpty()) {
+				if (config.isDaemonMode()) {
+					throw new IllegalArgumentException("Daemon mode does not support additional destinations.");
+				}
+				migrateAllDestinations(injector, config.getAdditionalDestinationNames());
+				return;
+			}
 			MigrationClient client = injector.getInstance(MigrationClient.class);
-			client.migrate();
+			if (config.isDaemonMode()) {
+				client.runDaemon();
+			} else {
+				client.migrate();
+			}
 		}
 		catch(Throwable e) {
 			logger.error("Migration failed: ",e);
@@ -27,5 +45,31 @@ public class MigrationClientMain {
 			System.exit(-1);
 		}
 	}
+
+	/**
+	 * Migrate the source to the destination and all of the additional
+	 * destinations in a single run. Source jobs are shared by the destinations
+	 * while the source is in READ-ONLY mode.
+	 * 
+	 * @param primary                    The injector of the destination.
+	 * @param additionalDestinationNames
+	 */
+	static void migrateAllDestinations(Injector primary, List<String> additionalDestinationNames) {
+		SharedSourceJobs sharedSourceJobs = primary.getInstance(SharedSourceJobs.class);
+		boolean isSourceReadOnly = primary.getInstance(StackStatusService.class).isSourceReadOnly();
+		if (!isSourceReadOnly) {
+			logger.warn("Source jobs are not shared between destinations since the source is not in READ-ONLY mode.");
+		}
+		sharedSourceJobs.setEnabled(isSourceReadOnly, additionalDestinationNames.size() + 1);
+		List<MigrationClient> clients = new LinkedList<>();
+		clients.add(primary.getInstance(MigrationClient.class));
+		for (String name : additionalDestinationNames) {
+			logger.info("Adding destination: " + name);
+			Injector injector = Guice.createInjector(Modules.override(new MigrationModule())
+					.with(new AdditionalDestinationModule(name, sharedSourceJobs)));
+			clients.add(injector.getInstance(MigrationClient.class));
+		}
+		MultipleDestinationMigration.migrateAll(clients);
+	}
 	
 }
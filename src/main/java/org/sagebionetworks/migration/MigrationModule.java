@@ -1,8 +1,14 @@
 package org.sagebionetworks.migration;
 
+import java.lang.management.ManagementFactory;
 import java.util.Timer;
 import java.util.TimerTask;
 
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.Logger;
+
 import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
 import org.sagebionetworks.migration.async.AsynchronousJobExecutorImpl;
 import org.sagebionetworks.migration.async.BackupJobExecutor;
@@ -11,24 +17,60 @@ import org.sagebionetworks.migration.async.DestinationJobExecutor;
 import org.sagebionetworks.migration.async.DestinationJobExecutorImpl;
 import org.sagebionetworks.migration.async.FutureFactory;
 import org.sagebionetworks.migration.async.FutureFactoryImpl;
+import org.sagebionetworks.migration.async.JobProgressBoard;
+import org.sagebionetworks.migration.async.JobProgressBoardImpl;
 import org.sagebionetworks.migration.async.MigrationDriver;
 import org.sagebionetworks.migration.async.MigrationDriverImpl;
 import org.sagebionetworks.migration.async.MissingFromDestinationBuilder;
 import org.sagebionetworks.migration.async.MissingFromDestinationBuilderImpl;
 import org.sagebionetworks.migration.async.RestoreJobQueue;
+import org.sagebionetworks.migration.async.RestoreJobQueueControl;
 import org.sagebionetworks.migration.async.RestoreJobQueueImpl;
+import org.sagebionetworks.migration.async.SharedSourceJobs;
 import org.sagebionetworks.migration.async.checksum.ChecksumDeltaBuilder;
 import org.sagebionetworks.migration.async.checksum.ChecksumDeltaBuilderImpl;
 import org.sagebionetworks.migration.async.checksum.RangeCheksumBuilder;
 import org.sagebionetworks.migration.async.checksum.RangeCheksumBuilderImpl;
+import org.sagebionetworks.migration.async.checksum.RestoredBinVerifier;
+import org.sagebionetworks.migration.async.checksum.RestoredBinVerifierImpl;
 import org.sagebionetworks.migration.config.Configuration;
 import org.sagebionetworks.migration.config.FileProvider;
 import org.sagebionetworks.migration.config.FileProviderImp;
 import org.sagebionetworks.migration.config.MigrationConfigurationImpl;
 import org.sagebionetworks.migration.config.SystemPropertiesProvider;
+import org.sagebionetworks.migration.estimate.MigrationEstimator;
+import org.sagebionetworks.migration.estimate.MigrationEstimatorImpl;
+import org.sagebionetworks.migration.estimate.MigrationProgress;
+import org.sagebionetworks.migration.estimate.MigrationProgressImpl;
+import org.sagebionetworks.migration.estimate.TypeThroughputStore;
+import org.sagebionetworks.migration.estimate.TypeThroughputStoreImpl;
 import org.sagebionetworks.migration.config.SystemPropertiesProviderImpl;
 import org.sagebionetworks.migration.factory.SynapseClientFactory;
+import org.sagebionetworks.migration.metrics.ChromeTraceRecorder;
+import org.sagebionetworks.migration.metrics.ClientCallRecorder;
+import org.sagebionetworks.migration.metrics.ClientCallRecorderImpl;
+import org.sagebionetworks.migration.metrics.CompositePhaseListener;
+import org.sagebionetworks.migration.metrics.JobEventLog;
+import org.sagebionetworks.migration.metrics.JobEventLogImpl;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorder;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorderImpl;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.metrics.MigrationMetricsImpl;
+import org.sagebionetworks.migration.metrics.PhaseListener;
+import org.sagebionetworks.migration.metrics.RunReporter;
+import org.sagebionetworks.migration.metrics.RunReporterImpl;
+import org.sagebionetworks.migration.metrics.TraceRecorder;
+import org.sagebionetworks.migration.factory.InstrumentedSynapseClientFactory;
 import org.sagebionetworks.migration.factory.SynapseClientFactoryImpl;
+import org.sagebionetworks.migration.plan.MigrationPlanStore;
+import org.sagebionetworks.migration.plan.MigrationPlanStoreImpl;
+import org.sagebionetworks.migration.shard.LeaseFileRestoreLeaseCoordinator;
+import org.sagebionetworks.migration.shard.LocalRestoreLeaseCoordinator;
+import org.sagebionetworks.migration.shard.RestoreLeaseCoordinator;
+import org.sagebionetworks.migration.shard.ShardPartitioner;
+import org.sagebionetworks.migration.shard.ShardPartitionerImpl;
+import org.sagebionetworks.migration.state.MigrationStateStore;
+import org.sagebionetworks.migration.state.MigrationStateStoreImpl;
 import org.sagebionetworks.util.Clock;
 import org.sagebionetworks.util.DefaultClock;
 
@@ -38,9 +80,17 @@ import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import com.amazonaws.services.secretsmanager.AWSSecretsManagerClientBuilder;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import com.google.inject.name.Names;
 
 public class MigrationModule extends AbstractModule {
 
+	/**
+	 * Names the factory of the clients that call the stacks directly.
+	 */
+	public static final String STACK_CLIENTS = "stackClients";
+
 	@Override
 	protected void configure() {
 		bind(LoggerFactory.class).to(LoggerFactoryImpl.class);
@@ -48,7 +98,7 @@ public class MigrationModule extends AbstractModule {
 		bind(FileProvider.class).to(FileProviderImp.class);
 		bind(SystemPropertiesProvider.class).to(SystemPropertiesProviderImpl.class);
 		bind(Configuration.class).to(MigrationConfigurationImpl.class);
-		bind(SynapseClientFactory.class).to(SynapseClientFactoryImpl.class);
+		bind(SynapseClientFactory.class).annotatedWith(Names.named(STACK_CLIENTS)).to(SynapseClientFactoryImpl.class);
 		bind(AsynchronousJobExecutor.class).to(AsynchronousJobExecutorImpl.class);
 		bind(MigrationClient.class).to(MigrationClientImpl.class);
 		bind(FullMigration.class).to(FullMigrationImpl.class);
@@ -62,6 +112,19 @@ public class MigrationModule extends AbstractModule {
 		bind(BackupJobExecutor.class).to(BackupJobExecutorImpl.class);
 		bind(ChecksumDeltaBuilder.class).to(ChecksumDeltaBuilderImpl.class);
 		bind(RangeCheksumBuilder.class).to(RangeCheksumBuilderImpl.class);
+		bind(MigrationStateStore.class).to(MigrationStateStoreImpl.class);
+		bind(RestoredBinVerifier.class).to(RestoredBinVerifierImpl.class);
+		bind(MigrationPlanStore.class).to(MigrationPlanStoreImpl.class);
+		bind(ShardPartitioner.class).to(ShardPartitionerImpl.class);
+		bind(TypeThroughputStore.class).to(TypeThroughputStoreImpl.class);
+		bind(MigrationEstimator.class).to(MigrationEstimatorImpl.class);
+		bind(JobTimelineRecorder.class).to(JobTimelineRecorderImpl.class);
+		bind(TraceRecorder.class).to(ChromeTraceRecorder.class);
+		bind(ClientCallRecorder.class).to(ClientCallRecorderImpl.class);
+		bind(RunReporter.class).to(RunReporterImpl.class);
+		bind(JobEventLog.class).to(JobEventLogImpl.class);
+		// source jobs are only shared when migrating to more than one destination.
+		bind(SharedSourceJobs.class).toInstance(new SharedSourceJobs());
 	}
 	
 	@Provides
@@ -73,22 +136,158 @@ public class MigrationModule extends AbstractModule {
 	}
 	
 	/**
-	 * Setup the RestoreJobQueue with a timer thread.
+	 * The clients of the stacks are decorated to record each call when client
+	 * call accounting is enabled.
+	 * 
+	 * @param stackClients
+	 * @param config
+	 * @param callRecorder
+	 * @param clock
+	 * @return
+	 */
+	@Provides
+	public SynapseClientFactory provideSynapseClientFactory(@Named(STACK_CLIENTS) SynapseClientFactory stackClients,
+			Configuration config, ClientCallRecorder callRecorder, Clock clock) {
+		if (config.isClientCallAccountingEnabled()) {
+			return new InstrumentedSynapseClientFactory(stackClients, callRecorder, clock);
+		}
+		return stackClients;
+	}
+
+	/**
+	 * Each phase of the migration is traced, accounted for and reported.
+	 * 
+	 * @param traceRecorder
+	 * @param callRecorder
+	 * @param runReporter
+	 * @return
+	 */
+	@Provides
+	@Singleton
+	public PhaseListener providePhaseListener(TraceRecorder traceRecorder, ClientCallRecorder callRecorder,
+			RunReporter runReporter) {
+		return new CompositePhaseListener(traceRecorder, callRecorder, runReporter);
+	}
+
+	/**
+	 * Leases are held in files shared by all shards when a lease directory is
+	 * configured, otherwise in memory.
+	 * 
+	 * @param config
+	 * @param fileProvider
+	 * @param clock
+	 * @param loggerFactory
+	 * @return
+	 */
+	@Provides
+	@Singleton
+	public RestoreLeaseCoordinator provideRestoreLeaseCoordinator(Configuration config, FileProvider fileProvider,
+			Clock clock, LoggerFactory loggerFactory) {
+		if (config.getShardLeaseDirectory().isPresent()) {
+			return new LeaseFileRestoreLeaseCoordinator(config, fileProvider, clock, loggerFactory);
+		}
+		return new LocalRestoreLeaseCoordinator();
+	}
+
+	/**
+	 * Setup the RestoreJobQueue with a timer thread. When enabled, the controls
+	 * of the queue are registered with the platform MBean server. There is a
+	 * single queue per injector so the controls are registered once per queue.
 	 * 
+	 * @param config
 	 * @param jobExecutor
+	 * @param leaseCoordinator
+	 * @param throughputStore
+	 * @param progress
+	 * @param metrics
+	 * @param timelineRecorder
+	 * @param clock
 	 * @param loggerFactory
 	 * @return
 	 */
 	@Provides
-	public RestoreJobQueue provideRestorJobQueue(DestinationJobExecutor jobExecutor, LoggerFactory loggerFactory) {
+	@Singleton
+	public RestoreJobQueue provideRestorJobQueue(Configuration config, DestinationJobExecutor jobExecutor,
+			RestoreLeaseCoordinator leaseCoordinator, TypeThroughputStore throughputStore, MigrationProgress progress,
+			MigrationMetrics metrics, JobTimelineRecorder timelineRecorder, Clock clock, LoggerFactory loggerFactory) {
 		// setup the queue to run on a timer.
-		RestoreJobQueueImpl queue = new RestoreJobQueueImpl(jobExecutor, loggerFactory);
+		RestoreJobQueueImpl queue = new RestoreJobQueueImpl(jobExecutor, leaseCoordinator, throughputStore,
+				progress, metrics, timelineRecorder, clock, loggerFactory);
+		if (config.isQueueControlEnabled()) {
+			Logger logger = loggerFactory.getLogger(MigrationModule.class);
+			String destination = config.getDestinationConnectionInfo().getRepositoryEndPoint();
+			try {
+				ObjectName name = new RestoreJobQueueControl(queue)
+						.register(ManagementFactory.getPlatformMBeanServer(), destination);
+				logger.info("Registered the restore job queue control: " + name);
+			} catch (JMException e) {
+				throw new IllegalStateException("Failed to register the restore job queue control", e);
+			}
+		}
 		long delayMS = 100;
-		long periodMS = 1000;
+		long periodMS = RestoreJobQueueImpl.TIMER_PERIOD_MS;
 		MigrationModule.startDaemonTimer(delayMS, periodMS, queue);
 		return queue;
 	}
 	
+	/**
+	 * Setup the MigrationProgress to report on a timer thread.
+	 * 
+	 * @param config
+	 * @param fileProvider
+	 * @param throughputStore
+	 * @param clock
+	 * @param loggerFactory
+	 * @return
+	 */
+	@Provides
+	@Singleton
+	public MigrationProgress provideMigrationProgress(Configuration config, FileProvider fileProvider,
+			TypeThroughputStore throughputStore, Clock clock, LoggerFactory loggerFactory) {
+		MigrationProgressImpl progress = new MigrationProgressImpl(config, fileProvider, throughputStore, clock,
+				loggerFactory);
+		long periodMS = Math.max(1000L, config.getProgressReportIntervalMs());
+		MigrationModule.startDaemonTimer(periodMS, periodMS, progress);
+		return progress;
+	}
+
+	/**
+	 * Setup the JobProgressBoard to log a snapshot of all jobs on its own timer
+	 * thread, so logging never happens while the jobs are polled.
+	 * 
+	 * @param config
+	 * @param clock
+	 * @param loggerFactory
+	 * @return
+	 */
+	@Provides
+	@Singleton
+	public JobProgressBoard provideJobProgressBoard(Configuration config, Clock clock, LoggerFactory loggerFactory) {
+		JobProgressBoardImpl board = new JobProgressBoardImpl(clock, loggerFactory);
+		long periodMS = Math.max(1000L, config.getJobReportIntervalMs());
+		MigrationModule.startDaemonTimer(periodMS, periodMS, board);
+		return board;
+	}
+
+	/**
+	 * Setup the MigrationMetrics to export on a timer thread.
+	 * 
+	 * @param config
+	 * @param fileProvider
+	 * @param clock
+	 * @param loggerFactory
+	 * @return
+	 */
+	@Provides
+	@Singleton
+	public MigrationMetrics provideMigrationMetrics(Configuration config, FileProvider fileProvider, Clock clock,
+			LoggerFactory loggerFactory) {
+		MigrationMetricsImpl metrics = new MigrationMetricsImpl(config, fileProvider, clock, loggerFactory);
+		long periodMS = Math.max(1000L, config.getMetricsExportIntervalMs());
+		MigrationModule.startDaemonTimer(periodMS, periodMS, metrics);
+		return metrics;
+	}
+
 	/**
 	 * Start a daemon timer to fire the passed runnable.
 	 * 
@@ -0,0 +1,55 @@
+package org.sagebionetworks.migration;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Runs the migration of each destination concurrently so the destinations can
+ * share the jobs they run on the source.
+ *
+ */
+public class MultipleDestinationMigration {
+
+	/**
+	 * Migrate each of the given clients concurrently. Every migration runs to
+	 * completion before the first failure is thrown.
+	 * 
+	 * @param clients One client for each destination.
+	 */
+	public static void migrateAll(List<MigrationClient> clients) {
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, clients.size()),
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("destination-%d").build());
+		try {
+			List<Future<?>> migrations = new LinkedList<>();
+			for (MigrationClient client : clients) {
+				migrations.add(executor.submit(client::migrate));
+			}
+			RuntimeException firstFailure = null;
+			for (Future<?> migration : migrations) {
+				try {
+					migration.get();
+				} catch (InterruptedException e) {
+					// interrupt will trigger failure.
+					throw new RuntimeException(e);
+				} catch (ExecutionException e) {
+					if (firstFailure == null) {
+						firstFailure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause()
+								: new RuntimeException(e.getCause());
+					}
+				}
+			}
+			if (firstFailure != null) {
+				throw firstFailure;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
@@ -28,9 +28,31 @@ public interface Reporter {
 	 * @param checksums
 	 */
 	public void reportChecksums(MigrationType type, ResultPair<MigrationTypeChecksum> checksums);
+
+	/**
+	 * Report whether the source and destination of a type match.
+	 * @param type
+	 * @param match
+	 */
+	public void reportChecksumVerdict(MigrationType type, boolean match);
+
+	/**
+	 * Report the number of restore jobs of a single checksum delta pass.
+	 * @param pass The one based number of the pass.
+	 * @param restoreJobCount
+	 */
+	public void reportChecksumDeltaPass(int pass, long restoreJobCount);
+
+	/**
+	 * Report the delta that remains after the last checksum delta pass.
+	 * @param passes The number of passes that were run.
+	 * @param restoreJobCount The number of restore jobs of the last pass.
+	 */
+	public void reportRemainingDelta(int passes, long restoreJobCount);
 	
 	/**
-	 * Report the progress of an AsynchronousJobStatus.
+	 * Report the progress of an AsynchronousJobStatus. The progress of all jobs
+	 * is aggregated and logged periodically.
 	 * @param jobTarget Where the job is run.
 	 * @param jobStatus Status of the job.
 	 */
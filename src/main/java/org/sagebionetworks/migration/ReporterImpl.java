@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.migration.async.JobProgressBoard;
 import org.sagebionetworks.migration.async.JobTarget;
 import org.sagebionetworks.migration.async.ResultPair;
 import org.sagebionetworks.migration.config.Configuration;
@@ -11,9 +12,6 @@ import org.sagebionetworks.migration.utils.MigrationTypeCountDiff;
 import org.sagebionetworks.migration.utils.MigrationTypeMetaDiff;
 import org.sagebionetworks.migration.utils.ToolMigrationUtils;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
-import org.sagebionetworks.repo.model.migration.AdminRequest;
-import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
-import org.sagebionetworks.repo.model.migration.HasMigrationType;
 import org.sagebionetworks.repo.model.migration.MigrationType;
 import org.sagebionetworks.repo.model.migration.MigrationTypeChecksum;
 import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
@@ -26,21 +24,25 @@ public class ReporterImpl implements Reporter {
 	private static final String CHECKSUMS_DO_NOT_MATCH = "CHECKSUMS DO NOT MATCH FOR: ";
 	private static final String CHECKSUMS_MATCH = "Checksums match for: ";
 	private static final String ELASE_MS_TEMPLATE = "%02d:%02d:%02d.%03d";
-	private static final String WAITING_FOR_JOB_TEMPLATE = "%s job: %s state: %s on: %s type: '%s' elapse: %s";
 	static final long ONE_SECOND_MS = 1000L;
 	static final String COUNTDOWN_FORMAT = "Migration will start in %1$s seconds...";
 	static final String STARTING_MIGRATION = "Starting migration...";
+	static final String CHECKSUM_DELTA_PASS_FORMAT = "Checksum delta pass %d restored %d jobs";
+	static final String REMAINING_DELTA_FORMAT = "Remaining delta after %d checksum delta passes: %d restore jobs";
 
 	Configuration configuration;
 	Logger logger;
 	Clock clock;
+	JobProgressBoard jobProgressBoard;
 
 	@Inject
-	public ReporterImpl(Configuration configuration, LoggerFactory loggerFactory, Clock clock) {
+	public ReporterImpl(Configuration configuration, LoggerFactory loggerFactory, Clock clock,
+			JobProgressBoard jobProgressBoard) {
 		super();
 		this.configuration = configuration;
 		this.logger = loggerFactory.getLogger(ReporterImpl.class);
 		this.clock = clock;
+		this.jobProgressBoard = jobProgressBoard;
 	}
 
 	@Override
@@ -75,30 +77,33 @@ public class ReporterImpl implements Reporter {
 	public void reportChecksums(MigrationType type,ResultPair<MigrationTypeChecksum> checksums) {
 		MigrationTypeChecksum source = checksums.getSourceResult();
 		MigrationTypeChecksum destination = checksums.getDestinationResult();
-		if(source.getChecksum().equals(destination.getChecksum())) {
+		reportChecksumVerdict(type, source.getChecksum().equals(destination.getChecksum()));
+	}
+
+	@Override
+	public void reportChecksumVerdict(MigrationType type, boolean match) {
+		if(match) {
 			logger.info(CHECKSUMS_MATCH+type.name());
 		}else {
 			logger.warn(CHECKSUMS_DO_NOT_MATCH+type.name());
 		}
 	}
 
+	@Override
+	public void reportChecksumDeltaPass(int pass, long restoreJobCount) {
+		logger.info(String.format(CHECKSUM_DELTA_PASS_FORMAT, pass, restoreJobCount));
+	}
+
+	@Override
+	public void reportRemainingDelta(int passes, long restoreJobCount) {
+		logger.info(String.format(REMAINING_DELTA_FORMAT, passes, restoreJobCount));
+	}
+
 	@Override
 	public void reportProgress(JobTarget jobTarget,
 			AsynchronousJobStatus jobStatus) {
-		AsyncMigrationRequest request = (AsyncMigrationRequest) jobStatus.getRequestBody();
-		AdminRequest adminRequest = request.getAdminRequest();
-		String typeName = "";
-		if(adminRequest instanceof HasMigrationType) {
-			HasMigrationType hmt = (HasMigrationType) adminRequest;
-			if(hmt.getMigrationType() != null) {
-				typeName = hmt.getMigrationType().name();
-			}
-		}
-		long jobStratedOn = jobStatus.getStartedOn().getTime();
-		long elapse = clock.currentTimeMillis() - jobStratedOn;
-		String elapseString = formatElapse(elapse);
-		logger.info(String.format(WAITING_FOR_JOB_TEMPLATE, typeName, jobStatus.getJobId(), jobStatus.getJobState().name(), jobTarget.name(),
-				adminRequest.getClass().getSimpleName(), elapseString));
+		// the progress of all jobs is logged periodically by the board.
+		jobProgressBoard.recordStatus(jobTarget, jobStatus);
 	}
 	
 	/**
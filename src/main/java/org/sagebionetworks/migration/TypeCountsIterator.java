@@ -0,0 +1,151 @@
+package org.sagebionetworks.migration;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
+import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeCountsRequest;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
+import org.sagebionetworks.repo.model.migration.MigrationTypeCounts;
+import org.sagebionetworks.util.Clock;
+
+/**
+ * Iterates over the counts of groups of types. Up to the maximum number of
+ * count jobs are kept running on both stacks ahead of the caller, and the
+ * results are returned in the order the counts finish, so a slow group does
+ * not hold back the groups started after it.
+ * <p>
+ * A group that includes {@link MigrationType#CHANGE} is only returned after
+ * all of the groups started before it, since the changes must be restored
+ * after all other types.
+ * </p>
+ */
+public class TypeCountsIterator implements Iterator<ResultPair<List<MigrationTypeCount>>> {
+
+	static final long SLEEP_TIME_MS = 500L;
+	static final String TIMEOUT_MESSAGE = "Timeout waiting for the type counts.";
+
+	private final AsynchronousJobExecutor asynchronousJobExecutor;
+	private final Iterator<List<MigrationType>> groups;
+	private final int maxConcurrent;
+	private final Clock clock;
+	private final long timeoutMs;
+	private final LinkedList<RunningGroup> running;
+
+	/**
+	 *
+	 * @param asynchronousJobExecutor
+	 * @param groups                  The groups of types to count with a single
+	 *                                request each.
+	 * @param maxConcurrent           The maximum number of groups counted at the
+	 *                                same time.
+	 * @param clock
+	 * @param timeoutMs               The maximum time to wait for the counts of
+	 *                                a group.
+	 */
+	public TypeCountsIterator(AsynchronousJobExecutor asynchronousJobExecutor, Iterator<List<MigrationType>> groups,
+			int maxConcurrent, Clock clock, long timeoutMs) {
+		super();
+		this.asynchronousJobExecutor = asynchronousJobExecutor;
+		this.groups = groups;
+		this.maxConcurrent = Math.max(1, maxConcurrent);
+		this.clock = clock;
+		this.timeoutMs = timeoutMs;
+		this.running = new LinkedList<>();
+	}
+
+	/**
+	 * Start count jobs until the maximum number of jobs are running.
+	 */
+	void startJobs() {
+		while (running.size() < maxConcurrent && groups.hasNext()) {
+			AsyncMigrationTypeCountsRequest request = new AsyncMigrationTypeCountsRequest();
+			request.setTypes(groups.next());
+			running.add(new RunningGroup(request.getTypes().contains(MigrationType.CHANGE),
+					asynchronousJobExecutor.startSourceJob(request, MigrationTypeCounts.class),
+					asynchronousJobExecutor.startDestionationJob(request, MigrationTypeCounts.class),
+					clock.currentTimeMillis()));
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		startJobs();
+		return !running.isEmpty();
+	}
+
+	@Override
+	public ResultPair<List<MigrationTypeCount>> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		try {
+			RunningGroup group = takeFinishedGroup();
+			ResultPair<List<MigrationTypeCount>> result = new ResultPair<>();
+			result.setSourceResult(group.source.get().getList());
+			result.setDestinationResult(group.destination.get().getList());
+			return result;
+		} catch (Exception e) {
+			throw new AsyncMigrationException(e);
+		} finally {
+			startJobs();
+		}
+	}
+
+	/**
+	 * Wait for the first group with finished counts on both stacks.
+	 *
+	 * @return The group is no longer running.
+	 * @throws InterruptedException
+	 * @throws TimeoutException     If a group does not finish within the
+	 *                              timeout.
+	 */
+	RunningGroup takeFinishedGroup() throws InterruptedException, TimeoutException {
+		while (true) {
+			boolean first = true;
+			for (Iterator<RunningGroup> it = running.iterator(); it.hasNext();) {
+				RunningGroup group = it.next();
+				boolean done = group.isDone();
+				if (done && (first || !group.isBarrier)) {
+					it.remove();
+					return group;
+				}
+				if (!done && clock.currentTimeMillis() - group.startedOn > timeoutMs) {
+					throw new TimeoutException(TIMEOUT_MESSAGE);
+				}
+				first = false;
+			}
+			clock.sleep(SLEEP_TIME_MS);
+		}
+	}
+
+	/**
+	 * The count jobs of a single group.
+	 */
+	static class RunningGroup {
+
+		final boolean isBarrier;
+		final Future<MigrationTypeCounts> source;
+		final Future<MigrationTypeCounts> destination;
+		final long startedOn;
+
+		RunningGroup(boolean isBarrier, Future<MigrationTypeCounts> source, Future<MigrationTypeCounts> destination,
+				long startedOn) {
+			this.isBarrier = isBarrier;
+			this.source = source;
+			this.destination = destination;
+			this.startedOn = startedOn;
+		}
+
+		boolean isDone() {
+			return source.isDone() && destination.isDone();
+		}
+	}
+
+}
@@ -1,5 +1,6 @@
 package org.sagebionetworks.migration;
 
+import java.util.Iterator;
 import java.util.List;
 
 import org.sagebionetworks.migration.async.ResultPair;
@@ -33,6 +34,21 @@ public interface TypeService {
 	public ResultPair<List<MigrationTypeCount>> getMigrationTypeCounts(
 			List<MigrationType> migrationTypes) throws AsyncMigrationException;
 
+	/**
+	 * Get the counts of the given migration types for both the source and
+	 * destination using one request per group of types. The count jobs of the
+	 * first groups are started before this method returns.
+	 * 
+	 * @param migrationTypes
+	 * @param groupSize      The number of types counted by each request.
+	 * @param maxConcurrent  The maximum number of groups counted at the same
+	 *                       time.
+	 * @return The counts of each group in the order the counts finish. A group
+	 *         that includes the changes is returned after all previous groups.
+	 */
+	public Iterator<ResultPair<List<MigrationTypeCount>>> streamMigrationTypeCounts(List<MigrationType> migrationTypes,
+			int groupSize, int maxConcurrent);
+
 	/**
 	 * Get the full table checksum for all of the provided types.
 	 * @param migrationTypes
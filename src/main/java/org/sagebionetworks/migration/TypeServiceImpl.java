@@ -1,6 +1,7 @@
 package org.sagebionetworks.migration;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -9,6 +10,7 @@ import org.sagebionetworks.client.SynapseAdminClient;
 import org.sagebionetworks.client.exceptions.SynapseException;
 import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
 import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.migration.config.Configuration;
 import org.sagebionetworks.migration.factory.SynapseClientFactory;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeChecksumRequest;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeCountsRequest;
@@ -17,8 +19,10 @@ import org.sagebionetworks.repo.model.migration.MigrationTypeChecksum;
 import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
 import org.sagebionetworks.repo.model.migration.MigrationTypeCounts;
 import org.sagebionetworks.repo.model.migration.MigrationTypeNames;
+import org.sagebionetworks.util.Clock;
 
 import com.amazonaws.services.sqs.model.UnsupportedOperationException;
+import com.google.common.collect.Iterators;
 import com.google.inject.Inject;
 
 public class TypeServiceImpl implements TypeService {
@@ -26,12 +30,17 @@ public class TypeServiceImpl implements TypeService {
 	SynapseAdminClient sourceClient;
 	SynapseAdminClient destinationClient;
 	AsynchronousJobExecutor asynchronousJobExecutor;
+	Configuration config;
+	Clock clock;
 	
 	@Inject
-	public TypeServiceImpl(SynapseClientFactory clientFactory, AsynchronousJobExecutor asynchronousJobExecutor) {
+	public TypeServiceImpl(SynapseClientFactory clientFactory, AsynchronousJobExecutor asynchronousJobExecutor,
+			Configuration config, Clock clock) {
 		this.sourceClient = clientFactory.getSourceClient();
 		this.destinationClient = clientFactory.getDestinationClient();
 		this.asynchronousJobExecutor = asynchronousJobExecutor;
+		this.config = config;
+		this.clock = clock;
 	}
 
 	/*
@@ -112,6 +121,17 @@ public class TypeServiceImpl implements TypeService {
 		return result;
 	}
 
+	@Override
+	public Iterator<ResultPair<List<MigrationTypeCount>>> streamMigrationTypeCounts(List<MigrationType> migrationTypes,
+			int groupSize, int maxConcurrent) {
+		TypeCountsIterator iterator = new TypeCountsIterator(asynchronousJobExecutor,
+				Iterators.partition(migrationTypes.iterator(), groupSize), maxConcurrent, clock,
+				config.getWorkerTimeoutMs());
+		// the counts are computed while the caller prepares to consume them.
+		iterator.startJobs();
+		return iterator;
+	}
+
 	@Override
 	public ResultPair<MigrationTypeChecksum> getFullTableChecksums(MigrationType migrationType) {
 		AsyncMigrationTypeChecksumRequest request = new AsyncMigrationTypeChecksumRequest();
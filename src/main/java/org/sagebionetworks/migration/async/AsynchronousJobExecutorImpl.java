@@ -7,22 +7,28 @@ import org.sagebionetworks.client.exceptions.SynapseException;
 import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.migration.config.Configuration;
 import org.sagebionetworks.migration.factory.SynapseClientFactory;
+import org.sagebionetworks.migration.metrics.jfr.JobStartEvent;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.migration.AdminRequest;
 import org.sagebionetworks.repo.model.migration.AdminResponse;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
 
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
 
 /**
- * Simple implementation of an Asynchronous Job Executor.
+ * Simple implementation of an Asynchronous Job Executor. There is a single
+ * executor per destination since it identifies the destination of the shared
+ * source jobs.
  *
  */
+@Singleton
 public class AsynchronousJobExecutorImpl implements AsynchronousJobExecutor{
 
 	SynapseAdminClient sourceClient;
 	SynapseAdminClient destinationClient;
 	FutureFactory futureFactory;
+	SharedSourceJobs sharedSourceJobs;
 	long timeoutMS;
 
 
@@ -30,13 +36,16 @@ public class AsynchronousJobExecutorImpl implements AsynchronousJobExecutor{
 	 * @param sourceClient Client pointing to the source stack.
 	 * @param destClient Client pointing to the destination stack.
 	 * @param timeoutMS job timeout in MS.
+	 * @param sharedSourceJobs Source jobs shared with the migrations of other destinations.
 	 */
 	@Inject
-	public AsynchronousJobExecutorImpl(SynapseClientFactory clientFactory, Configuration config, FutureFactory futureFactory) {
+	public AsynchronousJobExecutorImpl(SynapseClientFactory clientFactory, Configuration config,
+			FutureFactory futureFactory, SharedSourceJobs sharedSourceJobs) {
 		super();
 		this.sourceClient = clientFactory.getSourceClient();
 		this.destinationClient = clientFactory.getDestinationClient();
 		this.futureFactory = futureFactory;
+		this.sharedSourceJobs = sharedSourceJobs;
 		this.timeoutMS = config.getWorkerTimeoutMs();
 	}
 
@@ -102,7 +111,10 @@ public class AsynchronousJobExecutorImpl implements AsynchronousJobExecutor{
 	@Override
 	public <I extends AdminRequest, O extends AdminResponse> Future<O> startSourceJob(I request,
 			Class<? extends O> reponseClass) {
-		return startJob(JobTarget.SOURCE, request, reponseClass);
+		AsynchronousJobStatus jobStatus = sharedSourceJobs.startSourceJob(request, this,
+				() -> startAdminJob(JobTarget.SOURCE, request));
+		// a shared job is tracked by each destination with its own future.
+		return futureFactory.createFuture(jobStatus, JobTarget.SOURCE, sourceClient, reponseClass);
 	}
 
 	/*
@@ -125,14 +137,28 @@ public class AsynchronousJobExecutorImpl implements AsynchronousJobExecutor{
 	 */
 	<I extends AdminRequest, O extends AdminResponse> Future<O> startJob(JobTarget jobTarget, I request,
 			Class<? extends O> reponseClass) {
+		AsynchronousJobStatus jobStatus = startAdminJob(jobTarget, request);
+		// create a future to track the job.
+		return futureFactory.createFuture(jobStatus, jobTarget, getClientForJobTarget(jobTarget), reponseClass);
+	}
+
+	/**
+	 * Start the given request on the client of the given target.
+	 * 
+	 * @param jobTarget
+	 * @param request
+	 * @return The status of the started job.
+	 */
+	AsynchronousJobStatus startAdminJob(JobTarget jobTarget, AdminRequest request) {
 		try {
-			// start the job
 			AsyncMigrationRequest migRequest = new AsyncMigrationRequest();
 			migRequest.setAdminRequest(request);
 			SynapseAdminClient client = getClientForJobTarget(jobTarget);
+			JobStartEvent event = new JobStartEvent();
+			event.begin();
 			AsynchronousJobStatus jobStatus = client.startAdminAsynchronousJob(migRequest);
-			// create a future to track the job.
-			return futureFactory.createFuture(jobStatus, jobTarget, client, reponseClass);
+			event.commitJob(jobTarget, request, jobStatus);
+			return jobStatus;
 		} catch (SynapseException e) {
 			throw new AsyncMigrationException(e);
 		}
@@ -8,6 +8,10 @@ import java.util.concurrent.TimeoutException;
 import org.sagebionetworks.client.SynapseAdminClient;
 import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.migration.Reporter;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorder;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.metrics.jfr.JobCompletionEvent;
+import org.sagebionetworks.migration.metrics.jfr.JobPollEvent;
 import org.sagebionetworks.repo.model.asynch.AsynchJobState;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.migration.AdminResponse;
@@ -24,18 +28,18 @@ public class AsynchronousJobFuture<O extends AdminResponse> implements Future<O>
 
 	// Migration can run 1000s of jobs that take < 1s, we should not spend too much time waiting
 	static final int SLEEP_TIME = 100;
-	// throttles the number of reports.
-	static final long MINIMUM_MS_BETWEEN_REPORTS = 2000L;
 	static final String TIMEOUT_MESSAGE = "Timeout waiting for asynchronous job.";
 	
 	Reporter reporter;
+	MigrationMetrics metrics;
+	JobTimelineRecorder timelineRecorder;
 	Clock clock;
 	AsynchronousJobStatus jobStatus;
 	SynapseAdminClient client;
 	JobTarget jobTarget;
 	String jobName;
 	long defaultTimeoutMS;
-	Long lastReportMS;
+	boolean finishRecorded;
 
 	/**
 	 * Create a future to track a started job.
@@ -44,15 +48,17 @@ public class AsynchronousJobFuture<O extends AdminResponse> implements Future<O>
 	 * @param client
 	 * @param reponseClass
 	 */
-	public AsynchronousJobFuture(Reporter reporter, Clock clock, AsynchronousJobStatus jobStatus, JobTarget jobTarget, SynapseAdminClient client,
-			long defaultTimeoutMS) {
+	public AsynchronousJobFuture(Reporter reporter, MigrationMetrics metrics, JobTimelineRecorder timelineRecorder, Clock clock,
+			AsynchronousJobStatus jobStatus, JobTarget jobTarget, SynapseAdminClient client, long defaultTimeoutMS) {
 		this.reporter = reporter;
+		this.metrics = metrics;
+		this.timelineRecorder = timelineRecorder;
 		this.clock = clock;
 		this.jobStatus = jobStatus;
 		this.jobTarget = jobTarget;
 		this.client = client;
 		this.defaultTimeoutMS = defaultTimeoutMS;
-		this.lastReportMS = 0L;
+		this.finishRecorded = false;
 	}
 
 	@Override
@@ -72,16 +78,24 @@ public class AsynchronousJobFuture<O extends AdminResponse> implements Future<O>
 		try {
 			if (AsynchJobState.PROCESSING == this.jobStatus.getJobState()) {
 				// fetch the current status
+				JobPollEvent poll = new JobPollEvent();
+				poll.begin();
 				this.jobStatus = this.client.getAdminAsynchronousJobStatus(this.jobStatus.getJobId());
+				poll.commitJob(jobTarget, jobStatus);
+				// each fetched status is aggregated and reported periodically by the reporter.
+				reporter.reportProgress(jobTarget, jobStatus);
 			}
 			// a job is done if it is not processing.
 			long now = clock.currentTimeMillis();
-			if(now - lastReportMS >= MINIMUM_MS_BETWEEN_REPORTS) {
-				lastReportMS = now;
-				reporter.reportProgress(jobTarget, jobStatus);
+			boolean isDone = AsynchJobState.PROCESSING != this.jobStatus.getJobState();
+			if (isDone && !finishRecorded) {
+				// the first poll that observed the final state.
+				finishRecorded = true;
+				metrics.jobFinished(jobTarget, jobStatus, now);
+				timelineRecorder.jobDetected(jobTarget, jobStatus, now);
+				JobCompletionEvent.record(jobTarget, jobStatus, now);
 			}
-
-			return AsynchJobState.PROCESSING != this.jobStatus.getJobState();
+			return isDone;
 		} catch (Exception e) {
 			throw new AsyncMigrationException(e);
 		}
@@ -2,6 +2,7 @@ package org.sagebionetworks.migration.async;
 
 import java.util.Iterator;
 
+import org.sagebionetworks.migration.plan.PlannedRange;
 import org.sagebionetworks.repo.model.migration.MigrationType;
 
 /**
@@ -12,6 +13,8 @@ public interface BackupJobExecutor {
 
 	/**
 	 * Create as many backup requests as is needed to backup the given range.
+	 * In {@link org.sagebionetworks.migration.config.PlanMode#PLAN} mode the
+	 * returned jobs are {@link PlannedBackupJob}s and nothing is backed up.
 	 * 
 	 * @param type
 	 * @param minimumId
@@ -19,4 +22,25 @@ public interface BackupJobExecutor {
 	 * @return
 	 */
 	public Iterator<DestinationJob> executeBackupJob(MigrationType type, long minimumId, long maximumId);
+
+	/**
+	 * Start calculating the optimal backup ranges of the given range on the
+	 * source and return without waiting. The returned iterator waits for the
+	 * calculation the first time it is used.
+	 * 
+	 * @param type
+	 * @param minimumId
+	 * @param maximumId
+	 * @return
+	 */
+	public Iterator<DestinationJob> startBackupJob(MigrationType type, long minimumId, long maximumId);
+
+	/**
+	 * Backup each of the given planned ranges, in order, as the returned
+	 * iterator is consumed.
+	 * 
+	 * @param ranges
+	 * @return
+	 */
+	public Iterator<DestinationJob> executePlannedBackups(Iterator<PlannedRange> ranges);
 }
@@ -3,8 +3,11 @@ package org.sagebionetworks.migration.async;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Future;
 
+import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.plan.PlannedRange;
 import org.sagebionetworks.repo.model.daemon.BackupAliasType;
 import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
 import org.sagebionetworks.repo.model.migration.CalculateOptimalRangeRequest;
@@ -12,6 +15,7 @@ import org.sagebionetworks.repo.model.migration.CalculateOptimalRangeResponse;
 import org.sagebionetworks.repo.model.migration.IdRange;
 import org.sagebionetworks.repo.model.migration.MigrationType;
 
+import com.google.common.collect.Iterators;
 import com.google.inject.Inject;
 
 public class BackupJobExecutorImpl implements BackupJobExecutor {
@@ -29,17 +33,79 @@ public class BackupJobExecutorImpl implements BackupJobExecutor {
 	@Override
 	public Iterator<DestinationJob> executeBackupJob(MigrationType type, long minimumId, long maximumId) {
 		// Request the optimal ranges for this range from the source.
+		CalculateOptimalRangeResponse rangeResponse = asynchronousJobExecutor.executeSourceJob(
+				createRangeRequest(type, minimumId, maximumId), CalculateOptimalRangeResponse.class);
+		return createBackupIterator(type, minimumId, maximumId, rangeResponse);
+	}
+
+	@Override
+	public Iterator<DestinationJob> startBackupJob(MigrationType type, long minimumId, long maximumId) {
+		Future<CalculateOptimalRangeResponse> rangeFuture = asynchronousJobExecutor
+				.startSourceJob(createRangeRequest(type, minimumId, maximumId), CalculateOptimalRangeResponse.class);
+		// The backup requests cannot be created until the ranges are known.
+		return Iterators.concat(Iterators.transform(Iterators.singletonIterator(rangeFuture), future -> {
+			try {
+				return createBackupIterator(type, minimumId, maximumId, future.get());
+			} catch (Exception e) {
+				throw new AsyncMigrationException(e);
+			}
+		}));
+	}
+
+	/**
+	 * Create a request for the optimal ranges of the given range.
+	 * 
+	 * @param type
+	 * @param minimumId
+	 * @param maximumId
+	 * @return
+	 */
+	CalculateOptimalRangeRequest createRangeRequest(MigrationType type, long minimumId, long maximumId) {
 		CalculateOptimalRangeRequest rangeRequest = new CalculateOptimalRangeRequest();
 		rangeRequest.setMigrationType(type);
 		rangeRequest.setMinimumId(minimumId);
 		rangeRequest.setMaximumId(maximumId);
 		rangeRequest.setOptimalRowsPerRange((long) configuration.getMaximumBackupBatchSize());
-		CalculateOptimalRangeResponse rangeResponse = asynchronousJobExecutor.executeSourceJob(rangeRequest,
-				CalculateOptimalRangeResponse.class);
+		return rangeRequest;
+	}
+
+	/**
+	 * Create an iterator that backs up each of the optimal ranges of the given
+	 * range.
+	 * 
+	 * @param type
+	 * @param minimumId
+	 * @param maximumId
+	 * @param rangeResponse
+	 * @return
+	 */
+	Iterator<DestinationJob> createBackupIterator(MigrationType type, long minimumId, long maximumId,
+			CalculateOptimalRangeResponse rangeResponse) {
 		// Create contiguous backup requests based on the optimal ranges.
 		List<BackupTypeRangeRequest> requests = createContiguousBackupRangeRequests(configuration.getBackupAliasType(),
 				configuration.getMaximumBackupBatchSize(), type, minimumId, maximumId, rangeResponse.getRanges());
-		return new BackupRangeIterator(asynchronousJobExecutor, requests);
+		if (configuration.getPlanMode().isDryRun()) {
+			// each optimal range holds at most one batch of rows.
+			boolean isEmpty = rangeResponse.getRanges().isEmpty();
+			long batchSize = configuration.getMaximumBackupBatchSize();
+			return Iterators.transform(requests.iterator(),
+					request -> new PlannedBackupJob(new PlannedRange(type, request.getMinimumId(),
+							request.getMaximumId(), isEmpty ? 0L
+									: Math.min(batchSize, request.getMaximumId() - request.getMinimumId() + 1))));
+		}
+		return new BackupRangeIterator(asynchronousJobExecutor, requests.iterator(), configuration.getBackupPrefetchDepth());
+	}
+
+	@Override
+	public Iterator<DestinationJob> executePlannedBackups(Iterator<PlannedRange> ranges) {
+		Iterator<BackupTypeRangeRequest> requests = Iterators.transform(ranges, range -> {
+			BackupTypeRangeRequest request = createRequest(configuration.getBackupAliasType(),
+					configuration.getMaximumBackupBatchSize(), range.getType());
+			request.setMinimumId(range.getMinimumId());
+			request.setMaximumId(range.getMaximumId());
+			return request;
+		});
+		return new BackupRangeIterator(asynchronousJobExecutor, requests, configuration.getBackupPrefetchDepth());
 	}
 
 	/**
@@ -1,35 +1,75 @@
 package org.sagebionetworks.migration.async;
 
 import java.util.Iterator;
-import java.util.List;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Future;
 
+import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
 import org.sagebionetworks.repo.model.migration.BackupTypeResponse;
 
 /**
- * Executes the given list of backup requests on demand.
+ * Executes the given backup requests on demand. Up to the prefetch
+ * depth of backups are kept running on the source ahead of the caller, and the
+ * restore jobs are returned in the order of the requests.
  *
  */
 public class BackupRangeIterator implements Iterator<DestinationJob> {
 
 	AsynchronousJobExecutor asynchronousJobExecutor;
 	Iterator<BackupTypeRangeRequest> requestIterator;
+	int prefetchDepth;
+	LinkedList<BackupTypeRangeRequest> runningRequests;
+	LinkedList<Future<BackupTypeResponse>> runningBackups;
 
-	public BackupRangeIterator(AsynchronousJobExecutor asynchronousJobExecutor, List<BackupTypeRangeRequest> backupRequests) {
+	/**
+	 * 
+	 * @param asynchronousJobExecutor
+	 * @param backupRequests
+	 * @param prefetchDepth           The number of backups started ahead of the
+	 *                                backup that is requested.
+	 */
+	public BackupRangeIterator(AsynchronousJobExecutor asynchronousJobExecutor, Iterator<BackupTypeRangeRequest> backupRequests, int prefetchDepth) {
 		this.asynchronousJobExecutor = asynchronousJobExecutor;
-		this.requestIterator = backupRequests.iterator();
+		this.requestIterator = backupRequests;
+		this.prefetchDepth = Math.max(0, prefetchDepth);
+		this.runningRequests = new LinkedList<>();
+		this.runningBackups = new LinkedList<>();
+	}
+
+	/**
+	 * Start backups until the requested backup and the prefetch depth are
+	 * running.
+	 */
+	void startBackups() {
+		while (runningBackups.size() <= prefetchDepth && requestIterator.hasNext()) {
+			BackupTypeRangeRequest rangeRequest = requestIterator.next();
+			runningRequests.add(rangeRequest);
+			runningBackups.add(asynchronousJobExecutor.startSourceJob(rangeRequest, BackupTypeResponse.class));
+		}
 	}
 
 	@Override
 	public boolean hasNext() {
-		return requestIterator.hasNext();
+		return !runningBackups.isEmpty() || requestIterator.hasNext();
 	}
 
 	@Override
 	public DestinationJob next() {
-		BackupTypeRangeRequest rangeRequest = requestIterator.next();
-		// execute the backup job on the source
-		BackupTypeResponse reponse = asynchronousJobExecutor.executeSourceJob(rangeRequest, BackupTypeResponse.class);
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		startBackups();
+		BackupTypeRangeRequest rangeRequest = runningRequests.removeFirst();
+		Future<BackupTypeResponse> backup = runningBackups.removeFirst();
+		// wait for the backup job on the source
+		BackupTypeResponse reponse;
+		try {
+			reponse = backup.get();
+		} catch (Exception e) {
+			throw new AsyncMigrationException(e);
+		}
 		// return the restore job
 		return new RestoreDestinationJob(rangeRequest.getMigrationType(), reponse.getBackupFileKey(), rangeRequest.getMinimumId(), rangeRequest.getMaximumId());
 	}
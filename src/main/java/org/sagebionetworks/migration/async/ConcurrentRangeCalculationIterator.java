@@ -0,0 +1,67 @@
+package org.sagebionetworks.migration.async;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the jobs of each type in order, while the optimal backup ranges
+ * of up to the maximum number of types are calculated on the source ahead of
+ * the caller.
+ *
+ */
+public class ConcurrentRangeCalculationIterator implements Iterator<DestinationJob> {
+
+	private final Iterator<MissingFromDestinationIterator> types;
+	private final int maxConcurrent;
+	private final LinkedList<MissingFromDestinationIterator> started;
+
+	/**
+	 * 
+	 * @param types         The iterator of each type in the order they should be
+	 *                      migrated.
+	 * @param maxConcurrent The maximum number of types with started range
+	 *                      calculations.
+	 */
+	public ConcurrentRangeCalculationIterator(Iterator<MissingFromDestinationIterator> types, int maxConcurrent) {
+		super();
+		this.types = types;
+		this.maxConcurrent = Math.max(1, maxConcurrent);
+		this.started = new LinkedList<>();
+	}
+
+	/**
+	 * Start the range calculations of types until the maximum number of types
+	 * are started.
+	 */
+	void startTypes() {
+		while (started.size() < maxConcurrent && types.hasNext()) {
+			MissingFromDestinationIterator type = types.next();
+			type.start();
+			started.add(type);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		startTypes();
+		while (!started.isEmpty()) {
+			if (started.getFirst().hasNext()) {
+				return true;
+			}
+			// the current type is done so the next type can be started.
+			started.removeFirst();
+			startTypes();
+		}
+		return false;
+	}
+
+	@Override
+	public DestinationJob next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return started.getFirst().next();
+	}
+
+}
@@ -3,6 +3,7 @@ package org.sagebionetworks.migration.async;
 import java.util.concurrent.Future;
 
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.state.MigrationStateStore;
 import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
 import org.sagebionetworks.repo.model.migration.RestoreTypeResponse;
 
@@ -12,12 +13,15 @@ public class DestinationJobExecutorImpl implements DestinationJobExecutor {
 	
 	Configuration config;
 	AsynchronousJobExecutor asynchronousJobExecutor;
+	MigrationStateStore stateStore;
 	
 	@Inject
-	public DestinationJobExecutorImpl(Configuration config, AsynchronousJobExecutor asynchronousJobExecutor) {
+	public DestinationJobExecutorImpl(Configuration config, AsynchronousJobExecutor asynchronousJobExecutor,
+			MigrationStateStore stateStore) {
 		super();
 		this.config = config;
 		this.asynchronousJobExecutor = asynchronousJobExecutor;
+		this.stateStore = stateStore;
 	}
 
 	@Override
@@ -25,6 +29,9 @@ public class DestinationJobExecutorImpl implements DestinationJobExecutor {
 		if(job instanceof RestoreDestinationJob) {
 			// start a restore job.
 			RestoreDestinationJob restoreJob = (RestoreDestinationJob) job;
+			// any cached destination checksum of the range is no longer valid.
+			stateStore.invalidateDestinationRange(restoreJob.getMigrationType(), restoreJob.getMinimumId(),
+					restoreJob.getMaximumId());
 			RestoreTypeRequest restoreRequest = new RestoreTypeRequest();
 			restoreRequest.setAliasType(config.getBackupAliasType());
 			restoreRequest.setBatchSize((long) config.getMaximumBackupBatchSize());
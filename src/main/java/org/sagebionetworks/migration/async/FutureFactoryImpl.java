@@ -5,6 +5,8 @@ import java.util.concurrent.Future;
 import org.sagebionetworks.client.SynapseAdminClient;
 import org.sagebionetworks.migration.Reporter;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorder;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.migration.AdminResponse;
 import org.sagebionetworks.repo.model.migration.MigrationType;
@@ -15,13 +17,18 @@ import com.google.inject.Inject;
 public class FutureFactoryImpl implements FutureFactory {
 	
 	Reporter reporter;
+	MigrationMetrics metrics;
+	JobTimelineRecorder timelineRecorder;
 	Clock clock;
 	Configuration configuration;
 
 	@Inject
-	public FutureFactoryImpl(Reporter reporter, Clock clock, Configuration configuration) {
+	public FutureFactoryImpl(Reporter reporter, MigrationMetrics metrics, JobTimelineRecorder timelineRecorder,
+			Clock clock, Configuration configuration) {
 		super();
 		this.reporter = reporter;
+		this.metrics = metrics;
+		this.timelineRecorder = timelineRecorder;
 		this.clock = clock;
 		this.configuration = configuration;
 	}
@@ -29,8 +36,11 @@ public class FutureFactoryImpl implements FutureFactory {
 	@Override
 	public <O extends AdminResponse> Future<O> createFuture(AsynchronousJobStatus jobStatus, JobTarget jobTarget,
 			SynapseAdminClient client, Class<? extends O> reponseClass) {
+		metrics.jobStarted(jobTarget, jobStatus);
+		timelineRecorder.jobRequested(jobTarget, jobStatus);
 		// create a new future for each call.
-		return new AsynchronousJobFuture<O>(reporter, clock, jobStatus, jobTarget, client, configuration.getWorkerTimeoutMs());
+		return new AsynchronousJobFuture<O>(reporter, metrics, timelineRecorder, clock, jobStatus, jobTarget, client,
+				configuration.getWorkerTimeoutMs());
 	}
 
 }
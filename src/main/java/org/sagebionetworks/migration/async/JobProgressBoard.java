@@ -0,0 +1,20 @@
+package org.sagebionetworks.migration.async;
+
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+
+/**
+ * Aggregates the latest status of each asynchronous job so that a single
+ * snapshot of all jobs is logged periodically, instead of one line per job.
+ *
+ */
+public interface JobProgressBoard {
+
+	/**
+	 * Record the latest fetched status of a job. This is called while polling
+	 * the jobs, so it only updates the aggregate and never logs.
+	 * 
+	 * @param jobTarget Where the job is run.
+	 * @param jobStatus
+	 */
+	void recordStatus(JobTarget jobTarget, AsynchronousJobStatus jobStatus);
+}
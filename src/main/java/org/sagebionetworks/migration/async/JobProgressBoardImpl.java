@@ -0,0 +1,195 @@
+package org.sagebionetworks.migration.async;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.ReporterImpl;
+import org.sagebionetworks.migration.metrics.jfr.JobEvents;
+import org.sagebionetworks.repo.model.asynch.AsynchJobState;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.util.Clock;
+
+/**
+ * Keeps the running jobs and the number of finished jobs of each type in
+ * concurrent maps, so recording a status from the polling threads is cheap and
+ * never blocks. The snapshot is built and logged by the timer thread that
+ * calls {@link #run()}; it may be slightly behind the polling threads.
+ * <p>
+ * Nothing is logged while no jobs are running and none finished since the last
+ * snapshot.
+ * </p>
+ */
+public class JobProgressBoardImpl implements JobProgressBoard, Runnable {
+
+	static final String UNTYPED = "untyped";
+
+	Clock clock;
+	Logger logger;
+	/*
+	 * The running jobs by job ID.
+	 */
+	ConcurrentMap<String, RunningJob> runningJobs;
+	/*
+	 * The finished jobs by type name.
+	 */
+	ConcurrentMap<String, FinishedCounts> finishedJobs;
+	long lastSnapshotMs;
+	long lastFinishedCount;
+
+	public JobProgressBoardImpl(Clock clock, LoggerFactory loggerFactory) {
+		super();
+		this.clock = clock;
+		this.logger = loggerFactory.getLogger(JobProgressBoardImpl.class);
+		this.runningJobs = new ConcurrentHashMap<>();
+		this.finishedJobs = new ConcurrentHashMap<>();
+		this.lastSnapshotMs = clock.currentTimeMillis();
+		this.lastFinishedCount = 0L;
+	}
+
+	@Override
+	public void recordStatus(JobTarget jobTarget, AsynchronousJobStatus jobStatus) {
+		if (AsynchJobState.PROCESSING == jobStatus.getJobState()) {
+			// the details of a running job do not change.
+			runningJobs.computeIfAbsent(jobStatus.getJobId(), id -> new RunningJob(id, jobTarget,
+					getTypeName(jobStatus), getRequestName(jobStatus),
+					jobStatus.getStartedOn() != null ? jobStatus.getStartedOn().getTime() : clock.currentTimeMillis()));
+		} else {
+			runningJobs.remove(jobStatus.getJobId());
+			FinishedCounts counts = finishedJobs.computeIfAbsent(getTypeName(jobStatus), k -> new FinishedCounts());
+			if (AsynchJobState.FAILED == jobStatus.getJobState()) {
+				counts.failed.incrementAndGet();
+			} else {
+				counts.completed.incrementAndGet();
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		buildSnapshot(clock.currentTimeMillis()).ifPresent(logger::info);
+	}
+
+	/**
+	 * Build the snapshot of all jobs and start the next rate interval.
+	 * 
+	 * @param nowMs
+	 * @return {@link Optional#empty()} when no jobs ran since the last snapshot.
+	 */
+	synchronized Optional<String> buildSnapshot(long nowMs) {
+		Map<String, TypeSnapshot> types = new TreeMap<>();
+		Map<JobTarget, Integer> runningByTarget = new EnumMap<>(JobTarget.class);
+		RunningJob oldest = null;
+		for (RunningJob job : runningJobs.values()) {
+			types.computeIfAbsent(job.typeName, k -> new TypeSnapshot()).running++;
+			runningByTarget.merge(job.target, 1, Integer::sum);
+			if (oldest == null || job.startedOnMs < oldest.startedOnMs) {
+				oldest = job;
+			}
+		}
+		long completed = 0L;
+		long failed = 0L;
+		for (Map.Entry<String, FinishedCounts> entry : finishedJobs.entrySet()) {
+			TypeSnapshot type = types.computeIfAbsent(entry.getKey(), k -> new TypeSnapshot());
+			type.completed = entry.getValue().completed.get();
+			type.failed = entry.getValue().failed.get();
+			completed += type.completed;
+			failed += type.failed;
+		}
+		long finishedSinceLast = completed + failed - lastFinishedCount;
+		long intervalMs = nowMs - lastSnapshotMs;
+		lastFinishedCount = completed + failed;
+		lastSnapshotMs = nowMs;
+		if (runningByTarget.isEmpty() && finishedSinceLast == 0L) {
+			return Optional.empty();
+		}
+
+		StringBuilder builder = new StringBuilder("Jobs running: ");
+		builder.append(runningJobs.size()).append(' ').append(runningByTarget);
+		builder.append(" completed: ").append(completed);
+		builder.append(" failed: ").append(failed);
+		builder.append(" rate: ").append(formatRate(finishedSinceLast, intervalMs)).append(" jobs/s");
+		if (oldest != null) {
+			builder.append(" oldest: ").append(oldest.typeName).append(' ').append(oldest.requestName);
+			builder.append(" job: ").append(oldest.jobId).append(" on: ").append(oldest.target);
+			builder.append(" elapse: ").append(ReporterImpl.formatElapse(Math.max(0L, nowMs - oldest.startedOnMs)));
+		}
+		builder.append(" by type:");
+		types.forEach((name, type) -> builder.append(' ').append(name).append(" (running: ").append(type.running)
+				.append(" completed: ").append(type.completed).append(" failed: ").append(type.failed).append(')'));
+		return Optional.of(builder.toString());
+	}
+
+	/**
+	 * @param count
+	 * @param elapsedMs
+	 * @return The count per second with one decimal.
+	 */
+	static String formatRate(long count, long elapsedMs) {
+		if (elapsedMs <= 0L) {
+			return "0.0";
+		}
+		long tenths = Math.round(count * 10000.0 / elapsedMs);
+		return (tenths / 10) + "." + (tenths % 10);
+	}
+
+	/**
+	 * @param jobStatus
+	 * @return The name of the MigrationType of the job's request, or
+	 *         {@link #UNTYPED} when the request has no type.
+	 */
+	static String getTypeName(AsynchronousJobStatus jobStatus) {
+		String type = JobEvents.getMigrationType(jobStatus);
+		return type != null ? type : UNTYPED;
+	}
+
+	static String getRequestName(AsynchronousJobStatus jobStatus) {
+		String request = JobEvents.getRequestName(jobStatus);
+		return request != null ? request : UNTYPED;
+	}
+
+	/**
+	 * A job that was last seen processing.
+	 */
+	static class RunningJob {
+
+		final String jobId;
+		final JobTarget target;
+		final String typeName;
+		final String requestName;
+		final long startedOnMs;
+
+		RunningJob(String jobId, JobTarget target, String typeName, String requestName, long startedOnMs) {
+			this.jobId = jobId;
+			this.target = target;
+			this.typeName = typeName;
+			this.requestName = requestName;
+			this.startedOnMs = startedOnMs;
+		}
+	}
+
+	/**
+	 * The number of finished jobs of a single type.
+	 */
+	static class FinishedCounts {
+
+		final AtomicLong completed = new AtomicLong();
+		final AtomicLong failed = new AtomicLong();
+	}
+
+	/**
+	 * The jobs of a single type in one snapshot.
+	 */
+	static class TypeSnapshot {
+
+		int running;
+		long completed;
+		long failed;
+	}
+}
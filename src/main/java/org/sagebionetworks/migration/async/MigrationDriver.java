@@ -1,5 +1,6 @@
 package org.sagebionetworks.migration.async;
 
+import java.util.Iterator;
 import java.util.List;
 
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
@@ -13,4 +14,35 @@ public interface MigrationDriver {
 	 */
 	void migratePrimaryTypes(List<TypeToMigrateMetadata> primaryTypes);
 
+	/**
+	 * Migrate the common primary types Asynchronously. Phase one starts on each
+	 * group of types as soon as it is read from the given iterator, so the
+	 * iterator can block until the counts of the next group are available. The
+	 * types are prioritized within each group.
+	 * 
+	 * @param primaryTypeGroups
+	 */
+	void migratePrimaryTypes(Iterator<List<TypeToMigrateMetadata>> primaryTypeGroups);
+
+	/**
+	 * Find the backup ranges of both phases for the common primary types and
+	 * write them to the migration plan without changing the destination.
+	 * 
+	 * @param primaryTypes
+	 */
+	void planPrimaryTypes(List<TypeToMigrateMetadata> primaryTypes);
+
+	/**
+	 * Backup and restore each range of the migration plan in order.
+	 */
+	void executePlan();
+
+	/**
+	 * Find the jobs of the given types, like a plan, and report an estimate of
+	 * the migration without changing the destination.
+	 * 
+	 * @param primaryTypes
+	 */
+	void estimatePrimaryTypes(List<TypeToMigrateMetadata> primaryTypes);
+
 }
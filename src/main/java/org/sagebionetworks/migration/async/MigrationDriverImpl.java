@@ -1,13 +1,31 @@
 package org.sagebionetworks.migration.async;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import org.sagebionetworks.migration.Reporter;
 import org.sagebionetworks.migration.async.checksum.ChecksumDeltaBuilder;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.estimate.MigrationEstimator;
+import org.sagebionetworks.migration.estimate.MigrationProgress;
+import org.sagebionetworks.migration.estimate.TypeThroughputStore;
+import org.sagebionetworks.migration.metrics.PhaseListener;
+import org.sagebionetworks.migration.metrics.TraceSpan;
+import org.sagebionetworks.migration.plan.MigrationPlanStore;
+import org.sagebionetworks.migration.plan.PlannedRange;
+import org.sagebionetworks.migration.state.MigrationStateStore;
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
 import org.sagebionetworks.util.Clock;
 
+import com.google.common.collect.Iterators;
 import com.google.inject.Inject;
 
 /**
@@ -18,20 +36,42 @@ import com.google.inject.Inject;
 public class MigrationDriverImpl implements MigrationDriver {
 
 	public static final long SLEEP_TIME_MS = 1000L;
+	public static final String PHASE_MISSING = "missing from destination";
+	public static final String PHASE_CHECKSUM = "checksum delta pass ";
+	public static final String PHASE_PLAN = "migration plan";
 	Configuration config;
 	MissingFromDestinationBuilder missingFromDestinationBuilder;
 	ChecksumDeltaBuilder checksumChangeBuilder;
 	RestoreJobQueue restoreJobQueue;
+	MigrationStateStore stateStore;
+	MigrationPlanStore planStore;
+	BackupJobExecutor backupJobExecutor;
+	MigrationEstimator estimator;
+	TypeThroughputStore throughputStore;
+	MigrationProgress progress;
+	PhaseListener phaseListener;
+	Reporter reporter;
 	Clock clock;
 
 	@Inject
 	public MigrationDriverImpl(Configuration config, MissingFromDestinationBuilder missingFromDestinationBuilder,
-			ChecksumDeltaBuilder checksumChangeBuilder, RestoreJobQueue restoreJobQueue, Clock clock) {
+			ChecksumDeltaBuilder checksumChangeBuilder, RestoreJobQueue restoreJobQueue,
+			MigrationStateStore stateStore, MigrationPlanStore planStore, BackupJobExecutor backupJobExecutor,
+			MigrationEstimator estimator, TypeThroughputStore throughputStore, MigrationProgress progress,
+			PhaseListener phaseListener, Reporter reporter, Clock clock) {
 		super();
 		this.config = config;
 		this.missingFromDestinationBuilder = missingFromDestinationBuilder;
 		this.checksumChangeBuilder = checksumChangeBuilder;
 		this.restoreJobQueue = restoreJobQueue;
+		this.stateStore = stateStore;
+		this.planStore = planStore;
+		this.backupJobExecutor = backupJobExecutor;
+		this.estimator = estimator;
+		this.throughputStore = throughputStore;
+		this.progress = progress;
+		this.phaseListener = phaseListener;
+		this.reporter = reporter;
 		this.clock = clock;
 	}
 
@@ -44,36 +84,228 @@ public class MigrationDriverImpl implements MigrationDriver {
 	 */
 	@Override
 	public void migratePrimaryTypes(List<TypeToMigrateMetadata> primaryTypes) {
+		// The persisted state is invalid once data is restored.
+		stateStore.beginRun();
+		List<TypeToMigrateMetadata> prioritized = prioritizeTypes(primaryTypes);
 		/*
 		 * Phase One: Find and process all data that is missing from the destination.
 		 */
-		findAndProcessJobs(missingFromDestinationBuilder.buildDestinationJobs(primaryTypes));
+		findAndProcessJobs(PHASE_MISSING, missingFromDestinationBuilder.buildDestinationJobs(prioritized));
+		findAndProcessChecksumDeltas(prioritized);
+	}
+
+	/**
+	 * Order the types so the restores of the types that are expected to take the
+	 * longest are found first. Types without a known throughput, and
+	 * {@link MigrationType#CHANGE} which waits for all other types, keep their
+	 * position, so the order is unchanged without a history.
+	 * 
+	 * @param primaryTypes
+	 * @return
+	 */
+	List<TypeToMigrateMetadata> prioritizeTypes(List<TypeToMigrateMetadata> primaryTypes) {
+		List<TypeToMigrateMetadata> prioritized = new ArrayList<>(primaryTypes);
+		List<Integer> positions = new ArrayList<>();
+		List<TypeToMigrateMetadata> known = new ArrayList<>();
+		Map<MigrationType, Long> expectedMs = new HashMap<>();
+		for (int i = 0; i < primaryTypes.size(); i++) {
+			TypeToMigrateMetadata type = primaryTypes.get(i);
+			if (MigrationType.CHANGE == type.getType()) {
+				continue;
+			}
+			Optional<Long> expected = getExpectedRestoreMs(type);
+			if (expected.isPresent()) {
+				positions.add(i);
+				known.add(type);
+				expectedMs.put(type.getType(), expected.get());
+			}
+		}
+		known.sort(Comparator.comparing((TypeToMigrateMetadata t) -> expectedMs.get(t.getType())).reversed());
+		for (int i = 0; i < positions.size(); i++) {
+			prioritized.set(positions.get(i), known.get(i));
+		}
+		return prioritized;
+	}
+
+	/**
+	 * The expected time to restore the rows of a type that are above the
+	 * destination's maximum ID at the historical throughput of the type.
+	 * 
+	 * @param type
+	 * @return {@link Optional#empty()} when the throughput of the type is unknown.
+	 */
+	Optional<Long> getExpectedRestoreMs(TypeToMigrateMetadata type) {
+		long rows = estimateMissingRows(type);
+		return throughputStore.getRowsPerSecond(type.getType()).map(rate -> Math.round(rows * 1000.0 / rate));
+	}
+
+	/**
+	 * Estimate the number of source rows above the destination's maximum ID. The
+	 * IDs of a type are rarely dense, so the source's row count is spread evenly
+	 * over the source's ID range. When the row count is unknown, such as for the
+	 * range of a shard, each missing ID is counted as a row.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	static long estimateMissingRows(TypeToMigrateMetadata type) {
+		if (type.getSrcMaxId() == null) {
+			return 0L;
+		}
+		long srcMinId = type.getSrcMinId() != null ? type.getSrcMinId() : 0L;
+		long firstMissingId = type.getDestMaxId() != null ? Math.max(srcMinId, type.getDestMaxId() + 1) : srcMinId;
+		long missingIdSpan = Math.max(0L, type.getSrcMaxId() - firstMissingId + 1);
+		long srcIdSpan = type.getSrcMaxId() - srcMinId + 1;
+		if (type.getSrcCount() == null || srcIdSpan <= 0L) {
+			return missingIdSpan;
+		}
+		return Math.round(type.getSrcCount() * (double) missingIdSpan / srcIdSpan);
+	}
+
+	@Override
+	public void migratePrimaryTypes(Iterator<List<TypeToMigrateMetadata>> primaryTypeGroups) {
+		// The persisted state is invalid once data is restored.
+		stateStore.beginRun();
 		/*
-		 * Phase Two: Find and process all remaining deltas between source and
-		 * destination by comparing checkums.
+		 * Phase One: starts on each group of types as it arrives. The types of each
+		 * group are prioritized and gathered for phase two.
 		 */
-		findAndProcessJobs(checksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(primaryTypes));
+		List<TypeToMigrateMetadata> arrived = new LinkedList<>();
+		Iterator<TypeToMigrateMetadata> primaryTypes = Iterators.concat(Iterators.transform(primaryTypeGroups, group -> {
+			List<TypeToMigrateMetadata> prioritized = prioritizeTypes(group);
+			arrived.addAll(prioritized);
+			return prioritized.iterator();
+		}));
+		findAndProcessJobs(PHASE_MISSING, missingFromDestinationBuilder.buildDestinationJobs(primaryTypes));
+		findAndProcessChecksumDeltas(arrived);
+	}
+
+	@Override
+	public void planPrimaryTypes(List<TypeToMigrateMetadata> primaryTypes) {
+		planStore.writePlan(buildPlannedRanges(primaryTypes, true));
+	}
+
+	@Override
+	public void estimatePrimaryTypes(List<TypeToMigrateMetadata> primaryTypes) {
+		estimator.estimate(buildPlannedRanges(primaryTypes, config.isEstimateIncludingChecksums()));
 	}
 
 	/**
-	 * Find and process all jobs from the provided job iterator.
-	 * @param jobIterator
+	 * Find the planned ranges of both phases without changing the destination.
+	 * 
+	 * @param primaryTypes
+	 * @param includeChecksums When false, the ranges of phase two are not found.
+	 * @return
+	 */
+	Iterator<PlannedRange> buildPlannedRanges(List<TypeToMigrateMetadata> primaryTypes, boolean includeChecksums) {
+		Iterator<DestinationJob> jobs = missingFromDestinationBuilder.buildDestinationJobs(primaryTypes);
+		if (includeChecksums) {
+			/*
+			 * Phase one is not executed before phase two is planned, so phase two only
+			 * compares the range common to both stacks to avoid planning the same rows
+			 * twice.
+			 */
+			List<TypeToMigrateMetadata> commonRanges = new LinkedList<>();
+			for (TypeToMigrateMetadata type : primaryTypes) {
+				getCommonRange(type).ifPresent(commonRanges::add);
+			}
+			jobs = Iterators.concat(jobs, checksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(commonRanges));
+		}
+		return Iterators.transform(jobs, job -> ((PlannedBackupJob) job).getRange());
+	}
+
+	@Override
+	public void executePlan() {
+		// The persisted state is invalid once data is restored.
+		stateStore.beginRun();
+		findAndProcessJobs(PHASE_PLAN, backupJobExecutor.executePlannedBackups(planStore.readPlan()));
+	}
+
+	/**
+	 * Get the metadata of the ID range that is common to both the source and
+	 * destination of the given type.
+	 * 
+	 * @param type
+	 * @return {@link Optional#empty()} when there are no IDs in common.
+	 */
+	static Optional<TypeToMigrateMetadata> getCommonRange(TypeToMigrateMetadata type) {
+		if (type.getSrcMinId() == null || type.getDestMinId() == null) {
+			return Optional.empty();
+		}
+		long minCommonId = Math.max(type.getSrcMinId(), type.getDestMinId());
+		long maxCommonId = Math.min(type.getSrcMaxId(), type.getDestMaxId());
+		if (maxCommonId < minCommonId) {
+			return Optional.empty();
+		}
+		MigrationTypeCount common = new MigrationTypeCount().setType(type.getType()).setMinid(minCommonId)
+				.setMaxid(maxCommonId);
+		return Optional.of(new TypeToMigrateMetadata(true, common, common));
+	}
+
+	/**
+	 * Phase Two: Find and process all remaining deltas between source and
+	 * destination by comparing checkums. When more than one pass is configured,
+	 * passes are repeated to catch changes made to a read-write source during
+	 * the previous pass, until the delta is no larger than the threshold or
+	 * stops shrinking.
+	 * 
+	 * @param primaryTypes
 	 */
-	void findAndProcessJobs(Iterator<DestinationJob> jobIterator) {
-		// find all of the restore jobs as fast as possible.
-		while (jobIterator.hasNext()) {
-			DestinationJob nextJob = jobIterator.next();
-			// push restore jobs the restore queue
-			restoreJobQueue.pushJob(nextJob);
+	void findAndProcessChecksumDeltas(List<TypeToMigrateMetadata> primaryTypes) {
+		int maxPasses = Math.max(1, config.getMaxChecksumDeltaPasses());
+		int pass = 1;
+		long delta = findAndProcessJobs(PHASE_CHECKSUM + pass,
+				checksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(primaryTypes));
+		reporter.reportChecksumDeltaPass(pass, delta);
+		while (pass < maxPasses && delta > config.getChecksumDeltaThreshold()) {
+			pass++;
+			long nextDelta = findAndProcessJobs(PHASE_CHECKSUM + pass,
+					checksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(primaryTypes));
+			reporter.reportChecksumDeltaPass(pass, nextDelta);
+			boolean shrinking = nextDelta < delta;
+			delta = nextDelta;
+			if (!shrinking) {
+				break;
+			}
 		}
-		// Wait for all of the restore jobs to finish
-		while (!restoreJobQueue.isDone()) {
-			try {
-				clock.sleep(SLEEP_TIME_MS);
-			} catch (InterruptedException e1) {
-				// interrupt will trigger failure.
-				throw new RuntimeException(e1);
+		if (maxPasses > 1) {
+			reporter.reportRemainingDelta(pass, delta);
+		}
+		// All restore jobs finished without error so the recorded checksums are now verified.
+		stateStore.save();
+	}
+
+	/**
+	 * Find and process all jobs from the provided job iterator as a single phase.
+	 * @param phase The name of the phase.
+	 * @param jobIterator
+	 * @return The number of jobs that were processed.
+	 */
+	long findAndProcessJobs(String phase, Iterator<DestinationJob> jobIterator) {
+		progress.startPhase(phase);
+		try (TraceSpan span = phaseListener.startPhase(phase)) {
+			long jobCount = 0L;
+			// find all of the restore jobs as fast as possible.
+			while (jobIterator.hasNext()) {
+				DestinationJob nextJob = jobIterator.next();
+				// push restore jobs the restore queue
+				restoreJobQueue.pushJob(nextJob);
+				progress.jobDiscovered(nextJob);
+				jobCount++;
+			}
+			// Wait for all of the restore jobs to finish
+			while (!restoreJobQueue.isDone()) {
+				try {
+					clock.sleep(SLEEP_TIME_MS);
+				} catch (InterruptedException e1) {
+					// interrupt will trigger failure.
+					throw new RuntimeException(e1);
+				}
 			}
+			// the throughput of the finished restores improves future estimates.
+			throughputStore.save();
+			progress.report();
+			return jobCount;
 		}
 	}
 
@@ -13,10 +13,21 @@ public interface MissingFromDestinationBuilder {
 
 	/**
 	 * Will backup all data that is outside the box that is common to both the source and destination
-	 * for each type.
+	 * for each type. The optimal backup ranges of up to
+	 * {@link org.sagebionetworks.migration.config.Configuration#getMaxConcurrentRangeCalculations()}
+	 * types are calculated concurrently ahead of the returned jobs.
 	 * @param primaryTypes
 	 * @return
 	 */
 	Iterator<DestinationJob> buildDestinationJobs(List<TypeToMigrateMetadata> primaryTypes);
 
+	/**
+	 * Same as {@link #buildDestinationJobs(List)} except each type is only read
+	 * from the given iterator once its range calculation can be started.
+	 * 
+	 * @param primaryTypes
+	 * @return
+	 */
+	Iterator<DestinationJob> buildDestinationJobs(Iterator<TypeToMigrateMetadata> primaryTypes);
+
 }
@@ -1,7 +1,6 @@
 package org.sagebionetworks.migration.async;
 
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 import org.sagebionetworks.migration.config.Configuration;
@@ -24,14 +23,15 @@ public class MissingFromDestinationBuilderImpl implements MissingFromDestination
 
 	@Override
 	public Iterator<DestinationJob> buildDestinationJobs(List<TypeToMigrateMetadata> primaryTypes) {
-		// start with an empty iterator
-		Iterator<DestinationJob> iterator = new LinkedList<DestinationJob>().iterator();
-		// Concatenate an iterator for each type.
-		for(TypeToMigrateMetadata typeToMigrate: primaryTypes) {
-			MissingFromDestinationIterator typeIterator = new MissingFromDestinationIterator(config, backupJobExecutor, typeToMigrate);
-			iterator = Iterators.concat(iterator, typeIterator);
-		}
-		return iterator;
+		return buildDestinationJobs(primaryTypes.iterator());
+	}
+
+	@Override
+	public Iterator<DestinationJob> buildDestinationJobs(Iterator<TypeToMigrateMetadata> primaryTypes) {
+		// Lazily create an iterator for each type as it arrives.
+		Iterator<MissingFromDestinationIterator> typeIterators = Iterators.transform(primaryTypes,
+				typeToMigrate -> new MissingFromDestinationIterator(config, backupJobExecutor, typeToMigrate));
+		return new ConcurrentRangeCalculationIterator(typeIterators, config.getMaxConcurrentRangeCalculations());
 	}
 
 }
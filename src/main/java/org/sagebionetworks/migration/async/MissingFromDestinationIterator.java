@@ -14,7 +14,8 @@ import com.google.common.collect.Iterators;
  * source and destination for each type.
  * 
  * Note: Each backup is created on the next() call so the caller drives the
- * backup processed.
+ * backup processed. The optimal ranges of the type are calculated on the first
+ * hasNext() call unless they were already started with {@link #start()}.
  */
 public class MissingFromDestinationIterator implements Iterator<DestinationJob> {
 
@@ -64,15 +65,18 @@ public class MissingFromDestinationIterator implements Iterator<DestinationJob>
 		}
 	}
 
-	@Override
-	public boolean hasNext() {
+	/**
+	 * Start calculating the optimal ranges to backup for this type without
+	 * waiting for the results. Calling this more than once has no effect.
+	 */
+	void start() {
 		if (jobIterator == null) {
 			jobIterator = new LinkedList<DestinationJob>().iterator();
 			if (maxCommonId <= minCommonId) {
 				// no rows common between the source and destination so a full backup of the source is required.
 				long minimumId = srcMinId;
 				long maximumId = absoluteMaxId;
-				Iterator<DestinationJob> iterator = backupJobExecutor.executeBackupJob(migrationType, minimumId,
+				Iterator<DestinationJob> iterator = backupJobExecutor.startBackupJob(migrationType, minimumId,
 						maximumId);
 				jobIterator = Iterators.concat(jobIterator, iterator);
 			} else {
@@ -80,7 +84,7 @@ public class MissingFromDestinationIterator implements Iterator<DestinationJob>
 					// backup the lower range outside of the common box.
 					long minimumId = absoluteMinId;
 					long maximumId = minCommonId;
-					Iterator<DestinationJob> iterator = backupJobExecutor.executeBackupJob(migrationType, minimumId,
+					Iterator<DestinationJob> iterator = backupJobExecutor.startBackupJob(migrationType, minimumId,
 							maximumId);
 					jobIterator = Iterators.concat(jobIterator, iterator);
 				}
@@ -88,12 +92,17 @@ public class MissingFromDestinationIterator implements Iterator<DestinationJob>
 					// backup the upper range outside of the common box.
 					long minimumId = maxCommonId;
 					long maximumId = absoluteMaxId;
-					Iterator<DestinationJob> iterator = backupJobExecutor.executeBackupJob(migrationType, minimumId,
+					Iterator<DestinationJob> iterator = backupJobExecutor.startBackupJob(migrationType, minimumId,
 							maximumId);
 					jobIterator = Iterators.concat(jobIterator, iterator);
 				}
 			}
 		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		start();
 		return jobIterator.hasNext();
 	}
 
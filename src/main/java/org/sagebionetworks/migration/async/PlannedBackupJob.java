@@ -0,0 +1,28 @@
+package org.sagebionetworks.migration.async;
+
+import org.sagebionetworks.migration.plan.PlannedRange;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * A backup range that is recorded in a migration plan instead of being backed
+ * up and restored.
+ */
+public class PlannedBackupJob implements DestinationJob {
+
+	PlannedRange range;
+
+	public PlannedBackupJob(PlannedRange range) {
+		super();
+		this.range = range;
+	}
+
+	@Override
+	public MigrationType getMigrationType() {
+		return range.getType();
+	}
+
+	public PlannedRange getRange() {
+		return range;
+	}
+
+}
@@ -0,0 +1,139 @@
+package org.sagebionetworks.migration.async;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * Exposes the controls of a {@link RestoreJobQueueImpl} as a JMX MBean. Each
+ * destination has its own queue, so the name of the MBean includes the
+ * repository endpoint of the destination.
+ *
+ */
+public class RestoreJobQueueControl implements RestoreJobQueueControlMXBean {
+
+	public static final String DOMAIN = "org.sagebionetworks.migration";
+
+	RestoreJobQueueImpl queue;
+
+	public RestoreJobQueueControl(RestoreJobQueueImpl queue) {
+		super();
+		this.queue = queue;
+	}
+
+	/**
+	 * Register this control with the given server. A control that is already
+	 * registered for the same destination belongs to a queue that is no longer
+	 * used, so it is replaced by this control.
+	 * 
+	 * @param server
+	 * @param destinationEndpoint
+	 * @return The name of the registered MBean.
+	 * @throws JMException If the control could not be registered.
+	 */
+	public ObjectName register(MBeanServer server, String destinationEndpoint) throws JMException {
+		ObjectName name = createObjectName(destinationEndpoint);
+		try {
+			server.registerMBean(this, name);
+		} catch (InstanceAlreadyExistsException e) {
+			server.unregisterMBean(name);
+			server.registerMBean(this, name);
+		}
+		return name;
+	}
+
+	static ObjectName createObjectName(String destinationEndpoint) throws JMException {
+		return new ObjectName(DOMAIN + ":type=RestoreJobQueue,destination=" + ObjectName.quote(destinationEndpoint));
+	}
+
+	@Override
+	public Map<String, Integer> getWaitingJobs() {
+		return toNames(queue.getWaitingJobCounts());
+	}
+
+	@Override
+	public Map<String, Long> getRunningJobs() {
+		return toNames(queue.getRunningJobMs());
+	}
+
+	@Override
+	public int getMaxRunningJobs() {
+		return queue.getMaxRunningJobs();
+	}
+
+	@Override
+	public void setMaxRunningJobs(int maxRunningJobs) {
+		queue.setMaxRunningJobs(maxRunningJobs);
+	}
+
+	@Override
+	public long getPollIntervalMs() {
+		return queue.getPollIntervalMs();
+	}
+
+	@Override
+	public void setPollIntervalMs(long pollIntervalMs) {
+		queue.setPollIntervalMs(pollIntervalMs);
+	}
+
+	@Override
+	public List<String> getPausedTypes() {
+		return toNames(queue.getPausedTypes());
+	}
+
+	@Override
+	public void pauseType(String type) {
+		queue.setPaused(parseType(type), true);
+	}
+
+	@Override
+	public void resumeType(String type) {
+		queue.setPaused(parseType(type), false);
+	}
+
+	@Override
+	public List<String> getDeprioritizedTypes() {
+		return toNames(queue.getDeprioritizedTypes());
+	}
+
+	@Override
+	public void deprioritizeType(String type) {
+		queue.setDeprioritized(parseType(type), true);
+	}
+
+	@Override
+	public void restoreTypePriority(String type) {
+		queue.setDeprioritized(parseType(type), false);
+	}
+
+	/**
+	 * @param type
+	 * @return
+	 * @throws IllegalArgumentException If the name is not a MigrationType.
+	 */
+	static MigrationType parseType(String type) {
+		if (type == null) {
+			throw new IllegalArgumentException("Type cannot be null");
+		}
+		return MigrationType.valueOf(type.trim().toUpperCase());
+	}
+
+	static <V> Map<String, V> toNames(Map<MigrationType, V> values) {
+		Map<String, V> names = new LinkedHashMap<>(values.size());
+		values.forEach((type, value) -> names.put(type.name(), value));
+		return names;
+	}
+
+	static List<String> toNames(Set<MigrationType> types) {
+		return types.stream().map(MigrationType::name).collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,75 @@
+package org.sagebionetworks.migration.async;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of a running {@link RestoreJobQueue} that can be used to inspect
+ * the queue and to retune its dispatch without restarting the migration, for
+ * example with jconsole. Types are identified by the name of their
+ * MigrationType.
+ *
+ */
+public interface RestoreJobQueueControlMXBean {
+
+	/**
+	 * @return The number of jobs of each type that are waiting to start.
+	 */
+	Map<String, Integer> getWaitingJobs();
+
+	/**
+	 * @return The MS each running job has been running by type.
+	 */
+	Map<String, Long> getRunningJobs();
+
+	/**
+	 * @return The maximum number of restore jobs that run at the same time.
+	 *         Zero when there is no cap.
+	 */
+	int getMaxRunningJobs();
+
+	/**
+	 * @param maxRunningJobs Zero or less removes the cap.
+	 */
+	void setMaxRunningJobs(int maxRunningJobs);
+
+	/**
+	 * @return The MS between two checks of the running jobs.
+	 */
+	long getPollIntervalMs();
+
+	/**
+	 * @param pollIntervalMs The restore leases are renewed every second
+	 *                       regardless of this interval.
+	 */
+	void setPollIntervalMs(long pollIntervalMs);
+
+	/**
+	 * @return The types that are paused.
+	 */
+	List<String> getPausedTypes();
+
+	/**
+	 * Stop starting jobs of the given type until it is resumed.
+	 * 
+	 * @param type
+	 */
+	void pauseType(String type);
+
+	void resumeType(String type);
+
+	/**
+	 * @return The types that are deprioritized.
+	 */
+	List<String> getDeprioritizedTypes();
+
+	/**
+	 * Only start jobs of the given type once the jobs of all other types have
+	 * started.
+	 * 
+	 * @param type
+	 */
+	void deprioritizeType(String type);
+
+	void restoreTypePriority(String type);
+}
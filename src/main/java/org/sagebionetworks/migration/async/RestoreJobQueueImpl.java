@@ -1,24 +1,51 @@
 package org.sagebionetworks.migration.async;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.estimate.MigrationProgress;
+import org.sagebionetworks.migration.estimate.TypeThroughputStore;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorder;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.metrics.jfr.DispatchDecision;
+import org.sagebionetworks.migration.metrics.jfr.RestoreDispatchEvent;
+import org.sagebionetworks.migration.shard.RestoreLeaseCoordinator;
 import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RestoreTypeResponse;
+import org.sagebionetworks.util.Clock;
 
 /**
  * DestinationJob of the same MigrationType are run in sequentially, while jobs
  * of different MigrationType are run concurrently.
  * 
  * We do not run jobs of the same type concurrently because they will fail with
- * lock timeout or deadlock exceptions.
+ * lock timeout or deadlock exceptions. A job is also only started once its
+ * type's lease is acquired from the {@link RestoreLeaseCoordinator}, which
+ * extends this rule to all of the shards of a migration.
+ * 
+ * The rows and time of each finished restore are recorded with the
+ * {@link TypeThroughputStore} and the {@link MigrationProgress}, while the
+ * time each job waited in the queue is recorded with the
+ * {@link MigrationMetrics} and the {@link JobTimelineRecorder}. Each time the
+ * dispatch decision of a waiting job changes, a {@link RestoreDispatchEvent}
+ * is recorded with the Java Flight Recorder.
+ * 
+ * The dispatch can be retuned while the queue runs with the
+ * {@link RestoreJobQueueControl}: types can be paused or deprioritized, the
+ * number of running jobs can be capped and the interval between two checks of
+ * the running jobs can be changed.
  * 
  * The public methods of this class are called from two separate threads; the
  * main thread and the timer thread. All public methods are synchronized to
@@ -27,31 +54,91 @@ import org.sagebionetworks.repo.model.migration.MigrationType;
  */
 public class RestoreJobQueueImpl implements RestoreJobQueue, Runnable {
 
+	/**
+	 * The period of the timer that calls {@link #run()}, which is also the
+	 * shortest poll interval.
+	 */
+	public static final long TIMER_PERIOD_MS = 100L;
+	public static final long DEFAULT_POLL_INTERVAL_MS = 1000L;
+	/**
+	 * The leases are renewed at this interval even when the poll interval is
+	 * longer, so a long poll interval cannot let them expire.
+	 */
+	public static final long LEASE_RENEW_INTERVAL_MS = DEFAULT_POLL_INTERVAL_MS;
+
 	DestinationJobExecutor jobExecutor;
+	RestoreLeaseCoordinator leaseCoordinator;
+	TypeThroughputStore throughputStore;
+	MigrationProgress progress;
+	MigrationMetrics metrics;
+	JobTimelineRecorder timelineRecorder;
+	Clock clock;
 	Logger logger;
 	/*
 	 * The queue of jobs waiting to be started.
 	 */
 	List<DestinationJob> jobWaitingQueue;
+	/*
+	 * The time each waiting job was pushed.
+	 */
+	Map<DestinationJob, Long> pushTimes;
+	/*
+	 * The last reason each waiting job could not start.
+	 */
+	Map<DestinationJob, DispatchDecision> blockedDecisions;
 	/*
 	 * Mapping of the running jobs by MigrationType.
 	 */
 	Map<MigrationType, Future<?>> runningJobs;
+	/*
+	 * The start time of the running jobs by MigrationType.
+	 */
+	Map<MigrationType, Long> startTimes;
 	AsyncMigrationException lastException;
 	RuntimeException terminationException;
+	/*
+	 * The runtime controls of the dispatch.
+	 */
+	EnumSet<MigrationType> pausedTypes;
+	EnumSet<MigrationType> deprioritizedTypes;
+	int maxRunningJobs;
+	long pollIntervalMs;
+	Long lastPollMs;
+	Long lastRenewMs;
 
 	/**
 	 * Create a new queue. The caller must all call timerFired() from a timer
 	 * thread.
 	 * 
 	 * @param jobExecutor
+	 * @param leaseCoordinator
+	 * @param throughputStore
+	 * @param progress
+	 * @param metrics
+	 * @param timelineRecorder
+	 * @param clock
 	 * @param loggerFactory
 	 */
-	public RestoreJobQueueImpl(DestinationJobExecutor jobExecutor, LoggerFactory loggerFactory) {
+	public RestoreJobQueueImpl(DestinationJobExecutor jobExecutor, RestoreLeaseCoordinator leaseCoordinator,
+			TypeThroughputStore throughputStore, MigrationProgress progress, MigrationMetrics metrics,
+			JobTimelineRecorder timelineRecorder, Clock clock, LoggerFactory loggerFactory) {
 		this.jobExecutor = jobExecutor;
+		this.leaseCoordinator = leaseCoordinator;
+		this.throughputStore = throughputStore;
+		this.progress = progress;
+		this.metrics = metrics;
+		this.timelineRecorder = timelineRecorder;
+		this.clock = clock;
 		this.logger = loggerFactory.getLogger(RestoreJobQueueImpl.class);
 		jobWaitingQueue = new LinkedList<>();
+		pushTimes = new IdentityHashMap<>();
+		blockedDecisions = new IdentityHashMap<>();
 		runningJobs = new LinkedHashMap<>(MigrationType.values().length);
+		startTimes = new LinkedHashMap<>(MigrationType.values().length);
+		pausedTypes = EnumSet.noneOf(MigrationType.class);
+		deprioritizedTypes = EnumSet.noneOf(MigrationType.class);
+		maxRunningJobs = 0;
+		pollIntervalMs = DEFAULT_POLL_INTERVAL_MS;
 	}
 
 	/**
@@ -65,6 +152,7 @@ public class RestoreJobQueueImpl implements RestoreJobQueue, Runnable {
 		}
 		// Add the job to the wait queue.
 		jobWaitingQueue.add(job);
+		pushTimes.put(job, clock.currentTimeMillis());
 	}
 
 	/**
@@ -90,6 +178,7 @@ public class RestoreJobQueueImpl implements RestoreJobQueue, Runnable {
 	 */
 	void timerFired() {
 		try {
+			renewLeases();
 			/*
 			 * Check on all of the running jobs. Finished or failed jobs will be removed.
 			 * Status of all running jobs will be reported to the log.
@@ -99,9 +188,6 @@ public class RestoreJobQueueImpl implements RestoreJobQueue, Runnable {
 			 * Start all jobs that currently do not have
 			 */
 			startEligibleJobs();
-
-			logger.info("Currently running: " + runningJobs.size() + " restore jobs.  Waiting to start "
-					+ jobWaitingQueue.size() + " restore jobs.");
 		} catch (AsyncMigrationException | ExecutionException e) {
 			logger.warn("Job exception but will continue: "+e.getMessage());
 			lastException = new AsyncMigrationException(e);
@@ -112,6 +198,18 @@ public class RestoreJobQueueImpl implements RestoreJobQueue, Runnable {
 		}
 	}
 
+	/**
+	 * Keep the leases of the running jobs alive. Another worker may restore the
+	 * type of a lost lease while our job is still running, so the run fails. Another
+	 * job of a lost type can only start once its lease is acquired again.
+	 */
+	void renewLeases() {
+		Set<MigrationType> lostLeases = leaseCoordinator.renewAll();
+		if (!lostLeases.isEmpty()) {
+			throw new AsyncMigrationException("Lost the restore leases of: " + lostLeases);
+		}
+	}
+
 	/**
 	 * Check on all of the running jobs. Finished jobs and failed jobs are removed.
 	 * Calling this method will trigger each running job to report its current
@@ -121,57 +219,246 @@ public class RestoreJobQueueImpl implements RestoreJobQueue, Runnable {
 	 */
 	void removeAllFinishedJobs() throws InterruptedException, ExecutionException {
 		// remove all finished jobs
-		Iterator<Future<?>> runningItertor = runningJobs.values().iterator();
+		Iterator<Map.Entry<MigrationType, Future<?>>> runningItertor = runningJobs.entrySet().iterator();
 		while (runningItertor.hasNext()) {
-			Future<?> future = runningItertor.next();
+			Map.Entry<MigrationType, Future<?>> running = runningItertor.next();
+			Future<?> future = running.getValue();
 			// check if this job is done.
 			if (future.isDone()) {
 				try {
 					// A call to get() is needed to check if the job failed. PLFM-5430.
-					future.get();
+					Object result = future.get();
+					recordFinishedJob(running.getKey(), result);
 				}finally {
 					// Unconditionally remove finished jobs
 					runningItertor.remove();
+					startTimes.remove(running.getKey());
+					leaseCoordinator.release(running.getKey());
 				}
 			}
 		}
 	}
 
+	/**
+	 * Record the rows and time of a finished restore job. The elapsed time is
+	 * measured by the timer so it includes up to one timer period.
+	 * 
+	 * @param type
+	 * @param result The result of the finished job.
+	 */
+	void recordFinishedJob(MigrationType type, Object result) {
+		Long startTime = startTimes.get(type);
+		if (startTime == null) {
+			return;
+		}
+		long elapsedMs = clock.currentTimeMillis() - startTime;
+		Long rowCount = result instanceof RestoreTypeResponse ? ((RestoreTypeResponse) result).getRestoredRowCount()
+				: null;
+		if (rowCount != null) {
+			throughputStore.recordRestore(type, rowCount, elapsedMs);
+		}
+		progress.jobFinished(type, rowCount == null ? 0L : rowCount, elapsedMs);
+	}
+
 	/**
 	 * A restore job can be started as long as a job of the same MigrationType is
-	 * not already running.
+	 * not already running. Jobs of deprioritized types are only started once no
+	 * jobs of other types, that are not paused, are waiting.
 	 */
 	void startEligibleJobs() {
+		boolean prioritizedWaiting = jobWaitingQueue.stream().anyMatch(job -> !pausedTypes
+				.contains(job.getMigrationType()) && !deprioritizedTypes.contains(job.getMigrationType()));
 		Iterator<DestinationJob> queuIterator = jobWaitingQueue.iterator();
 		while (queuIterator.hasNext()) {
 			DestinationJob job = queuIterator.next();
-			boolean canJobStart = false;
-			if(MigrationType.CHANGE.equals(job.getMigrationType())) {
+			DispatchDecision blocked = null;
+			if (pausedTypes.contains(job.getMigrationType())) {
+				blocked = DispatchDecision.PAUSED;
+			} else if (prioritizedWaiting && deprioritizedTypes.contains(job.getMigrationType())) {
+				blocked = DispatchDecision.DEPRIORITIZED;
+			} else if (maxRunningJobs > 0 && runningJobs.size() >= maxRunningJobs) {
+				blocked = DispatchDecision.CONCURRENCY_CAP;
+			} else if(MigrationType.CHANGE.equals(job.getMigrationType())) {
 				// Change jobs can only be run if no other jobs are running.
-				if(this.runningJobs.isEmpty()) {
-					canJobStart = true;
+				if(!this.runningJobs.isEmpty()) {
+					blocked = DispatchDecision.CHANGE_BARRIER;
 				}
 			}else {
 				/*
 				 * Non-change jobs can run as long as no other job of the 
 				 * same time is already running
 				 */
-				if (!runningJobs.containsKey(job.getMigrationType())) {
-					canJobStart = true;
+				if (runningJobs.containsKey(job.getMigrationType())) {
+					blocked = DispatchDecision.SAME_TYPE_RUNNING;
 				}
 			}
-			if(canJobStart) {
+			if (blocked == null && !leaseCoordinator.tryAcquire(job.getMigrationType())) {
+				blocked = DispatchDecision.LEASE_HELD;
+			}
+			Long pushTime = pushTimes.get(job);
+			if (blocked != null) {
+				// only a change of the reason is recorded to keep the overhead low.
+				if (blockedDecisions.put(job, blocked) != blocked) {
+					RestoreDispatchEvent.record(job.getMigrationType(), blocked, runningJobs.size(),
+							jobWaitingQueue.size(), () -> getQueueWaitMs(pushTime));
+				}
+			} else {
 				// Start a job and add it to the queue
-				Future<?> future = jobExecutor.startDestinationJob(job);
+				if (pushTime != null) {
+					timelineRecorder.restoreDequeued(job.getMigrationType(), pushTime);
+				}
+				Future<?> future;
+				try {
+					future = jobExecutor.startDestinationJob(job);
+				} catch (Throwable e) {
+					leaseCoordinator.release(job.getMigrationType());
+					throw e;
+				}
+				long now = clock.currentTimeMillis();
 				this.runningJobs.put(job.getMigrationType(), future);
+				this.startTimes.put(job.getMigrationType(), now);
+				pushTimes.remove(job);
+				blockedDecisions.remove(job);
+				if (pushTime != null) {
+					metrics.recordQueueWait(job.getMigrationType(), now - pushTime);
+				}
 				queuIterator.remove();
+				RestoreDispatchEvent.record(job.getMigrationType(), DispatchDecision.STARTED, runningJobs.size(),
+						jobWaitingQueue.size(), () -> pushTime == null ? 0L : now - pushTime);
 			}
 		}
 	}
 
+	/**
+	 * The time a waiting job has been in the queue so far.
+	 * 
+	 * @param pushTime
+	 * @return
+	 */
+	long getQueueWaitMs(Long pushTime) {
+		return pushTime == null ? 0L : Math.max(0L, clock.currentTimeMillis() - pushTime);
+	}
+
+	/**
+	 * The number of jobs of each type that are waiting to start.
+	 * 
+	 * @return
+	 */
+	synchronized Map<MigrationType, Integer> getWaitingJobCounts() {
+		Map<MigrationType, Integer> counts = new EnumMap<>(MigrationType.class);
+		for (DestinationJob job : jobWaitingQueue) {
+			counts.merge(job.getMigrationType(), 1, Integer::sum);
+		}
+		return counts;
+	}
+
+	/**
+	 * The time each running job has been running so far by type.
+	 * 
+	 * @return
+	 */
+	synchronized Map<MigrationType, Long> getRunningJobMs() {
+		long now = clock.currentTimeMillis();
+		Map<MigrationType, Long> running = new EnumMap<>(MigrationType.class);
+		for (MigrationType type : runningJobs.keySet()) {
+			Long startTime = startTimes.get(type);
+			running.put(type, startTime == null ? 0L : Math.max(0L, now - startTime));
+		}
+		return running;
+	}
+
+	synchronized Set<MigrationType> getPausedTypes() {
+		return pausedTypes.clone();
+	}
+
+	/**
+	 * Paused types keep their waiting jobs but no new job of the type is
+	 * started. Running jobs are not affected.
+	 * 
+	 * @param type
+	 * @param paused
+	 */
+	synchronized void setPaused(MigrationType type, boolean paused) {
+		if (paused) {
+			pausedTypes.add(type);
+		} else {
+			pausedTypes.remove(type);
+		}
+		logger.info((paused ? "Paused" : "Resumed") + " restore jobs of type: " + type);
+	}
+
+	synchronized Set<MigrationType> getDeprioritizedTypes() {
+		return deprioritizedTypes.clone();
+	}
+
+	/**
+	 * Jobs of deprioritized types only start once the jobs of all other types
+	 * have started.
+	 * 
+	 * @param type
+	 * @param deprioritized
+	 */
+	synchronized void setDeprioritized(MigrationType type, boolean deprioritized) {
+		if (deprioritized) {
+			deprioritizedTypes.add(type);
+		} else {
+			deprioritizedTypes.remove(type);
+		}
+		logger.info((deprioritized ? "Deprioritized" : "Restored the priority of") + " restore jobs of type: " + type);
+	}
+
+	synchronized int getMaxRunningJobs() {
+		return maxRunningJobs;
+	}
+
+	/**
+	 * Cap the number of restore jobs that run at the same time. Running jobs are
+	 * never stopped, so a lower cap is reached as they finish.
+	 * 
+	 * @param maxRunningJobs Zero or less removes the cap.
+	 */
+	synchronized void setMaxRunningJobs(int maxRunningJobs) {
+		this.maxRunningJobs = Math.max(0, maxRunningJobs);
+		logger.info("Maximum number of running restore jobs: "
+				+ (this.maxRunningJobs == 0 ? "unlimited" : this.maxRunningJobs));
+	}
+
+	synchronized long getPollIntervalMs() {
+		return pollIntervalMs;
+	}
+
+	/**
+	 * Change the interval between two checks of the running jobs.
+	 * 
+	 * @param pollIntervalMs Values below {@link #TIMER_PERIOD_MS} are raised to
+	 *                       it.
+	 */
+	synchronized void setPollIntervalMs(long pollIntervalMs) {
+		this.pollIntervalMs = Math.max(TIMER_PERIOD_MS, pollIntervalMs);
+		logger.info("Restore job poll interval MS: " + this.pollIntervalMs);
+	}
+
+	/**
+	 * Called every {@link #TIMER_PERIOD_MS} but only checks the jobs once the
+	 * poll interval has passed since the last check. Between checks the leases
+	 * are still renewed every {@link #LEASE_RENEW_INTERVAL_MS}.
+	 */
 	@Override
 	public synchronized void run() {
-		this.timerFired();
+		long now = clock.currentTimeMillis();
+		if (lastPollMs == null || now - lastPollMs >= pollIntervalMs) {
+			lastPollMs = now;
+			lastRenewMs = now;
+			this.timerFired();
+		} else if (now - lastRenewMs >= LEASE_RENEW_INTERVAL_MS) {
+			lastRenewMs = now;
+			try {
+				renewLeases();
+			} catch (AsyncMigrationException e) {
+				logger.warn("Job exception but will continue: " + e.getMessage());
+				lastException = new AsyncMigrationException(e);
+			}
+		}
 	}
 
 }
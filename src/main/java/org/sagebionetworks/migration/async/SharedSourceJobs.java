@@ -0,0 +1,138 @@
+package org.sagebionetworks.migration.async;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AdminRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeChecksumRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeCountsRequest;
+import org.sagebionetworks.repo.model.migration.BatchChecksumRequest;
+import org.sagebionetworks.repo.model.migration.CalculateOptimalRangeRequest;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Shares the results of read-only source jobs between the migrations of
+ * several destinations from the same source. A job that is requested by more
+ * than one destination is only run once on the source.
+ * <p>
+ * Only the started job is shared. Each destination tracks the job with its own
+ * future, so the job is included in the metrics of each destination and no
+ * future is used by more than one thread. A job is discarded once it was
+ * requested by every destination. Requests built from the ID ranges of a
+ * single destination are usually never repeated by the others, so jobs are
+ * also discarded once they expire or when too many are held.
+ * </p>
+ * Backups are never shared since restoring a backup consumes its file. Sharing
+ * should only be enabled while the source is in READ-ONLY mode, otherwise a
+ * destination could be given stale results.
+ */
+public class SharedSourceJobs {
+
+	/*
+	 * Requests that do not change the source and have the same result for the
+	 * same request.
+	 */
+	static final Set<Class<? extends AdminRequest>> SHARED_REQUEST_TYPES = ImmutableSet.of(
+			AsyncMigrationTypeCountsRequest.class, CalculateOptimalRangeRequest.class, BatchChecksumRequest.class,
+			AsyncMigrationTypeChecksumRequest.class);
+	/*
+	 * The bounds of the shared jobs that are kept for destinations that have not
+	 * requested them yet.
+	 */
+	static final long MAX_SHARED_JOBS = 1000L;
+	static final long SHARED_JOB_EXPIRY_MINUTES = 30L;
+
+	private boolean enabled;
+	private int destinationCount;
+	final Cache<AdminRequest, SharedJob> jobs;
+
+	public SharedSourceJobs() {
+		this.enabled = false;
+		this.destinationCount = 1;
+		this.jobs = CacheBuilder.newBuilder().maximumSize(MAX_SHARED_JOBS)
+				.expireAfterWrite(SHARED_JOB_EXPIRY_MINUTES, TimeUnit.MINUTES).build();
+	}
+
+	/**
+	 * Enable or disable sharing. Jobs that are already shared are discarded.
+	 *
+	 * @param enabled
+	 * @param destinationCount The number of destinations that share the jobs.
+	 */
+	public synchronized void setEnabled(boolean enabled, int destinationCount) {
+		this.enabled = enabled;
+		this.destinationCount = destinationCount;
+		this.jobs.invalidateAll();
+	}
+
+	/**
+	 * Get the status of the shared job for the given request, starting the job
+	 * with the given starter if no other destination has started it. A request
+	 * that is repeated by the same destination, such as the retry of a failed
+	 * job, starts a new job.
+	 *
+	 * @param request
+	 * @param destination Identifies the destination that requested the job.
+	 * @param starter     Starts the job on the source.
+	 * @return The status of the started job.
+	 */
+	public AsynchronousJobStatus startSourceJob(AdminRequest request, Object destination,
+			Supplier<AsynchronousJobStatus> starter) {
+		SharedJob job;
+		boolean isStarter = false;
+		synchronized (this) {
+			if (!enabled || !SHARED_REQUEST_TYPES.contains(request.getClass())) {
+				job = null;
+			} else {
+				job = jobs.getIfPresent(request);
+				if (job == null || job.destinations.contains(destination) || job.started.isCompletedExceptionally()) {
+					job = new SharedJob();
+					jobs.put(request, job);
+					isStarter = true;
+				}
+				job.destinations.add(destination);
+				if (job.destinations.size() >= destinationCount) {
+					// every destination has the job.
+					jobs.invalidate(request);
+				}
+			}
+		}
+		if (job == null) {
+			return starter.get();
+		}
+		if (isStarter) {
+			// the job is started outside of the lock so other requests are not blocked.
+			try {
+				job.started.complete(starter.get());
+			} catch (RuntimeException e) {
+				job.started.completeExceptionally(e);
+			}
+		}
+		try {
+			return job.started.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * A job started for all destinations.
+	 */
+	static class SharedJob {
+
+		final CompletableFuture<AsynchronousJobStatus> started = new CompletableFuture<>();
+		final Set<Object> destinations = new HashSet<>();
+	}
+
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.sagebionetworks.migration.async.DestinationJob;
+import org.sagebionetworks.migration.config.Configuration;
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
 
 import com.google.common.collect.Iterators;
@@ -14,18 +15,20 @@ import com.google.inject.Inject;
 public class ChecksumDeltaBuilderImpl implements ChecksumDeltaBuilder {
 
 	RangeCheksumBuilder rangeProvider;
+	Configuration config;
 
 	@Inject
-	public ChecksumDeltaBuilderImpl(RangeCheksumBuilder rangeProvider) {
+	public ChecksumDeltaBuilderImpl(RangeCheksumBuilder rangeProvider, Configuration config) {
 		super();
 		this.rangeProvider = rangeProvider;
+		this.config = config;
 	}
 
 	@Override
 	public Iterator<DestinationJob> buildAllRestoreJobsForMismatchedChecksums(
 			List<TypeToMigrateMetadata> primaryTypes) {
 		// The same salt is used for all types.
-		String salt = UUID.randomUUID().toString();
+		String salt = config.getStableChecksumSalt().orElse(UUID.randomUUID().toString());
 		// Concatenate the iterators for each type.
 		Iterator<DestinationJob> iterator = new LinkedList<DestinationJob>().iterator();
 		for (TypeToMigrateMetadata primary : primaryTypes) {
@@ -1,19 +1,28 @@
 package org.sagebionetworks.migration.async.checksum;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
+import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
 import org.sagebionetworks.migration.async.BackupJobExecutor;
 import org.sagebionetworks.migration.async.DestinationJob;
 import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.state.DestinationChecksums;
+import org.sagebionetworks.migration.state.MigrationStateStore;
+import org.sagebionetworks.migration.state.VerifiedTypeState;
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
 import org.sagebionetworks.repo.model.migration.BatchChecksumRequest;
 import org.sagebionetworks.repo.model.migration.BatchChecksumResponse;
+import org.sagebionetworks.repo.model.migration.IdRange;
 import org.sagebionetworks.repo.model.migration.RangeChecksum;
 
 /**
@@ -22,6 +31,11 @@ import org.sagebionetworks.repo.model.migration.RangeChecksum;
  * number of backup jobs will be started to restore the entire range. If the
  * checksums match, no further work is required.
  * <p>
+ * When the state verified by the last successful run is provided, the
+ * checksums of the verified bins are only computed on the source and compared
+ * to the verified state. Likewise, destination checksums cached by a previous
+ * run are used for all bins that were not restored since.
+ * <p>
  * No work is done in the constructor of this object. Checksums will not be
  * executed until the first call to {@link #hasNext()}.
  *
@@ -30,11 +44,17 @@ public class ChecksumRangeExecutor implements Iterator<DestinationJob> {
 
 	private final AsynchronousJobExecutor asynchronousJobExecutor;
 	private BackupJobExecutor backupJobExecutor;
+	private MigrationStateStore stateStore;
+	private RestoredBinVerifier restoredBinVerifier;
+	private MigrationMetrics metrics;
 	private Long batchSize;
 	private TypeToMigrateMetadata metadata;
 	private String salt;
+	private Long lowerBoundId;
+	private Optional<VerifiedTypeState> verifiedState;
 	private Iterator<DestinationJob> lastBackupJobs;
 	private Iterator<RangeChecksum> mismatchedRanges;
+	private boolean cachedChecksumsUsed;
 
 	/**
 	 * No work is done in the constructor of this object. Checksums will not be
@@ -42,19 +62,35 @@ public class ChecksumRangeExecutor implements Iterator<DestinationJob> {
 	 * 
 	 * @param asynchronousJobExecutor
 	 * @param backupJobExecutor
-	 * @param type
-	 * @param minimumId
-	 * @param maximumId
+	 * @param stateStore              The source checksums of a full range
+	 *                                comparison are recorded as pending state.
+	 * @param restoredBinVerifier     The mismatched bins of a full range
+	 *                                comparison are recorded for verification.
+	 * @param metrics                 The number of mismatched bins is recorded.
+	 * @param batchSize
+	 * @param metadata
 	 * @param salt
+	 * @param lowerBoundId            Limit the comparison to IDs greater than or
+	 *                                equal to this bound. When null the minimum of
+	 *                                the minimums is used.
+	 * @param verifiedState           When present, the bins verified by the last
+	 *                                successful run are only computed on the source
+	 *                                and compared to this state.
 	 */
 	public ChecksumRangeExecutor(AsynchronousJobExecutor asynchronousJobExecutor, BackupJobExecutor backupJobExecutor,
-			Long batchSize, TypeToMigrateMetadata metadata, String salt) {
+			MigrationStateStore stateStore, RestoredBinVerifier restoredBinVerifier, MigrationMetrics metrics, Long batchSize, TypeToMigrateMetadata metadata, String salt,
+			Long lowerBoundId, Optional<VerifiedTypeState> verifiedState) {
 		super();
 		this.asynchronousJobExecutor = asynchronousJobExecutor;
 		this.backupJobExecutor = backupJobExecutor;
+		this.stateStore = stateStore;
+		this.restoredBinVerifier = restoredBinVerifier;
+		this.metrics = metrics;
 		this.batchSize = batchSize;
 		this.metadata = metadata;
 		this.salt = salt;
+		this.lowerBoundId = lowerBoundId;
+		this.verifiedState = verifiedState;
 		// start with an empty iterator.
 		lastBackupJobs = new LinkedList<DestinationJob>().iterator();
 	}
@@ -103,20 +139,148 @@ public class ChecksumRangeExecutor implements Iterator<DestinationJob> {
 		Optional<Long> minOfMins = metadata.getMinOfMins();
 		Optional<Long> maxOfMax = metadata.getMaxOfMax();
 		if (minOfMins.isPresent() && maxOfMax.isPresent()) {
-			BatchChecksumRequest request = new BatchChecksumRequest();
-			request.setMigrationType(metadata.getType());
-			request.setBatchSize(this.batchSize);
-			request.setMinimumId(minOfMins.get());
-			request.setMaximumId(maxOfMax.get());
-			request.setSalt(this.salt);
-			// get all checksums for this range from both the source and destination.
-			ResultPair<BatchChecksumResponse> results = asynchronousJobExecutor.executeSourceAndDestinationJob(request,
-					BatchChecksumResponse.class);
-			mismatchedRangesList = findAllMismatchedRanges(results.getSourceResult().getCheksums(), results.getDestinationResult().getCheksums());
+			long minimumId = minOfMins.get();
+			long maximumId = maxOfMax.get();
+			if (lowerBoundId != null) {
+				minimumId = Math.max(minimumId, lowerBoundId);
+			}
+			if (minimumId > maximumId) {
+				// nothing to compare above the lower bound.
+				return mismatchedRangesList.iterator();
+			}
+			// all checksums of a type must share a salt to be comparable with the verified state.
+			String typeSalt = verifiedState.map(VerifiedTypeState::getSalt).orElse(this.salt);
+			BatchChecksumRequest fullRange = createRequest(minimumId, maximumId, typeSalt);
+			List<RangeChecksum> sourceChecksums = new LinkedList<>();
+			boolean destinationComputed = true;
+			if (verifiedState.isPresent()) {
+				// Bins below the bin containing the high-water mark were verified by the last run.
+				long highWaterMark = Math.min(verifiedState.get().getHighWaterMark(), maximumId);
+				long firstUnverifiedId = (highWaterMark / batchSize) * batchSize;
+				if (firstUnverifiedId > minimumId) {
+					List<RangeChecksum> source = asynchronousJobExecutor
+							.executeSourceJob(createRequest(minimumId, firstUnverifiedId - 1, typeSalt),
+									BatchChecksumResponse.class)
+							.getCheksums();
+					mismatchedRangesList.addAll(findAllMismatchedRanges(source,
+							getVerifiedChecksums(minimumId / batchSize, firstUnverifiedId / batchSize)));
+					if (source != null) {
+						sourceChecksums.addAll(source);
+					}
+					minimumId = firstUnverifiedId;
+					destinationComputed = false;
+				}
+			}
+			// get all checksums for the remaining range from both the source and destination.
+			ResultPair<List<RangeChecksum>> results = getSourceAndDestinationChecksums(minimumId, maximumId, typeSalt);
+			mismatchedRangesList.addAll(findAllMismatchedRanges(results.getSourceResult(),
+					results.getDestinationResult()));
+			sourceChecksums.addAll(results.getSourceResult());
+			if (cachedChecksumsUsed) {
+				destinationComputed = false;
+			}
+			if (lowerBoundId == null) {
+				// Once the mismatched bins are restored the destination will match these checksums.
+				stateStore.recordPendingState(new VerifiedTypeState(metadata.getType(), batchSize, typeSalt,
+						maximumId, sourceChecksums));
+				restoredBinVerifier.recordComparison(fullRange, mismatchedRangesList, destinationComputed);
+			}
+			metrics.recordMismatchedBins(metadata.getType(), mismatchedRangesList.size());
 		}
 		return mismatchedRangesList.iterator();
 	}
 
+	/**
+	 * Get the checksums of the given range from both the source and destination.
+	 * Only the bins without a cached destination checksum are computed on the
+	 * destination. The resulting destination checksums are cached for the next
+	 * run. Records whether any cached checksum was used.
+	 * 
+	 * @param minimumId
+	 * @param maximumId
+	 * @param typeSalt
+	 * @return
+	 */
+	ResultPair<List<RangeChecksum>> getSourceAndDestinationChecksums(long minimumId, long maximumId,
+			String typeSalt) {
+		BatchChecksumRequest request = createRequest(minimumId, maximumId, typeSalt);
+		List<RangeChecksum> source = new LinkedList<>();
+		List<RangeChecksum> destination = new LinkedList<>();
+		Optional<DestinationChecksums> cached = stateStore.getDestinationChecksums(metadata.getType(), batchSize,
+				typeSalt);
+		if (cached.isPresent()) {
+			Optional<IdRange> unknownRange = cached.get().getUnknownRange(minimumId, maximumId);
+			cachedChecksumsUsed = !unknownRange.isPresent() || unknownRange.get().getMinimumId() > minimumId
+					|| unknownRange.get().getMaximumId() < maximumId;
+			destination.addAll(cached.get().getKnownChecksums(minimumId, maximumId, unknownRange));
+			Future<BatchChecksumResponse> sourceFuture = asynchronousJobExecutor.startSourceJob(request,
+					BatchChecksumResponse.class);
+			if (unknownRange.isPresent()) {
+				addAll(destination, asynchronousJobExecutor.executeDestinationJob(createRequest(
+						unknownRange.get().getMinimumId(), unknownRange.get().getMaximumId(), typeSalt),
+						BatchChecksumResponse.class).getCheksums());
+			}
+			try {
+				addAll(source, sourceFuture.get().getCheksums());
+			} catch (Exception e) {
+				throw new AsyncMigrationException(e);
+			}
+		} else {
+			ResultPair<BatchChecksumResponse> results = asynchronousJobExecutor
+					.executeSourceAndDestinationJob(request, BatchChecksumResponse.class);
+			addAll(source, results.getSourceResult().getCheksums());
+			addAll(destination, results.getDestinationResult().getCheksums());
+		}
+		stateStore.putDestinationChecksums(new DestinationChecksums(metadata.getType(), batchSize, typeSalt,
+				minimumId, maximumId, destination, Collections.emptySet()));
+		ResultPair<List<RangeChecksum>> results = new ResultPair<>();
+		results.setSourceResult(source);
+		results.setDestinationResult(destination);
+		return results;
+	}
+
+	/**
+	 * Add all of the given checksums to the list, if there are any.
+	 * 
+	 * @param list
+	 * @param checksums Null when there are no checksums.
+	 */
+	private static void addAll(List<RangeChecksum> list, List<RangeChecksum> checksums) {
+		if (checksums != null) {
+			list.addAll(checksums);
+		}
+	}
+
+	/**
+	 * Create a checksum request for the given range.
+	 * 
+	 * @param minimumId
+	 * @param maximumId
+	 * @param requestSalt
+	 * @return
+	 */
+	BatchChecksumRequest createRequest(long minimumId, long maximumId, String requestSalt) {
+		BatchChecksumRequest request = new BatchChecksumRequest();
+		request.setMigrationType(metadata.getType());
+		request.setBatchSize(this.batchSize);
+		request.setMinimumId(minimumId);
+		request.setMaximumId(maximumId);
+		request.setSalt(requestSalt);
+		return request;
+	}
+
+	/**
+	 * Get the verified checksums with a bin number within the given range.
+	 * 
+	 * @param fromBin Inclusive
+	 * @param toBin   Exclusive
+	 * @return
+	 */
+	List<RangeChecksum> getVerifiedChecksums(long fromBin, long toBin) {
+		return verifiedState.get().getChecksums().stream()
+				.filter(c -> c.getBinNumber() >= fromBin && c.getBinNumber() < toBin).collect(Collectors.toList());
+	}
+
 	/**
 	 * Find all of the mismatched ranges for the given source and destination checksums.
 	 * 
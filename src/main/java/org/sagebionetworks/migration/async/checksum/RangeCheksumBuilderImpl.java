@@ -1,11 +1,17 @@
 package org.sagebionetworks.migration.async.checksum;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Optional;
 
 import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
 import org.sagebionetworks.migration.async.BackupJobExecutor;
 import org.sagebionetworks.migration.async.DestinationJob;
+import org.sagebionetworks.migration.config.ChecksumHint;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.state.MigrationStateStore;
+import org.sagebionetworks.migration.state.VerifiedTypeState;
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
 
 import com.google.inject.Inject;
@@ -14,14 +20,23 @@ public class RangeCheksumBuilderImpl implements RangeCheksumBuilder {
 	
 	AsynchronousJobExecutor asynchronousJobExecutor;
 	BackupJobExecutor backupJobExecutor;
+	MigrationStateStore stateStore;
+	RestoredBinVerifier restoredBinVerifier;
+	MigrationMetrics metrics;
+	Configuration config;
 	long batchSize;
 	
 	@Inject
 	public RangeCheksumBuilderImpl(AsynchronousJobExecutor asynchronousJobExecutor,
-			BackupJobExecutor backupJobExecutor, Configuration config) {
+			BackupJobExecutor backupJobExecutor, MigrationStateStore stateStore,
+			RestoredBinVerifier restoredBinVerifier, MigrationMetrics metrics, Configuration config) {
 		super();
 		this.asynchronousJobExecutor = asynchronousJobExecutor;
 		this.backupJobExecutor = backupJobExecutor;
+		this.stateStore = stateStore;
+		this.restoredBinVerifier = restoredBinVerifier;
+		this.metrics = metrics;
+		this.config = config;
 		this.batchSize = config.getMaximumBackupBatchSize();
 	}
 
@@ -29,7 +44,49 @@ public class RangeCheksumBuilderImpl implements RangeCheksumBuilder {
 	@Override
 	public Iterator<DestinationJob> providerRangeCheck(TypeToMigrateMetadata metadata,
 			String salt) {
-		return new ChecksumRangeExecutor(asynchronousJobExecutor, backupJobExecutor, batchSize, metadata, salt);
+		ChecksumHint hint = config.forceFullChecksumVerification() ? ChecksumHint.FULL
+				: config.getChecksumHint(metadata.getType());
+		switch (hint) {
+		case APPEND_ONLY:
+			// phase one's upper range backup is sufficient for append-only types.
+			return Collections.emptyIterator();
+		case APPEND_MOSTLY:
+			return new ChecksumRangeExecutor(asynchronousJobExecutor, backupJobExecutor, stateStore, restoredBinVerifier, metrics, batchSize,
+					metadata, salt, getAppendMostlyLowerBound(metadata), Optional.empty());
+		default:
+			return new ChecksumRangeExecutor(asynchronousJobExecutor, backupJobExecutor, stateStore, restoredBinVerifier, metrics, batchSize,
+					metadata, salt, null, getIncrementalState(metadata));
+		}
+	}
+
+	/**
+	 * Get the state verified by the last successful run when running in
+	 * incremental mode.
+	 * 
+	 * @param metadata
+	 * @return {@link Optional#empty()} when a full comparison is required.
+	 */
+	Optional<VerifiedTypeState> getIncrementalState(TypeToMigrateMetadata metadata) {
+		if (!config.isIncrementalMigration() || config.forceFullChecksumVerification()) {
+			return Optional.empty();
+		}
+		// bins of a different size cannot be compared.
+		return stateStore.getVerifiedState(metadata.getType()).filter(s -> s.getBatchSize() == batchSize);
+	}
+
+	/**
+	 * Get the first ID of the last N bins below the destination's maximum ID.
+	 * 
+	 * @param metadata
+	 * @return null when the destination is empty so the full range is compared.
+	 */
+	Long getAppendMostlyLowerBound(TypeToMigrateMetadata metadata) {
+		if (metadata.getDestMaxId() == null) {
+			return null;
+		}
+		long lastBin = metadata.getDestMaxId() / batchSize;
+		long firstBin = Math.max(0L, lastBin - config.getAppendMostlyBinCount() + 1);
+		return firstBin * batchSize;
 	}
 
 }
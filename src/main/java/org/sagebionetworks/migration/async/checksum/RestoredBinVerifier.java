@@ -0,0 +1,45 @@
+package org.sagebionetworks.migration.async.checksum;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.sagebionetworks.repo.model.migration.BatchChecksumRequest;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RangeChecksum;
+
+/**
+ * Produces a per-type checksum verdict from the bin checksums compared during
+ * phase two, so the full table checksum of a primary type is not needed. Only
+ * the bins that were restored because of a mismatch are computed again once
+ * all restore jobs are complete.
+ *
+ */
+public interface RestoredBinVerifier {
+
+	/**
+	 * Record the bin checksum comparison of the full ID range of a type.
+	 * 
+	 * @param request             The request that covers the full ID range of
+	 *                            the type.
+	 * @param mismatchedBins      The bins that did not match and will be
+	 *                            restored.
+	 * @param destinationComputed False if some bins were compared to saved state
+	 *                            or cached checksums instead of checksums
+	 *                            computed on the destination in this run. The
+	 *                            type then requires a full table checksum.
+	 */
+	void recordComparison(BatchChecksumRequest request, List<RangeChecksum> mismatchedBins,
+			boolean destinationComputed);
+
+	/**
+	 * Compute the checksums of the restored bins of the given type on both the
+	 * source and destination. Must only be called after all restore jobs are
+	 * complete.
+	 * 
+	 * @param type
+	 * @return {@link Optional#empty()} if the full ID range of the type was not
+	 *         compared with the destination in this run so a full table checksum
+	 *         is required. Otherwise true if all restored bins now match.
+	 */
+	Optional<Boolean> verifyRestoredBins(MigrationType type);
+}
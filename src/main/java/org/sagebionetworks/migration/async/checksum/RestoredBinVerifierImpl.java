@@ -0,0 +1,114 @@
+package org.sagebionetworks.migration.async.checksum;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
+import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.repo.model.migration.BatchChecksumRequest;
+import org.sagebionetworks.repo.model.migration.BatchChecksumResponse;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RangeChecksum;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Consecutive restored bins are verified with a single checksum request.
+ * <p>
+ * A single instance records the comparisons of all types and the types can be
+ * verified concurrently.
+ * </p>
+ */
+@Singleton
+public class RestoredBinVerifierImpl implements RestoredBinVerifier {
+
+	AsynchronousJobExecutor asynchronousJobExecutor;
+	Map<MigrationType, BatchChecksumRequest> comparedRanges;
+	Map<MigrationType, TreeSet<Long>> restoredBins;
+
+	@Inject
+	public RestoredBinVerifierImpl(AsynchronousJobExecutor asynchronousJobExecutor) {
+		super();
+		this.asynchronousJobExecutor = asynchronousJobExecutor;
+		this.comparedRanges = new LinkedHashMap<>();
+		this.restoredBins = new LinkedHashMap<>();
+	}
+
+	@Override
+	public synchronized void recordComparison(BatchChecksumRequest request, List<RangeChecksum> mismatchedBins,
+			boolean destinationComputed) {
+		if (!destinationComputed) {
+			// a retry also discards the comparison of the failed attempt.
+			comparedRanges.remove(request.getMigrationType());
+			restoredBins.remove(request.getMigrationType());
+			return;
+		}
+		TreeSet<Long> bins = new TreeSet<>();
+		for (RangeChecksum mismatch : mismatchedBins) {
+			bins.add(mismatch.getBinNumber());
+		}
+		// a retry replaces the comparison of the failed attempt.
+		comparedRanges.put(request.getMigrationType(), request);
+		restoredBins.put(request.getMigrationType(), bins);
+	}
+
+	@Override
+	public Optional<Boolean> verifyRestoredBins(MigrationType type) {
+		BatchChecksumRequest compared;
+		TreeSet<Long> bins;
+		synchronized (this) {
+			compared = comparedRanges.get(type);
+			if (compared == null) {
+				return Optional.empty();
+			}
+			bins = new TreeSet<>(restoredBins.get(type));
+		}
+		// the checksums of multiple types can be verified concurrently.
+		Long firstBin = null;
+		Long lastBin = null;
+		for (Long bin : bins) {
+			if (lastBin != null && bin != lastBin + 1) {
+				if (!binsMatch(compared, firstBin, lastBin)) {
+					return Optional.of(false);
+				}
+				firstBin = null;
+			}
+			if (firstBin == null) {
+				firstBin = bin;
+			}
+			lastBin = bin;
+		}
+		if (firstBin != null && !binsMatch(compared, firstBin, lastBin)) {
+			return Optional.of(false);
+		}
+		return Optional.of(true);
+	}
+
+	/**
+	 * Do the checksums of the given consecutive bins match on the source and
+	 * destination?
+	 * 
+	 * @param compared The request of the original comparison.
+	 * @param firstBin
+	 * @param lastBin
+	 * @return
+	 */
+	boolean binsMatch(BatchChecksumRequest compared, long firstBin, long lastBin) {
+		long batchSize = compared.getBatchSize();
+		BatchChecksumRequest request = new BatchChecksumRequest();
+		request.setMigrationType(compared.getMigrationType());
+		request.setBatchSize(batchSize);
+		request.setMinimumId(Math.max(firstBin * batchSize, compared.getMinimumId()));
+		request.setMaximumId(Math.min(lastBin * batchSize + batchSize - 1, compared.getMaximumId()));
+		request.setSalt(compared.getSalt());
+		ResultPair<BatchChecksumResponse> results = asynchronousJobExecutor.executeSourceAndDestinationJob(request,
+				BatchChecksumResponse.class);
+		return ChecksumRangeExecutor.findAllMismatchedRanges(results.getSourceResult().getCheksums(),
+				results.getDestinationResult().getCheksums()).isEmpty();
+	}
+
+}
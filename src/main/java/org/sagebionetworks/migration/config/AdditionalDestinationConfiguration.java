@@ -0,0 +1,97 @@
+package org.sagebionetworks.migration.config;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.sagebionetworks.migration.LoggerFactory;
+
+import com.amazonaws.services.secretsmanager.AWSSecretsManager;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/**
+ * The configuration of one of the additional destinations. The destination
+ * connection is replaced with the connection of the named destination, and
+ * each file that holds the state of a single destination is suffixed with the
+ * name of the destination.
+ *
+ */
+public class AdditionalDestinationConfiguration extends MigrationConfigurationImpl {
+
+	public static final String DESTINATION_NAME = "destinationName";
+
+	String destinationName;
+
+	@Inject
+	public AdditionalDestinationConfiguration(LoggerFactory loggerFactory, SystemPropertiesProvider propProvider,
+			FileProvider fileProvider, AWSSecretsManager secretManager,
+			@Named(DESTINATION_NAME) String destinationName) throws IOException {
+		super(loggerFactory, propProvider, fileProvider, secretManager);
+		this.destinationName = destinationName;
+	}
+
+	@Override
+	public SynapseConnectionInfo getDestinationConnectionInfo() {
+		return getAdditionalDestinationConnectionInfo(destinationName);
+	}
+
+	@Override
+	public Optional<String> getStateFilePath() {
+		return super.getStateFilePath().map(this::addSuffix);
+	}
+
+	@Override
+	public Optional<String> getPlanFilePath() {
+		return super.getPlanFilePath().map(this::addSuffix);
+	}
+
+	@Override
+	public Optional<String> getThroughputFilePath() {
+		return super.getThroughputFilePath().map(this::addSuffix);
+	}
+
+	@Override
+	public Optional<String> getStatusFilePath() {
+		return super.getStatusFilePath().map(this::addSuffix);
+	}
+
+	@Override
+	public Optional<String> getMetricsPrometheusFilePath() {
+		return super.getMetricsPrometheusFilePath().map(this::addSuffix);
+	}
+
+	@Override
+	public Optional<String> getMetricsJsonFilePath() {
+		return super.getMetricsJsonFilePath().map(this::addSuffix);
+	}
+
+	@Override
+	public Optional<String> getTraceFilePath() {
+		return super.getTraceFilePath().map(this::addSuffix);
+	}
+
+	@Override
+	public Optional<String> getRunReportFilePath() {
+		return super.getRunReportFilePath().map(this::addSuffix);
+	}
+
+	@Override
+	public Optional<String> getJobEventLogFilePath() {
+		return super.getJobEventLogFilePath().map(this::addSuffix);
+	}
+
+	@Override
+	public Optional<String> getShardLeaseDirectory() {
+		return super.getShardLeaseDirectory().map(this::addSuffix);
+	}
+
+	/**
+	 * 
+	 * @param path
+	 * @return The given path suffixed with the name of this destination.
+	 */
+	String addSuffix(String path) {
+		return path + "." + destinationName;
+	}
+
+}
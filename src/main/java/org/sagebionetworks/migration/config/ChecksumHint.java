@@ -0,0 +1,23 @@
+package org.sagebionetworks.migration.config;
+
+/**
+ * Hint that controls how much of a type's ID space is compared by checksum
+ * during phase two of migration.
+ *
+ */
+public enum ChecksumHint {
+	/**
+	 * Compare the checksums of the entire ID range (default).
+	 */
+	FULL,
+	/**
+	 * The type is only ever inserted with increasing IDs, so the upper range
+	 * backup of phase one is sufficient and the checksum phase is skipped.
+	 */
+	APPEND_ONLY,
+	/**
+	 * The type is mostly inserted with increasing IDs, so only the last N bins
+	 * below the destination's maximum ID are compared.
+	 */
+	APPEND_MOSTLY
+}
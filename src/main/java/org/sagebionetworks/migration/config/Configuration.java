@@ -1,6 +1,10 @@
 package org.sagebionetworks.migration.config;
 
+import java.util.List;
+import java.util.Optional;
+
 import org.sagebionetworks.repo.model.daemon.BackupAliasType;
+import org.sagebionetworks.repo.model.migration.MigrationType;
 
 /**
  * Provides configuration information
@@ -72,5 +76,336 @@ public interface Configuration {
 	 */
 	public boolean remainInReadOnlyAfterMigration();
 	
+	/**
+	 * Get the checksum hint for the given type. Types that are not configured
+	 * as append-only or append-mostly will return {@link ChecksumHint#FULL}.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	public ChecksumHint getChecksumHint(MigrationType type);
+	
+	/**
+	 * The number of bins below the destination's maximum ID that will be
+	 * compared for {@link ChecksumHint#APPEND_MOSTLY} types.
+	 * 
+	 * @return
+	 */
+	public int getAppendMostlyBinCount();
+	
+	/**
+	 * When true, all checksum hints are ignored and the full ID range of every
+	 * type is compared. This should be set periodically to verify append-only
+	 * and append-mostly types.
+	 * 
+	 * @return By default returns false.
+	 */
+	public boolean forceFullChecksumVerification();
+	
+	/**
+	 * Path of the local file used to persist the per-type state verified by the
+	 * last successful migration.
+	 * 
+	 * @return {@link Optional#empty()} when state should not be persisted.
+	 */
+	public Optional<String> getStateFilePath();
+	
+	/**
+	 * When true, the checksums of ID ranges verified by the last successful run
+	 * are only computed on the source and compared to the persisted state.
+	 * Requires a state file.
+	 * 
+	 * @return By default returns false.
+	 */
+	public boolean isIncrementalMigration();
+	
+	/**
+	 * A fixed salt used for all checksums. When set, the checksums computed on
+	 * the destination are cached in the state file and only the bins that this
+	 * tool restored since are computed on the destination again. Only safe when
+	 * the destination is modified by nothing but this tool between runs.
+	 * 
+	 * @return {@link Optional#empty()} when a random salt should be used for each
+	 *         run.
+	 */
+	public Optional<String> getStableChecksumSalt();
+	
+	/**
+	 * The maximum number of full table checksums that can run at the same time.
+	 * 
+	 * @return By default returns 4.
+	 */
+	public int getMaxConcurrentFullTableChecksums();
+	
+	/**
+	 * When greater than zero, the types are counted with one request per group
+	 * of this many types, and each type starts migrating as soon as its counts
+	 * are available. The groups are counted during the count down before the
+	 * migration starts, so the differences of each group are reported after the
+	 * count down.
+	 * 
+	 * @return By default returns 0 so all types are counted with a single
+	 *         request.
+	 */
+	public int getTypeCountGroupSize();
+	
+	/**
+	 * The maximum number of type count groups counted at the same time.
+	 * 
+	 * @return By default returns 10.
+	 */
+	public int getMaxConcurrentTypeCounts();
+	
+	/**
+	 * The maximum number of types whose optimal backup ranges are calculated on
+	 * the source at the same time, ahead of the backups of the current type.
+	 * 
+	 * @return By default returns 10.
+	 */
+	public int getMaxConcurrentRangeCalculations();
+	
+	/**
+	 * The number of backups of a type that are started on the source ahead of
+	 * the backup that is needed for the next restore.
+	 * 
+	 * @return By default returns 1.
+	 */
+	public int getBackupPrefetchDepth();
+	
+	/**
+	 * The maximum number of checksum delta passes of phase two. Another pass is
+	 * only run while the previous pass restored more jobs than
+	 * {@link #getChecksumDeltaThreshold()} and fewer jobs than the pass before
+	 * it.
+	 * 
+	 * @return By default returns 1.
+	 */
+	public int getMaxChecksumDeltaPasses();
+	
+	/**
+	 * Checksum delta passes stop once a pass restores no more than this many
+	 * jobs.
+	 * 
+	 * @return By default returns 0.
+	 */
+	public long getChecksumDeltaThreshold();
+	
+	/**
+	 * When true, the client runs as a long-running daemon that repeats
+	 * migration passes until a final pass is requested.
+	 * 
+	 * @return By default returns false.
+	 */
+	public boolean isDaemonMode();
+	
+	/**
+	 * The time between the start of consecutive daemon passes.
+	 * 
+	 * @return By default returns one hour.
+	 */
+	public long getDaemonPassIntervalMs();
+	
+	/**
+	 * The maximum percentage of time the daemon spends running passes. After a
+	 * long pass the daemon waits longer than the interval to stay within this
+	 * budget.
+	 * 
+	 * @return By default returns 50.
+	 */
+	public int getDaemonMaxDutyCyclePercent();
+	
+	/**
+	 * Path of a file that requests the final pass of the daemon when it exists.
+	 * The daemon deletes the file, runs the final pass, and exits.
+	 * 
+	 * @return {@link Optional#empty()} when the daemon runs until it is stopped.
+	 */
+	public Optional<String> getDaemonFinalPassFilePath();
+	
+	/**
+	 * Whether this run plans or executes the jobs of a migration plan file.
+	 * 
+	 * @return By default returns {@link PlanMode#NONE}.
+	 */
+	public PlanMode getPlanMode();
+	
+	/**
+	 * Path of the file that a {@link PlanMode#PLAN} run writes and a
+	 * {@link PlanMode#EXECUTE} run reads.
+	 * 
+	 * @return {@link Optional#empty()} when no plan file is configured.
+	 */
+	public Optional<String> getPlanFilePath();
+	
+	/**
+	 * Should a {@link PlanMode#ESTIMATE} run compare the checksums of the ranges
+	 * both stacks have in common? The comparison finds the ranges that changed
+	 * but runs checksum jobs on both stacks.
+	 * 
+	 * @return By default returns false.
+	 */
+	public boolean isEstimateIncludingChecksums();
+	
+	/**
+	 * Path of the file that holds the restore throughput of each type measured
+	 * by previous runs. The throughput is used to estimate the duration of a
+	 * migration, to project the completion of a phase before its first restores
+	 * finish and to start the longest types first.
+	 * 
+	 * @return {@link Optional#empty()} when no throughput file is configured.
+	 */
+	public Optional<String> getThroughputFilePath();
+	
+	/**
+	 * The throughput of a type that was last restored longer ago than this age
+	 * is stale, so it is ignored and replaced by the next restore of the type.
+	 * 
+	 * @return By default returns 30 days. Zero or less for no limit.
+	 */
+	public long getThroughputMaxAgeMs();
+	
+	/**
+	 * Path of the JSON file that is replaced with the live progress of the
+	 * current phase each time the progress is reported.
+	 * 
+	 * @return {@link Optional#empty()} when the progress is only logged.
+	 */
+	public Optional<String> getStatusFilePath();
+	
+	/**
+	 * The time between progress reports in MS.
+	 * 
+	 * @return By default returns one minute.
+	 */
+	public long getProgressReportIntervalMs();
+	
+	/**
+	 * The time between two snapshots of all running asynchronous jobs in MS.
+	 * 
+	 * @return By default returns ten seconds.
+	 */
+	public long getJobReportIntervalMs();
+	
+	/**
+	 * Path of the Prometheus text file that is replaced with a snapshot of the
+	 * metrics each time the metrics are exported.
+	 * 
+	 * @return {@link Optional#empty()} when the metrics are not exported in the
+	 *         Prometheus format.
+	 */
+	public Optional<String> getMetricsPrometheusFilePath();
+	
+	/**
+	 * Path of the JSON file that is replaced with a snapshot of the metrics each
+	 * time the metrics are exported.
+	 * 
+	 * @return {@link Optional#empty()} when the metrics are not exported as JSON.
+	 */
+	public Optional<String> getMetricsJsonFilePath();
+	
+	/**
+	 * The time between metrics exports in MS.
+	 * 
+	 * @return By default returns one minute.
+	 */
+	public long getMetricsExportIntervalMs();
+	
+	/**
+	 * Path of the Chrome Trace Event JSON file that is replaced with the phases
+	 * and jobs of each run when the run ends.
+	 * 
+	 * @return {@link Optional#empty()} when no trace is written.
+	 */
+	public Optional<String> getTraceFilePath();
+	
+	/**
+	 * Path of the JSON run report that is replaced with the rows, ranges, phase
+	 * times and settings of each run when the run ends. Keeping a copy of each
+	 * report gives a history to compare the performance of runs.
+	 * 
+	 * @return {@link Optional#empty()} when no report is written.
+	 */
+	public Optional<String> getRunReportFilePath();
+	
+	/**
+	 * Path of the rolling file that each lifecycle event of each asynchronous
+	 * job is appended to as a single line of JSON.
+	 * 
+	 * @return {@link Optional#empty()} when the job events are not written.
+	 */
+	public Optional<String> getJobEventLogFilePath();
+	
+	/**
+	 * When true, every call to the Synapse clients is recorded and the calls of
+	 * each phase are summarized.
+	 * 
+	 * @return By default returns false.
+	 */
+	public boolean isClientCallAccountingEnabled();
+	
+	/**
+	 * When true, the restore job queue can be inspected and retuned while it
+	 * runs with the JMX MBean of each destination.
+	 * 
+	 * @return By default returns false.
+	 */
+	public boolean isQueueControlEnabled();
+	
+	/**
+	 * The number of cooperating worker processes that share one migration.
+	 * 
+	 * @return By default returns 1.
+	 */
+	public int getShardCount();
+	
+	/**
+	 * The zero based index of this worker process within the shards.
+	 * 
+	 * @return By default returns 0.
+	 */
+	public int getShardIndex();
+	
+	/**
+	 * Primary types with an ID span, of both the source and destination, of at
+	 * least this size have their ID range split across all shards. Smaller types
+	 * are assigned to a single shard.
+	 * 
+	 * @return By default returns 0, which never splits a type.
+	 */
+	public long getShardSplitMinimumIdSpan();
+	
+	/**
+	 * Directory shared by all shards that holds the restore lease of each type
+	 * and the finished mark of each shard.
+	 * 
+	 * @return {@link Optional#empty()} when leases are only held in memory, which
+	 *         is only safe when all shards run in a single process. The operator
+	 *         must then restore the destination to READ-WRITE mode.
+	 */
+	public Optional<String> getShardLeaseDirectory();
+	
+	/**
+	 * A lease that has not been renewed within this time was abandoned by a
+	 * failed worker and can be taken by another worker.
+	 * 
+	 * @return By default returns 10 minutes.
+	 */
+	public long getShardLeaseTimeoutMs();
+	
+	/**
+	 * The names of the destinations that are migrated from the same source in
+	 * the same run as the destination of {@link #getDestinationConnectionInfo()}.
+	 * 
+	 * @return By default returns an empty list.
+	 */
+	public List<String> getAdditionalDestinationNames();
+	
+	/**
+	 * The connection information of an additional destination.
+	 * 
+	 * @param name One of {@link #getAdditionalDestinationNames()}.
+	 * @return
+	 */
+	public SynapseConnectionInfo getAdditionalDestinationConnectionInfo(String name);
 	
 }
@@ -2,7 +2,9 @@ package org.sagebionetworks.migration.config;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 public interface FileProvider {
 	
@@ -20,5 +22,23 @@ public interface FileProvider {
 	 * @throws FileNotFoundException 
 	 */
 	public InputStream createInputStream(File file) throws FileNotFoundException;
+	
+	/**
+	 * Create an output stream for the given file.
+	 * @param file
+	 * @return
+	 * @throws FileNotFoundException
+	 */
+	public OutputStream createOutputStream(File file) throws FileNotFoundException;
+	
+	/**
+	 * Replace the content of the file at the given path. The content is written
+	 * to a temporary file that is then moved over the file, so readers never see
+	 * a partial file.
+	 * @param path
+	 * @param content
+	 * @throws IOException
+	 */
+	public void replaceFile(String path, String content) throws IOException;
 
 }
@@ -3,7 +3,14 @@ package org.sagebionetworks.migration.config;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 public class FileProviderImp implements FileProvider {
 
@@ -17,4 +24,17 @@ public class FileProviderImp implements FileProvider {
 		return new FileInputStream(file);
 	}
 
+	@Override
+	public OutputStream createOutputStream(File file) throws FileNotFoundException {
+		return new FileOutputStream(file);
+	}
+
+	@Override
+	public void replaceFile(String path, String content) throws IOException {
+		Path target = new File(path).toPath();
+		Path temp = new File(path + ".tmp").toPath();
+		Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
 }
@@ -3,11 +3,17 @@ package org.sagebionetworks.migration.config;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 
 import org.apache.logging.log4j.Logger;
 import org.sagebionetworks.migration.LoggerFactory;
 import org.sagebionetworks.repo.model.daemon.BackupAliasType;
+import org.sagebionetworks.repo.model.migration.MigrationType;
 
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import com.amazonaws.services.secretsmanager.model.GetSecretValueRequest;
@@ -35,6 +41,67 @@ public class MigrationConfigurationImpl implements Configuration {
 	static final String KEY_DELAY_BEFORE_START_MS = "org.sagebionetworks.delay.before.start.ms";
 	static final String KEY_INCLUDE_FULL_TABLE_CHECKSUM = "org.sagebionetworks.include.full.table.checksum";
 	static final String KEY_STACK = "org.sagebionetworks.stack";
+	static final String KEY_APPEND_ONLY_TYPES = "org.sagebionetworks.append.only.types";
+	static final String KEY_APPEND_MOSTLY_TYPES = "org.sagebionetworks.append.mostly.types";
+	static final String KEY_APPEND_MOSTLY_BIN_COUNT = "org.sagebionetworks.append.mostly.bin.count";
+	static final String KEY_FORCE_FULL_CHECKSUM_VERIFICATION = "org.sagebionetworks.force.full.checksum.verification";
+	static final String KEY_STATE_FILE = "org.sagebionetworks.state.file";
+	static final String KEY_INCREMENTAL_MIGRATION = "org.sagebionetworks.incremental.migration";
+	static final String KEY_STABLE_CHECKSUM_SALT = "org.sagebionetworks.stable.checksum.salt";
+	static final String KEY_MAX_CONCURRENT_FULL_TABLE_CHECKSUMS = "org.sagebionetworks.max.concurrent.full.table.checksums";
+	static final String KEY_TYPE_COUNT_GROUP_SIZE = "org.sagebionetworks.type.count.group.size";
+	static final String KEY_MAX_CONCURRENT_TYPE_COUNTS = "org.sagebionetworks.max.concurrent.type.counts";
+	static final String KEY_MAX_CONCURRENT_RANGE_CALCULATIONS = "org.sagebionetworks.max.concurrent.range.calculations";
+	static final String KEY_BACKUP_PREFETCH_DEPTH = "org.sagebionetworks.backup.prefetch.depth";
+	static final String KEY_MAX_CHECKSUM_DELTA_PASSES = "org.sagebionetworks.max.checksum.delta.passes";
+	static final String KEY_CHECKSUM_DELTA_THRESHOLD = "org.sagebionetworks.checksum.delta.threshold";
+	static final String KEY_DAEMON_MODE = "org.sagebionetworks.daemon.mode";
+	static final String KEY_DAEMON_PASS_INTERVAL_MS = "org.sagebionetworks.daemon.pass.interval.ms";
+	static final String KEY_DAEMON_MAX_DUTY_CYCLE_PERCENT = "org.sagebionetworks.daemon.max.duty.cycle.percent";
+	static final String KEY_DAEMON_FINAL_PASS_FILE = "org.sagebionetworks.daemon.final.pass.file";
+	static final String KEY_PLAN_MODE = "org.sagebionetworks.plan.mode";
+	static final String KEY_PLAN_FILE = "org.sagebionetworks.plan.file";
+	static final String KEY_ESTIMATE_INCLUDE_CHECKSUMS = "org.sagebionetworks.estimate.include.checksums";
+	static final String KEY_THROUGHPUT_FILE = "org.sagebionetworks.throughput.file";
+	static final String KEY_THROUGHPUT_MAX_AGE_MS = "org.sagebionetworks.throughput.max.age.ms";
+	static final String KEY_STATUS_FILE = "org.sagebionetworks.status.file";
+	static final String KEY_PROGRESS_REPORT_INTERVAL_MS = "org.sagebionetworks.progress.report.interval.ms";
+	static final String KEY_JOB_REPORT_INTERVAL_MS = "org.sagebionetworks.job.report.interval.ms";
+	static final String KEY_METRICS_PROMETHEUS_FILE = "org.sagebionetworks.metrics.prometheus.file";
+	static final String KEY_METRICS_JSON_FILE = "org.sagebionetworks.metrics.json.file";
+	static final String KEY_METRICS_EXPORT_INTERVAL_MS = "org.sagebionetworks.metrics.export.interval.ms";
+	static final String KEY_TRACE_FILE = "org.sagebionetworks.trace.file";
+	static final String KEY_JOB_EVENT_LOG_FILE = "org.sagebionetworks.job.event.log.file";
+	static final String KEY_RUN_REPORT_FILE = "org.sagebionetworks.run.report.file";
+	static final String KEY_CLIENT_CALL_ACCOUNTING = "org.sagebionetworks.client.call.accounting";
+	static final String KEY_QUEUE_CONTROL = "org.sagebionetworks.queue.control";
+	static final String KEY_SHARD_COUNT = "org.sagebionetworks.shard.count";
+	static final String KEY_SHARD_INDEX = "org.sagebionetworks.shard.index";
+	static final String KEY_SHARD_SPLIT_MINIMUM_ID_SPAN = "org.sagebionetworks.shard.split.minimum.id.span";
+	static final String KEY_SHARD_LEASE_DIRECTORY = "org.sagebionetworks.shard.lease.directory";
+	static final String KEY_SHARD_LEASE_TIMEOUT_MS = "org.sagebionetworks.shard.lease.timeout.ms";
+	static final String KEY_ADDITIONAL_DESTINATIONS = "org.sagebionetworks.additional.destinations";
+	static final String KEY_ADDITIONAL_DESTINATION_REPOSITORY_ENDPOINT_FORMAT = "org.sagebionetworks.destination.%s.repository.endpoint";
+	static final String KEY_ADDITIONAL_DESTINATION_AUTHENTICATION_ENDPOINT_FORMAT = "org.sagebionetworks.destination.%s.authentication.endpoint";
+	static final String KEY_ADDITIONAL_DESTINATION_SERVICE_SECRET_FORMAT = "org.sagebionetworks.service.secret.destination.%s";
+	static final int DEFAULT_APPEND_MOSTLY_BIN_COUNT = 10;
+	static final int DEFAULT_MAX_CONCURRENT_FULL_TABLE_CHECKSUMS = 4;
+	static final int DEFAULT_MAX_CONCURRENT_TYPE_COUNTS = 10;
+	static final int DEFAULT_MAX_CONCURRENT_RANGE_CALCULATIONS = 10;
+	static final int DEFAULT_BACKUP_PREFETCH_DEPTH = 1;
+	static final long DEFAULT_DAEMON_PASS_INTERVAL_MS = 60 * 60 * 1000L;
+	static final int DEFAULT_DAEMON_MAX_DUTY_CYCLE_PERCENT = 50;
+	static final long DEFAULT_SHARD_LEASE_TIMEOUT_MS = 10 * 60 * 1000L;
+	static final int DEFAULT_TYPE_COUNT_GROUP_SIZE = 0;
+	static final int DEFAULT_MAX_CHECKSUM_DELTA_PASSES = 1;
+	static final long DEFAULT_CHECKSUM_DELTA_THRESHOLD = 0L;
+	static final int DEFAULT_SHARD_COUNT = 1;
+	static final int DEFAULT_SHARD_INDEX = 0;
+	static final long DEFAULT_SHARD_SPLIT_MINIMUM_ID_SPAN = 0L;
+	static final long DEFAULT_PROGRESS_REPORT_INTERVAL_MS = 60 * 1000L;
+	static final long DEFAULT_METRICS_EXPORT_INTERVAL_MS = 60 * 1000L;
+	static final long DEFAULT_THROUGHPUT_MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+	static final long DEFAULT_JOB_REPORT_INTERVAL_MS = 10 * 1000L;
 	static final String REPO_ENDPOINT_FORMAT = "https://repo-%s.%s.sagebase.org/%s/v1";
 
 	enum StackType {
@@ -138,6 +205,233 @@ public class MigrationConfigurationImpl implements Configuration {
 		return Boolean.parseBoolean(getProperty(KEY_INCLUDE_FULL_TABLE_CHECKSUM));
 	}
 	
+	@Override
+	public ChecksumHint getChecksumHint(MigrationType type) {
+		if (parseTypes(getProperty(KEY_APPEND_ONLY_TYPES, "")).contains(type)) {
+			return ChecksumHint.APPEND_ONLY;
+		}
+		if (parseTypes(getProperty(KEY_APPEND_MOSTLY_TYPES, "")).contains(type)) {
+			return ChecksumHint.APPEND_MOSTLY;
+		}
+		return ChecksumHint.FULL;
+	}
+
+	@Override
+	public int getAppendMostlyBinCount() {
+		return Integer.parseInt(getProperty(KEY_APPEND_MOSTLY_BIN_COUNT, Integer.toString(DEFAULT_APPEND_MOSTLY_BIN_COUNT)));
+	}
+
+	@Override
+	public boolean forceFullChecksumVerification() {
+		return Boolean.parseBoolean(getProperty(KEY_FORCE_FULL_CHECKSUM_VERIFICATION, Boolean.FALSE.toString()));
+	}
+	
+	@Override
+	public Optional<String> getStateFilePath() {
+		return Optional.ofNullable(getProperty(KEY_STATE_FILE, null));
+	}
+
+	@Override
+	public boolean isIncrementalMigration() {
+		return Boolean.parseBoolean(getProperty(KEY_INCREMENTAL_MIGRATION, Boolean.FALSE.toString()));
+	}
+
+	@Override
+	public Optional<String> getStableChecksumSalt() {
+		return Optional.ofNullable(getProperty(KEY_STABLE_CHECKSUM_SALT, null));
+	}
+
+	@Override
+	public int getMaxConcurrentFullTableChecksums() {
+		return Integer.parseInt(getProperty(KEY_MAX_CONCURRENT_FULL_TABLE_CHECKSUMS,
+				Integer.toString(DEFAULT_MAX_CONCURRENT_FULL_TABLE_CHECKSUMS)));
+	}
+
+	@Override
+	public int getTypeCountGroupSize() {
+		return Integer.parseInt(getProperty(KEY_TYPE_COUNT_GROUP_SIZE, Integer.toString(DEFAULT_TYPE_COUNT_GROUP_SIZE)));
+	}
+
+	@Override
+	public int getMaxConcurrentTypeCounts() {
+		return Integer.parseInt(getProperty(KEY_MAX_CONCURRENT_TYPE_COUNTS,
+				Integer.toString(DEFAULT_MAX_CONCURRENT_TYPE_COUNTS)));
+	}
+
+	@Override
+	public int getMaxConcurrentRangeCalculations() {
+		return Integer.parseInt(getProperty(KEY_MAX_CONCURRENT_RANGE_CALCULATIONS,
+				Integer.toString(DEFAULT_MAX_CONCURRENT_RANGE_CALCULATIONS)));
+	}
+
+	@Override
+	public int getBackupPrefetchDepth() {
+		return Integer.parseInt(getProperty(KEY_BACKUP_PREFETCH_DEPTH, Integer.toString(DEFAULT_BACKUP_PREFETCH_DEPTH)));
+	}
+
+	@Override
+	public int getMaxChecksumDeltaPasses() {
+		return Integer.parseInt(getProperty(KEY_MAX_CHECKSUM_DELTA_PASSES, Integer.toString(DEFAULT_MAX_CHECKSUM_DELTA_PASSES)));
+	}
+
+	@Override
+	public long getChecksumDeltaThreshold() {
+		return Long.parseLong(getProperty(KEY_CHECKSUM_DELTA_THRESHOLD, Long.toString(DEFAULT_CHECKSUM_DELTA_THRESHOLD)));
+	}
+
+	@Override
+	public boolean isDaemonMode() {
+		return Boolean.parseBoolean(getProperty(KEY_DAEMON_MODE, "false"));
+	}
+
+	@Override
+	public long getDaemonPassIntervalMs() {
+		return Long.parseLong(getProperty(KEY_DAEMON_PASS_INTERVAL_MS, Long.toString(DEFAULT_DAEMON_PASS_INTERVAL_MS)));
+	}
+
+	@Override
+	public int getDaemonMaxDutyCyclePercent() {
+		return Integer.parseInt(getProperty(KEY_DAEMON_MAX_DUTY_CYCLE_PERCENT,
+				Integer.toString(DEFAULT_DAEMON_MAX_DUTY_CYCLE_PERCENT)));
+	}
+
+	@Override
+	public Optional<String> getDaemonFinalPassFilePath() {
+		return Optional.ofNullable(getProperty(KEY_DAEMON_FINAL_PASS_FILE, null));
+	}
+
+	@Override
+	public PlanMode getPlanMode() {
+		return PlanMode.valueOf(getProperty(KEY_PLAN_MODE, PlanMode.NONE.name()).toUpperCase());
+	}
+
+	@Override
+	public Optional<String> getPlanFilePath() {
+		return Optional.ofNullable(getProperty(KEY_PLAN_FILE, null));
+	}
+
+	@Override
+	public boolean isEstimateIncludingChecksums() {
+		return Boolean.parseBoolean(getProperty(KEY_ESTIMATE_INCLUDE_CHECKSUMS, "false"));
+	}
+
+	@Override
+	public Optional<String> getThroughputFilePath() {
+		return Optional.ofNullable(getProperty(KEY_THROUGHPUT_FILE, null));
+	}
+
+	@Override
+	public long getThroughputMaxAgeMs() {
+		return Long.parseLong(getProperty(KEY_THROUGHPUT_MAX_AGE_MS, Long.toString(DEFAULT_THROUGHPUT_MAX_AGE_MS)));
+	}
+
+	@Override
+	public Optional<String> getStatusFilePath() {
+		return Optional.ofNullable(getProperty(KEY_STATUS_FILE, null));
+	}
+
+	@Override
+	public long getProgressReportIntervalMs() {
+		return Long.parseLong(getProperty(KEY_PROGRESS_REPORT_INTERVAL_MS, Long.toString(DEFAULT_PROGRESS_REPORT_INTERVAL_MS)));
+	}
+
+	@Override
+	public long getJobReportIntervalMs() {
+		return Long.parseLong(getProperty(KEY_JOB_REPORT_INTERVAL_MS, Long.toString(DEFAULT_JOB_REPORT_INTERVAL_MS)));
+	}
+
+	@Override
+	public Optional<String> getMetricsPrometheusFilePath() {
+		return Optional.ofNullable(getProperty(KEY_METRICS_PROMETHEUS_FILE, null));
+	}
+
+	@Override
+	public Optional<String> getMetricsJsonFilePath() {
+		return Optional.ofNullable(getProperty(KEY_METRICS_JSON_FILE, null));
+	}
+
+	@Override
+	public long getMetricsExportIntervalMs() {
+		return Long.parseLong(getProperty(KEY_METRICS_EXPORT_INTERVAL_MS, Long.toString(DEFAULT_METRICS_EXPORT_INTERVAL_MS)));
+	}
+
+	@Override
+	public Optional<String> getTraceFilePath() {
+		return Optional.ofNullable(getProperty(KEY_TRACE_FILE, null));
+	}
+
+	@Override
+	public Optional<String> getJobEventLogFilePath() {
+		return Optional.ofNullable(getProperty(KEY_JOB_EVENT_LOG_FILE, null));
+	}
+
+	@Override
+	public Optional<String> getRunReportFilePath() {
+		return Optional.ofNullable(getProperty(KEY_RUN_REPORT_FILE, null));
+	}
+
+	@Override
+	public boolean isClientCallAccountingEnabled() {
+		return Boolean.parseBoolean(getProperty(KEY_CLIENT_CALL_ACCOUNTING, "false"));
+	}
+
+	@Override
+	public boolean isQueueControlEnabled() {
+		return Boolean.parseBoolean(getProperty(KEY_QUEUE_CONTROL, "false"));
+	}
+
+	@Override
+	public List<String> getAdditionalDestinationNames() {
+		List<String> names = new LinkedList<>();
+		for (String name : getProperty(KEY_ADDITIONAL_DESTINATIONS, "").split(",")) {
+			String trimmed = name.trim();
+			if (!trimmed.isEmpty()) {
+				names.add(trimmed);
+			}
+		}
+		return names;
+	}
+
+	@Override
+	public SynapseConnectionInfo getAdditionalDestinationConnectionInfo(String name) {
+		return new SynapseConnectionInfo(
+				getProperty(String.format(KEY_ADDITIONAL_DESTINATION_AUTHENTICATION_ENDPOINT_FORMAT, name)),
+				getProperty(String.format(KEY_ADDITIONAL_DESTINATION_REPOSITORY_ENDPOINT_FORMAT, name)),
+				getProperty(KEY_SERVICE_KEY),
+				getSecret(String.format(KEY_ADDITIONAL_DESTINATION_SERVICE_SECRET_FORMAT, name))
+		);
+	}
+
+	@Override
+	public int getShardCount() {
+		return Integer.parseInt(getProperty(KEY_SHARD_COUNT, Integer.toString(DEFAULT_SHARD_COUNT)));
+	}
+
+	@Override
+	public int getShardIndex() {
+		int shardIndex = Integer.parseInt(getProperty(KEY_SHARD_INDEX, Integer.toString(DEFAULT_SHARD_INDEX)));
+		if (shardIndex < 0 || shardIndex >= getShardCount()) {
+			throw new IllegalArgumentException(
+					"The shard index must be at least zero and less than the shard count: " + shardIndex);
+		}
+		return shardIndex;
+	}
+
+	@Override
+	public long getShardSplitMinimumIdSpan() {
+		return Long.parseLong(getProperty(KEY_SHARD_SPLIT_MINIMUM_ID_SPAN, Long.toString(DEFAULT_SHARD_SPLIT_MINIMUM_ID_SPAN)));
+	}
+
+	@Override
+	public Optional<String> getShardLeaseDirectory() {
+		return Optional.ofNullable(getProperty(KEY_SHARD_LEASE_DIRECTORY, null));
+	}
+
+	@Override
+	public long getShardLeaseTimeoutMs() {
+		return Long.parseLong(getProperty(KEY_SHARD_LEASE_TIMEOUT_MS, Long.toString(DEFAULT_SHARD_LEASE_TIMEOUT_MS)));
+	}
+	
 	/**
 	 * 
 	 * @param key
@@ -151,6 +445,34 @@ public class MigrationConfigurationImpl implements Configuration {
 		return value;
 	}
 	
+	/**
+	 * Get an optional property.
+	 * 
+	 * @param key
+	 * @param defaultValue Returned when the property is not set.
+	 * @return
+	 */
+	String getProperty(String key, String defaultValue) {
+		return this.systemProperties.getProperty(key, defaultValue);
+	}
+	
+	/**
+	 * Parse a comma separated list of MigrationType names.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	static Set<MigrationType> parseTypes(String value) {
+		Set<MigrationType> types = new HashSet<>();
+		for (String name : value.split(",")) {
+			String trimmed = name.trim();
+			if (!trimmed.isEmpty()) {
+				types.add(MigrationType.valueOf(trimmed));
+			}
+		}
+		return types;
+	}
+	
 	/**
 	 * Load the the properties from the given file path.
 	 * @param path
@@ -185,9 +507,27 @@ public class MigrationConfigurationImpl implements Configuration {
 		logger.info("Max number of retries: "+getMaxRetries());
 		logger.info("Batch size: "+getMaximumBackupBatchSize());
 		logger.info("BackupAliasType: "+getBackupAliasType());
-		logger.info("Include full table checksums: "+includeFullTableChecksums());
+		logger.info("Include full table checksums: "+includeFullTableChecksums()+" max concurrent: "+getMaxConcurrentFullTableChecksums());
 		logger.info("Asynchronous job timeout MS: "+getWorkerTimeoutMs());
 		logger.info("Delay before migration starts MS: "+getDelayBeforeMigrationStartMS());
+		logger.info("Append-only types: "+getProperty(KEY_APPEND_ONLY_TYPES, ""));
+		logger.info("Append-mostly types: "+getProperty(KEY_APPEND_MOSTLY_TYPES, "")+" bin count: "+getAppendMostlyBinCount());
+		logger.info("Force full checksum verification: "+forceFullChecksumVerification());
+		logger.info("State file: "+getStateFilePath().orElse("none"));
+		logger.info("Incremental migration: "+isIncrementalMigration());
+		logger.info("Stable checksum salt: "+getStableChecksumSalt().isPresent());
+		logger.info("Type count group size: "+getTypeCountGroupSize()+" max concurrent: "+getMaxConcurrentTypeCounts());
+		logger.info("Max concurrent range calculations: "+getMaxConcurrentRangeCalculations()+" backup prefetch depth: "+getBackupPrefetchDepth());
+		logger.info("Max checksum delta passes: "+getMaxChecksumDeltaPasses()+" threshold: "+getChecksumDeltaThreshold());
+		logger.info("Daemon mode: "+isDaemonMode()+" pass interval MS: "+getDaemonPassIntervalMs()+" max duty cycle: "+getDaemonMaxDutyCyclePercent()+"% final pass file: "+getDaemonFinalPassFilePath().orElse("none"));
+		logger.info("Plan mode: "+getPlanMode()+" plan file: "+getPlanFilePath().orElse("none"));
+		logger.info("Estimate includes checksums: "+isEstimateIncludingChecksums()+" throughput file: "+getThroughputFilePath().orElse("none")+" max age MS: "+getThroughputMaxAgeMs());
+		logger.info("Status file: "+getStatusFilePath().orElse("none")+" progress report interval MS: "+getProgressReportIntervalMs()+" job report interval MS: "+getJobReportIntervalMs());
+		logger.info("Metrics Prometheus file: "+getMetricsPrometheusFilePath().orElse("none")+" JSON file: "+getMetricsJsonFilePath().orElse("none")+" export interval MS: "+getMetricsExportIntervalMs());
+		logger.info("Trace file: "+getTraceFilePath().orElse("none")+" run report file: "+getRunReportFilePath().orElse("none")+" job event log file: "+getJobEventLogFilePath().orElse("none"));
+		logger.info("Client call accounting: "+isClientCallAccountingEnabled()+" queue control: "+isQueueControlEnabled());
+		logger.info("Shard: "+getShardIndex()+" of "+getShardCount()+" split minimum ID span: "+getShardSplitMinimumIdSpan()+" lease directory: "+getShardLeaseDirectory().orElse("none")+" lease timeout MS: "+getShardLeaseTimeoutMs());
+		logger.info("Additional destinations: "+getAdditionalDestinationNames());
 	}
 	
 	/**
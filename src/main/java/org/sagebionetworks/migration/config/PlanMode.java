@@ -0,0 +1,37 @@
+package org.sagebionetworks.migration.config;
+
+/**
+ * Controls whether the jobs of a migration are planned and executed in the
+ * same run, or in separate runs through a plan file.
+ *
+ */
+public enum PlanMode {
+	/**
+	 * Find and execute the jobs in the same run (default).
+	 */
+	NONE,
+	/**
+	 * Find the backup ranges of all jobs and write them to the plan file
+	 * without changing the destination.
+	 */
+	PLAN,
+	/**
+	 * Find the backup ranges of all jobs, like {@link #PLAN}, and report the
+	 * projected rows, jobs and duration of each type without changing the
+	 * destination.
+	 */
+	ESTIMATE,
+	/**
+	 * Backup and restore each range of the plan file, in order, without
+	 * searching for jobs.
+	 */
+	EXECUTE;
+
+	/**
+	 * 
+	 * @return True if the jobs of this mode are only found, and not executed.
+	 */
+	public boolean isDryRun() {
+		return PLAN == this || ESTIMATE == this;
+	}
+}
@@ -0,0 +1,24 @@
+package org.sagebionetworks.migration.estimate;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.sagebionetworks.migration.plan.PlannedRange;
+
+/**
+ * Projects the work of a migration from its planned ranges without changing
+ * the destination.
+ *
+ */
+public interface MigrationEstimator {
+
+	/**
+	 * Build and report the estimate of each type with at least one of the given
+	 * ranges.
+	 * 
+	 * @param ranges
+	 * @return The estimate of each type in the order the types first appear.
+	 */
+	List<TypeEstimate> estimate(Iterator<PlannedRange> ranges);
+
+}
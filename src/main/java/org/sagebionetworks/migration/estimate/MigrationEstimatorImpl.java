@@ -0,0 +1,112 @@
+package org.sagebionetworks.migration.estimate;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.plan.PlannedRange;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+import com.google.inject.Inject;
+
+/**
+ * Estimates the duration of each type from the historical throughput of the
+ * {@link TypeThroughputStore}.
+ *
+ */
+public class MigrationEstimatorImpl implements MigrationEstimator {
+
+	Configuration config;
+	TypeThroughputStore throughputStore;
+	Logger logger;
+
+	@Inject
+	public MigrationEstimatorImpl(Configuration config, TypeThroughputStore throughputStore,
+			LoggerFactory loggerFactory) {
+		super();
+		this.config = config;
+		this.throughputStore = throughputStore;
+		this.logger = loggerFactory.getLogger(MigrationEstimatorImpl.class);
+	}
+
+	@Override
+	public List<TypeEstimate> estimate(Iterator<PlannedRange> ranges) {
+		long batchSize = Math.max(1, config.getMaximumBackupBatchSize());
+		// job count, row count, bin count and last bin of each type.
+		Map<MigrationType, long[]> totals = new LinkedHashMap<>();
+		while (ranges.hasNext()) {
+			PlannedRange range = ranges.next();
+			long[] total = totals.computeIfAbsent(range.getType(), t -> new long[] { 0L, 0L, 0L, -1L });
+			long firstBin = range.getMinimumId() / batchSize;
+			long lastBin = range.getMaximumId() / batchSize;
+			total[0]++;
+			total[1] += range.getEstimatedRowCount();
+			// adjacent ranges of a type can share a bin.
+			total[2] += lastBin - firstBin + (firstBin == total[3] ? 0 : 1);
+			total[3] = lastBin;
+		}
+		List<TypeEstimate> estimates = new LinkedList<>();
+		for (Map.Entry<MigrationType, long[]> entry : totals.entrySet()) {
+			long[] total = entry.getValue();
+			Long estimatedMs = throughputStore.getRowsPerSecond(entry.getKey())
+					.map(rowsPerSecond -> (long) Math.ceil(total[1] * 1000.0 / rowsPerSecond)).orElse(null);
+			TypeEstimate estimate = new TypeEstimate(entry.getKey(), total[0], total[1], total[2], estimatedMs);
+			logger.info("Estimate for " + estimate.getType() + ": jobs: " + estimate.getJobCount() + " rows: "
+					+ estimate.getRowCount() + " bins: " + estimate.getBinCount() + " ETA: "
+					+ estimate.getEstimatedMs().map(MigrationEstimatorImpl::formatDuration).orElse("unknown"));
+			estimates.add(estimate);
+		}
+		long jobCount = estimates.stream().mapToLong(TypeEstimate::getJobCount).sum();
+		long rowCount = estimates.stream().mapToLong(TypeEstimate::getRowCount).sum();
+		long unknownCount = estimates.stream().filter(e -> !e.getEstimatedMs().isPresent()).count();
+		logger.info("Estimate for all types: jobs: " + jobCount + " rows: " + rowCount + " ETA: "
+				+ formatDuration(getEstimatedTotalMs(estimates))
+				+ (unknownCount > 0 ? " excluding " + unknownCount + " types without a known throughput" : ""));
+		return estimates;
+	}
+
+	/**
+	 * The estimated duration of all types with a known throughput. Types other
+	 * than {@link MigrationType#CHANGE} are restored concurrently, while changes
+	 * are restored while nothing else is running.
+	 * 
+	 * @param estimates
+	 * @return
+	 */
+	static long getEstimatedTotalMs(List<TypeEstimate> estimates) {
+		long changeMs = 0L;
+		long longestMs = 0L;
+		for (TypeEstimate estimate : estimates) {
+			Optional<Long> estimatedMs = estimate.getEstimatedMs();
+			if (!estimatedMs.isPresent()) {
+				continue;
+			}
+			if (MigrationType.CHANGE == estimate.getType()) {
+				changeMs += estimatedMs.get();
+			} else {
+				longestMs = Math.max(longestMs, estimatedMs.get());
+			}
+		}
+		return changeMs + longestMs;
+	}
+
+	/**
+	 * 
+	 * @param ms
+	 * @return The given duration as hours, minutes and seconds.
+	 */
+	static String formatDuration(long ms) {
+		long hours = TimeUnit.MILLISECONDS.toHours(ms);
+		long minutes = TimeUnit.MILLISECONDS.toMinutes(ms) % 60;
+		long seconds = TimeUnit.MILLISECONDS.toSeconds(ms) % 60;
+		return String.format("%d:%02d:%02d", hours, minutes, seconds);
+	}
+
+}
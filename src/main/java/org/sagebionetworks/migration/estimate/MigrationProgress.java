@@ -0,0 +1,44 @@
+package org.sagebionetworks.migration.estimate;
+
+import org.sagebionetworks.migration.async.DestinationJob;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * Live progress model of a running migration. Tracks the ranges and rows
+ * discovered and completed by each {@link MigrationType} during the current
+ * phase, and projects when the phase will complete.
+ *
+ */
+public interface MigrationProgress {
+
+	/**
+	 * Start a new phase. The progress of the previous phase is discarded.
+	 * 
+	 * @param phase The name of the phase.
+	 */
+	void startPhase(String phase);
+
+	/**
+	 * A job was discovered and pushed to the restore queue.
+	 * 
+	 * @param job
+	 */
+	void jobDiscovered(DestinationJob job);
+
+	/**
+	 * A restore job finished.
+	 * 
+	 * @param type
+	 * @param rowCount  The number of rows restored by the job.
+	 * @param elapsedMs The time it took to run the job.
+	 */
+	void jobFinished(MigrationType type, long rowCount, long elapsedMs);
+
+	/**
+	 * Log the progress of the current phase and write it to the file provided by
+	 * {@link Configuration#getStatusFilePath()}.
+	 */
+	void report();
+
+}
@@ -0,0 +1,226 @@
+package org.sagebionetworks.migration.estimate;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.DestinationJob;
+import org.sagebionetworks.migration.async.RestoreDestinationJob;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.util.Clock;
+
+/**
+ * Progress model that is reported from a timer thread. The projected
+ * completion of a phase follows the same rule as an estimate: types other than
+ * {@link MigrationType#CHANGE} are restored concurrently. The remaining time of
+ * a type starts from its historical restore time in the
+ * {@link TypeThroughputStore}.
+ * <p>
+ * The status file is replaced atomically so it can be read at any time. The
+ * public methods of this class are synchronized since they are called from the
+ * main thread and the timer threads.
+ * </p>
+ */
+public class MigrationProgressImpl implements MigrationProgress, Runnable {
+
+	static final String KEY_PHASE = "phase";
+	static final String KEY_UPDATED_ON = "updatedOn";
+	static final String KEY_ELAPSED_MS = "elapsedMs";
+	static final String KEY_DISCOVERED_RANGES = "discoveredRanges";
+	static final String KEY_COMPLETED_RANGES = "completedRanges";
+	static final String KEY_DISCOVERED_ROWS = "discoveredRows";
+	static final String KEY_COMPLETED_ROWS = "completedRows";
+	static final String KEY_ROWS_PER_SECOND = "rowsPerSecond";
+	static final String KEY_ESTIMATED_REMAINING_MS = "estimatedRemainingMs";
+	static final String KEY_PROJECTED_COMPLETION = "projectedCompletion";
+	static final String KEY_TYPES = "types";
+	static final String KEY_TYPE = "type";
+
+	Configuration config;
+	FileProvider fileProvider;
+	TypeThroughputStore throughputStore;
+	Clock clock;
+	Logger logger;
+
+	String phase;
+	long phaseStartMs;
+	Map<MigrationType, TypeProgress> types;
+	long lastReportMs;
+	long lastReportRows;
+	Double rowsPerSecond;
+
+	public MigrationProgressImpl(Configuration config, FileProvider fileProvider,
+			TypeThroughputStore throughputStore, Clock clock, LoggerFactory loggerFactory) {
+		super();
+		this.config = config;
+		this.fileProvider = fileProvider;
+		this.throughputStore = throughputStore;
+		this.clock = clock;
+		this.logger = loggerFactory.getLogger(MigrationProgressImpl.class);
+		this.types = new LinkedHashMap<>();
+	}
+
+	@Override
+	public synchronized void startPhase(String phase) {
+		this.phase = phase;
+		this.phaseStartMs = clock.currentTimeMillis();
+		this.types.clear();
+		this.lastReportMs = phaseStartMs;
+		this.lastReportRows = 0L;
+		this.rowsPerSecond = null;
+	}
+
+	@Override
+	public synchronized void jobDiscovered(DestinationJob job) {
+		TypeProgress progress = types.computeIfAbsent(job.getMigrationType(), this::createTypeProgress);
+		progress.discoveredRanges++;
+		progress.discoveredRows += getMaximumRowCount(job, config.getMaximumBackupBatchSize());
+	}
+
+	@Override
+	public synchronized void jobFinished(MigrationType type, long rowCount, long elapsedMs) {
+		types.computeIfAbsent(type, this::createTypeProgress).addFinishedJob(rowCount, elapsedMs);
+	}
+
+	@Override
+	public synchronized void report() {
+		if (phase == null) {
+			return;
+		}
+		long now = clock.currentTimeMillis();
+		long completedRows = types.values().stream().mapToLong(TypeProgress::getCompletedRows).sum();
+		if (now > lastReportMs) {
+			rowsPerSecond = TypeProgress.movingAverage(rowsPerSecond,
+					(completedRows - lastReportRows) * 1000.0 / (now - lastReportMs));
+			lastReportMs = now;
+			lastReportRows = completedRows;
+		}
+		List<TypeEstimate> remaining = new LinkedList<>();
+		for (TypeProgress progress : types.values()) {
+			remaining.add(new TypeEstimate(progress.getType(),
+					progress.getDiscoveredRanges() - progress.getCompletedRanges(),
+					Math.max(0L, progress.getDiscoveredRows() - progress.getCompletedRows()), 0L,
+					progress.getEstimatedRemainingMs().orElse(null)));
+			if (progress.getCompletedRanges() < progress.getDiscoveredRanges()) {
+				logger.info("Progress of " + progress.getType() + ": ranges: " + progress.getCompletedRanges() + "/"
+						+ progress.getDiscoveredRanges() + " rows: " + progress.getCompletedRows() + "/"
+						+ progress.getDiscoveredRows() + " rows/s: " + formatRate(progress.getRowsPerSecond())
+						+ " ETA: " + formatEta(progress.getEstimatedRemainingMs()));
+			}
+		}
+		long remainingMs = MigrationEstimatorImpl.getEstimatedTotalMs(remaining);
+		long unknownCount = remaining.stream().filter(e -> !e.getEstimatedMs().isPresent()).count();
+		long discoveredRanges = types.values().stream().mapToLong(TypeProgress::getDiscoveredRanges).sum();
+		long completedRanges = types.values().stream().mapToLong(TypeProgress::getCompletedRanges).sum();
+		long discoveredRows = types.values().stream().mapToLong(TypeProgress::getDiscoveredRows).sum();
+		logger.info("Progress of " + phase + ": ranges: " + completedRanges + "/" + discoveredRanges + " rows: "
+				+ completedRows + "/" + discoveredRows + " rows/s: " + formatRate(Optional.ofNullable(rowsPerSecond))
+				+ " ETA: " + MigrationEstimatorImpl.formatDuration(remainingMs)
+				+ (unknownCount > 0 ? " excluding " + unknownCount + " types without a finished job" : "")
+				+ " projected completion: " + Instant.ofEpochMilli(now + remainingMs));
+		Optional<String> path = config.getStatusFilePath();
+		if (!path.isPresent()) {
+			return;
+		}
+		JSONObject status = new JSONObject();
+		status.put(KEY_PHASE, phase);
+		status.put(KEY_UPDATED_ON, now);
+		status.put(KEY_ELAPSED_MS, now - phaseStartMs);
+		status.put(KEY_DISCOVERED_RANGES, discoveredRanges);
+		status.put(KEY_COMPLETED_RANGES, completedRanges);
+		status.put(KEY_DISCOVERED_ROWS, discoveredRows);
+		status.put(KEY_COMPLETED_ROWS, completedRows);
+		status.put(KEY_ROWS_PER_SECOND, rowsPerSecond);
+		status.put(KEY_ESTIMATED_REMAINING_MS, remainingMs);
+		status.put(KEY_PROJECTED_COMPLETION, now + remainingMs);
+		JSONArray typeArray = new JSONArray();
+		for (TypeProgress progress : types.values()) {
+			typeArray.put(toJSON(progress));
+		}
+		status.put(KEY_TYPES, typeArray);
+		writeStatus(path.get(), status);
+	}
+
+	/**
+	 * Replace the status file.
+	 * 
+	 * @param path
+	 * @param status
+	 */
+	void writeStatus(String path, JSONObject status) {
+		try {
+			fileProvider.replaceFile(path, status.toString());
+		} catch (Exception e) {
+			logger.warn("Failed to write the status file: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Write the progress of a single type to JSON.
+	 * 
+	 * @param progress
+	 * @return
+	 */
+	static JSONObject toJSON(TypeProgress progress) {
+		JSONObject json = new JSONObject();
+		json.put(KEY_TYPE, progress.getType().name());
+		json.put(KEY_DISCOVERED_RANGES, progress.getDiscoveredRanges());
+		json.put(KEY_COMPLETED_RANGES, progress.getCompletedRanges());
+		json.put(KEY_DISCOVERED_ROWS, progress.getDiscoveredRows());
+		json.put(KEY_COMPLETED_ROWS, progress.getCompletedRows());
+		progress.getRowsPerSecond().ifPresent(rate -> json.put(KEY_ROWS_PER_SECOND, rate));
+		progress.getEstimatedRemainingMs().ifPresent(ms -> json.put(KEY_ESTIMATED_REMAINING_MS, ms));
+		return json;
+	}
+
+	/**
+	 * Start the progress of a type from its historical restore time.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	TypeProgress createTypeProgress(MigrationType type) {
+		return new TypeProgress(type, throughputStore.getAverageRestoreMs(type).orElse(null));
+	}
+
+	/**
+	 * The maximum number of rows of a job. A restore range holds at most one
+	 * batch of rows.
+	 * 
+	 * @param job
+	 * @param batchSize
+	 * @return
+	 */
+	static long getMaximumRowCount(DestinationJob job, long batchSize) {
+		if (job instanceof RestoreDestinationJob) {
+			RestoreDestinationJob restoreJob = (RestoreDestinationJob) job;
+			if (restoreJob.getMinimumId() != null && restoreJob.getMaximumId() != null) {
+				return Math.min(batchSize, restoreJob.getMaximumId() - restoreJob.getMinimumId() + 1);
+			}
+		}
+		return batchSize;
+	}
+
+	static String formatRate(Optional<Double> rate) {
+		return rate.map(r -> String.format("%.1f", r)).orElse("unknown");
+	}
+
+	static String formatEta(Optional<Long> ms) {
+		return ms.map(MigrationEstimatorImpl::formatDuration).orElse("unknown");
+	}
+
+	@Override
+	public void run() {
+		report();
+	}
+
+}
@@ -0,0 +1,83 @@
+package org.sagebionetworks.migration.estimate;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * The projected work of migrating a single {@link MigrationType}.
+ *
+ */
+public class TypeEstimate {
+
+	private final MigrationType type;
+	private final long jobCount;
+	private final long rowCount;
+	private final long binCount;
+	private final Long estimatedMs;
+
+	/**
+	 * 
+	 * @param type
+	 * @param jobCount    The number of backup and restore jobs.
+	 * @param rowCount    The maximum number of rows that will be restored.
+	 * @param binCount    The number of batch size ID bins spanned by the jobs.
+	 * @param estimatedMs The estimated time to restore all of the rows. Null
+	 *                    when the throughput of the type is unknown.
+	 */
+	public TypeEstimate(MigrationType type, long jobCount, long rowCount, long binCount, Long estimatedMs) {
+		ValidateArgument.required(type, "type");
+		this.type = type;
+		this.jobCount = jobCount;
+		this.rowCount = rowCount;
+		this.binCount = binCount;
+		this.estimatedMs = estimatedMs;
+	}
+
+	public MigrationType getType() {
+		return type;
+	}
+
+	public long getJobCount() {
+		return jobCount;
+	}
+
+	public long getRowCount() {
+		return rowCount;
+	}
+
+	public long getBinCount() {
+		return binCount;
+	}
+
+	public Optional<Long> getEstimatedMs() {
+		return Optional.ofNullable(estimatedMs);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(binCount, estimatedMs, jobCount, rowCount, type);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof TypeEstimate)) {
+			return false;
+		}
+		TypeEstimate other = (TypeEstimate) obj;
+		return binCount == other.binCount && Objects.equals(estimatedMs, other.estimatedMs)
+				&& jobCount == other.jobCount && rowCount == other.rowCount && type == other.type;
+	}
+
+	@Override
+	public String toString() {
+		return "TypeEstimate [type=" + type + ", jobCount=" + jobCount + ", rowCount=" + rowCount + ", binCount="
+				+ binCount + ", estimatedMs=" + estimatedMs + "]";
+	}
+
+}
@@ -0,0 +1,120 @@
+package org.sagebionetworks.migration.estimate;
+
+import java.util.Optional;
+
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * The progress of a single {@link MigrationType} during the current phase.
+ * The moving averages are exponentially weighted over the finished jobs. The
+ * average time of a range can start from the historical average of the type,
+ * so the remaining time is known before the first job of the phase finishes.
+ *
+ */
+public class TypeProgress {
+
+	/**
+	 * The weight of the most recent job in the moving averages.
+	 */
+	public static final double MOVING_AVERAGE_WEIGHT = 0.3;
+
+	private final MigrationType type;
+	long discoveredRanges;
+	long discoveredRows;
+	long completedRanges;
+	long completedRows;
+	Double averageRangeMs;
+	Double rowsPerSecond;
+
+	public TypeProgress(MigrationType type) {
+		this.type = type;
+	}
+
+	/**
+	 * 
+	 * @param type
+	 * @param historicalRangeMs The historical average time of a range of the
+	 *                          type. Null when unknown.
+	 */
+	public TypeProgress(MigrationType type, Double historicalRangeMs) {
+		this.type = type;
+		this.averageRangeMs = historicalRangeMs;
+	}
+
+	public MigrationType getType() {
+		return type;
+	}
+
+	public long getDiscoveredRanges() {
+		return discoveredRanges;
+	}
+
+	/**
+	 * 
+	 * @return The maximum number of rows in the discovered ranges.
+	 */
+	public long getDiscoveredRows() {
+		return discoveredRows;
+	}
+
+	public long getCompletedRanges() {
+		return completedRanges;
+	}
+
+	public long getCompletedRows() {
+		return completedRows;
+	}
+
+	/**
+	 * 
+	 * @return {@link Optional#empty()} until the first job of the type finishes.
+	 */
+	public Optional<Double> getRowsPerSecond() {
+		return Optional.ofNullable(rowsPerSecond);
+	}
+
+	/**
+	 * The projected time to restore the remaining ranges of this type. Ranges of
+	 * a type are restored sequentially.
+	 * 
+	 * @return {@link Optional#empty()} when ranges remain but no job of the type
+	 *         has finished and the type has no history.
+	 */
+	public Optional<Long> getEstimatedRemainingMs() {
+		long remainingRanges = Math.max(0L, discoveredRanges - completedRanges);
+		if (remainingRanges == 0L) {
+			return Optional.of(0L);
+		}
+		if (averageRangeMs == null) {
+			return Optional.empty();
+		}
+		return Optional.of(Math.round(averageRangeMs * remainingRanges));
+	}
+
+	/**
+	 * Add a finished job to the moving averages.
+	 * 
+	 * @param rowCount
+	 * @param elapsedMs
+	 */
+	void addFinishedJob(long rowCount, long elapsedMs) {
+		completedRanges++;
+		completedRows += rowCount;
+		averageRangeMs = movingAverage(averageRangeMs, elapsedMs);
+		rowsPerSecond = movingAverage(rowsPerSecond, rowCount * 1000.0 / Math.max(1L, elapsedMs));
+	}
+
+	/**
+	 * 
+	 * @param average The current average, null if there is none.
+	 * @param sample
+	 * @return
+	 */
+	static double movingAverage(Double average, double sample) {
+		if (average == null) {
+			return sample;
+		}
+		return MOVING_AVERAGE_WEIGHT * sample + (1.0 - MOVING_AVERAGE_WEIGHT) * average;
+	}
+
+}
@@ -0,0 +1,52 @@
+package org.sagebionetworks.migration.estimate;
+
+import java.util.Optional;
+
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * Abstraction for the restore throughput of each {@link MigrationType}
+ * measured by previous runs. The throughput is used to estimate the duration
+ * of a migration before it is started, to project the completion of a phase
+ * before its first restores finish and to start the longest types first. The
+ * throughput of a type that has not been restored within
+ * {@link Configuration#getThroughputMaxAgeMs()} is ignored.
+ *
+ */
+public interface TypeThroughputStore {
+
+	/**
+	 * The historical number of rows restored per second for the given type.
+	 * Restores of a single type are run sequentially so this is the throughput
+	 * of the type as a whole.
+	 * 
+	 * @param type
+	 * @return {@link Optional#empty()} when the type has never been restored.
+	 */
+	Optional<Double> getRowsPerSecond(MigrationType type);
+
+	/**
+	 * The historical average time of a single restore job of the given type.
+	 * 
+	 * @param type
+	 * @return {@link Optional#empty()} when the type has never been restored.
+	 */
+	Optional<Double> getAverageRestoreMs(MigrationType type);
+
+	/**
+	 * Record a finished restore job.
+	 * 
+	 * @param type
+	 * @param rowCount  The number of rows restored by the job.
+	 * @param elapsedMs The time it took to run the job.
+	 */
+	void recordRestore(MigrationType type, long rowCount, long elapsedMs);
+
+	/**
+	 * Save the throughput of all types to the file provided by
+	 * {@link Configuration#getThroughputFilePath()}.
+	 */
+	void save();
+
+}
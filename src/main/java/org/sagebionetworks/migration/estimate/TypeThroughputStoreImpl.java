@@ -0,0 +1,211 @@
+package org.sagebionetworks.migration.estimate;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.util.Clock;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Persists the total rows restored, the total restore time and the number of
+ * restore jobs of each type to the JSON file provided by
+ * {@link Configuration#getThroughputFilePath()}. Each run adds to the totals of
+ * the previous runs. When no file is configured, only the throughput of the
+ * current run is known.
+ * <p>
+ * The totals of a type that was last restored longer ago than
+ * {@link Configuration#getThroughputMaxAgeMs()} are stale. Stale totals are
+ * ignored and are replaced by the next restore of the type. Files written
+ * without the restore time of each type are treated as current.
+ * </p>
+ * The public methods of this class are synchronized since restore jobs are
+ * recorded from the timer thread.
+ */
+@Singleton
+public class TypeThroughputStoreImpl implements TypeThroughputStore {
+
+	static final String KEY_TYPES = "types";
+	static final String KEY_TYPE = "type";
+	static final String KEY_ROW_COUNT = "rowCount";
+	static final String KEY_ELAPSED_MS = "elapsedMs";
+	static final String KEY_JOB_COUNT = "jobCount";
+	static final String KEY_UPDATED_ON = "updatedOn";
+
+	Configuration config;
+	FileProvider fileProvider;
+	Clock clock;
+	Logger logger;
+
+	Map<MigrationType, TypeTotals> totals;
+	boolean changed;
+
+	@Inject
+	public TypeThroughputStoreImpl(Configuration config, FileProvider fileProvider, Clock clock,
+			LoggerFactory loggerFactory) {
+		super();
+		this.config = config;
+		this.fileProvider = fileProvider;
+		this.clock = clock;
+		this.logger = loggerFactory.getLogger(TypeThroughputStoreImpl.class);
+		this.changed = false;
+	}
+
+	@Override
+	public synchronized Optional<Double> getRowsPerSecond(MigrationType type) {
+		return getCurrentTotals(type).filter(t -> t.rowCount > 0L && t.elapsedMs > 0L)
+				.map(t -> t.rowCount * 1000.0 / t.elapsedMs);
+	}
+
+	@Override
+	public synchronized Optional<Double> getAverageRestoreMs(MigrationType type) {
+		return getCurrentTotals(type).filter(t -> t.jobCount > 0L).map(t -> t.elapsedMs / (double) t.jobCount);
+	}
+
+	@Override
+	public synchronized void recordRestore(MigrationType type, long rowCount, long elapsedMs) {
+		long now = clock.currentTimeMillis();
+		TypeTotals total = getTotals().get(type);
+		if (total == null || isStale(total, now)) {
+			total = new TypeTotals();
+			totals.put(type, total);
+		}
+		total.rowCount += rowCount;
+		total.elapsedMs += elapsedMs;
+		total.jobCount++;
+		total.updatedOn = now;
+		changed = true;
+	}
+
+	@Override
+	public synchronized void save() {
+		Optional<String> path = config.getThroughputFilePath();
+		if (!changed || !path.isPresent()) {
+			return;
+		}
+		try (OutputStream out = fileProvider.createOutputStream(fileProvider.getFile(path.get()))) {
+			IOUtils.write(toJSON(totals).toString(), out, StandardCharsets.UTF_8);
+			changed = false;
+			logger.info("Saved the restore throughput of " + totals.size() + " types to: " + path.get());
+		} catch (Exception e) {
+			// The next estimate will use the throughput of earlier runs.
+			logger.error("Failed to save the restore throughput: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * The totals of the given type unless they are stale.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	Optional<TypeTotals> getCurrentTotals(MigrationType type) {
+		TypeTotals total = getTotals().get(type);
+		if (total == null || isStale(total, clock.currentTimeMillis())) {
+			return Optional.empty();
+		}
+		return Optional.of(total);
+	}
+
+	boolean isStale(TypeTotals total, long now) {
+		long maxAgeMs = config.getThroughputMaxAgeMs();
+		return maxAgeMs > 0L && now - total.updatedOn > maxAgeMs;
+	}
+
+	/**
+	 * Lazy load of the totals from the throughput file.
+	 * 
+	 * @return
+	 */
+	Map<MigrationType, TypeTotals> getTotals() {
+		if (totals != null) {
+			return totals;
+		}
+		totals = new LinkedHashMap<>();
+		Optional<String> path = config.getThroughputFilePath();
+		if (!path.isPresent()) {
+			return totals;
+		}
+		File file = fileProvider.getFile(path.get());
+		if (!file.exists()) {
+			return totals;
+		}
+		try (InputStream in = fileProvider.createInputStream(file)) {
+			totals = fromJSON(new JSONObject(IOUtils.toString(in, StandardCharsets.UTF_8)), clock.currentTimeMillis());
+		} catch (Exception e) {
+			logger.warn("Ignoring unreadable restore throughput: " + e.getMessage());
+			totals.clear();
+		}
+		return totals;
+	}
+
+	/**
+	 * Write the given totals to JSON.
+	 * 
+	 * @param totals
+	 * @return
+	 */
+	static JSONObject toJSON(Map<MigrationType, TypeTotals> totals) {
+		JSONArray types = new JSONArray();
+		for (Map.Entry<MigrationType, TypeTotals> entry : totals.entrySet()) {
+			JSONObject json = new JSONObject();
+			json.put(KEY_TYPE, entry.getKey().name());
+			json.put(KEY_ROW_COUNT, entry.getValue().rowCount);
+			json.put(KEY_ELAPSED_MS, entry.getValue().elapsedMs);
+			json.put(KEY_JOB_COUNT, entry.getValue().jobCount);
+			json.put(KEY_UPDATED_ON, entry.getValue().updatedOn);
+			types.put(json);
+		}
+		JSONObject root = new JSONObject();
+		root.put(KEY_TYPES, types);
+		return root;
+	}
+
+	/**
+	 * Read the totals from the given JSON.
+	 * 
+	 * @param root
+	 * @param now  The restore time of types written without one.
+	 * @return
+	 */
+	static Map<MigrationType, TypeTotals> fromJSON(JSONObject root, long now) {
+		Map<MigrationType, TypeTotals> totals = new LinkedHashMap<>();
+		JSONArray types = root.getJSONArray(KEY_TYPES);
+		for (int i = 0; i < types.length(); i++) {
+			JSONObject json = types.getJSONObject(i);
+			TypeTotals total = new TypeTotals();
+			total.rowCount = json.getLong(KEY_ROW_COUNT);
+			total.elapsedMs = json.getLong(KEY_ELAPSED_MS);
+			total.jobCount = json.optLong(KEY_JOB_COUNT, 0L);
+			total.updatedOn = json.optLong(KEY_UPDATED_ON, now);
+			totals.put(MigrationType.valueOf(json.getString(KEY_TYPE)), total);
+		}
+		return totals;
+	}
+
+	/**
+	 * The restore totals of a single type.
+	 */
+	static class TypeTotals {
+
+		long rowCount;
+		long elapsedMs;
+		long jobCount;
+		long updatedOn;
+	}
+
+}
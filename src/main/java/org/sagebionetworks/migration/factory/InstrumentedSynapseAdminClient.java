@@ -0,0 +1,103 @@
+package org.sagebionetworks.migration.factory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.sagebionetworks.client.SynapseAdminClient;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.metrics.ClientCallRecorder;
+import org.sagebionetworks.schema.adapter.JSONEntity;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.Clock;
+
+/**
+ * Decorates a {@link SynapseAdminClient} to record the latency, outcome and
+ * payload sizes of each call with a {@link ClientCallRecorder}.
+ * <p>
+ * The payload sizes are the lengths of the JSON of the entity arguments and
+ * results, which approximate the bodies sent over HTTP.
+ * </p>
+ */
+public class InstrumentedSynapseAdminClient implements InvocationHandler {
+
+	SynapseAdminClient delegate;
+	JobTarget jobTarget;
+	ClientCallRecorder callRecorder;
+	Clock clock;
+
+	InstrumentedSynapseAdminClient(SynapseAdminClient delegate, JobTarget jobTarget, ClientCallRecorder callRecorder,
+			Clock clock) {
+		this.delegate = delegate;
+		this.jobTarget = jobTarget;
+		this.callRecorder = callRecorder;
+		this.clock = clock;
+	}
+
+	/**
+	 * Wrap the given client.
+	 * 
+	 * @param delegate     The client that makes the calls.
+	 * @param jobTarget    The stack of the client.
+	 * @param callRecorder
+	 * @param clock
+	 * @return
+	 */
+	public static SynapseAdminClient wrap(SynapseAdminClient delegate, JobTarget jobTarget,
+			ClientCallRecorder callRecorder, Clock clock) {
+		return (SynapseAdminClient) Proxy.newProxyInstance(InstrumentedSynapseAdminClient.class.getClassLoader(),
+				new Class[] { SynapseAdminClient.class },
+				new InstrumentedSynapseAdminClient(delegate, jobTarget, callRecorder, clock));
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		if (method.getDeclaringClass() == Object.class) {
+			// equals, hashCode and toString are not calls to the stack.
+			return method.invoke(delegate, args);
+		}
+		long start = clock.currentTimeMillis();
+		boolean failed = false;
+		Object result = null;
+		try {
+			result = method.invoke(delegate, args);
+			return result;
+		} catch (InvocationTargetException e) {
+			failed = true;
+			throw e.getCause();
+		} finally {
+			long elapsedMs = clock.currentTimeMillis() - start;
+			long sentBytes = 0L;
+			if (args != null) {
+				for (Object arg : args) {
+					sentBytes += getPayloadSize(arg);
+				}
+			}
+			callRecorder.recordCall(jobTarget, method.getName(), elapsedMs, failed, sentBytes,
+					getPayloadSize(result));
+		}
+	}
+
+	/**
+	 * The approximate size of a payload.
+	 * 
+	 * @param payload
+	 * @return The length of the JSON of an entity or of a string, otherwise
+	 *         zero.
+	 */
+	static long getPayloadSize(Object payload) {
+		if (payload instanceof JSONEntity) {
+			try {
+				return EntityFactory.createJSONStringForEntity((JSONEntity) payload).length();
+			} catch (JSONObjectAdapterException e) {
+				return 0L;
+			}
+		}
+		if (payload instanceof String) {
+			return ((String) payload).length();
+		}
+		return 0L;
+	}
+}
@@ -0,0 +1,42 @@
+package org.sagebionetworks.migration.factory;
+
+import org.sagebionetworks.client.SynapseAdminClient;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.metrics.ClientCallRecorder;
+import org.sagebionetworks.util.Clock;
+
+/**
+ * Provides the clients of another factory decorated with an
+ * {@link InstrumentedSynapseAdminClient}.
+ *
+ */
+public class InstrumentedSynapseClientFactory implements SynapseClientFactory {
+
+	SynapseAdminClient sourceClient;
+	SynapseAdminClient destinationClient;
+
+	/**
+	 * @param stackClients The factory of the clients to decorate.
+	 * @param callRecorder
+	 * @param clock
+	 */
+	public InstrumentedSynapseClientFactory(SynapseClientFactory stackClients, ClientCallRecorder callRecorder,
+			Clock clock) {
+		super();
+		this.sourceClient = InstrumentedSynapseAdminClient.wrap(stackClients.getSourceClient(), JobTarget.SOURCE,
+				callRecorder, clock);
+		this.destinationClient = InstrumentedSynapseAdminClient.wrap(stackClients.getDestinationClient(),
+				JobTarget.DESTINATION, callRecorder, clock);
+	}
+
+	@Override
+	public SynapseAdminClient getSourceClient() {
+		return sourceClient;
+	}
+
+	@Override
+	public SynapseAdminClient getDestinationClient() {
+		return destinationClient;
+	}
+
+}
@@ -0,0 +1,250 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.util.Clock;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Writes the phases and jobs of a run in the Chrome Trace Event JSON format,
+ * which can be opened with chrome://tracing or the Perfetto UI.
+ * <p>
+ * Phases are written to a process of their own, while jobs are written to one
+ * process per {@link JobTarget} with a track per migration type. The trace
+ * format only nests spans within a single track, so each job is labeled with
+ * the phase that was running when it was requested. Jobs of a type that
+ * overlap are written to additional tracks of the type. Each job span contains
+ * a queued span and a server span so the remaining gap is the detection lag.
+ * </p>
+ * The public methods of this class are synchronized since they are called from
+ * the main thread and the timer threads.
+ */
+@Singleton
+public class ChromeTraceRecorder implements TraceRecorder {
+
+	static final int PHASES_PID = 1;
+	static final String UNTYPED = "untyped";
+
+	Configuration config;
+	FileProvider fileProvider;
+	Clock clock;
+	Logger logger;
+
+	List<Span> phases;
+	List<Span> jobs;
+
+	@Inject
+	public ChromeTraceRecorder(Configuration config, FileProvider fileProvider, Clock clock,
+			LoggerFactory loggerFactory) {
+		super();
+		this.config = config;
+		this.fileProvider = fileProvider;
+		this.clock = clock;
+		this.logger = loggerFactory.getLogger(ChromeTraceRecorder.class);
+		this.phases = new LinkedList<>();
+		this.jobs = new LinkedList<>();
+	}
+
+	@Override
+	public synchronized TraceSpan startPhase(String name) {
+		Span phase = new Span(null, name, clock.currentTimeMillis(), null);
+		phases.add(phase);
+		return () -> endPhase(phase);
+	}
+
+	synchronized void endPhase(Span phase) {
+		phase.endMs = clock.currentTimeMillis();
+	}
+
+	@Override
+	public synchronized void recordJob(MetricKey key, JobTimeline timeline) {
+		if (!config.getTraceFilePath().isPresent()) {
+			return;
+		}
+		jobs.add(new Span(key, key.getLabels().getOrDefault(MigrationMetricsImpl.LABEL_REQUEST, "job"),
+				timeline.getFirstOn(), timeline));
+	}
+
+	@Override
+	public synchronized void export() {
+		Optional<String> path = config.getTraceFilePath();
+		if (path.isPresent()) {
+			try {
+				fileProvider.replaceFile(path.get(), toJSON(clock.currentTimeMillis()).toString());
+				logger.info("Wrote the trace of " + jobs.size() + " jobs to: " + path.get());
+			} catch (Exception e) {
+				logger.warn("Failed to write the trace file: " + e.getMessage());
+			}
+		}
+		phases.clear();
+		jobs.clear();
+	}
+
+	/**
+	 * Build the trace of all recorded phases and jobs.
+	 * 
+	 * @param nowMs Phases that have not ended, end now.
+	 * @return
+	 */
+	JSONObject toJSON(long nowMs) {
+		JSONArray events = new JSONArray();
+		events.put(createMetadata("process_name", PHASES_PID, 0, "phases"));
+		Map<String, Integer> tids = new LinkedHashMap<>();
+		List<Long> phaseLanes = new ArrayList<>();
+		phases.sort(Comparator.comparingLong(s -> s.startMs));
+		for (Span phase : phases) {
+			long endMs = phase.endMs != null ? phase.endMs : nowMs;
+			int tid = getTrack(tids, phaseLanes, events, PHASES_PID, "phases", phase.startMs, endMs);
+			events.put(createComplete(phase.name, "phase", PHASES_PID, tid, phase.startMs, endMs));
+		}
+		for (JobTarget target : JobTarget.values()) {
+			events.put(createMetadata("process_name", getPid(target), 0, target.name()));
+		}
+		Map<String, List<Long>> typeLanes = new LinkedHashMap<>();
+		jobs.sort(Comparator.comparingLong(s -> s.startMs));
+		for (Span job : jobs) {
+			JobTimeline timeline = job.timeline;
+			String target = job.key.getLabels().get(MigrationMetricsImpl.LABEL_TARGET);
+			String type = job.key.getLabels().getOrDefault(MigrationMetricsImpl.LABEL_TYPE, UNTYPED);
+			int pid = getPid(JobTarget.valueOf(target));
+			List<Long> lanes = typeLanes.computeIfAbsent(target + "-" + type, k -> new ArrayList<>());
+			int tid = getTrack(tids, lanes, events, pid, type, job.startMs, timeline.getDetectedOn());
+			JSONObject span = createComplete(job.name, "job", pid, tid, job.startMs, timeline.getDetectedOn());
+			JSONObject args = new JSONObject();
+			getPhaseAt(timeline.getRequestedOn()).ifPresent(phase -> args.put("phase", phase));
+			args.put("queueWaitMs", timeline.getQueueWaitMs());
+			args.put("serverRunMs", timeline.getServerRunMs());
+			args.put("detectionLagMs", timeline.getDetectionLagMs());
+			span.put("args", args);
+			events.put(span);
+			if (timeline.getQueuedOn() != null) {
+				events.put(createComplete("queued", "queue", pid, tid, job.startMs, timeline.getRequestedOn()));
+			}
+			if (timeline.getServerStartedOn() != null && timeline.getServerFinishedOn() != null) {
+				// server times are clipped to the client times to hide clock skew.
+				long serverStart = Math.max(timeline.getRequestedOn(), timeline.getServerStartedOn());
+				long serverEnd = Math.min(timeline.getDetectedOn(), timeline.getServerFinishedOn());
+				if (serverEnd >= serverStart) {
+					events.put(createComplete("server", "server", pid, tid, serverStart, serverEnd));
+				}
+			}
+		}
+		JSONObject root = new JSONObject();
+		root.put("displayTimeUnit", "ms");
+		root.put("traceEvents", events);
+		return root;
+	}
+
+	/**
+	 * Get the track for a span, adding a track when the span overlaps the last
+	 * span of all existing tracks.
+	 * 
+	 * @param tids    The track IDs by name.
+	 * @param lanes   The end of the last span of each track of the group.
+	 * @param events  Metadata of new tracks is added to the events.
+	 * @param pid
+	 * @param name
+	 * @param startMs
+	 * @param endMs
+	 * @return
+	 */
+	static int getTrack(Map<String, Integer> tids, List<Long> lanes, JSONArray events, int pid, String name,
+			long startMs, long endMs) {
+		int lane = 0;
+		while (lane < lanes.size() && lanes.get(lane) > startMs) {
+			lane++;
+		}
+		if (lane == lanes.size()) {
+			lanes.add(endMs);
+		} else {
+			lanes.set(lane, endMs);
+		}
+		String trackName = lane == 0 ? name : name + " #" + (lane + 1);
+		String trackKey = pid + "-" + trackName;
+		Integer tid = tids.get(trackKey);
+		if (tid == null) {
+			tid = tids.size() + 1;
+			tids.put(trackKey, tid);
+			events.put(createMetadata("thread_name", pid, tid, trackName));
+		}
+		return tid;
+	}
+
+	/**
+	 * The name of the latest phase that started on or before the given time.
+	 * 
+	 * @param timeMs
+	 * @return
+	 */
+	Optional<String> getPhaseAt(long timeMs) {
+		String name = null;
+		for (Span phase : phases) {
+			if (phase.startMs <= timeMs && (phase.endMs == null || phase.endMs >= timeMs)) {
+				name = phase.name;
+			}
+		}
+		return Optional.ofNullable(name);
+	}
+
+	static int getPid(JobTarget target) {
+		return PHASES_PID + 1 + target.ordinal();
+	}
+
+	static JSONObject createMetadata(String name, int pid, int tid, String value) {
+		JSONObject event = new JSONObject();
+		event.put("name", name);
+		event.put("ph", "M");
+		event.put("pid", pid);
+		event.put("tid", tid);
+		event.put("args", new JSONObject().put("name", value));
+		return event;
+	}
+
+	static JSONObject createComplete(String name, String category, int pid, int tid, long startMs, long endMs) {
+		JSONObject event = new JSONObject();
+		event.put("name", name);
+		event.put("cat", category);
+		event.put("ph", "X");
+		event.put("pid", pid);
+		event.put("tid", tid);
+		// trace times are in microseconds.
+		event.put("ts", startMs * 1000L);
+		event.put("dur", Math.max(0L, endMs - startMs) * 1000L);
+		return event;
+	}
+
+	/**
+	 * A phase or job.
+	 */
+	static class Span {
+
+		final MetricKey key;
+		final String name;
+		final long startMs;
+		final JobTimeline timeline;
+		Long endMs;
+
+		Span(MetricKey key, String name, long startMs, JobTimeline timeline) {
+			this.key = key;
+			this.name = name;
+			this.startMs = startMs;
+			this.timeline = timeline;
+		}
+	}
+
+}
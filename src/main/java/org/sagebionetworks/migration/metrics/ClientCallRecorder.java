@@ -0,0 +1,25 @@
+package org.sagebionetworks.migration.metrics;
+
+import org.sagebionetworks.migration.async.JobTarget;
+
+/**
+ * Accounts for the calls made to the SynapseAdminClient of each stack, so the
+ * traffic of each phase of a migration can be summarized. The calls of a phase
+ * are summarized when the phase ends.
+ *
+ */
+public interface ClientCallRecorder extends PhaseListener {
+
+	/**
+	 * Record a single call of a SynapseAdminClient method.
+	 * 
+	 * @param jobTarget     The stack that was called.
+	 * @param method        The name of the called method.
+	 * @param elapsedMs
+	 * @param failed        True if the call threw an exception.
+	 * @param sentBytes     The approximate size of the request payload.
+	 * @param receivedBytes The approximate size of the response payload.
+	 */
+	void recordCall(JobTarget jobTarget, String method, long elapsedMs, boolean failed, long sentBytes,
+			long receivedBytes);
+}
@@ -0,0 +1,135 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Keeps the statistics of the client calls of the current phase in memory and
+ * logs a summary of them when the phase ends. Every call is also recorded with
+ * the {@link MigrationMetrics} so the totals of a run are exported.
+ * <p>
+ * The public methods of this class are synchronized since calls are made from
+ * the main thread, the timer threads and the worker pools.
+ * </p>
+ */
+@Singleton
+public class ClientCallRecorderImpl implements ClientCallRecorder {
+
+	public static final String CLIENT_CALLS = "client_calls";
+	public static final String STATUS_POLL_METHOD = "getAdminAsynchronousJobStatus";
+	static final double QUANTILE = 0.95;
+
+	MigrationMetrics metrics;
+	Logger logger;
+
+	Map<MetricKey, CallStats> phaseCalls;
+
+	@Inject
+	public ClientCallRecorderImpl(MigrationMetrics metrics, LoggerFactory loggerFactory) {
+		super();
+		this.metrics = metrics;
+		this.logger = loggerFactory.getLogger(ClientCallRecorderImpl.class);
+		this.phaseCalls = new TreeMap<>();
+	}
+
+	@Override
+	public void recordCall(JobTarget jobTarget, String method, long elapsedMs, boolean failed, long sentBytes,
+			long receivedBytes) {
+		metrics.recordClientCall(jobTarget, method, elapsedMs, failed, sentBytes, receivedBytes);
+		synchronized (this) {
+			phaseCalls.computeIfAbsent(createKey(jobTarget, method), k -> new CallStats()).add(elapsedMs, failed,
+					sentBytes, receivedBytes);
+		}
+	}
+
+	@Override
+	public synchronized TraceSpan startPhase(String name) {
+		// calls made between phases are only included in the exported metrics.
+		phaseCalls.clear();
+		return () -> reportPhase(name);
+	}
+
+	/**
+	 * Log a summary of the calls of the given phase, with the busiest methods
+	 * first.
+	 * 
+	 * @param name
+	 */
+	synchronized void reportPhase(String name) {
+		long totalCalls = 0L;
+		long statusPolls = 0L;
+		long totalErrors = 0L;
+		for (Map.Entry<MetricKey, CallStats> entry : phaseCalls.entrySet()) {
+			totalCalls += entry.getValue().count;
+			totalErrors += entry.getValue().errors;
+			if (STATUS_POLL_METHOD.equals(entry.getKey().getLabels().get(MigrationMetricsImpl.LABEL_METHOD))) {
+				statusPolls += entry.getValue().count;
+			}
+		}
+		if (totalCalls == 0L) {
+			return;
+		}
+		logger.info(String.format("Client calls of phase '%s': %d calls, errors: %d (%s), status polls: %d (%s)",
+				name, totalCalls, totalErrors, formatPercent(totalErrors, totalCalls), statusPolls,
+				formatPercent(statusPolls, totalCalls)));
+		List<Map.Entry<MetricKey, CallStats>> busiest = new ArrayList<>(phaseCalls.entrySet());
+		busiest.sort(Comparator.comparingLong((Map.Entry<MetricKey, CallStats> e) -> e.getValue().count).reversed());
+		for (Map.Entry<MetricKey, CallStats> entry : busiest) {
+			CallStats stats = entry.getValue();
+			long p95 = Math.min(stats.latency.getQuantileBound(QUANTILE), stats.maxMs);
+			logger.info(String.format(
+					"\t%s %s: calls: %d (%s) errors: %d (%s) mean: %d ms p95: %d ms max: %d ms sent: %s received: %s",
+					entry.getKey().getLabels().get(MigrationMetricsImpl.LABEL_TARGET),
+					entry.getKey().getLabels().get(MigrationMetricsImpl.LABEL_METHOD), stats.count,
+					formatPercent(stats.count, totalCalls), stats.errors, formatPercent(stats.errors, stats.count),
+					stats.latency.getSum() / stats.count, p95, stats.maxMs,
+					FileUtils.byteCountToDisplaySize(stats.sentBytes),
+					FileUtils.byteCountToDisplaySize(stats.receivedBytes)));
+		}
+		phaseCalls.clear();
+	}
+
+	static MetricKey createKey(JobTarget jobTarget, String method) {
+		return new MetricKey(CLIENT_CALLS, MigrationMetricsImpl.LABEL_TARGET, jobTarget.name(),
+				MigrationMetricsImpl.LABEL_METHOD, method);
+	}
+
+	static String formatPercent(long part, long total) {
+		return String.format("%.1f%%", total == 0L ? 0.0 : part * 100.0 / total);
+	}
+
+	/**
+	 * The calls of a single method of a single stack.
+	 */
+	static class CallStats {
+
+		final Histogram latency = new Histogram();
+		long count;
+		long errors;
+		long maxMs;
+		long sentBytes;
+		long receivedBytes;
+
+		void add(long elapsedMs, boolean failed, long sent, long received) {
+			latency.observe(elapsedMs);
+			count++;
+			if (failed) {
+				errors++;
+			}
+			maxMs = Math.max(maxMs, elapsedMs);
+			sentBytes += sent;
+			receivedBytes += received;
+		}
+	}
+}
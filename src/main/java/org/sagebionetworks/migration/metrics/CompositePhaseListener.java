@@ -0,0 +1,60 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dispatches the phases to each of the given listeners in order. The spans of
+ * a phase are closed in the reverse order so each listener's span encloses the
+ * spans of the listeners after it.
+ *
+ */
+public class CompositePhaseListener implements PhaseListener {
+
+	List<PhaseListener> listeners;
+
+	public CompositePhaseListener(PhaseListener... listeners) {
+		super();
+		this.listeners = Arrays.asList(listeners);
+	}
+
+	@Override
+	public TraceSpan startPhase(String name) {
+		List<TraceSpan> spans = new ArrayList<>(listeners.size());
+		try {
+			for (PhaseListener listener : listeners) {
+				spans.add(listener.startPhase(name));
+			}
+		} catch (RuntimeException e) {
+			// end the phase of the listeners that started it.
+			closeAll(spans);
+			throw e;
+		}
+		return () -> closeAll(spans);
+	}
+
+	/**
+	 * Close all of the given spans in the reverse order. Every span is closed
+	 * even if closing one of them fails.
+	 * 
+	 * @param spans
+	 */
+	static void closeAll(List<TraceSpan> spans) {
+		RuntimeException failure = null;
+		for (int i = spans.size() - 1; i >= 0; i--) {
+			try {
+				spans.get(i).close();
+			} catch (RuntimeException e) {
+				if (failure == null) {
+					failure = e;
+				} else {
+					failure.addSuppressed(e);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
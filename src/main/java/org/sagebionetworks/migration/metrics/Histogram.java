@@ -0,0 +1,95 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in MS with fixed bucket bounds. Observations only
+ * increment counters, so a histogram can be updated from any thread without
+ * locking.
+ *
+ */
+public class Histogram {
+
+	/**
+	 * The upper bounds of the buckets in MS. Observations above the last bound
+	 * are only included in the count and sum.
+	 */
+	public static final long[] BUCKET_BOUNDS_MS = new long[] { 10L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L,
+			10000L, 30000L, 60000L, 300000L, 900000L };
+
+	private final LongAdder[] buckets;
+	private final LongAdder count;
+	private final LongAdder sum;
+
+	public Histogram() {
+		this.buckets = new LongAdder[BUCKET_BOUNDS_MS.length];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+		this.count = new LongAdder();
+		this.sum = new LongAdder();
+	}
+
+	/**
+	 * Record a single observation.
+	 * 
+	 * @param valueMs
+	 */
+	public void observe(long valueMs) {
+		for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+			if (valueMs <= BUCKET_BOUNDS_MS[i]) {
+				buckets[i].increment();
+				break;
+			}
+		}
+		count.increment();
+		sum.add(valueMs);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * The number of observations less than or equal to each of the
+	 * {@link #BUCKET_BOUNDS_MS}.
+	 * 
+	 * @return
+	 */
+	public long[] getCumulativeCounts() {
+		long[] cumulative = new long[buckets.length];
+		long total = 0L;
+		for (int i = 0; i < buckets.length; i++) {
+			total += buckets[i].sum();
+			cumulative[i] = total;
+		}
+		return cumulative;
+	}
+
+	/**
+	 * The upper bound of the bucket that contains the given quantile.
+	 * 
+	 * @param quantile Between zero and one.
+	 * @return {@link Long#MAX_VALUE} when the quantile is above the last bound, or
+	 *         zero when there are no observations.
+	 */
+	public long getQuantileBound(double quantile) {
+		long total = getCount();
+		if (total == 0L) {
+			return 0L;
+		}
+		long rank = (long) Math.ceil(quantile * total);
+		long[] cumulative = getCumulativeCounts();
+		for (int i = 0; i < cumulative.length; i++) {
+			if (cumulative[i] >= rank) {
+				return BUCKET_BOUNDS_MS[i];
+			}
+		}
+		return Long.MAX_VALUE;
+	}
+
+}
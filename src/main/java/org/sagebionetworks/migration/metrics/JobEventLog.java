@@ -0,0 +1,31 @@
+package org.sagebionetworks.migration.metrics;
+
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+
+/**
+ * Writes a structured JSON record of each job lifecycle event so the jobs of a
+ * run can be analyzed offline.
+ *
+ */
+public interface JobEventLog {
+
+	/**
+	 * Called when a job is started on the given target.
+	 * 
+	 * @param jobTarget
+	 * @param jobStatus
+	 * @param queuedOnMs  When the job was queued or null if it was not queued.
+	 * @param requestedOnMs
+	 */
+	void jobStarted(JobTarget jobTarget, AsynchronousJobStatus jobStatus, Long queuedOnMs, long requestedOnMs);
+
+	/**
+	 * Called when the completion of a job is detected.
+	 * 
+	 * @param jobTarget
+	 * @param jobStatus
+	 * @param timeline
+	 */
+	void jobFinished(JobTarget jobTarget, AsynchronousJobStatus jobStatus, JobTimeline timeline);
+}
@@ -0,0 +1,103 @@
+package org.sagebionetworks.migration.metrics;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.metrics.jfr.JobEvents;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
+import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
+import org.sagebionetworks.repo.model.migration.BatchChecksumRequest;
+import org.sagebionetworks.repo.model.migration.CalculateOptimalRangeRequest;
+import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Writes each job event as a single line of JSON to the configured event log
+ * file. The events are passed to an asynchronous logger so the callers, which
+ * include the timer thread of the restore queue, only pay for building the
+ * record. Nothing is built when the file is not configured.
+ */
+@Singleton
+public class JobEventLogImpl implements JobEventLog {
+
+	static final String STARTED = "started";
+	static final String FINISHED = "finished";
+
+	Logger eventLogger;
+
+	@Inject
+	public JobEventLogImpl(Configuration config, LoggerFactory loggerFactory) {
+		super();
+		this.eventLogger = config.getJobEventLogFilePath().map(loggerFactory::getEventLogger).orElse(null);
+	}
+
+	@Override
+	public void jobStarted(JobTarget jobTarget, AsynchronousJobStatus jobStatus, Long queuedOnMs,
+			long requestedOnMs) {
+		if (eventLogger == null) {
+			return;
+		}
+		JSONObject json = createEventJSON(STARTED, jobTarget, jobStatus);
+		json.put("queuedOn", queuedOnMs);
+		json.put("requestedOn", requestedOnMs);
+		eventLogger.info(json.toString());
+	}
+
+	@Override
+	public void jobFinished(JobTarget jobTarget, AsynchronousJobStatus jobStatus, JobTimeline timeline) {
+		if (eventLogger == null) {
+			return;
+		}
+		JSONObject json = createEventJSON(FINISHED, jobTarget, jobStatus);
+		json.put("queuedOn", timeline.getQueuedOn());
+		json.put("requestedOn", timeline.getRequestedOn());
+		json.put("serverStartedOn", timeline.getServerStartedOn());
+		json.put("serverFinishedOn", timeline.getServerFinishedOn());
+		json.put("detectedOn", timeline.getDetectedOn());
+		json.put("queueWaitMs", timeline.getQueueWaitMs());
+		json.put("serverRunMs", MigrationMetricsImpl.getServerRunMs(jobStatus));
+		json.put("detectionLagMs", timeline.getDetectionLagMs());
+		json.put("restoredRows", MigrationMetricsImpl.getRestoredRowCount(jobStatus));
+		eventLogger.info(json.toString());
+	}
+
+	/**
+	 * The fields shared by all events of a job. Null fields are omitted.
+	 * 
+	 * @param event
+	 * @param jobTarget
+	 * @param jobStatus
+	 * @return
+	 */
+	static JSONObject createEventJSON(String event, JobTarget jobTarget, AsynchronousJobStatus jobStatus) {
+		JSONObject json = new JSONObject();
+		json.put("event", event);
+		json.put("jobId", jobStatus.getJobId());
+		json.put("target", jobTarget.name());
+		json.put("request", JobEvents.getRequestName(jobStatus));
+		json.put("type", JobEvents.getMigrationType(jobStatus));
+		json.put("state", jobStatus.getJobState() == null ? null : jobStatus.getJobState().name());
+		Object request = jobStatus.getRequestBody() instanceof AsyncMigrationRequest
+				? ((AsyncMigrationRequest) jobStatus.getRequestBody()).getAdminRequest()
+				: null;
+		if (request instanceof RestoreTypeRequest) {
+			json.put("minimumId", ((RestoreTypeRequest) request).getMinimumRowId());
+			json.put("maximumId", ((RestoreTypeRequest) request).getMaximumRowId());
+		} else if (request instanceof BackupTypeRangeRequest) {
+			json.put("minimumId", ((BackupTypeRangeRequest) request).getMinimumId());
+			json.put("maximumId", ((BackupTypeRangeRequest) request).getMaximumId());
+		} else if (request instanceof BatchChecksumRequest) {
+			json.put("minimumId", ((BatchChecksumRequest) request).getMinimumId());
+			json.put("maximumId", ((BatchChecksumRequest) request).getMaximumId());
+		} else if (request instanceof CalculateOptimalRangeRequest) {
+			json.put("minimumId", ((CalculateOptimalRangeRequest) request).getMinimumId());
+			json.put("maximumId", ((CalculateOptimalRangeRequest) request).getMaximumId());
+		}
+		return json;
+	}
+}
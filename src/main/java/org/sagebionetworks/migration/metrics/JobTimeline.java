@@ -0,0 +1,127 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.Objects;
+
+/**
+ * The timestamps of a single asynchronous job from the time it was queued
+ * until the client detected that it was finished. All times are epoch MS.
+ * Server times come from the job status so they are subject to clock skew
+ * between the client and the server.
+ *
+ */
+public class JobTimeline {
+
+	private final Long queuedOn;
+	private final long requestedOn;
+	private final Long serverStartedOn;
+	private final Long serverFinishedOn;
+	private final long detectedOn;
+
+	/**
+	 * 
+	 * @param queuedOn         When the job was pushed to the restore queue. Null
+	 *                         for jobs that were not queued.
+	 * @param requestedOn      When the request to start the job returned.
+	 * @param serverStartedOn  When the server started the job. Null if unknown.
+	 * @param serverFinishedOn When the server last changed the job. Null if
+	 *                         unknown.
+	 * @param detectedOn       When the client first observed the finished job.
+	 */
+	public JobTimeline(Long queuedOn, long requestedOn, Long serverStartedOn, Long serverFinishedOn,
+			long detectedOn) {
+		this.queuedOn = queuedOn;
+		this.requestedOn = requestedOn;
+		this.serverStartedOn = serverStartedOn;
+		this.serverFinishedOn = serverFinishedOn;
+		this.detectedOn = detectedOn;
+	}
+
+	public Long getQueuedOn() {
+		return queuedOn;
+	}
+
+	public long getRequestedOn() {
+		return requestedOn;
+	}
+
+	public Long getServerStartedOn() {
+		return serverStartedOn;
+	}
+
+	public Long getServerFinishedOn() {
+		return serverFinishedOn;
+	}
+
+	public long getDetectedOn() {
+		return detectedOn;
+	}
+
+	/**
+	 * The earliest time of this job.
+	 * 
+	 * @return
+	 */
+	public long getFirstOn() {
+		return queuedOn != null ? Math.min(queuedOn, requestedOn) : requestedOn;
+	}
+
+	/**
+	 * Time waiting in the queue, including the request to start the job.
+	 * 
+	 * @return Zero for jobs that were not queued.
+	 */
+	public long getQueueWaitMs() {
+		return queuedOn != null ? Math.max(0L, requestedOn - queuedOn) : 0L;
+	}
+
+	/**
+	 * Time the job ran on the server. When the server times are unknown the
+	 * entire time from the request to the detection is counted.
+	 * 
+	 * @return
+	 */
+	public long getServerRunMs() {
+		if (serverStartedOn == null || serverFinishedOn == null) {
+			return Math.max(0L, detectedOn - requestedOn);
+		}
+		return Math.max(0L, serverFinishedOn - serverStartedOn);
+	}
+
+	/**
+	 * Time between the server finishing the job and the client detecting it.
+	 * 
+	 * @return
+	 */
+	public long getDetectionLagMs() {
+		if (serverFinishedOn == null) {
+			return 0L;
+		}
+		return Math.max(0L, detectedOn - serverFinishedOn);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(detectedOn, queuedOn, requestedOn, serverFinishedOn, serverStartedOn);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof JobTimeline)) {
+			return false;
+		}
+		JobTimeline other = (JobTimeline) obj;
+		return detectedOn == other.detectedOn && Objects.equals(queuedOn, other.queuedOn)
+				&& requestedOn == other.requestedOn && Objects.equals(serverFinishedOn, other.serverFinishedOn)
+				&& Objects.equals(serverStartedOn, other.serverStartedOn);
+	}
+
+	@Override
+	public String toString() {
+		return "JobTimeline [queuedOn=" + queuedOn + ", requestedOn=" + requestedOn + ", serverStartedOn="
+				+ serverStartedOn + ", serverFinishedOn=" + serverFinishedOn + ", detectedOn=" + detectedOn + "]";
+	}
+
+}
@@ -0,0 +1,45 @@
+package org.sagebionetworks.migration.metrics;
+
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * Captures the timeline of every asynchronous job and reports where the time
+ * of a run was spent.
+ *
+ */
+public interface JobTimelineRecorder {
+
+	/**
+	 * Called by the restore queue immediately before it starts a restore job of
+	 * the given type.
+	 * 
+	 * @param type
+	 * @param queuedOnMs The time the job was pushed to the queue.
+	 */
+	void restoreDequeued(MigrationType type, long queuedOnMs);
+
+	/**
+	 * Called when the request to start a job returned.
+	 * 
+	 * @param jobTarget
+	 * @param jobStatus
+	 */
+	void jobRequested(JobTarget jobTarget, AsynchronousJobStatus jobStatus);
+
+	/**
+	 * Called once when the client first observed that the job finished.
+	 * 
+	 * @param jobTarget
+	 * @param jobStatus    The final status of the job.
+	 * @param detectedOnMs
+	 */
+	void jobDetected(JobTarget jobTarget, AsynchronousJobStatus jobStatus, long detectedOnMs);
+
+	/**
+	 * Log the latency breakdown of all jobs finished since the last report along
+	 * with the critical path of the restores, then start over.
+	 */
+	void reportCriticalPath();
+}
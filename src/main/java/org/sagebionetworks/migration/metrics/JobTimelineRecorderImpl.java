@@ -0,0 +1,163 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.ReporterImpl;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
+import org.sagebionetworks.util.Clock;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Aggregates the timeline of each job by target, type and request class as
+ * soon as the job is detected, so memory does not grow with the number of
+ * jobs.
+ * <p>
+ * Restores of the same type run one at a time, so the restores of a type form
+ * a chain and the chain with the largest total latency is the critical path of
+ * the restore phases. The breakdown of that chain shows whether the time was
+ * spent waiting in the queue, running on the server or waiting for the next
+ * poll.
+ * </p>
+ * Each finished job is also passed to the {@link TraceRecorder} and each
+ * started and finished job to the {@link JobEventLog}. The public
+ * methods of this class are synchronized since they are called from the main
+ * thread and the timer threads.
+ */
+@Singleton
+public class JobTimelineRecorderImpl implements JobTimelineRecorder {
+
+	static final String LATENCY = "migration_job_latency";
+
+	TraceRecorder traceRecorder;
+	JobEventLog eventLog;
+	Clock clock;
+	Logger logger;
+
+	Map<MigrationType, Long> dequeuedRestores;
+	Map<String, Long> queuedOn;
+	Map<String, Long> requestedOn;
+	Map<MetricKey, LatencyBreakdown> breakdowns;
+
+	@Inject
+	public JobTimelineRecorderImpl(TraceRecorder traceRecorder, JobEventLog eventLog, Clock clock,
+			LoggerFactory loggerFactory) {
+		super();
+		this.traceRecorder = traceRecorder;
+		this.eventLog = eventLog;
+		this.clock = clock;
+		this.logger = loggerFactory.getLogger(JobTimelineRecorderImpl.class);
+		this.dequeuedRestores = new HashMap<>();
+		this.queuedOn = new HashMap<>();
+		this.requestedOn = new HashMap<>();
+		this.breakdowns = new TreeMap<>();
+	}
+
+	@Override
+	public synchronized void restoreDequeued(MigrationType type, long queuedOnMs) {
+		dequeuedRestores.put(type, queuedOnMs);
+	}
+
+	@Override
+	public synchronized void jobRequested(JobTarget jobTarget, AsynchronousJobStatus jobStatus) {
+		String jobKey = getJobKey(jobTarget, jobStatus);
+		long requested = clock.currentTimeMillis();
+		requestedOn.put(jobKey, requested);
+		Long queued = null;
+		Optional<MigrationType> restoreType = getRestoreType(jobTarget, jobStatus);
+		if (restoreType.isPresent()) {
+			queued = dequeuedRestores.remove(restoreType.get());
+			if (queued != null) {
+				queuedOn.put(jobKey, queued);
+			}
+		}
+		eventLog.jobStarted(jobTarget, jobStatus, queued, requested);
+	}
+
+	@Override
+	public synchronized void jobDetected(JobTarget jobTarget, AsynchronousJobStatus jobStatus, long detectedOnMs) {
+		String jobKey = getJobKey(jobTarget, jobStatus);
+		Long requested = requestedOn.remove(jobKey);
+		if (requested == null) {
+			return;
+		}
+		JobTimeline timeline = new JobTimeline(queuedOn.remove(jobKey), requested,
+				jobStatus.getStartedOn() == null ? null : jobStatus.getStartedOn().getTime(),
+				jobStatus.getChangedOn() == null ? null : jobStatus.getChangedOn().getTime(), detectedOnMs);
+		MetricKey key = MigrationMetricsImpl.createKey(LATENCY, jobTarget, jobStatus);
+		breakdowns.computeIfAbsent(key, LatencyBreakdown::new).add(timeline);
+		traceRecorder.recordJob(key, timeline);
+		eventLog.jobFinished(jobTarget, jobStatus, timeline);
+	}
+
+	@Override
+	public synchronized void reportCriticalPath() {
+		if (breakdowns.isEmpty()) {
+			return;
+		}
+		for (LatencyBreakdown breakdown : breakdowns.values()) {
+			logger.info("Job latency of " + formatKey(breakdown.getKey()) + ": jobs: " + breakdown.getJobCount()
+					+ " queue wait: " + ReporterImpl.formatElapse(breakdown.getQueueWaitMs()) + " server run: "
+					+ ReporterImpl.formatElapse(breakdown.getServerRunMs()) + " detection lag: "
+					+ ReporterImpl.formatElapse(breakdown.getDetectionLagMs()) + " span: "
+					+ ReporterImpl.formatElapse(breakdown.getSpanMs()));
+		}
+		getCriticalPath().ifPresent(critical -> logger.info("Critical path: " + formatKey(critical.getKey())
+				+ " total: " + ReporterImpl.formatElapse(critical.getTotalMs()) + " queue wait: "
+				+ getPercent(critical.getQueueWaitMs(), critical.getTotalMs()) + "% server run: "
+				+ getPercent(critical.getServerRunMs(), critical.getTotalMs()) + "% detection lag: "
+				+ getPercent(critical.getDetectionLagMs(), critical.getTotalMs()) + "%"));
+		breakdowns.clear();
+	}
+
+	/**
+	 * The chain of restores with the largest total latency.
+	 * 
+	 * @return {@link Optional#empty()} if no restores were queued.
+	 */
+	Optional<LatencyBreakdown> getCriticalPath() {
+		return breakdowns.values().stream().filter(b -> b.getQueuedJobCount() > 0)
+				.max(Comparator.comparingLong(LatencyBreakdown::getTotalMs));
+	}
+
+	/**
+	 * The type of a restore job started on the destination.
+	 * 
+	 * @param jobTarget
+	 * @param jobStatus
+	 * @return {@link Optional#empty()} for all other jobs.
+	 */
+	static Optional<MigrationType> getRestoreType(JobTarget jobTarget, AsynchronousJobStatus jobStatus) {
+		if (JobTarget.DESTINATION == jobTarget && jobStatus.getRequestBody() instanceof AsyncMigrationRequest) {
+			Object request = ((AsyncMigrationRequest) jobStatus.getRequestBody()).getAdminRequest();
+			if (request instanceof RestoreTypeRequest) {
+				return Optional.ofNullable(((RestoreTypeRequest) request).getMigrationType());
+			}
+		}
+		return Optional.empty();
+	}
+
+	static String getJobKey(JobTarget jobTarget, AsynchronousJobStatus jobStatus) {
+		return jobTarget.name() + "-" + jobStatus.getJobId();
+	}
+
+	static String formatKey(MetricKey key) {
+		return String.join(" ", key.getLabels().values());
+	}
+
+	static long getPercent(long part, long total) {
+		return total > 0 ? Math.round(part * 100.0 / total) : 0L;
+	}
+
+}
@@ -0,0 +1,92 @@
+package org.sagebionetworks.migration.metrics;
+
+/**
+ * The latency of all jobs with the same {@link MetricKey} broken down into
+ * queue wait, server run time and detection lag.
+ *
+ */
+public class LatencyBreakdown {
+
+	private final MetricKey key;
+	private long jobCount;
+	private long queuedJobCount;
+	private long queueWaitMs;
+	private long serverRunMs;
+	private long detectionLagMs;
+	private Long firstOn;
+	private Long lastDetectedOn;
+
+	public LatencyBreakdown(MetricKey key) {
+		this.key = key;
+	}
+
+	/**
+	 * Add a finished job.
+	 * 
+	 * @param timeline
+	 */
+	public void add(JobTimeline timeline) {
+		jobCount++;
+		if (timeline.getQueuedOn() != null) {
+			queuedJobCount++;
+		}
+		queueWaitMs += timeline.getQueueWaitMs();
+		serverRunMs += timeline.getServerRunMs();
+		detectionLagMs += timeline.getDetectionLagMs();
+		firstOn = firstOn == null ? timeline.getFirstOn() : Math.min(firstOn, timeline.getFirstOn());
+		lastDetectedOn = lastDetectedOn == null ? timeline.getDetectedOn()
+				: Math.max(lastDetectedOn, timeline.getDetectedOn());
+	}
+
+	public MetricKey getKey() {
+		return key;
+	}
+
+	public long getJobCount() {
+		return jobCount;
+	}
+
+	/**
+	 * The number of jobs that waited in the restore queue.
+	 * 
+	 * @return
+	 */
+	public long getQueuedJobCount() {
+		return queuedJobCount;
+	}
+
+	public long getQueueWaitMs() {
+		return queueWaitMs;
+	}
+
+	public long getServerRunMs() {
+		return serverRunMs;
+	}
+
+	public long getDetectionLagMs() {
+		return detectionLagMs;
+	}
+
+	/**
+	 * The sum of the queue wait, server run time and detection lag of all jobs.
+	 * 
+	 * @return
+	 */
+	public long getTotalMs() {
+		return queueWaitMs + serverRunMs + detectionLagMs;
+	}
+
+	/**
+	 * The wall clock time from the first job being queued or requested until the
+	 * last job was detected.
+	 * 
+	 * @return
+	 */
+	public long getSpanMs() {
+		if (firstOn == null) {
+			return 0L;
+		}
+		return lastDetectedOn - firstOn;
+	}
+
+}
@@ -0,0 +1,107 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The name and labels of a single metric series. Labels with a null value are
+ * omitted.
+ *
+ */
+public class MetricKey implements Comparable<MetricKey> {
+
+	private final String name;
+	private final Map<String, String> labels;
+
+	/**
+	 * 
+	 * @param name
+	 * @param labelPairs Alternating label names and values.
+	 */
+	public MetricKey(String name, String... labelPairs) {
+		ValidateArgument.required(name, "name");
+		if (labelPairs.length % 2 != 0) {
+			throw new IllegalArgumentException("Labels must be name value pairs.");
+		}
+		this.name = name;
+		Map<String, String> map = new LinkedHashMap<>();
+		for (int i = 0; i < labelPairs.length; i += 2) {
+			if (labelPairs[i + 1] != null) {
+				map.put(labelPairs[i], labelPairs[i + 1]);
+			}
+		}
+		this.labels = Collections.unmodifiableMap(map);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Map<String, String> getLabels() {
+		return labels;
+	}
+
+	/**
+	 * Format the labels in the Prometheus text format including the given extra
+	 * label.
+	 * 
+	 * @param extraName  Null for no extra label.
+	 * @param extraValue
+	 * @return An empty string when there are no labels.
+	 */
+	public String formatLabels(String extraName, String extraValue) {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, String> label : labels.entrySet()) {
+			appendLabel(builder, label.getKey(), label.getValue());
+		}
+		if (extraName != null) {
+			appendLabel(builder, extraName, extraValue);
+		}
+		if (builder.length() == 0) {
+			return "";
+		}
+		return "{" + builder.toString() + "}";
+	}
+
+	private static void appendLabel(StringBuilder builder, String name, String value) {
+		if (builder.length() > 0) {
+			builder.append(",");
+		}
+		builder.append(name).append("=\"")
+				.append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append("\"");
+	}
+
+	@Override
+	public int compareTo(MetricKey other) {
+		int result = name.compareTo(other.name);
+		if (result != 0) {
+			return result;
+		}
+		return formatLabels(null, null).compareTo(other.formatLabels(null, null));
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(labels, name);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof MetricKey)) {
+			return false;
+		}
+		MetricKey other = (MetricKey) obj;
+		return Objects.equals(labels, other.labels) && Objects.equals(name, other.name);
+	}
+
+	@Override
+	public String toString() {
+		return name + formatLabels(null, null);
+	}
+
+}
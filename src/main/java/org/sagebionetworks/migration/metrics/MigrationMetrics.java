@@ -0,0 +1,80 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.Map;
+
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * Counters and latency histograms of the asynchronous jobs of a migration
+ * labeled by {@link JobTarget}, {@link MigrationType} and request class.
+ *
+ */
+public interface MigrationMetrics {
+
+	/**
+	 * Called when a job is started.
+	 * 
+	 * @param jobTarget
+	 * @param jobStatus The status returned when the job was started.
+	 */
+	void jobStarted(JobTarget jobTarget, AsynchronousJobStatus jobStatus);
+
+	/**
+	 * Called once when a job is first observed to be complete or failed.
+	 * 
+	 * @param jobTarget
+	 * @param jobStatus   The final status of the job.
+	 * @param detectedOnMs The time when the final status was observed.
+	 */
+	void jobFinished(JobTarget jobTarget, AsynchronousJobStatus jobStatus, long detectedOnMs);
+
+	/**
+	 * Record the time a restore job waited in the queue before it was started.
+	 * 
+	 * @param type
+	 * @param waitMs
+	 */
+	void recordQueueWait(MigrationType type, long waitMs);
+
+	/**
+	 * Record a single call of a SynapseAdminClient method.
+	 * 
+	 * @param jobTarget     The stack that was called.
+	 * @param method        The name of the called method.
+	 * @param elapsedMs
+	 * @param failed        True if the call threw an exception.
+	 * @param sentBytes     The approximate size of the request payload.
+	 * @param receivedBytes The approximate size of the response payload.
+	 */
+	void recordClientCall(JobTarget jobTarget, String method, long elapsedMs, boolean failed, long sentBytes,
+			long receivedBytes);
+
+	/**
+	 * Record the number of bins of a type whose checksums did not match.
+	 * 
+	 * @param type
+	 * @param binCount
+	 */
+	void recordMismatchedBins(MigrationType type, long binCount);
+
+	/**
+	 * A snapshot of the value of each counter.
+	 * 
+	 * @return
+	 */
+	Map<MetricKey, Long> getCounterValues();
+
+	/**
+	 * A snapshot of the sum of the observations of each histogram.
+	 * 
+	 * @return
+	 */
+	Map<MetricKey, Long> getHistogramSums();
+
+	/**
+	 * Write a snapshot of all metrics to the configured files.
+	 */
+	void export();
+}
@@ -0,0 +1,332 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.repo.model.asynch.AsynchJobState;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AdminRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationResponse;
+import org.sagebionetworks.repo.model.migration.HasMigrationType;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RestoreTypeResponse;
+import org.sagebionetworks.util.Clock;
+
+/**
+ * Metrics held in memory and exported to a Prometheus text file and/or a JSON
+ * file from a timer thread. Each file is replaced atomically so it can be
+ * scraped at any time.
+ * <p>
+ * The server execution time of a job is the runtime reported by the server.
+ * The poll detection lag is the time between the last change of the job on the
+ * server and the first poll that observed it, so it includes any clock skew
+ * between the client and the server.
+ * </p>
+ */
+public class MigrationMetricsImpl implements MigrationMetrics, Runnable {
+
+	public static final String JOBS_STARTED = "migration_jobs_started_total";
+	public static final String JOBS_COMPLETED = "migration_jobs_completed_total";
+	public static final String JOBS_FAILED = "migration_jobs_failed_total";
+	public static final String ROWS_RESTORED = "migration_rows_restored_total";
+	public static final String MISMATCHED_BINS = "migration_mismatched_bins_total";
+	public static final String QUEUE_WAIT_MS = "migration_queue_wait_ms";
+	public static final String SERVER_EXECUTION_MS = "migration_server_execution_ms";
+	public static final String POLL_DETECTION_LAG_MS = "migration_poll_detection_lag_ms";
+	public static final String CLIENT_CALLS = "migration_client_calls_total";
+	public static final String CLIENT_ERRORS = "migration_client_errors_total";
+	public static final String CLIENT_SENT_BYTES = "migration_client_sent_bytes_total";
+	public static final String CLIENT_RECEIVED_BYTES = "migration_client_received_bytes_total";
+	public static final String CLIENT_CALL_MS = "migration_client_call_ms";
+
+	static final String LABEL_TARGET = "target";
+	static final String LABEL_TYPE = "type";
+	static final String LABEL_REQUEST = "request";
+	static final String LABEL_METHOD = "method";
+
+	static final String KEY_UPDATED_ON = "updatedOn";
+	static final String KEY_COUNTERS = "counters";
+	static final String KEY_HISTOGRAMS = "histograms";
+	static final String KEY_NAME = "name";
+	static final String KEY_LABELS = "labels";
+	static final String KEY_VALUE = "value";
+	static final String KEY_COUNT = "count";
+	static final String KEY_SUM = "sum";
+	static final String KEY_BUCKETS = "buckets";
+	static final String KEY_LE = "le";
+
+	Configuration config;
+	FileProvider fileProvider;
+	Clock clock;
+	Logger logger;
+
+	ConcurrentMap<MetricKey, LongAdder> counters;
+	ConcurrentMap<MetricKey, Histogram> histograms;
+
+	public MigrationMetricsImpl(Configuration config, FileProvider fileProvider, Clock clock,
+			LoggerFactory loggerFactory) {
+		super();
+		this.config = config;
+		this.fileProvider = fileProvider;
+		this.clock = clock;
+		this.logger = loggerFactory.getLogger(MigrationMetricsImpl.class);
+		this.counters = new ConcurrentHashMap<>();
+		this.histograms = new ConcurrentHashMap<>();
+	}
+
+	@Override
+	public void jobStarted(JobTarget jobTarget, AsynchronousJobStatus jobStatus) {
+		increment(createKey(JOBS_STARTED, jobTarget, jobStatus), 1L);
+	}
+
+	@Override
+	public void jobFinished(JobTarget jobTarget, AsynchronousJobStatus jobStatus, long detectedOnMs) {
+		if (AsynchJobState.FAILED == jobStatus.getJobState()) {
+			increment(createKey(JOBS_FAILED, jobTarget, jobStatus), 1L);
+		} else {
+			increment(createKey(JOBS_COMPLETED, jobTarget, jobStatus), 1L);
+			Long rowCount = getRestoredRowCount(jobStatus);
+			if (rowCount != null) {
+				increment(createKey(ROWS_RESTORED, jobTarget, jobStatus), rowCount);
+			}
+		}
+		Long runtimeMs = getServerRunMs(jobStatus);
+		if (runtimeMs != null) {
+			observe(createKey(SERVER_EXECUTION_MS, jobTarget, jobStatus), runtimeMs);
+		}
+		if (jobStatus.getChangedOn() != null) {
+			observe(createKey(POLL_DETECTION_LAG_MS, jobTarget, jobStatus),
+					Math.max(0L, detectedOnMs - jobStatus.getChangedOn().getTime()));
+		}
+	}
+
+	@Override
+	public void recordQueueWait(MigrationType type, long waitMs) {
+		observe(new MetricKey(QUEUE_WAIT_MS, LABEL_TARGET, JobTarget.DESTINATION.name(), LABEL_TYPE, type.name()),
+				waitMs);
+	}
+
+	@Override
+	public void recordClientCall(JobTarget jobTarget, String method, long elapsedMs, boolean failed, long sentBytes,
+			long receivedBytes) {
+		String target = jobTarget.name();
+		increment(new MetricKey(CLIENT_CALLS, LABEL_TARGET, target, LABEL_METHOD, method), 1L);
+		if (failed) {
+			increment(new MetricKey(CLIENT_ERRORS, LABEL_TARGET, target, LABEL_METHOD, method), 1L);
+		}
+		increment(new MetricKey(CLIENT_SENT_BYTES, LABEL_TARGET, target, LABEL_METHOD, method), sentBytes);
+		increment(new MetricKey(CLIENT_RECEIVED_BYTES, LABEL_TARGET, target, LABEL_METHOD, method), receivedBytes);
+		observe(new MetricKey(CLIENT_CALL_MS, LABEL_TARGET, target, LABEL_METHOD, method), elapsedMs);
+	}
+
+	@Override
+	public void recordMismatchedBins(MigrationType type, long binCount) {
+		increment(new MetricKey(MISMATCHED_BINS, LABEL_TYPE, type.name()), binCount);
+	}
+
+	@Override
+	public Map<MetricKey, Long> getCounterValues() {
+		Map<MetricKey, Long> values = new TreeMap<>();
+		counters.forEach((key, counter) -> values.put(key, counter.sum()));
+		return values;
+	}
+
+	@Override
+	public Map<MetricKey, Long> getHistogramSums() {
+		Map<MetricKey, Long> sums = new TreeMap<>();
+		histograms.forEach((key, histogram) -> sums.put(key, histogram.getSum()));
+		return sums;
+	}
+
+	void increment(MetricKey key, long amount) {
+		counters.computeIfAbsent(key, k -> new LongAdder()).add(amount);
+	}
+
+	void observe(MetricKey key, long valueMs) {
+		histograms.computeIfAbsent(key, k -> new Histogram()).observe(valueMs);
+	}
+
+	/**
+	 * Create the key of a metric of the given job.
+	 * 
+	 * @param name
+	 * @param jobTarget
+	 * @param jobStatus
+	 * @return
+	 */
+	static MetricKey createKey(String name, JobTarget jobTarget, AsynchronousJobStatus jobStatus) {
+		String typeName = null;
+		String requestName = null;
+		if (jobStatus.getRequestBody() instanceof AsyncMigrationRequest) {
+			AdminRequest adminRequest = ((AsyncMigrationRequest) jobStatus.getRequestBody()).getAdminRequest();
+			if (adminRequest != null) {
+				requestName = adminRequest.getClass().getSimpleName();
+			}
+			if (adminRequest instanceof HasMigrationType
+					&& ((HasMigrationType) adminRequest).getMigrationType() != null) {
+				typeName = ((HasMigrationType) adminRequest).getMigrationType().name();
+			}
+		}
+		return new MetricKey(name, LABEL_TARGET, jobTarget.name(), LABEL_TYPE, typeName, LABEL_REQUEST, requestName);
+	}
+
+	/**
+	 * The time a finished job ran on the server.
+	 * 
+	 * @param jobStatus
+	 * @return Null if the server did not report the times of the job.
+	 */
+	public static Long getServerRunMs(AsynchronousJobStatus jobStatus) {
+		Long runtimeMs = jobStatus.getRuntimeMS();
+		if (runtimeMs == null && jobStatus.getStartedOn() != null && jobStatus.getChangedOn() != null) {
+			runtimeMs = jobStatus.getChangedOn().getTime() - jobStatus.getStartedOn().getTime();
+		}
+		return runtimeMs;
+	}
+
+	/**
+	 * The number of rows restored by a completed job.
+	 * 
+	 * @param jobStatus
+	 * @return Null if the job was not a restore.
+	 */
+	public static Long getRestoredRowCount(AsynchronousJobStatus jobStatus) {
+		if (jobStatus.getResponseBody() instanceof AsyncMigrationResponse) {
+			Object response = ((AsyncMigrationResponse) jobStatus.getResponseBody()).getAdminResponse();
+			if (response instanceof RestoreTypeResponse) {
+				return ((RestoreTypeResponse) response).getRestoredRowCount();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Write all metrics in the Prometheus text format.
+	 * 
+	 * @return
+	 */
+	public String toPrometheus() {
+		StringBuilder builder = new StringBuilder();
+		String lastName = null;
+		for (Map.Entry<MetricKey, LongAdder> counter : new TreeMap<>(counters).entrySet()) {
+			MetricKey key = counter.getKey();
+			if (!key.getName().equals(lastName)) {
+				builder.append("# TYPE ").append(key.getName()).append(" counter\n");
+				lastName = key.getName();
+			}
+			builder.append(key.getName()).append(key.formatLabels(null, null)).append(" ")
+					.append(counter.getValue().sum()).append("\n");
+		}
+		for (Map.Entry<MetricKey, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+			MetricKey key = entry.getKey();
+			Histogram histogram = entry.getValue();
+			if (!key.getName().equals(lastName)) {
+				builder.append("# TYPE ").append(key.getName()).append(" histogram\n");
+				lastName = key.getName();
+			}
+			long[] cumulative = histogram.getCumulativeCounts();
+			for (int i = 0; i < cumulative.length; i++) {
+				builder.append(key.getName()).append("_bucket")
+						.append(key.formatLabels(KEY_LE, Long.toString(Histogram.BUCKET_BOUNDS_MS[i]))).append(" ")
+						.append(cumulative[i]).append("\n");
+			}
+			long count = histogram.getCount();
+			builder.append(key.getName()).append("_bucket").append(key.formatLabels(KEY_LE, "+Inf")).append(" ")
+					.append(count).append("\n");
+			builder.append(key.getName()).append("_sum").append(key.formatLabels(null, null)).append(" ")
+					.append(histogram.getSum()).append("\n");
+			builder.append(key.getName()).append("_count").append(key.formatLabels(null, null)).append(" ")
+					.append(count).append("\n");
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Write all metrics to JSON.
+	 * 
+	 * @return
+	 */
+	public JSONObject toJSON() {
+		JSONObject root = new JSONObject();
+		root.put(KEY_UPDATED_ON, clock.currentTimeMillis());
+		JSONArray counterArray = new JSONArray();
+		for (Map.Entry<MetricKey, LongAdder> counter : new TreeMap<>(counters).entrySet()) {
+			JSONObject json = createJSON(counter.getKey());
+			json.put(KEY_VALUE, counter.getValue().sum());
+			counterArray.put(json);
+		}
+		root.put(KEY_COUNTERS, counterArray);
+		JSONArray histogramArray = new JSONArray();
+		for (Map.Entry<MetricKey, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+			Histogram histogram = entry.getValue();
+			JSONObject json = createJSON(entry.getKey());
+			json.put(KEY_COUNT, histogram.getCount());
+			json.put(KEY_SUM, histogram.getSum());
+			JSONArray buckets = new JSONArray();
+			long[] cumulative = histogram.getCumulativeCounts();
+			for (int i = 0; i < cumulative.length; i++) {
+				JSONObject bucket = new JSONObject();
+				bucket.put(KEY_LE, Histogram.BUCKET_BOUNDS_MS[i]);
+				bucket.put(KEY_COUNT, cumulative[i]);
+				buckets.put(bucket);
+			}
+			json.put(KEY_BUCKETS, buckets);
+			histogramArray.put(json);
+		}
+		root.put(KEY_HISTOGRAMS, histogramArray);
+		return root;
+	}
+
+	private static JSONObject createJSON(MetricKey key) {
+		JSONObject json = new JSONObject();
+		json.put(KEY_NAME, key.getName());
+		json.put(KEY_LABELS, new JSONObject(key.getLabels()));
+		return json;
+	}
+
+	/**
+	 * Export the metrics to the configured files. Nothing is written until a
+	 * metric is recorded, so an instance that is never used does not replace the
+	 * files of an instance that is.
+	 */
+	@Override
+	public void export() {
+		if (counters.isEmpty() && histograms.isEmpty()) {
+			return;
+		}
+		Optional<String> prometheusPath = config.getMetricsPrometheusFilePath();
+		if (prometheusPath.isPresent()) {
+			writeFile(prometheusPath.get(), toPrometheus());
+		}
+		Optional<String> jsonPath = config.getMetricsJsonFilePath();
+		if (jsonPath.isPresent()) {
+			writeFile(jsonPath.get(), toJSON().toString());
+		}
+	}
+
+	void writeFile(String path, String content) {
+		try {
+			fileProvider.replaceFile(path, content);
+		} catch (Exception e) {
+			logger.warn("Failed to write the metrics file: " + e.getMessage());
+		}
+	}
+
+	@Override
+	public void run() {
+		export();
+	}
+
+}
@@ -0,0 +1,17 @@
+package org.sagebionetworks.migration.metrics;
+
+/**
+ * Notified when a phase of the migration starts and ends.
+ *
+ */
+public interface PhaseListener {
+
+	/**
+	 * Start a phase of the migration. The phase ends when the returned span is
+	 * closed.
+	 * 
+	 * @param name
+	 * @return
+	 */
+	TraceSpan startPhase(String name);
+}
@@ -0,0 +1,28 @@
+package org.sagebionetworks.migration.metrics;
+
+/**
+ * Builds a machine-readable report of a single run with the work done for each
+ * type, the time spent in each phase, the number of attempts and the settings
+ * of the run.
+ *
+ */
+public interface RunReporter extends PhaseListener {
+
+	/**
+	 * Called when a run starts, before its first attempt. Only the work done
+	 * after this call is included in the report.
+	 */
+	void beginRun();
+
+	/**
+	 * Called at the start of each attempt of the current run.
+	 */
+	void attemptStarted();
+
+	/**
+	 * Write the report of the current run to the configured file.
+	 *
+	 * @param successful True if an attempt of the run finished without error.
+	 */
+	void writeReport(boolean successful);
+}
@@ -0,0 +1,286 @@
+package org.sagebionetworks.migration.metrics;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
+import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
+import org.sagebionetworks.util.Clock;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Writes a JSON report of each run built from the difference between the
+ * {@link MigrationMetrics} at the start and the end of the run, so a daemon
+ * pass only reports its own work. Keeping a copy of each report gives a
+ * history that can be compared to find performance regressions.
+ * <p>
+ * The throughput of a type is the number of restored rows per second of
+ * server time spent restoring the type, while the throughput of the totals is
+ * per second of the run.
+ * </p>
+ * The public methods of this class are synchronized since they are called from
+ * the main thread and the timer threads.
+ */
+@Singleton
+public class RunReporterImpl implements RunReporter {
+
+	static final String UNTYPED = "untyped";
+
+	Configuration config;
+	MigrationMetrics metrics;
+	FileProvider fileProvider;
+	Clock clock;
+	Logger logger;
+
+	long startedOn;
+	int attempts;
+	List<Phase> phases;
+	Map<MetricKey, Long> startCounters;
+	Map<MetricKey, Long> startHistogramSums;
+
+	@Inject
+	public RunReporterImpl(Configuration config, MigrationMetrics metrics, FileProvider fileProvider, Clock clock,
+			LoggerFactory loggerFactory) {
+		super();
+		this.config = config;
+		this.metrics = metrics;
+		this.fileProvider = fileProvider;
+		this.clock = clock;
+		this.logger = loggerFactory.getLogger(RunReporterImpl.class);
+		this.phases = new LinkedList<>();
+		this.startCounters = Collections.emptyMap();
+		this.startHistogramSums = Collections.emptyMap();
+	}
+
+	@Override
+	public synchronized void beginRun() {
+		startedOn = clock.currentTimeMillis();
+		attempts = 0;
+		phases.clear();
+		startCounters = metrics.getCounterValues();
+		startHistogramSums = metrics.getHistogramSums();
+	}
+
+	@Override
+	public synchronized void attemptStarted() {
+		attempts++;
+	}
+
+	@Override
+	public synchronized TraceSpan startPhase(String name) {
+		Phase phase = new Phase(name, attempts, clock.currentTimeMillis());
+		phases.add(phase);
+		return () -> endPhase(phase);
+	}
+
+	synchronized void endPhase(Phase phase) {
+		phase.endMs = clock.currentTimeMillis();
+	}
+
+	@Override
+	public synchronized void writeReport(boolean successful) {
+		Optional<String> path = config.getRunReportFilePath();
+		if (!path.isPresent()) {
+			return;
+		}
+		try {
+			fileProvider.replaceFile(path.get(), toJSON(successful, clock.currentTimeMillis()).toString(2));
+			logger.info("Wrote the run report to: " + path.get());
+		} catch (Exception e) {
+			logger.warn("Failed to write the run report file: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Build the report of the current run.
+	 *
+	 * @param successful
+	 * @param nowMs      Phases that have not ended, end now.
+	 * @return
+	 */
+	synchronized JSONObject toJSON(boolean successful, long nowMs) {
+		JSONObject report = new JSONObject();
+		report.put("startedOn", startedOn);
+		report.put("endedOn", nowMs);
+		report.put("elapsedMs", nowMs - startedOn);
+		report.put("successful", successful);
+		report.put("attempts", attempts);
+		report.put("retries", Math.max(0, attempts - 1));
+		report.put("configuration", createConfigurationJSON());
+
+		JSONArray phaseArray = new JSONArray();
+		for (Phase phase : phases) {
+			JSONObject json = new JSONObject();
+			json.put("name", phase.name);
+			json.put("attempt", phase.attempt);
+			json.put("startOffsetMs", phase.startMs - startedOn);
+			json.put("elapsedMs", (phase.endMs != null ? phase.endMs : nowMs) - phase.startMs);
+			phaseArray.put(json);
+		}
+		report.put("phases", phaseArray);
+
+		Map<String, TypeTotals> types = getTypeTotals();
+		TypeTotals all = new TypeTotals();
+		JSONArray typeArray = new JSONArray();
+		for (Map.Entry<String, TypeTotals> entry : types.entrySet()) {
+			JSONObject json = entry.getValue().toJSON();
+			json.put("type", entry.getKey());
+			typeArray.put(json);
+			all.add(entry.getValue());
+		}
+		report.put("types", typeArray);
+		JSONObject totals = all.toJSON();
+		totals.put("rowsPerSecond", getPerSecond(all.rowsRestored, nowMs - startedOn));
+		report.put("totals", totals);
+		return report;
+	}
+
+	/**
+	 * The settings that limit the work and concurrency of a run.
+	 *
+	 * @return
+	 */
+	JSONObject createConfigurationJSON() {
+		JSONObject json = new JSONObject();
+		json.put("planMode", String.valueOf(config.getPlanMode()));
+		json.put("maximumBackupBatchSize", config.getMaximumBackupBatchSize());
+		json.put("maximumNumberThreads", config.getMaximumNumberThreads());
+		json.put("maxRetries", config.getMaxRetries());
+		json.put("backupPrefetchDepth", config.getBackupPrefetchDepth());
+		json.put("maxConcurrentRangeCalculations", config.getMaxConcurrentRangeCalculations());
+		json.put("maxConcurrentTypeCounts", config.getMaxConcurrentTypeCounts());
+		json.put("typeCountGroupSize", config.getTypeCountGroupSize());
+		json.put("maxConcurrentFullTableChecksums", config.getMaxConcurrentFullTableChecksums());
+		json.put("includeFullTableChecksums", config.includeFullTableChecksums());
+		json.put("maxChecksumDeltaPasses", config.getMaxChecksumDeltaPasses());
+		json.put("incrementalMigration", config.isIncrementalMigration());
+		json.put("shardCount", config.getShardCount());
+		json.put("shardIndex", config.getShardIndex());
+		return json;
+	}
+
+	/**
+	 * Sum the work done by each type since the start of the run.
+	 *
+	 * @return
+	 */
+	Map<String, TypeTotals> getTypeTotals() {
+		Map<String, TypeTotals> types = new TreeMap<>();
+		for (Map.Entry<MetricKey, Long> entry : metrics.getCounterValues().entrySet()) {
+			MetricKey key = entry.getKey();
+			long value = entry.getValue() - startCounters.getOrDefault(key, 0L);
+			if (value == 0L) {
+				continue;
+			}
+			switch (key.getName()) {
+			case MigrationMetricsImpl.ROWS_RESTORED:
+				getTotals(types, key).rowsRestored += value;
+				break;
+			case MigrationMetricsImpl.MISMATCHED_BINS:
+				getTotals(types, key).mismatchedBins += value;
+				break;
+			case MigrationMetricsImpl.JOBS_FAILED:
+				getTotals(types, key).failedJobs += value;
+				break;
+			case MigrationMetricsImpl.JOBS_COMPLETED:
+				if (isRequest(key, JobTarget.SOURCE, BackupTypeRangeRequest.class)) {
+					getTotals(types, key).rangesBackedUp += value;
+				} else if (isRequest(key, JobTarget.DESTINATION, RestoreTypeRequest.class)) {
+					getTotals(types, key).rangesRestored += value;
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		for (Map.Entry<MetricKey, Long> entry : metrics.getHistogramSums().entrySet()) {
+			MetricKey key = entry.getKey();
+			if (MigrationMetricsImpl.SERVER_EXECUTION_MS.equals(key.getName())
+					&& isRequest(key, JobTarget.DESTINATION, RestoreTypeRequest.class)) {
+				long value = entry.getValue() - startHistogramSums.getOrDefault(key, 0L);
+				if (value != 0L) {
+					getTotals(types, key).restoreServerMs += value;
+				}
+			}
+		}
+		return types;
+	}
+
+	static TypeTotals getTotals(Map<String, TypeTotals> types, MetricKey key) {
+		return types.computeIfAbsent(key.getLabels().getOrDefault(MigrationMetricsImpl.LABEL_TYPE, UNTYPED),
+				k -> new TypeTotals());
+	}
+
+	static boolean isRequest(MetricKey key, JobTarget target, Class<?> requestClass) {
+		return target.name().equals(key.getLabels().get(MigrationMetricsImpl.LABEL_TARGET))
+				&& requestClass.getSimpleName().equals(key.getLabels().get(MigrationMetricsImpl.LABEL_REQUEST));
+	}
+
+	static double getPerSecond(long count, long elapsedMs) {
+		return elapsedMs <= 0L ? 0.0 : count * 1000.0 / elapsedMs;
+	}
+
+	/**
+	 * The work done for a single type.
+	 */
+	static class TypeTotals {
+
+		long rowsRestored;
+		long rangesBackedUp;
+		long rangesRestored;
+		long mismatchedBins;
+		long failedJobs;
+		long restoreServerMs;
+
+		void add(TypeTotals other) {
+			rowsRestored += other.rowsRestored;
+			rangesBackedUp += other.rangesBackedUp;
+			rangesRestored += other.rangesRestored;
+			mismatchedBins += other.mismatchedBins;
+			failedJobs += other.failedJobs;
+			restoreServerMs += other.restoreServerMs;
+		}
+
+		JSONObject toJSON() {
+			JSONObject json = new JSONObject();
+			json.put("rowsRestored", rowsRestored);
+			json.put("rangesBackedUp", rangesBackedUp);
+			json.put("rangesRestored", rangesRestored);
+			json.put("mismatchedBins", mismatchedBins);
+			json.put("failedJobs", failedJobs);
+			json.put("restoreServerMs", restoreServerMs);
+			json.put("rowsPerSecond", getPerSecond(rowsRestored, restoreServerMs));
+			return json;
+		}
+	}
+
+	/**
+	 * A phase of one attempt.
+	 */
+	static class Phase {
+
+		final String name;
+		final int attempt;
+		final long startMs;
+		Long endMs;
+
+		Phase(String name, int attempt, long startMs) {
+			this.name = name;
+			this.attempt = attempt;
+			this.startMs = startMs;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package org.sagebionetworks.migration.metrics;
+
+/**
+ * Records the phases and jobs of a run so they can be viewed on a timeline.
+ *
+ */
+public interface TraceRecorder extends PhaseListener {
+
+	/**
+	 * Record a finished job.
+	 * 
+	 * @param key      The target, type and request labels of the job.
+	 * @param timeline
+	 */
+	void recordJob(MetricKey key, JobTimeline timeline);
+
+	/**
+	 * Write the trace of everything recorded since the last export to the
+	 * configured file, then start over.
+	 */
+	void export();
+}
@@ -0,0 +1,14 @@
+package org.sagebionetworks.migration.metrics;
+
+/**
+ * A span of a trace that ends when it is closed.
+ *
+ */
+public interface TraceSpan extends AutoCloseable {
+
+	/**
+	 * End the span.
+	 */
+	@Override
+	void close();
+}
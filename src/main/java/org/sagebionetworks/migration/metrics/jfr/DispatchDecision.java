@@ -0,0 +1,37 @@
+package org.sagebionetworks.migration.metrics.jfr;
+
+/**
+ * The outcome of an attempt to start a waiting restore job.
+ */
+public enum DispatchDecision {
+
+	/**
+	 * The job was started.
+	 */
+	STARTED,
+	/**
+	 * A job of the same type is already running.
+	 */
+	SAME_TYPE_RUNNING,
+	/**
+	 * A CHANGE job can only start once no other job is running.
+	 */
+	CHANGE_BARRIER,
+	/**
+	 * Another shard holds the lease of the type.
+	 */
+	LEASE_HELD,
+	/**
+	 * The type was paused with the queue control.
+	 */
+	PAUSED,
+	/**
+	 * The maximum number of running jobs set with the queue control is reached.
+	 */
+	CONCURRENCY_CAP,
+	/**
+	 * The type was deprioritized with the queue control and jobs of other types
+	 * are waiting.
+	 */
+	DEPRIORITIZED
+}
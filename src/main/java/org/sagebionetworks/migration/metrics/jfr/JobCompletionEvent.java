@@ -0,0 +1,79 @@
+package org.sagebionetworks.migration.metrics.jfr;
+
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.metrics.MigrationMetricsImpl;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The first poll that observed the final state of an asynchronous job.
+ */
+@Name("org.sagebionetworks.migration.JobCompletion")
+@Label("Job Completion")
+@Category({ JobEvents.CATEGORY, "Jobs" })
+@Description("An asynchronous migration job was detected as complete or failed")
+@StackTrace(false)
+public class JobCompletionEvent extends Event {
+
+	@Label("Target")
+	public String target;
+
+	@Label("Request")
+	public String request;
+
+	@Label("Migration Type")
+	public String migrationType;
+
+	@Label("Job ID")
+	public String jobId;
+
+	@Label("State")
+	public String state;
+
+	@Label("Server Run Time")
+	@Description("The time the job ran on the server, or -1 when unknown")
+	@Timespan(Timespan.MILLISECONDS)
+	public long serverRunMs;
+
+	@Label("Detection Lag")
+	@Description("The time between the job finishing on the server and this poll, or -1 when unknown")
+	@Timespan(Timespan.MILLISECONDS)
+	public long detectionLagMs;
+
+	@Label("Restored Rows")
+	@Description("The number of rows restored by the job, or -1 when the job was not a restore")
+	public long restoredRows;
+
+	/**
+	 * Record the completion of the given job when the event is enabled.
+	 * 
+	 * @param jobTarget
+	 * @param jobStatus    The final status of the job.
+	 * @param detectedOnMs The time of the poll that observed the final state.
+	 */
+	public static void record(JobTarget jobTarget, AsynchronousJobStatus jobStatus, long detectedOnMs) {
+		JobCompletionEvent event = new JobCompletionEvent();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		event.target = jobTarget.name();
+		event.request = JobEvents.getRequestName(jobStatus);
+		event.migrationType = JobEvents.getMigrationType(jobStatus);
+		event.jobId = jobStatus.getJobId();
+		event.state = jobStatus.getJobState() == null ? null : jobStatus.getJobState().name();
+		Long serverRunMs = MigrationMetricsImpl.getServerRunMs(jobStatus);
+		event.serverRunMs = serverRunMs == null ? -1L : serverRunMs;
+		event.detectionLagMs = jobStatus.getChangedOn() == null ? -1L
+				: Math.max(0L, detectedOnMs - jobStatus.getChangedOn().getTime());
+		Long restoredRows = MigrationMetricsImpl.getRestoredRowCount(jobStatus);
+		event.restoredRows = restoredRows == null ? -1L : restoredRows;
+		event.commit();
+	}
+}
@@ -0,0 +1,66 @@
+package org.sagebionetworks.migration.metrics.jfr;
+
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AdminRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
+import org.sagebionetworks.repo.model.migration.HasMigrationType;
+
+/**
+ * Helpers to describe the jobs of the Java Flight Recorder events. All events
+ * of this package share the {@link #CATEGORY} so they can be enabled together
+ * in a recording settings file.
+ */
+public class JobEvents {
+
+	public static final String CATEGORY = "Synapse Migration";
+
+	/**
+	 * The simple name of the admin request of the given job.
+	 * 
+	 * @param jobStatus
+	 * @return Null when the job is not a migration job.
+	 */
+	public static String getRequestName(AsynchronousJobStatus jobStatus) {
+		return getRequestName(getAdminRequest(jobStatus));
+	}
+
+	/**
+	 * The migration type of the admin request of the given job.
+	 * 
+	 * @param jobStatus
+	 * @return Null when the request does not have a type.
+	 */
+	public static String getMigrationType(AsynchronousJobStatus jobStatus) {
+		return getMigrationType(getAdminRequest(jobStatus));
+	}
+
+	/**
+	 * The simple name of the given request.
+	 * 
+	 * @param request
+	 * @return
+	 */
+	public static String getRequestName(AdminRequest request) {
+		return request == null ? null : request.getClass().getSimpleName();
+	}
+
+	/**
+	 * The migration type of the given request.
+	 * 
+	 * @param request
+	 * @return Null when the request does not have a type.
+	 */
+	public static String getMigrationType(AdminRequest request) {
+		if (request instanceof HasMigrationType && ((HasMigrationType) request).getMigrationType() != null) {
+			return ((HasMigrationType) request).getMigrationType().name();
+		}
+		return null;
+	}
+
+	static AdminRequest getAdminRequest(AsynchronousJobStatus jobStatus) {
+		if (jobStatus != null && jobStatus.getRequestBody() instanceof AsyncMigrationRequest) {
+			return ((AsyncMigrationRequest) jobStatus.getRequestBody()).getAdminRequest();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,56 @@
+package org.sagebionetworks.migration.metrics.jfr;
+
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A single status poll of a running asynchronous job. The duration of the
+ * event is the duration of the status call.
+ */
+@Name("org.sagebionetworks.migration.JobPoll")
+@Label("Job Poll")
+@Category({ JobEvents.CATEGORY, "Jobs" })
+@Description("The status of a running asynchronous migration job was polled")
+@StackTrace(false)
+public class JobPollEvent extends Event {
+
+	@Label("Target")
+	public String target;
+
+	@Label("Request")
+	public String request;
+
+	@Label("Migration Type")
+	public String migrationType;
+
+	@Label("Job ID")
+	public String jobId;
+
+	@Label("State")
+	@Description("The state of the job returned by the poll")
+	public String state;
+
+	/**
+	 * Commit this event for the given polled job when it is enabled.
+	 * 
+	 * @param jobTarget
+	 * @param jobStatus The status returned by the poll.
+	 */
+	public void commitJob(JobTarget jobTarget, AsynchronousJobStatus jobStatus) {
+		if (shouldCommit()) {
+			target = jobTarget.name();
+			request = JobEvents.getRequestName(jobStatus);
+			migrationType = JobEvents.getMigrationType(jobStatus);
+			jobId = jobStatus.getJobId();
+			state = jobStatus.getJobState() == null ? null : jobStatus.getJobState().name();
+			commit();
+		}
+	}
+}
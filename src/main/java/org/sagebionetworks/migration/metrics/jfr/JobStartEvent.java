@@ -0,0 +1,53 @@
+package org.sagebionetworks.migration.metrics.jfr;
+
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AdminRequest;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The call that started an asynchronous job. The duration of the event is the
+ * duration of the start call.
+ */
+@Name("org.sagebionetworks.migration.JobStart")
+@Label("Job Start")
+@Category({ JobEvents.CATEGORY, "Jobs" })
+@Description("An asynchronous migration job was started")
+@StackTrace(false)
+public class JobStartEvent extends Event {
+
+	@Label("Target")
+	public String target;
+
+	@Label("Request")
+	public String request;
+
+	@Label("Migration Type")
+	public String migrationType;
+
+	@Label("Job ID")
+	public String jobId;
+
+	/**
+	 * Commit this event for the given started job when it is enabled.
+	 * 
+	 * @param jobTarget
+	 * @param request
+	 * @param jobStatus The status returned by the start call.
+	 */
+	public void commitJob(JobTarget jobTarget, AdminRequest request, AsynchronousJobStatus jobStatus) {
+		if (shouldCommit()) {
+			target = jobTarget.name();
+			this.request = JobEvents.getRequestName(request);
+			migrationType = JobEvents.getMigrationType(request);
+			jobId = jobStatus == null ? null : jobStatus.getJobId();
+			commit();
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package org.sagebionetworks.migration.metrics.jfr;
+
+import java.util.function.LongSupplier;
+
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A decision of the restore queue to start a waiting job or to keep it
+ * waiting.
+ */
+@Name("org.sagebionetworks.migration.RestoreDispatch")
+@Label("Restore Dispatch")
+@Category({ JobEvents.CATEGORY, "Scheduler" })
+@Description("The restore queue started a waiting job or kept it waiting")
+@StackTrace(false)
+public class RestoreDispatchEvent extends Event {
+
+	@Label("Migration Type")
+	public String migrationType;
+
+	@Label("Decision")
+	@Description("STARTED, or the reason the job could not start")
+	public String decision;
+
+	@Label("Running Jobs")
+	@Description("The number of running restore jobs when the decision was made")
+	public int runningJobs;
+
+	@Label("Waiting Jobs")
+	@Description("The number of waiting restore jobs when the decision was made")
+	public int waitingJobs;
+
+	@Label("Queue Wait")
+	@Description("The time the job waited in the queue so far")
+	@Timespan(Timespan.MILLISECONDS)
+	public long queueWaitMs;
+
+	/**
+	 * Record a dispatch decision when the event is enabled.
+	 * 
+	 * @param type
+	 * @param decision
+	 * @param runningJobs
+	 * @param waitingJobs
+	 * @param queueWaitMs Only called when the event is enabled.
+	 */
+	public static void record(MigrationType type, DispatchDecision decision, int runningJobs, int waitingJobs,
+			LongSupplier queueWaitMs) {
+		RestoreDispatchEvent event = new RestoreDispatchEvent();
+		if (!event.shouldCommit()) {
+			return;
+		}
+		event.migrationType = type.name();
+		event.decision = decision.name();
+		event.runningJobs = runningJobs;
+		event.waitingJobs = waitingJobs;
+		event.queueWaitMs = queueWaitMs.getAsLong();
+		event.commit();
+	}
+}
@@ -0,0 +1,31 @@
+package org.sagebionetworks.migration.plan;
+
+import java.util.Iterator;
+
+import org.sagebionetworks.migration.config.Configuration;
+
+/**
+ * Abstraction for the file that holds a migration plan. The plan is written
+ * and read as a stream so that plans of any size can be handled.
+ *
+ */
+public interface MigrationPlanStore {
+
+	/**
+	 * Write each of the given ranges, in order, to the file provided by
+	 * {@link Configuration#getPlanFilePath()}, replacing any existing plan.
+	 * 
+	 * @param ranges
+	 * @return The number of ranges written.
+	 */
+	long writePlan(Iterator<PlannedRange> ranges);
+
+	/**
+	 * Read the ranges of the plan file in the order they were written. The file
+	 * is closed once the last range is read.
+	 * 
+	 * @return
+	 */
+	Iterator<PlannedRange> readPlan();
+
+}
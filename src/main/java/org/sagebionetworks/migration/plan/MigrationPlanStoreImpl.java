@@ -0,0 +1,166 @@
+package org.sagebionetworks.migration.plan;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+import com.google.inject.Inject;
+
+/**
+ * Stores the plan as a JSON object per line, one line for each range.
+ *
+ */
+public class MigrationPlanStoreImpl implements MigrationPlanStore {
+
+	static final String KEY_TYPE = "type";
+	static final String KEY_MINIMUM_ID = "minimumId";
+	static final String KEY_MAXIMUM_ID = "maximumId";
+	static final String KEY_ESTIMATED_ROW_COUNT = "estimatedRowCount";
+
+	Configuration config;
+	FileProvider fileProvider;
+	Logger logger;
+
+	@Inject
+	public MigrationPlanStoreImpl(Configuration config, FileProvider fileProvider, LoggerFactory loggerFactory) {
+		super();
+		this.config = config;
+		this.fileProvider = fileProvider;
+		this.logger = loggerFactory.getLogger(MigrationPlanStoreImpl.class);
+	}
+
+	@Override
+	public long writePlan(Iterator<PlannedRange> ranges) {
+		String path = getPath();
+		long rangeCount = 0L;
+		long estimatedRowCount = 0L;
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+				fileProvider.createOutputStream(fileProvider.getFile(path)), StandardCharsets.UTF_8))) {
+			while (ranges.hasNext()) {
+				PlannedRange range = ranges.next();
+				writer.write(toJSON(range).toString());
+				writer.write('\n');
+				rangeCount++;
+				estimatedRowCount += range.getEstimatedRowCount();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to write the migration plan: " + path, e);
+		}
+		logger.info("Wrote a plan of " + rangeCount + " ranges and at most " + estimatedRowCount + " rows to: " + path);
+		return rangeCount;
+	}
+
+	@Override
+	public Iterator<PlannedRange> readPlan() {
+		String path = getPath();
+		File file = fileProvider.getFile(path);
+		if (!file.exists()) {
+			throw new IllegalStateException("The migration plan does not exist: " + path);
+		}
+		try {
+			BufferedReader reader = new BufferedReader(
+					new InputStreamReader(fileProvider.createInputStream(file), StandardCharsets.UTF_8));
+			logger.info("Reading the migration plan from: " + path);
+			return new PlanIterator(reader);
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to read the migration plan: " + path, e);
+		}
+	}
+
+	/**
+	 * 
+	 * @return The configured plan file path.
+	 */
+	String getPath() {
+		return config.getPlanFilePath()
+				.orElseThrow(() -> new IllegalStateException("A plan file is required to plan or execute a plan."));
+	}
+
+	/**
+	 * Write a single range to JSON.
+	 * 
+	 * @param range
+	 * @return
+	 */
+	static JSONObject toJSON(PlannedRange range) {
+		JSONObject json = new JSONObject();
+		json.put(KEY_TYPE, range.getType().name());
+		json.put(KEY_MINIMUM_ID, range.getMinimumId());
+		json.put(KEY_MAXIMUM_ID, range.getMaximumId());
+		json.put(KEY_ESTIMATED_ROW_COUNT, range.getEstimatedRowCount());
+		return json;
+	}
+
+	/**
+	 * Read a single range from JSON.
+	 * 
+	 * @param json
+	 * @return
+	 */
+	static PlannedRange fromJSON(JSONObject json) {
+		return new PlannedRange(MigrationType.valueOf(json.getString(KEY_TYPE)), json.getLong(KEY_MINIMUM_ID),
+				json.getLong(KEY_MAXIMUM_ID), json.getLong(KEY_ESTIMATED_ROW_COUNT));
+	}
+
+	/**
+	 * Reads one range per line, closing the reader after the last line.
+	 */
+	static class PlanIterator implements Iterator<PlannedRange> {
+
+		private final BufferedReader reader;
+		private String nextLine;
+		private boolean done;
+
+		PlanIterator(BufferedReader reader) {
+			this.reader = reader;
+			this.done = false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (done) {
+				return false;
+			}
+			if (nextLine != null) {
+				return true;
+			}
+			try {
+				do {
+					nextLine = reader.readLine();
+				} while (nextLine != null && nextLine.trim().isEmpty());
+				if (nextLine == null) {
+					done = true;
+					reader.close();
+				}
+			} catch (IOException e) {
+				throw new IllegalStateException("Failed to read the migration plan", e);
+			}
+			return !done;
+		}
+
+		@Override
+		public PlannedRange next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			PlannedRange range = fromJSON(new JSONObject(nextLine));
+			nextLine = null;
+			return range;
+		}
+	}
+
+}
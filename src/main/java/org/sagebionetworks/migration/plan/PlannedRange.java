@@ -0,0 +1,77 @@
+package org.sagebionetworks.migration.plan;
+
+import java.util.Objects;
+
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * A single ID range of a {@link MigrationType} that a migration plan backs up
+ * from the source and restores to the destination.
+ *
+ */
+public class PlannedRange {
+
+	private final MigrationType type;
+	private final long minimumId;
+	private final long maximumId;
+	private final long estimatedRowCount;
+
+	/**
+	 * 
+	 * @param type
+	 * @param minimumId
+	 * @param maximumId
+	 * @param estimatedRowCount The maximum number of source rows expected in the
+	 *                          range. Zero when the range only deletes rows from
+	 *                          the destination.
+	 */
+	public PlannedRange(MigrationType type, long minimumId, long maximumId, long estimatedRowCount) {
+		ValidateArgument.required(type, "type");
+		this.type = type;
+		this.minimumId = minimumId;
+		this.maximumId = maximumId;
+		this.estimatedRowCount = estimatedRowCount;
+	}
+
+	public MigrationType getType() {
+		return type;
+	}
+
+	public long getMinimumId() {
+		return minimumId;
+	}
+
+	public long getMaximumId() {
+		return maximumId;
+	}
+
+	public long getEstimatedRowCount() {
+		return estimatedRowCount;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(estimatedRowCount, maximumId, minimumId, type);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof PlannedRange)) {
+			return false;
+		}
+		PlannedRange other = (PlannedRange) obj;
+		return estimatedRowCount == other.estimatedRowCount && maximumId == other.maximumId
+				&& minimumId == other.minimumId && type == other.type;
+	}
+
+	@Override
+	public String toString() {
+		return "PlannedRange [type=" + type + ", minimumId=" + minimumId + ", maximumId=" + maximumId
+				+ ", estimatedRowCount=" + estimatedRowCount + "]";
+	}
+
+}
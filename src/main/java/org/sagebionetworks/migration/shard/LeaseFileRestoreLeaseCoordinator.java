@@ -0,0 +1,215 @@
+package org.sagebionetworks.migration.shard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.logging.log4j.Logger;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.util.Clock;
+
+/**
+ * Each lease is a file named after its type in the directory provided by
+ * {@link Configuration#getShardLeaseDirectory()}, which is shared by all
+ * shards. A lease is taken by atomically creating its file, which holds the ID
+ * of the worker that owns it, and kept alive by updating the file's
+ * modification time. The lease of a worker that fails is taken by another
+ * worker once it is older than {@link Configuration#getShardLeaseTimeoutMs()}.
+ * A worker never removes a lease it holds, and a lease whose file no longer
+ * names this worker is reported as lost when it is renewed.
+ * <p>
+ * A shard that finishes creates a marker file in the same directory. The shard
+ * that finds the markers of every shard removes them.
+ * </p>
+ * <p>
+ * After a lease file is created the conflicting leases are checked again, so
+ * two workers that race for conflicting leases both back off and try again on
+ * a later call.
+ * </p>
+ */
+public class LeaseFileRestoreLeaseCoordinator implements RestoreLeaseCoordinator {
+
+	public static final String LEASE_SUFFIX = ".lease";
+	public static final String SHARD_FINISHED_SUFFIX = ".finished";
+
+	Configuration config;
+	FileProvider fileProvider;
+	Clock clock;
+	Logger logger;
+	File leaseDirectory;
+	Set<MigrationType> heldLeases;
+	String owner;
+
+	public LeaseFileRestoreLeaseCoordinator(Configuration config, FileProvider fileProvider, Clock clock,
+			LoggerFactory loggerFactory) {
+		super();
+		this.config = config;
+		this.fileProvider = fileProvider;
+		this.clock = clock;
+		this.logger = loggerFactory.getLogger(LeaseFileRestoreLeaseCoordinator.class);
+		String path = config.getShardLeaseDirectory()
+				.orElseThrow(() -> new IllegalStateException("A shard lease directory is required."));
+		this.leaseDirectory = fileProvider.getFile(path);
+		if (!leaseDirectory.isDirectory() && !leaseDirectory.mkdirs()) {
+			throw new IllegalStateException("Unable to create the shard lease directory: " + path);
+		}
+		this.heldLeases = new HashSet<>();
+		this.owner = UUID.randomUUID().toString();
+	}
+
+	@Override
+	public synchronized boolean tryAcquire(MigrationType type) {
+		removeAbandonedLeases();
+		if (hasConflictingLease(type)) {
+			return false;
+		}
+		File lease = getLeaseFile(type);
+		try {
+			Files.write(lease.toPath(), owner.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW);
+		} catch (FileAlreadyExistsException e) {
+			return false;
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to create the lease: " + lease.getAbsolutePath(), e);
+		}
+		if (hasConflictingLease(type)) {
+			// another worker raced for a conflicting lease.
+			deleteFile(lease);
+			return false;
+		}
+		heldLeases.add(type);
+		return true;
+	}
+
+	@Override
+	public synchronized void release(MigrationType type) {
+		File lease = getLeaseFile(type);
+		if (heldLeases.remove(type) && isOwner(lease)) {
+			deleteFile(lease);
+		}
+	}
+
+	@Override
+	public synchronized Set<MigrationType> renewAll() {
+		long now = clock.currentTimeMillis();
+		Set<MigrationType> lostLeases = EnumSet.noneOf(MigrationType.class);
+		Iterator<MigrationType> it = heldLeases.iterator();
+		while (it.hasNext()) {
+			MigrationType type = it.next();
+			File lease = getLeaseFile(type);
+			if (!isOwner(lease) || !lease.setLastModified(now)) {
+				logger.error("Lost the lease: " + lease.getAbsolutePath());
+				it.remove();
+				lostLeases.add(type);
+			}
+		}
+		return lostLeases;
+	}
+
+	@Override
+	public synchronized void shardStarted(int shardIndex) {
+		deleteFile(getShardFinishedFile(shardIndex));
+	}
+
+	@Override
+	public synchronized boolean shardFinished(int shardIndex, int shardCount) {
+		File marker = getShardFinishedFile(shardIndex);
+		try {
+			marker.createNewFile();
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to create the marker: " + marker.getAbsolutePath(), e);
+		}
+		for (int i = 0; i < shardCount; i++) {
+			if (!getShardFinishedFile(i).exists()) {
+				return false;
+			}
+		}
+		for (int i = 0; i < shardCount; i++) {
+			deleteFile(getShardFinishedFile(i));
+		}
+		return true;
+	}
+
+	/**
+	 * Does the given lease file name this worker as its owner?
+	 * 
+	 * @param lease
+	 * @return
+	 */
+	boolean isOwner(File lease) {
+		try {
+			return owner.equals(new String(Files.readAllBytes(lease.toPath()), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			// a missing or unreadable lease is not held.
+			return false;
+		}
+	}
+
+	/**
+	 * Is a lease that conflicts with the given type held by any worker? The lease
+	 * of the type itself is guarded by the atomic creation of its file.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	boolean hasConflictingLease(MigrationType type) {
+		File changeLease = getLeaseFile(MigrationType.CHANGE);
+		if (!MigrationType.CHANGE.equals(type)) {
+			return changeLease.exists();
+		}
+		for (File lease : listLeases()) {
+			if (!lease.getName().equals(changeLease.getName())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Delete any lease of another worker that has not been renewed within the
+	 * lease timeout.
+	 */
+	void removeAbandonedLeases() {
+		long expires = clock.currentTimeMillis() - config.getShardLeaseTimeoutMs();
+		Set<String> held = new HashSet<>();
+		for (MigrationType type : heldLeases) {
+			held.add(getLeaseFile(type).getName());
+		}
+		for (File lease : listLeases()) {
+			if (!held.contains(lease.getName()) && lease.lastModified() < expires) {
+				logger.warn("Removing an abandoned lease: " + lease.getName());
+				deleteFile(lease);
+			}
+		}
+	}
+
+	File[] listLeases() {
+		File[] leases = leaseDirectory.listFiles((dir, name) -> name.endsWith(LEASE_SUFFIX));
+		return leases != null ? leases : new File[0];
+	}
+
+	File getLeaseFile(MigrationType type) {
+		return new File(leaseDirectory, type.name() + LEASE_SUFFIX);
+	}
+
+	File getShardFinishedFile(int shardIndex) {
+		return new File(leaseDirectory, "shard-" + shardIndex + SHARD_FINISHED_SUFFIX);
+	}
+
+	void deleteFile(File file) {
+		if (!file.delete() && file.exists()) {
+			throw new IllegalStateException("Unable to delete: " + file.getAbsolutePath());
+		}
+	}
+
+}
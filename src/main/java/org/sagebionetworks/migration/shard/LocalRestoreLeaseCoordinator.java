@@ -0,0 +1,66 @@
+package org.sagebionetworks.migration.shard;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * Holds the leases in memory. This is the coordinator of a single worker. When
+ * several shards run in one process, they must share a single instance for it
+ * to stand in for the lease files.
+ *
+ */
+public class LocalRestoreLeaseCoordinator implements RestoreLeaseCoordinator {
+
+	Set<MigrationType> heldLeases;
+	Set<Integer> finishedShards;
+
+	public LocalRestoreLeaseCoordinator() {
+		this.heldLeases = new HashSet<>();
+		this.finishedShards = new HashSet<>();
+	}
+
+	@Override
+	public synchronized boolean tryAcquire(MigrationType type) {
+		if (MigrationType.CHANGE.equals(type)) {
+			if (!heldLeases.isEmpty()) {
+				return false;
+			}
+		} else if (heldLeases.contains(type) || heldLeases.contains(MigrationType.CHANGE)) {
+			return false;
+		}
+		heldLeases.add(type);
+		return true;
+	}
+
+	@Override
+	public synchronized void release(MigrationType type) {
+		heldLeases.remove(type);
+	}
+
+	@Override
+	public Set<MigrationType> renewAll() {
+		// leases in memory do not expire.
+		return Collections.emptySet();
+	}
+
+	@Override
+	public synchronized void shardStarted(int shardIndex) {
+		finishedShards.remove(shardIndex);
+	}
+
+	@Override
+	public synchronized boolean shardFinished(int shardIndex, int shardCount) {
+		finishedShards.add(shardIndex);
+		for (int i = 0; i < shardCount; i++) {
+			if (!finishedShards.contains(i)) {
+				return false;
+			}
+		}
+		finishedShards.clear();
+		return true;
+	}
+
+}
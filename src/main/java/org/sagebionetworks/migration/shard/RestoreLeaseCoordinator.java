@@ -0,0 +1,58 @@
+package org.sagebionetworks.migration.shard;
+
+import java.util.Set;
+
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * Extends the restore mutual exclusion of a single process to all of the
+ * shards of a migration. A job of a type can only be restored while its lease
+ * is held, and the lease of {@link MigrationType#CHANGE} can only be held while
+ * no other lease is held. It also records which shards have finished, so the
+ * destination is only restored to READ-WRITE once every shard is done.
+ *
+ */
+public interface RestoreLeaseCoordinator {
+
+	/**
+	 * Attempt to acquire the restore lease of the given type without waiting.
+	 * 
+	 * @param type
+	 * @return True if the lease was acquired.
+	 */
+	boolean tryAcquire(MigrationType type);
+
+	/**
+	 * Release a lease acquired with {@link #tryAcquire(MigrationType)}.
+	 * 
+	 * @param type
+	 */
+	void release(MigrationType type);
+
+	/**
+	 * Renew all of the leases held by this worker so they are not taken as
+	 * abandoned. A lease that cannot be renewed is lost: it is no longer held,
+	 * and another worker may take it.
+	 * 
+	 * @return The types whose leases were lost.
+	 */
+	Set<MigrationType> renewAll();
+
+	/**
+	 * Clear the finished mark of the given shard left by an earlier run.
+	 * 
+	 * @param shardIndex
+	 */
+	void shardStarted(int shardIndex);
+
+	/**
+	 * Mark the given shard as finished. The marks are cleared once every shard
+	 * has finished.
+	 * 
+	 * @param shardIndex
+	 * @param shardCount
+	 * @return True if every shard of the migration has now finished.
+	 */
+	boolean shardFinished(int shardIndex, int shardCount);
+
+}
@@ -0,0 +1,23 @@
+package org.sagebionetworks.migration.shard;
+
+import java.util.List;
+
+import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
+
+/**
+ * Selects the portion of the primary types that is migrated by this shard.
+ *
+ */
+public interface ShardPartitioner {
+
+	/**
+	 * Get the primary types, or the ID ranges of primary types, that this shard
+	 * migrates. Every shard is given the same types so the shards partition the
+	 * types without communicating.
+	 * 
+	 * @param primaryTypes
+	 * @return
+	 */
+	List<TypeToMigrateMetadata> getShardTypes(List<TypeToMigrateMetadata> primaryTypes);
+
+}
@@ -0,0 +1,113 @@
+package org.sagebionetworks.migration.shard;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
+import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
+
+import com.google.inject.Inject;
+
+/**
+ * Each type is assigned to a single shard by its ordinal. A type with an ID span
+ * of at least {@link Configuration#getShardSplitMinimumIdSpan()} is instead
+ * split into one contiguous ID range per shard. The ranges are aligned to the
+ * backup batch size so the checksum bins of a range never cross into the range
+ * of another shard.
+ *
+ */
+public class ShardPartitionerImpl implements ShardPartitioner {
+
+	Configuration config;
+
+	@Inject
+	public ShardPartitionerImpl(Configuration config) {
+		super();
+		this.config = config;
+	}
+
+	@Override
+	public List<TypeToMigrateMetadata> getShardTypes(List<TypeToMigrateMetadata> primaryTypes) {
+		int shardCount = config.getShardCount();
+		if (shardCount <= 1) {
+			return primaryTypes;
+		}
+		int shardIndex = config.getShardIndex();
+		long splitMinimumIdSpan = config.getShardSplitMinimumIdSpan();
+		long batchSize = config.getMaximumBackupBatchSize();
+		List<TypeToMigrateMetadata> shardTypes = new LinkedList<>();
+		for (TypeToMigrateMetadata type : primaryTypes) {
+			Optional<Long> minId = type.getMinOfMins();
+			Optional<Long> maxId = getMaxId(type);
+			if (splitMinimumIdSpan > 0 && minId.isPresent() && maxId.isPresent()
+					&& maxId.get() - minId.get() + 1 >= splitMinimumIdSpan) {
+				getShardRange(type, minId.get(), maxId.get(), shardCount, shardIndex, batchSize)
+						.ifPresent(shardTypes::add);
+			} else if (type.getType().ordinal() % shardCount == shardIndex) {
+				shardTypes.add(type);
+			}
+		}
+		return shardTypes;
+	}
+
+	/**
+	 * The maximum ID of either the source or the destination.
+	 * 
+	 * @param type
+	 * @return
+	 */
+	static Optional<Long> getMaxId(TypeToMigrateMetadata type) {
+		if (type.getSrcMaxId() != null && type.getDestMaxId() != null) {
+			return Optional.of(Math.max(type.getSrcMaxId(), type.getDestMaxId()));
+		}
+		return Optional.ofNullable(type.getSrcMaxId() != null ? type.getSrcMaxId() : type.getDestMaxId());
+	}
+
+	/**
+	 * Get the metadata of the given type clipped to the ID range of the given
+	 * shard.
+	 * 
+	 * @param type
+	 * @param minId      The minimum ID of the type on either stack.
+	 * @param maxId      The maximum ID of the type on either stack.
+	 * @param shardCount
+	 * @param shardIndex
+	 * @param batchSize
+	 * @return {@link Optional#empty()} when neither stack has IDs in the range of
+	 *         the shard.
+	 */
+	static Optional<TypeToMigrateMetadata> getShardRange(TypeToMigrateMetadata type, long minId, long maxId,
+			int shardCount, int shardIndex, long batchSize) {
+		long firstBin = minId / batchSize;
+		long binCount = maxId / batchSize - firstBin + 1;
+		long binsPerShard = (binCount + shardCount - 1) / shardCount;
+		long shardMinId = Math.max(minId, (firstBin + shardIndex * binsPerShard) * batchSize);
+		long shardMaxId = Math.min(maxId, (firstBin + (shardIndex + 1) * binsPerShard) * batchSize - 1);
+		if (shardMaxId < shardMinId) {
+			return Optional.empty();
+		}
+		MigrationTypeCount source = clip(type, type.getSrcMinId(), type.getSrcMaxId(), shardMinId, shardMaxId);
+		MigrationTypeCount dest = clip(type, type.getDestMinId(), type.getDestMaxId(), shardMinId, shardMaxId);
+		if (source.getMinid() == null && dest.getMinid() == null) {
+			return Optional.empty();
+		}
+		return Optional.of(new TypeToMigrateMetadata(type.isSourceReadOnly(), source, dest));
+	}
+
+	/**
+	 * Clip the ID range of one stack to the range of a shard.
+	 * 
+	 * @return A count without IDs when the ranges do not overlap.
+	 */
+	static MigrationTypeCount clip(TypeToMigrateMetadata type, Long minId, Long maxId, long shardMinId,
+			long shardMaxId) {
+		MigrationTypeCount count = new MigrationTypeCount().setType(type.getType());
+		if (minId == null || maxId == null || maxId < shardMinId || minId > shardMaxId) {
+			return count;
+		}
+		return count.setMinid(Math.max(minId, shardMinId)).setMaxid(Math.min(maxId, shardMaxId));
+	}
+
+}
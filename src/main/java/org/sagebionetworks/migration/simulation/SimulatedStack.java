@@ -78,6 +78,8 @@ public class SimulatedStack {
 	private long jobIdCounter;
 	private Map<String, AsyncMigrationRequest> requestJobs;
 	private boolean updateReadWriteStack = false;
+	private Map<String, MigrationType> runningRestores;
+	private int overlappingRestoreCount;
 
 	/**
 	 * Create a new simulated stack with the configured data.
@@ -90,6 +92,8 @@ public class SimulatedStack {
 		jobIdCounter = 0;
 		requestJobs = new LinkedHashMap<String, AsyncMigrationRequest>();
 		updateReadWriteStack = false;
+		runningRestores = new LinkedHashMap<String, MigrationType>();
+		overlappingRestoreCount = 0;
 		buildRowsForEachType(stackData);
 	}
 
@@ -107,6 +111,14 @@ public class SimulatedStack {
 		this.updateReadWriteStack = updateReadWriteStack;
 	}
 
+	/**
+	 * @return the number of restores started while another restore of the same
+	 *         type was still running.
+	 */
+	public int getOverlappingRestoreCount() {
+		return overlappingRestoreCount;
+	}
+
 	/**
 	 * Get the actual rows for the given type.
 	 * 
@@ -182,7 +194,16 @@ public class SimulatedStack {
 	public AsynchronousJobStatus startAdminAsynchronousJob(AsynchronousAdminRequestBody request)
 			throws SynapseException {
 		String jobId = Long.toString(jobIdCounter++);
-		requestJobs.put(jobId, (AsyncMigrationRequest) request);
+		AsyncMigrationRequest migrationRequest = (AsyncMigrationRequest) request;
+		requestJobs.put(jobId, migrationRequest);
+		if (migrationRequest.getAdminRequest() instanceof RestoreTypeRequest) {
+			// a restore runs until its status is read.
+			MigrationType type = ((RestoreTypeRequest) migrationRequest.getAdminRequest()).getMigrationType();
+			if (runningRestores.containsValue(type)) {
+				overlappingRestoreCount++;
+			}
+			runningRestores.put(jobId, type);
+		}
 		return new AsynchronousJobStatus().setJobId(jobId).setRequestBody(request)
 				.setJobState(AsynchJobState.PROCESSING).setStartedOn(new Date());
 	}
@@ -200,8 +221,9 @@ public class SimulatedStack {
 		if (request == null) {
 			throw new IllegalArgumentException("Cannot find job: " + jobId);
 		}
+		runningRestores.remove(jobId);
 		return new AsynchronousJobStatus().setJobId(jobId).setJobState(AsynchJobState.COMPLETE).setRequestBody(request)
-				.setStartedOn(Date.from(Instant.now().minus(1, ChronoUnit.SECONDS))).setResponseBody(
+				.setStartedOn(Date.from(Instant.now().minus(1, ChronoUnit.SECONDS))).setChangedOn(new Date()).setResponseBody(
 						new AsyncMigrationResponse().setAdminResponse(executeRequest(request.getAdminRequest())));
 	}
 
@@ -430,7 +452,10 @@ public class SimulatedStack {
 		return (SynapseAdminClient) Proxy.newProxyInstance(SimulatedStack.class.getClassLoader(),
 				new Class[] { SynapseAdminClient.class }, (proxy, method, methodArgs) -> {
 					Method outerMethod = SimulatedStack.class.getMethod(method.getName(), method.getParameterTypes());
-					return outerMethod.invoke(thisObject, methodArgs);
+					// calls are serialized so a stack can be shared by concurrent clients.
+					synchronized (thisObject) {
+						return outerMethod.invoke(thisObject, methodArgs);
+					}
 				});
 	}
 
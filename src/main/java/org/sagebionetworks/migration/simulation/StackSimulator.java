@@ -1,16 +1,28 @@
 package org.sagebionetworks.migration.simulation;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 import org.sagebionetworks.client.SynapseAdminClient;
 import org.sagebionetworks.migration.MigrationClient;
 import org.sagebionetworks.migration.MigrationModule;
+import org.sagebionetworks.migration.async.SharedSourceJobs;
+import org.sagebionetworks.migration.config.ChecksumHint;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.PlanMode;
 import org.sagebionetworks.migration.config.SynapseConnectionInfo;
 import org.sagebionetworks.migration.factory.SynapseClientFactory;
+import org.sagebionetworks.migration.shard.RestoreLeaseCoordinator;
 import org.sagebionetworks.repo.model.daemon.BackupAliasType;
+import org.sagebionetworks.repo.model.migration.MigrationType;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.name.Names;
 import com.google.inject.util.Modules;
 
 /**
@@ -34,6 +46,30 @@ public class StackSimulator extends AbstractModule {
 	private boolean includeFullTableChecksums = false;
 	private long delayBeforeMigrationStartM = 10L;
 	private boolean remainInReadOnlyAfterMigration = false;
+	private Map<MigrationType, ChecksumHint> checksumHints = new HashMap<>();
+	private int appendMostlyBinCount = 10;
+	private boolean forceFullChecksumVerification = false;
+	private String stateFilePath = null;
+	private boolean incrementalMigration = false;
+	private String stableChecksumSalt = null;
+	private int maxConcurrentFullTableChecksums = 4;
+	private int typeCountGroupSize = 0;
+	private int backupPrefetchDepth = 1;
+	private int maxChecksumDeltaPasses = 1;
+	private PlanMode planMode = PlanMode.NONE;
+	private String planFilePath = null;
+	private boolean estimateIncludingChecksums = false;
+	private String throughputFilePath = null;
+	private String statusFilePath = null;
+	private String metricsJsonFilePath = null;
+	private String traceFilePath = null;
+	private String runReportFilePath = null;
+	private boolean clientCallAccounting = false;
+	private int shardCount = 1;
+	private int shardIndex = 0;
+	private long shardSplitMinimumIdSpan = 0L;
+	private SharedSourceJobs sharedSourceJobs = null;
+	private RestoreLeaseCoordinator restoreLeaseCoordinator = null;
 
 	private final SimulatedStack sourceStack;
 	private final SimulatedStack destinationStack;
@@ -55,6 +91,243 @@ public class StackSimulator extends AbstractModule {
 		return this;
 	}
 
+	/**
+	 * Override the checksum hint of a type.
+	 * 
+	 * @param type
+	 * @param hint
+	 * @return
+	 */
+	public StackSimulator withChecksumHint(MigrationType type, ChecksumHint hint) {
+		this.checksumHints.put(type, hint);
+		return this;
+	}
+
+	/**
+	 * Override the number of bins compared for append-mostly types.
+	 * 
+	 * @param count
+	 * @return
+	 */
+	public StackSimulator withAppendMostlyBinCount(int count) {
+		this.appendMostlyBinCount = count;
+		return this;
+	}
+
+	/**
+	 * Override the full checksum verification flag.
+	 * 
+	 * @param force
+	 * @return
+	 */
+	public StackSimulator withForceFullChecksumVerification(boolean force) {
+		this.forceFullChecksumVerification = force;
+		return this;
+	}
+
+	/**
+	 * Persist the migration state to the given file.
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public StackSimulator withStateFilePath(String path) {
+		this.stateFilePath = path;
+		return this;
+	}
+
+	/**
+	 * Override the incremental migration flag.
+	 * 
+	 * @param incremental
+	 * @return
+	 */
+	public StackSimulator withIncrementalMigration(boolean incremental) {
+		this.incrementalMigration = incremental;
+		return this;
+	}
+
+	/**
+	 * Use the given salt for all checksums.
+	 * 
+	 * @param salt
+	 * @return
+	 */
+	public StackSimulator withStableChecksumSalt(String salt) {
+		this.stableChecksumSalt = salt;
+		return this;
+	}
+
+	/**
+	 * Override the maximum number of concurrent full table checksums.
+	 * 
+	 * @param max
+	 * @return
+	 */
+	public StackSimulator withMaxConcurrentFullTableChecksums(int max) {
+		this.maxConcurrentFullTableChecksums = max;
+		return this;
+	}
+
+	/**
+	 * Count the types with one request per group of the given size.
+	 * 
+	 * @param size
+	 * @return
+	 */
+	public StackSimulator withTypeCountGroupSize(int size) {
+		this.typeCountGroupSize = size;
+		return this;
+	}
+
+	/**
+	 * Override the number of backups started ahead of each restore.
+	 * 
+	 * @param depth
+	 * @return
+	 */
+	public StackSimulator withBackupPrefetchDepth(int depth) {
+		this.backupPrefetchDepth = depth;
+		return this;
+	}
+
+	/**
+	 * Override the maximum number of checksum delta passes.
+	 * 
+	 * @param passes
+	 * @return
+	 */
+	public StackSimulator withMaxChecksumDeltaPasses(int passes) {
+		this.maxChecksumDeltaPasses = passes;
+		return this;
+	}
+
+	/**
+	 * Plan or execute the migration using the given plan file.
+	 * 
+	 * @param mode
+	 * @param path
+	 * @return
+	 */
+	public StackSimulator withPlan(PlanMode mode, String path) {
+		this.planMode = mode;
+		this.planFilePath = path;
+		return this;
+	}
+
+	/**
+	 * Compare checksums when estimating.
+	 * 
+	 * @param include
+	 * @return
+	 */
+	public StackSimulator withEstimateIncludingChecksums(boolean include) {
+		this.estimateIncludingChecksums = include;
+		return this;
+	}
+
+	/**
+	 * Record the restore throughput to the given file.
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public StackSimulator withThroughputFilePath(String path) {
+		this.throughputFilePath = path;
+		return this;
+	}
+
+	/**
+	 * Write the progress to the given status file.
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public StackSimulator withStatusFilePath(String path) {
+		this.statusFilePath = path;
+		return this;
+	}
+
+	/**
+	 * Export the metrics to the given JSON file.
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public StackSimulator withMetricsJsonFilePath(String path) {
+		this.metricsJsonFilePath = path;
+		return this;
+	}
+
+	/**
+	 * Write the trace of the run to the given file.
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public StackSimulator withTraceFilePath(String path) {
+		this.traceFilePath = path;
+		return this;
+	}
+
+	/**
+	 * Write the report of the run to the given file.
+	 * 
+	 * @param path
+	 * @return
+	 */
+	public StackSimulator withRunReportFilePath(String path) {
+		this.runReportFilePath = path;
+		return this;
+	}
+
+	/**
+	 * @param enabled When true the calls to the simulated stacks are recorded.
+	 * @return
+	 */
+	public StackSimulator withClientCallAccounting(boolean enabled) {
+		this.clientCallAccounting = enabled;
+		return this;
+	}
+
+	/**
+	 * Run as one of the given number of shards.
+	 * 
+	 * @param count
+	 * @param index
+	 * @param splitMinimumIdSpan
+	 * @return
+	 */
+	public StackSimulator withShard(int count, int index, long splitMinimumIdSpan) {
+		this.shardCount = count;
+		this.shardIndex = index;
+		this.shardSplitMinimumIdSpan = splitMinimumIdSpan;
+		return this;
+	}
+
+	/**
+	 * Share the source jobs with other simulators that migrate the same source.
+	 * 
+	 * @param sharedSourceJobs
+	 * @return
+	 */
+	public StackSimulator withSharedSourceJobs(SharedSourceJobs sharedSourceJobs) {
+		this.sharedSourceJobs = sharedSourceJobs;
+		return this;
+	}
+
+	/**
+	 * Share the restore leases with other simulators that migrate shards of the
+	 * same destination.
+	 * 
+	 * @param restoreLeaseCoordinator
+	 * @return
+	 */
+	public StackSimulator withRestoreLeaseCoordinator(RestoreLeaseCoordinator restoreLeaseCoordinator) {
+		this.restoreLeaseCoordinator = restoreLeaseCoordinator;
+		return this;
+	}
+
 	/**
 	 * Create a {@link MigrationClient} that is configured to communicate with
 	 * simulated source and destination stacks.
@@ -68,7 +341,8 @@ public class StackSimulator extends AbstractModule {
 
 	@Override
 	protected void configure() {
-		bind(SynapseClientFactory.class).toInstance(new SynapseClientFactory() {
+		bind(SynapseClientFactory.class).annotatedWith(Names.named(MigrationModule.STACK_CLIENTS))
+				.toInstance(new SynapseClientFactory() {
 
 			@Override
 			public SynapseAdminClient getSourceClient() {
@@ -137,6 +411,212 @@ public class StackSimulator extends AbstractModule {
 				return remainInReadOnlyAfterMigration;
 			}
 
+			@Override
+			public ChecksumHint getChecksumHint(MigrationType type) {
+				return checksumHints.getOrDefault(type, ChecksumHint.FULL);
+			}
+
+			@Override
+			public int getAppendMostlyBinCount() {
+				return appendMostlyBinCount;
+			}
+
+			@Override
+			public boolean forceFullChecksumVerification() {
+				return forceFullChecksumVerification;
+			}
+
+			@Override
+			public Optional<String> getStateFilePath() {
+				return Optional.ofNullable(stateFilePath);
+			}
+
+			@Override
+			public boolean isIncrementalMigration() {
+				return incrementalMigration;
+			}
+
+			@Override
+			public Optional<String> getStableChecksumSalt() {
+				return Optional.ofNullable(stableChecksumSalt);
+			}
+
+			@Override
+			public int getMaxConcurrentFullTableChecksums() {
+				return maxConcurrentFullTableChecksums;
+			}
+
+			@Override
+			public int getTypeCountGroupSize() {
+				return typeCountGroupSize;
+			}
+
+			@Override
+			public int getMaxConcurrentTypeCounts() {
+				return 10;
+			}
+
+			@Override
+			public int getMaxConcurrentRangeCalculations() {
+				return 10;
+			}
+
+			@Override
+			public int getBackupPrefetchDepth() {
+				return backupPrefetchDepth;
+			}
+
+			@Override
+			public int getMaxChecksumDeltaPasses() {
+				return maxChecksumDeltaPasses;
+			}
+
+			@Override
+			public long getChecksumDeltaThreshold() {
+				return 0L;
+			}
+
+			@Override
+			public boolean isDaemonMode() {
+				return false;
+			}
+
+			@Override
+			public long getDaemonPassIntervalMs() {
+				return 0L;
+			}
+
+			@Override
+			public int getDaemonMaxDutyCyclePercent() {
+				return 100;
+			}
+
+			@Override
+			public Optional<String> getDaemonFinalPassFilePath() {
+				return Optional.empty();
+			}
+
+			@Override
+			public PlanMode getPlanMode() {
+				return planMode;
+			}
+
+			@Override
+			public Optional<String> getPlanFilePath() {
+				return Optional.ofNullable(planFilePath);
+			}
+
+			@Override
+			public boolean isEstimateIncludingChecksums() {
+				return estimateIncludingChecksums;
+			}
+
+			@Override
+			public Optional<String> getThroughputFilePath() {
+				return Optional.ofNullable(throughputFilePath);
+			}
+
+			@Override
+			public long getThroughputMaxAgeMs() {
+				return 0L;
+			}
+
+			@Override
+			public Optional<String> getStatusFilePath() {
+				return Optional.ofNullable(statusFilePath);
+			}
+
+			@Override
+			public long getProgressReportIntervalMs() {
+				return 60000L;
+			}
+
+			@Override
+			public long getJobReportIntervalMs() {
+				return 10000L;
+			}
+
+			@Override
+			public Optional<String> getMetricsPrometheusFilePath() {
+				return Optional.empty();
+			}
+
+			@Override
+			public Optional<String> getMetricsJsonFilePath() {
+				return Optional.ofNullable(metricsJsonFilePath);
+			}
+
+			@Override
+			public long getMetricsExportIntervalMs() {
+				return 60000L;
+			}
+
+			@Override
+			public Optional<String> getTraceFilePath() {
+				return Optional.ofNullable(traceFilePath);
+			}
+
+			@Override
+			public Optional<String> getRunReportFilePath() {
+				return Optional.ofNullable(runReportFilePath);
+			}
+
+			@Override
+			public Optional<String> getJobEventLogFilePath() {
+				return Optional.empty();
+			}
+
+			@Override
+			public boolean isClientCallAccountingEnabled() {
+				return clientCallAccounting;
+			}
+
+			@Override
+			public boolean isQueueControlEnabled() {
+				return false;
+			}
+
+			@Override
+			public int getShardCount() {
+				return shardCount;
+			}
+
+			@Override
+			public int getShardIndex() {
+				return shardIndex;
+			}
+
+			@Override
+			public long getShardSplitMinimumIdSpan() {
+				return shardSplitMinimumIdSpan;
+			}
+
+			@Override
+			public Optional<String> getShardLeaseDirectory() {
+				return Optional.empty();
+			}
+
+			@Override
+			public long getShardLeaseTimeoutMs() {
+				return 60000L;
+			}
+
+			@Override
+			public List<String> getAdditionalDestinationNames() {
+				return Collections.emptyList();
+			}
+
+			@Override
+			public SynapseConnectionInfo getAdditionalDestinationConnectionInfo(String name) {
+				throw new IllegalArgumentException("Unknown destination: " + name);
+			}
+
 		});
+		if (sharedSourceJobs != null) {
+			bind(SharedSourceJobs.class).toInstance(sharedSourceJobs);
+		}
+		if (restoreLeaseCoordinator != null) {
+			bind(RestoreLeaseCoordinator.class).toInstance(restoreLeaseCoordinator);
+		}
 	}
 }
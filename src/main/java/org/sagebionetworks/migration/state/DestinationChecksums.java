@@ -0,0 +1,220 @@
+package org.sagebionetworks.migration.state;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.sagebionetworks.repo.model.migration.IdRange;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RangeChecksum;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * The bin checksums of a single {@link MigrationType} that were computed on the
+ * destination for a covered ID range. A bin without a checksum within the
+ * covered range is empty on the destination. Bins that overlap a range restored
+ * by this tool are invalidated and must be computed again.
+ *
+ */
+public class DestinationChecksums {
+
+	private final MigrationType type;
+	private final long batchSize;
+	private final String salt;
+	private final long coveredMinimumId;
+	private final long coveredMaximumId;
+	private final List<RangeChecksum> checksums;
+	private final Set<Long> invalidatedBins;
+
+	/**
+	 *
+	 * @param type
+	 * @param batchSize        The batch size used to bin the checksums.
+	 * @param salt             The salt used to compute the checksums.
+	 * @param coveredMinimumId The minimum ID of the range that was computed.
+	 * @param coveredMaximumId The maximum ID of the range that was computed.
+	 * @param checksums        The destination checksums of the covered range.
+	 * @param invalidatedBins  Bins that were restored after the checksums were
+	 *                         computed.
+	 */
+	public DestinationChecksums(MigrationType type, long batchSize, String salt, long coveredMinimumId,
+			long coveredMaximumId, List<RangeChecksum> checksums, Set<Long> invalidatedBins) {
+		ValidateArgument.required(type, "type");
+		ValidateArgument.required(salt, "salt");
+		ValidateArgument.required(checksums, "checksums");
+		ValidateArgument.required(invalidatedBins, "invalidatedBins");
+		this.type = type;
+		this.batchSize = batchSize;
+		this.salt = salt;
+		this.coveredMinimumId = coveredMinimumId;
+		this.coveredMaximumId = coveredMaximumId;
+		this.checksums = new LinkedList<>(checksums);
+		this.invalidatedBins = new TreeSet<>(invalidatedBins);
+	}
+
+	public MigrationType getType() {
+		return type;
+	}
+
+	public long getBatchSize() {
+		return batchSize;
+	}
+
+	public String getSalt() {
+		return salt;
+	}
+
+	public long getCoveredMinimumId() {
+		return coveredMinimumId;
+	}
+
+	public long getCoveredMaximumId() {
+		return coveredMaximumId;
+	}
+
+	public List<RangeChecksum> getChecksums() {
+		return checksums;
+	}
+
+	public Set<Long> getInvalidatedBins() {
+		return invalidatedBins;
+	}
+
+	/**
+	 * Invalidate all covered bins that overlap the given range.
+	 *
+	 * @param minimumId
+	 * @param maximumId
+	 */
+	void invalidate(long minimumId, long maximumId) {
+		long firstBin = Math.max(minimumId, coveredMinimumId) / batchSize;
+		long lastBin = Math.min(maximumId, coveredMaximumId) / batchSize;
+		for (long bin = firstBin; bin <= lastBin; bin++) {
+			invalidatedBins.add(bin);
+		}
+	}
+
+	/**
+	 * Is the checksum of the given bin, clipped to the requested range, known?
+	 *
+	 * @param bin
+	 * @param minimumId The minimum of the requested range.
+	 * @param maximumId The maximum of the requested range.
+	 * @return
+	 */
+	boolean isKnown(long bin, long minimumId, long maximumId) {
+		if (invalidatedBins.contains(bin)) {
+			return false;
+		}
+		long binStart = bin * batchSize;
+		long binEnd = binStart + batchSize - 1;
+		long requestedStart = Math.max(binStart, minimumId);
+		long requestedEnd = Math.min(binEnd, maximumId);
+		long coveredStart = Math.max(binStart, coveredMinimumId);
+		long coveredEnd = Math.min(binEnd, coveredMaximumId);
+		/*
+		 * The destination has no rows below the requested minimum, so the cached bin
+		 * may start lower, but it must end at exactly the same ID.
+		 */
+		return coveredStart <= requestedStart && coveredEnd == requestedEnd;
+	}
+
+	/**
+	 * Get the smallest ID range that includes every bin of the requested range
+	 * with an unknown checksum.
+	 *
+	 * @param minimumId
+	 * @param maximumId
+	 * @return {@link Optional#empty()} when the checksums of all bins are known.
+	 */
+	public Optional<IdRange> getUnknownRange(long minimumId, long maximumId) {
+		long firstBin = minimumId / batchSize;
+		long lastBin = maximumId / batchSize;
+		long coveredFirstBin = coveredMinimumId / batchSize;
+		long coveredLastBin = coveredMaximumId / batchSize;
+		TreeSet<Long> unknownBins = new TreeSet<>();
+		// bins outside of the covered range.
+		if (firstBin < coveredFirstBin) {
+			unknownBins.add(firstBin);
+			unknownBins.add(Math.min(lastBin, coveredFirstBin - 1));
+		}
+		if (lastBin > coveredLastBin) {
+			unknownBins.add(Math.max(firstBin, coveredLastBin + 1));
+			unknownBins.add(lastBin);
+		}
+		// bins that are only partially covered.
+		for (long bin : new long[] { firstBin, lastBin, coveredFirstBin, coveredLastBin }) {
+			if (bin >= firstBin && bin <= lastBin && !isKnown(bin, minimumId, maximumId)) {
+				unknownBins.add(bin);
+			}
+		}
+		for (Long bin : invalidatedBins) {
+			if (bin >= firstBin && bin <= lastBin) {
+				unknownBins.add(bin);
+			}
+		}
+		if (unknownBins.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.of(new IdRange().setMinimumId(Math.max(unknownBins.first() * batchSize, minimumId))
+				.setMaximumId(Math.min(unknownBins.last() * batchSize + batchSize - 1, maximumId)));
+	}
+
+	/**
+	 * Get the cached checksums of the requested range excluding any bin within
+	 * the given unknown range.
+	 *
+	 * @param minimumId
+	 * @param maximumId
+	 * @param unknownRange
+	 * @return
+	 */
+	public List<RangeChecksum> getKnownChecksums(long minimumId, long maximumId, Optional<IdRange> unknownRange) {
+		long firstBin = minimumId / batchSize;
+		long lastBin = maximumId / batchSize;
+		List<RangeChecksum> known = new LinkedList<>();
+		for (RangeChecksum checksum : checksums) {
+			long bin = checksum.getBinNumber();
+			if (bin < firstBin || bin > lastBin) {
+				continue;
+			}
+			if (unknownRange.isPresent() && bin >= unknownRange.get().getMinimumId() / batchSize
+					&& bin <= unknownRange.get().getMaximumId() / batchSize) {
+				continue;
+			}
+			known.add(checksum);
+		}
+		return known;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(batchSize, checksums, coveredMaximumId, coveredMinimumId, invalidatedBins, salt, type);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof DestinationChecksums)) {
+			return false;
+		}
+		DestinationChecksums other = (DestinationChecksums) obj;
+		return batchSize == other.batchSize && Objects.equals(checksums, other.checksums)
+				&& coveredMaximumId == other.coveredMaximumId && coveredMinimumId == other.coveredMinimumId
+				&& Objects.equals(invalidatedBins, other.invalidatedBins) && Objects.equals(salt, other.salt)
+				&& type == other.type;
+	}
+
+	@Override
+	public String toString() {
+		return "DestinationChecksums [type=" + type + ", batchSize=" + batchSize + ", salt=" + salt
+				+ ", coveredMinimumId=" + coveredMinimumId + ", coveredMaximumId=" + coveredMaximumId + ", checksums="
+				+ checksums.size() + ", invalidatedBins=" + invalidatedBins.size() + "]";
+	}
+
+}
@@ -0,0 +1,81 @@
+package org.sagebionetworks.migration.state;
+
+import java.util.Optional;
+
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+/**
+ * Abstraction for the per-type state that is persisted between migration runs.
+ * <p>
+ * The state is only trusted when the previous run completed successfully. Any
+ * run that starts restoring data must call {@link #beginRun()} first, which
+ * clears the persisted state until {@link #save()} is called at the end of a
+ * successful run.
+ * </p>
+ */
+public interface MigrationStateStore {
+
+	/**
+	 * Called before a migration run starts restoring data on the destination.
+	 * Loads the state verified by the last successful run into memory and removes
+	 * it from disk. If a previous run in this process failed, the in-memory state
+	 * and cached destination checksums are discarded so the retry falls back to
+	 * full verification.
+	 */
+	void beginRun();
+
+	/**
+	 * Get the state of the given type that was verified by the last successful
+	 * run.
+	 * 
+	 * @param type
+	 * @return {@link Optional#empty()} if there is no verified state for the type.
+	 */
+	Optional<VerifiedTypeState> getVerifiedState(MigrationType type);
+
+	/**
+	 * Record the state of a type that will be verified once all of the restore
+	 * jobs of the current run are complete.
+	 * 
+	 * @param state
+	 */
+	void recordPendingState(VerifiedTypeState state);
+
+	/**
+	 * Get the cached destination checksums of the given type that were computed
+	 * with the given batch size and salt.
+	 * 
+	 * @param type
+	 * @param batchSize
+	 * @param salt
+	 * @return {@link Optional#empty()} if there are no matching checksums.
+	 */
+	Optional<DestinationChecksums> getDestinationChecksums(MigrationType type, long batchSize, String salt);
+
+	/**
+	 * Cache the checksums computed on the destination. Checksums are only cached
+	 * when {@link Configuration#getStableChecksumSalt()} is set, since checksums
+	 * computed with a random salt cannot be reused.
+	 * 
+	 * @param checksums
+	 */
+	void putDestinationChecksums(DestinationChecksums checksums);
+
+	/**
+	 * Called before a range of the given type is restored on the destination.
+	 * Invalidates all cached destination checksums that overlap the range.
+	 * 
+	 * @param type
+	 * @param minimumId Null to invalidate all checksums of the type.
+	 * @param maximumId Null to invalidate all checksums of the type.
+	 */
+	void invalidateDestinationRange(MigrationType type, Long minimumId, Long maximumId);
+
+	/**
+	 * Called after a successful run. The pending state replaces the verified
+	 * state, so only the types verified by this run are trusted by the next run,
+	 * and is persisted along with the cached destination checksums.
+	 */
+	void save();
+}
@@ -0,0 +1,292 @@
+package org.sagebionetworks.migration.state;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RangeChecksum;
+import org.sagebionetworks.schema.adapter.JSONObjectAdapterException;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Persists the verified state of each type to the JSON file provided by
+ * {@link Configuration#getStateFilePath()}. When no file is configured, state
+ * is neither loaded nor saved. The destination checksums cached in stable salt
+ * mode are persisted to the same file with the same life cycle.
+ * <p>
+ * The public methods of this class are synchronized so a single instance can be
+ * shared by all of the components of a run.
+ * </p>
+ */
+@Singleton
+public class MigrationStateStoreImpl implements MigrationStateStore {
+
+	static final String KEY_TYPES = "types";
+	static final String KEY_TYPE = "type";
+	static final String KEY_BATCH_SIZE = "batchSize";
+	static final String KEY_SALT = "salt";
+	static final String KEY_HIGH_WATER_MARK = "highWaterMark";
+	static final String KEY_CHECKSUMS = "checksums";
+	static final String KEY_DESTINATION_CHECKSUMS = "destinationChecksums";
+	static final String KEY_COVERED_MINIMUM_ID = "coveredMinimumId";
+	static final String KEY_COVERED_MAXIMUM_ID = "coveredMaximumId";
+	static final String KEY_INVALIDATED_BINS = "invalidatedBins";
+
+	Configuration config;
+	FileProvider fileProvider;
+	Logger logger;
+
+	Map<MigrationType, VerifiedTypeState> verifiedState;
+	Map<MigrationType, VerifiedTypeState> pendingState;
+	Map<MigrationType, DestinationChecksums> destinationChecksums;
+	boolean runStarted;
+
+	@Inject
+	public MigrationStateStoreImpl(Configuration config, FileProvider fileProvider, LoggerFactory loggerFactory) {
+		super();
+		this.config = config;
+		this.fileProvider = fileProvider;
+		this.logger = loggerFactory.getLogger(MigrationStateStoreImpl.class);
+		this.verifiedState = new LinkedHashMap<>();
+		this.pendingState = new LinkedHashMap<>();
+		this.destinationChecksums = new LinkedHashMap<>();
+		this.runStarted = false;
+	}
+
+	@Override
+	public synchronized void beginRun() {
+		pendingState.clear();
+		if (runStarted) {
+			// a previous attempt failed and might have partially restored any range.
+			logger.info("Discarding verified state since a previous attempt failed.");
+			verifiedState.clear();
+			destinationChecksums.clear();
+			return;
+		}
+		runStarted = true;
+		Optional<String> path = config.getStateFilePath();
+		if (!path.isPresent()) {
+			return;
+		}
+		File file = fileProvider.getFile(path.get());
+		if (!file.exists()) {
+			logger.info("No migration state found at: " + path.get());
+			return;
+		}
+		try (InputStream in = fileProvider.createInputStream(file)) {
+			JSONObject root = new JSONObject(IOUtils.toString(in, StandardCharsets.UTF_8));
+			verifiedState = fromJSON(root);
+			destinationChecksums = destinationChecksumsFromJSON(root.optJSONArray(KEY_DESTINATION_CHECKSUMS));
+			logger.info("Loaded verified state of " + verifiedState.size() + " types and destination checksums of "
+					+ destinationChecksums.size() + " types from: " + path.get());
+		} catch (Exception e) {
+			logger.warn("Ignoring unreadable migration state: " + e.getMessage());
+			verifiedState.clear();
+			destinationChecksums.clear();
+		}
+		// The state is no longer valid once this run starts restoring data.
+		if (!file.delete()) {
+			throw new IllegalStateException("Unable to delete the migration state file: " + path.get());
+		}
+	}
+
+	@Override
+	public synchronized Optional<VerifiedTypeState> getVerifiedState(MigrationType type) {
+		return Optional.ofNullable(verifiedState.get(type));
+	}
+
+	@Override
+	public synchronized void recordPendingState(VerifiedTypeState state) {
+		pendingState.put(state.getType(), state);
+	}
+
+	@Override
+	public synchronized Optional<DestinationChecksums> getDestinationChecksums(MigrationType type, long batchSize,
+			String salt) {
+		DestinationChecksums checksums = destinationChecksums.get(type);
+		if (checksums == null || checksums.getBatchSize() != batchSize || !checksums.getSalt().equals(salt)) {
+			return Optional.empty();
+		}
+		return Optional.of(checksums);
+	}
+
+	@Override
+	public synchronized void putDestinationChecksums(DestinationChecksums checksums) {
+		Optional<String> stableSalt = config.getStableChecksumSalt();
+		if (!stableSalt.isPresent() || !stableSalt.get().equals(checksums.getSalt())) {
+			return;
+		}
+		destinationChecksums.put(checksums.getType(), checksums);
+	}
+
+	@Override
+	public synchronized void invalidateDestinationRange(MigrationType type, Long minimumId, Long maximumId) {
+		DestinationChecksums checksums = destinationChecksums.get(type);
+		if (checksums == null) {
+			return;
+		}
+		if (minimumId == null || maximumId == null) {
+			destinationChecksums.remove(type);
+		} else {
+			checksums.invalidate(minimumId, maximumId);
+		}
+	}
+
+	@Override
+	public synchronized void save() {
+		// state this run did not verify could be from another type list or bin layout.
+		verifiedState = new LinkedHashMap<>(pendingState);
+		pendingState.clear();
+		runStarted = false;
+		Optional<String> path = config.getStateFilePath();
+		if (!path.isPresent()) {
+			return;
+		}
+		File file = fileProvider.getFile(path.get());
+		try (OutputStream out = fileProvider.createOutputStream(file)) {
+			JSONObject root = toJSON(verifiedState);
+			root.put(KEY_DESTINATION_CHECKSUMS, destinationChecksumsToJSON(destinationChecksums.values()));
+			IOUtils.write(root.toString(), out, StandardCharsets.UTF_8);
+			logger.info("Saved verified state of " + verifiedState.size() + " types to: " + path.get());
+		} catch (Exception e) {
+			// Migration was successful so the next run will simply do a full verification.
+			logger.error("Failed to save the migration state: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Write the given state to JSON.
+	 *
+	 * @param state
+	 * @return
+	 * @throws JSONObjectAdapterException
+	 */
+	static JSONObject toJSON(Map<MigrationType, VerifiedTypeState> state) throws JSONObjectAdapterException {
+		JSONArray types = new JSONArray();
+		for (VerifiedTypeState typeState : state.values()) {
+			JSONObject json = new JSONObject();
+			json.put(KEY_TYPE, typeState.getType().name());
+			json.put(KEY_BATCH_SIZE, typeState.getBatchSize());
+			json.put(KEY_SALT, typeState.getSalt());
+			json.put(KEY_HIGH_WATER_MARK, typeState.getHighWaterMark());
+			JSONArray checksums = new JSONArray();
+			for (RangeChecksum checksum : typeState.getChecksums()) {
+				checksums.put(EntityFactory.createJSONObjectForEntity(checksum));
+			}
+			json.put(KEY_CHECKSUMS, checksums);
+			types.put(json);
+		}
+		JSONObject root = new JSONObject();
+		root.put(KEY_TYPES, types);
+		return root;
+	}
+
+	/**
+	 * Read the state from the given JSON.
+	 *
+	 * @param root
+	 * @return
+	 * @throws JSONObjectAdapterException
+	 */
+	static Map<MigrationType, VerifiedTypeState> fromJSON(JSONObject root) throws JSONObjectAdapterException {
+		Map<MigrationType, VerifiedTypeState> state = new LinkedHashMap<>();
+		JSONArray types = root.getJSONArray(KEY_TYPES);
+		for (int i = 0; i < types.length(); i++) {
+			JSONObject json = types.getJSONObject(i);
+			JSONArray checksumArray = json.getJSONArray(KEY_CHECKSUMS);
+			List<RangeChecksum> checksums = new ArrayList<>(checksumArray.length());
+			for (int j = 0; j < checksumArray.length(); j++) {
+				checksums.add(EntityFactory.createEntityFromJSONObject(checksumArray.getJSONObject(j),
+						RangeChecksum.class));
+			}
+			VerifiedTypeState typeState = new VerifiedTypeState(MigrationType.valueOf(json.getString(KEY_TYPE)),
+					json.getLong(KEY_BATCH_SIZE), json.getString(KEY_SALT), json.getLong(KEY_HIGH_WATER_MARK),
+					checksums);
+			state.put(typeState.getType(), typeState);
+		}
+		return state;
+	}
+
+	/**
+	 * Write the given destination checksums to JSON.
+	 *
+	 * @param checksums
+	 * @return
+	 * @throws JSONObjectAdapterException
+	 */
+	static JSONArray destinationChecksumsToJSON(Collection<DestinationChecksums> checksums)
+			throws JSONObjectAdapterException {
+		JSONArray types = new JSONArray();
+		for (DestinationChecksums typeChecksums : checksums) {
+			JSONObject json = new JSONObject();
+			json.put(KEY_TYPE, typeChecksums.getType().name());
+			json.put(KEY_BATCH_SIZE, typeChecksums.getBatchSize());
+			json.put(KEY_SALT, typeChecksums.getSalt());
+			json.put(KEY_COVERED_MINIMUM_ID, typeChecksums.getCoveredMinimumId());
+			json.put(KEY_COVERED_MAXIMUM_ID, typeChecksums.getCoveredMaximumId());
+			JSONArray checksumArray = new JSONArray();
+			for (RangeChecksum checksum : typeChecksums.getChecksums()) {
+				checksumArray.put(EntityFactory.createJSONObjectForEntity(checksum));
+			}
+			json.put(KEY_CHECKSUMS, checksumArray);
+			json.put(KEY_INVALIDATED_BINS, new JSONArray(typeChecksums.getInvalidatedBins()));
+			types.put(json);
+		}
+		return types;
+	}
+
+	/**
+	 * Read the destination checksums from the given JSON.
+	 *
+	 * @param types Null if the file has no destination checksums.
+	 * @return
+	 * @throws JSONObjectAdapterException
+	 */
+	static Map<MigrationType, DestinationChecksums> destinationChecksumsFromJSON(JSONArray types)
+			throws JSONObjectAdapterException {
+		Map<MigrationType, DestinationChecksums> checksums = new LinkedHashMap<>();
+		if (types == null) {
+			return checksums;
+		}
+		for (int i = 0; i < types.length(); i++) {
+			JSONObject json = types.getJSONObject(i);
+			JSONArray checksumArray = json.getJSONArray(KEY_CHECKSUMS);
+			List<RangeChecksum> typeChecksums = new ArrayList<>(checksumArray.length());
+			for (int j = 0; j < checksumArray.length(); j++) {
+				typeChecksums.add(EntityFactory.createEntityFromJSONObject(checksumArray.getJSONObject(j),
+						RangeChecksum.class));
+			}
+			JSONArray binArray = json.getJSONArray(KEY_INVALIDATED_BINS);
+			Set<Long> invalidatedBins = new HashSet<>(binArray.length());
+			for (int j = 0; j < binArray.length(); j++) {
+				invalidatedBins.add(binArray.getLong(j));
+			}
+			DestinationChecksums destination = new DestinationChecksums(MigrationType.valueOf(json.getString(KEY_TYPE)),
+					json.getLong(KEY_BATCH_SIZE), json.getString(KEY_SALT), json.getLong(KEY_COVERED_MINIMUM_ID),
+					json.getLong(KEY_COVERED_MAXIMUM_ID), typeChecksums, invalidatedBins);
+			checksums.put(destination.getType(), destination);
+		}
+		return checksums;
+	}
+
+}
@@ -0,0 +1,89 @@
+package org.sagebionetworks.migration.state;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RangeChecksum;
+import org.sagebionetworks.util.ValidateArgument;
+
+/**
+ * An immutable object that captures the bin checksums of a single
+ * {@link MigrationType} that were verified to match on both the source and
+ * destination by a successful migration.
+ *
+ */
+public class VerifiedTypeState {
+
+	private final MigrationType type;
+	private final long batchSize;
+	private final String salt;
+	private final long highWaterMark;
+	private final List<RangeChecksum> checksums;
+
+	/**
+	 * 
+	 * @param type
+	 * @param batchSize     The batch size used to bin the checksums.
+	 * @param salt          The salt used to compute the checksums.
+	 * @param highWaterMark The maximum ID covered by the checksums.
+	 * @param checksums     The verified bin checksums.
+	 */
+	public VerifiedTypeState(MigrationType type, long batchSize, String salt, long highWaterMark,
+			List<RangeChecksum> checksums) {
+		ValidateArgument.required(type, "type");
+		ValidateArgument.required(salt, "salt");
+		ValidateArgument.required(checksums, "checksums");
+		this.type = type;
+		this.batchSize = batchSize;
+		this.salt = salt;
+		this.highWaterMark = highWaterMark;
+		this.checksums = Collections.unmodifiableList(checksums);
+	}
+
+	public MigrationType getType() {
+		return type;
+	}
+
+	public long getBatchSize() {
+		return batchSize;
+	}
+
+	public String getSalt() {
+		return salt;
+	}
+
+	public long getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	public List<RangeChecksum> getChecksums() {
+		return checksums;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(batchSize, checksums, highWaterMark, salt, type);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof VerifiedTypeState)) {
+			return false;
+		}
+		VerifiedTypeState other = (VerifiedTypeState) obj;
+		return batchSize == other.batchSize && Objects.equals(checksums, other.checksums)
+				&& highWaterMark == other.highWaterMark && Objects.equals(salt, other.salt) && type == other.type;
+	}
+
+	@Override
+	public String toString() {
+		return "VerifiedTypeState [type=" + type + ", batchSize=" + batchSize + ", salt=" + salt + ", highWaterMark="
+				+ highWaterMark + ", checksums=" + checksums.size() + "]";
+	}
+
+}
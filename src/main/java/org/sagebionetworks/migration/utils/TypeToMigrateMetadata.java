@@ -17,6 +17,7 @@ public class TypeToMigrateMetadata {
 	private final MigrationType type;
 	private final Long srcMinId;
 	private final Long srcMaxId;
+	private final Long srcCount;
 	private final Long destMinId;
 	private final Long destMaxId;
 	private final boolean isSourceReadOnly;
@@ -32,6 +33,7 @@ public class TypeToMigrateMetadata {
 		this.type = source.getType();
 		this.srcMinId = source.getMinid();
 		this.srcMaxId = source.getMaxid();
+		this.srcCount = source.getCount();
 		this.destMinId = dest.getMinid();
 		this.destMaxId = dest.getMaxid();
 		this.isSourceReadOnly = isSourceReadOnly;
@@ -49,6 +51,14 @@ public class TypeToMigrateMetadata {
 		return srcMaxId;
 	}
 
+	/**
+	 * @return The number of rows of the type on the source, or null when the
+	 *         count is unknown.
+	 */
+	public Long getSrcCount() {
+		return srcCount;
+	}
+
 	public Long getDestMinId() {
 		return destMinId;
 	}
@@ -56,6 +66,10 @@ public class TypeToMigrateMetadata {
 	public Long getDestMaxId() {
 		return destMaxId;
 	}
+
+	public boolean isSourceReadOnly() {
+		return isSourceReadOnly;
+	}
 	
 	/**
 	 * Get the minimum of the minimums rowId of both the source and destination.
@@ -99,7 +113,7 @@ public class TypeToMigrateMetadata {
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(destMaxId, destMinId, isSourceReadOnly, srcMaxId, srcMinId, type);
+		return Objects.hash(destMaxId, destMinId, isSourceReadOnly, srcCount, srcMaxId, srcMinId, type);
 	}
 
 	@Override
@@ -112,14 +126,15 @@ public class TypeToMigrateMetadata {
 		}
 		TypeToMigrateMetadata other = (TypeToMigrateMetadata) obj;
 		return Objects.equals(destMaxId, other.destMaxId) && Objects.equals(destMinId, other.destMinId)
-				&& isSourceReadOnly == other.isSourceReadOnly && Objects.equals(srcMaxId, other.srcMaxId)
+				&& isSourceReadOnly == other.isSourceReadOnly && Objects.equals(srcCount, other.srcCount)
+				&& Objects.equals(srcMaxId, other.srcMaxId)
 				&& Objects.equals(srcMinId, other.srcMinId) && type == other.type;
 	}
 
 	@Override
 	public String toString() {
 		return "TypeToMigrateMetadata [type=" + type + ", srcMinId=" + srcMinId + ", srcMaxId=" + srcMaxId
-				+ ", destMinId=" + destMinId + ", destMaxId=" + destMaxId + ", isSourceReadOnly=" + isSourceReadOnly
+				+ ", srcCount=" + srcCount + ", destMinId=" + destMinId + ", destMaxId=" + destMaxId + ", isSourceReadOnly=" + isSourceReadOnly
 				+ "]";
 	}
 
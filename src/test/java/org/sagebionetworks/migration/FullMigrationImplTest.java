@@ -1,5 +1,7 @@
 package org.sagebionetworks.migration;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.*;
 import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.never;
@@ -7,17 +9,26 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import org.apache.logging.log4j.Logger;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.migration.async.MigrationDriver;
 import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.migration.async.checksum.RestoredBinVerifier;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.PlanMode;
+import org.sagebionetworks.migration.metrics.PhaseListener;
+import org.sagebionetworks.migration.metrics.TraceSpan;
+import org.sagebionetworks.migration.shard.ShardPartitioner;
 import org.sagebionetworks.migration.utils.ToolMigrationUtils;
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
 import org.sagebionetworks.repo.model.migration.MigrationType;
@@ -43,6 +54,14 @@ public class FullMigrationImplTest {
 	MigrationDriver mockAsynchronousMigration;
 	@Mock
 	Configuration mockConfiguration;
+	@Mock
+	RestoredBinVerifier mockRestoredBinVerifier;
+	@Mock
+	ShardPartitioner mockShardPartitioner;
+	@Mock
+	PhaseListener mockPhaseListener;
+	@Mock
+	TraceSpan mockSpan;
 	
 	List<MigrationType> allCommonTypes;
 	List<MigrationType> commonPrimaryTypes;
@@ -93,13 +112,63 @@ public class FullMigrationImplTest {
 				countResultsOne.getSourceResult(), countResultsOne.getDestinationResult(), commonPrimaryTypes);
 		
 		fullMigration = new FullMigrationImpl(mockLoggerFactory, mockStackStatusService, mockTypeService,
-				mockTypeReporter, mockAsynchronousMigration, mockConfiguration);
+				mockTypeReporter, mockAsynchronousMigration, mockConfiguration, mockRestoredBinVerifier,
+				mockShardPartitioner, mockPhaseListener);
+		when(mockPhaseListener.startPhase(any(String.class))).thenReturn(mockSpan);
+		// an unsharded migration includes all types.
+		when(mockShardPartitioner.getShardTypes(anyListOf(TypeToMigrateMetadata.class)))
+				.thenAnswer(invocation -> invocation.getArguments()[0]);
 		
 		when(mockConfiguration.includeFullTableChecksums()).thenReturn(true);
 		when(mockStackStatusService.isSourceReadOnly()).thenReturn(true);
 		
 		checksumResutls = new ResultPair<MigrationTypeChecksum>();
 		when(mockTypeService.getFullTableChecksums(any(MigrationType.class))).thenReturn(checksumResutls);
+		when(mockRestoredBinVerifier.verifyRestoredBins(any(MigrationType.class))).thenReturn(Optional.empty());
+		when(mockConfiguration.getMaxConcurrentFullTableChecksums()).thenReturn(2);
+		when(mockConfiguration.getPlanMode()).thenReturn(PlanMode.NONE);
+	}
+	
+	@Test
+	public void testRunFullMigrationPlan() {
+		when(mockConfiguration.getPlanMode()).thenReturn(PlanMode.PLAN);
+		// grouped counts are not used to plan.
+		when(mockConfiguration.getTypeCountGroupSize()).thenReturn(1);
+		// call under test
+		fullMigration.runFullMigration();
+		verify(mockAsynchronousMigration).planPrimaryTypes(typesToMigrate);
+		verify(mockAsynchronousMigration, never()).migratePrimaryTypes(anyListOf(TypeToMigrateMetadata.class));
+		// nothing is verified after planning.
+		verify(mockTypeService, times(1)).getMigrationTypeCounts(allCommonTypes);
+		verify(mockTypeService, never()).getFullTableChecksums(any(MigrationType.class));
+	}
+	
+	@Test
+	public void testRunFullMigrationEstimate() {
+		when(mockConfiguration.getPlanMode()).thenReturn(PlanMode.ESTIMATE);
+		// grouped counts are not used to estimate.
+		when(mockConfiguration.getTypeCountGroupSize()).thenReturn(1);
+		// call under test
+		fullMigration.runFullMigration();
+		verify(mockAsynchronousMigration).estimatePrimaryTypes(typesToMigrate);
+		verify(mockAsynchronousMigration, never()).planPrimaryTypes(anyListOf(TypeToMigrateMetadata.class));
+		verify(mockAsynchronousMigration, never()).migratePrimaryTypes(anyListOf(TypeToMigrateMetadata.class));
+		// nothing is verified after estimating.
+		verify(mockTypeService, times(1)).getMigrationTypeCounts(allCommonTypes);
+		verify(mockTypeService, never()).getFullTableChecksums(any(MigrationType.class));
+	}
+	
+	@Test
+	public void testRunFullMigrationExecutePlan() {
+		when(mockConfiguration.getPlanMode()).thenReturn(PlanMode.EXECUTE);
+		// call under test
+		fullMigration.runFullMigration();
+		verify(mockTypeReporter).runCountDownBeforeStart();
+		verify(mockAsynchronousMigration).executePlan();
+		verify(mockAsynchronousMigration, never()).migratePrimaryTypes(anyListOf(TypeToMigrateMetadata.class));
+		// only the final counts are computed.
+		verify(mockTypeService, times(1)).getMigrationTypeCounts(allCommonTypes);
+		verify(mockTypeService, times(allCommonTypes.size())).getFullTableChecksums(any(MigrationType.class));
 	}
 	
 	@Test
@@ -115,6 +184,73 @@ public class FullMigrationImplTest {
 		verify(mockTypeReporter, times(2)).reportMetaDifferences(any());
 		verify(mockTypeService, times(allCommonTypes.size())).getFullTableChecksums(any(MigrationType.class));
 		verify(mockTypeReporter, times(allCommonTypes.size())).reportChecksums(any(MigrationType.class), eq(checksumResutls));
+		// the counts and final checks are phases.
+		verify(mockPhaseListener).startPhase(FullMigrationImpl.PHASE_TYPE_COUNTS);
+		verify(mockPhaseListener).startPhase(FullMigrationImpl.PHASE_FINAL_CHECKS);
+		verify(mockSpan, times(2)).close();
+	}
+	
+	@Test
+	public void testRunFullMigrationSharded() {
+		List<TypeToMigrateMetadata> shardTypes = Lists.newArrayList();
+		when(mockShardPartitioner.getShardTypes(typesToMigrate)).thenReturn(shardTypes);
+		// call under test
+		fullMigration.runFullMigration();
+		verify(mockAsynchronousMigration).migratePrimaryTypes(shardTypes);
+	}
+	
+	@Test
+	public void testRunFullMigrationWithRestoredBinVerdict() {
+		when(mockRestoredBinVerifier.verifyRestoredBins(MigrationType.NODE)).thenReturn(Optional.of(true));
+		// call under test
+		fullMigration.runFullMigration();
+		verify(mockTypeReporter).reportChecksumVerdict(MigrationType.NODE, true);
+		// the full table checksum is only needed for the secondary type.
+		verify(mockTypeService, never()).getFullTableChecksums(MigrationType.NODE);
+		verify(mockTypeService).getFullTableChecksums(MigrationType.NODE_REVISION);
+		verify(mockTypeReporter).reportChecksums(MigrationType.NODE_REVISION, checksumResutls);
+	}
+	
+	@Test
+	public void testRunFullMigrationChecksumFailure() {
+		AsyncMigrationException exception = new AsyncMigrationException("failed");
+		when(mockTypeService.getFullTableChecksums(MigrationType.NODE_REVISION)).thenThrow(exception);
+		try {
+			// call under test
+			fullMigration.runFullMigration();
+			fail();
+		} catch (AsyncMigrationException e) {
+			assertEquals(exception, e);
+		}
+		// the final counts are not blocked by the checksums.
+		verify(mockTypeService, times(2)).getMigrationTypeCounts(allCommonTypes);
+		verify(mockTypeReporter).reportChecksums(MigrationType.NODE, checksumResutls);
+	}
+	
+	@Test
+	public void testRunFullMigrationWithTypeCountGroups() {
+		when(mockConfiguration.getTypeCountGroupSize()).thenReturn(1);
+		when(mockConfiguration.getMaxConcurrentTypeCounts()).thenReturn(3);
+		when(mockConfiguration.includeFullTableChecksums()).thenReturn(false);
+		when(mockTypeService.streamMigrationTypeCounts(allCommonTypes, 1, 3)).thenReturn(
+				Lists.newArrayList(countResultsOne).iterator(), Lists.newArrayList(countResultsTwo).iterator());
+		// call under test
+		fullMigration.runFullMigration();
+		verify(mockTypeService, never()).getMigrationTypeCounts(anyListOf(MigrationType.class));
+		verify(mockTypeReporter).runCountDownBeforeStart();
+		ArgumentCaptor<Iterator> captor = ArgumentCaptor.forClass(Iterator.class);
+		verify(mockAsynchronousMigration).migratePrimaryTypes(captor.capture());
+		// the types of each group are built as the driver reads them.
+		assertEquals(Collections.singletonList(typesToMigrate), Lists.newArrayList(captor.getValue()));
+		verify(mockTypeReporter).reportMetaDifferences(countResultsOne);
+		verify(mockTypeReporter).reportMetaDifferences(countResultsTwo);
+	}
+	
+	@Test
+	public void testGetPrimaryTypesOfGroup() {
+		// call under test
+		assertEquals(Lists.newArrayList(MigrationType.NODE),
+				FullMigrationImpl.getPrimaryTypesOfGroup(countResultsOne, Lists.newArrayList(MigrationType.ACTIVITY, MigrationType.NODE)));
 	}
 	
 	@Test
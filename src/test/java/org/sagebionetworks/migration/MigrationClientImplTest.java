@@ -9,6 +9,9 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.*;
 
+import java.io.File;
+import java.util.Optional;
+
 import org.apache.logging.log4j.Logger;
 import org.junit.Before;
 import org.junit.Test;
@@ -16,6 +19,14 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProvider;
+import org.sagebionetworks.migration.config.PlanMode;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorder;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.metrics.RunReporter;
+import org.sagebionetworks.migration.metrics.TraceRecorder;
+import org.sagebionetworks.migration.shard.RestoreLeaseCoordinator;
+import org.sagebionetworks.util.Clock;
 
 @RunWith(MockitoJUnitRunner.class)
 public class MigrationClientImplTest {
@@ -30,6 +41,22 @@ public class MigrationClientImplTest {
 	StackStatusService mockStackStatus;
 	@Mock
 	FullMigration mockFullMigration;
+	@Mock
+	FileProvider mockFileProvider;
+	@Mock
+	MigrationMetrics mockMetrics;
+	@Mock
+	JobTimelineRecorder mockTimelineRecorder;
+	@Mock
+	TraceRecorder mockTraceRecorder;
+	@Mock
+	RunReporter mockRunReporter;
+	@Mock
+	RestoreLeaseCoordinator mockLeaseCoordinator;
+	@Mock
+	Clock mockClock;
+	@Mock
+	File mockFinalPassFile;
 	
 	int maxNumberRetries;
 	MigrationClientImpl client;
@@ -40,7 +67,14 @@ public class MigrationClientImplTest {
 		when(mockConfig.getMaxRetries()).thenReturn(maxNumberRetries);
 		when(loggerFactory.getLogger(any())).thenReturn(mockLogger);
 		when(mockConfig.remainInReadOnlyAfterMigration()).thenReturn(false);
-		client = new MigrationClientImpl(mockConfig, mockStackStatus, mockFullMigration, loggerFactory);
+		when(mockConfig.getDaemonFinalPassFilePath()).thenReturn(Optional.of("final"));
+		when(mockFileProvider.getFile("final")).thenReturn(mockFinalPassFile);
+		when(mockFinalPassFile.delete()).thenReturn(true);
+		when(mockConfig.getDaemonMaxDutyCyclePercent()).thenReturn(50);
+		when(mockStackStatus.isSourceReadOnly()).thenReturn(true);
+		when(mockConfig.getPlanMode()).thenReturn(PlanMode.NONE);
+		client = new MigrationClientImpl(mockConfig, mockStackStatus, mockFullMigration, mockFileProvider, mockMetrics,
+				mockTimelineRecorder, mockTraceRecorder, mockRunReporter, mockLeaseCoordinator, mockClock, loggerFactory);
 	}
 	
 	@Test
@@ -52,6 +86,37 @@ public class MigrationClientImplTest {
 		verify(mockStackStatus).setDestinationReadWrite();
 		verify(mockFullMigration).runFullMigration();
 		verify(mockLogger, atLeast(3)).info(anyString());
+		verify(mockTimelineRecorder).reportCriticalPath();
+		verify(mockTraceRecorder).export();
+		verify(mockMetrics).export();
+		verify(mockRunReporter).beginRun();
+		verify(mockRunReporter).attemptStarted();
+		verify(mockRunReporter).writeReport(true);
+		// a single worker does not mark its shard.
+		verify(mockLeaseCoordinator, never()).shardStarted(anyInt());
+		verify(mockLeaseCoordinator, never()).shardFinished(anyInt(), anyInt());
+	}
+
+	@Test
+	public void testMigratePlan() {
+		when(mockConfig.getPlanMode()).thenReturn(PlanMode.PLAN);
+		// call under test
+		client.migrate();
+		verify(mockFullMigration).runFullMigration();
+		// planning does not change the destination.
+		verify(mockStackStatus, never()).setDestinationReadOnly();
+		verify(mockStackStatus, never()).setDestinationReadWrite();
+	}
+
+	@Test
+	public void testMigrateEstimate() {
+		when(mockConfig.getPlanMode()).thenReturn(PlanMode.ESTIMATE);
+		// call under test
+		client.migrate();
+		verify(mockFullMigration).runFullMigration();
+		// estimating does not change the destination.
+		verify(mockStackStatus, never()).setDestinationReadOnly();
+		verify(mockStackStatus, never()).setDestinationReadWrite();
 	}
 
 	@Test
@@ -66,6 +131,46 @@ public class MigrationClientImplTest {
 		verify(mockLogger, atLeast(3)).info(anyString());
 	}
 
+	@Test
+	public void testMigrateShardRemainReadOnly() {
+		when(mockConfig.getShardCount()).thenReturn(3);
+		when(mockConfig.getShardIndex()).thenReturn(1);
+		when(mockLeaseCoordinator.shardFinished(1, 3)).thenReturn(false);
+		// call under test
+		client.migrate();
+		verify(mockLeaseCoordinator).shardStarted(1);
+		verify(mockStackStatus).setDestinationReadOnly();
+		verify(mockLeaseCoordinator).shardFinished(1, 3);
+		// other shards are still running.
+		verify(mockStackStatus, never()).setDestinationReadWrite();
+	}
+
+	@Test
+	public void testMigrateLastShard() {
+		when(mockConfig.getShardCount()).thenReturn(3);
+		when(mockConfig.getShardIndex()).thenReturn(1);
+		when(mockLeaseCoordinator.shardFinished(1, 3)).thenReturn(true);
+		// call under test
+		client.migrate();
+		verify(mockStackStatus).setDestinationReadWrite();
+	}
+
+	@Test
+	public void testMigrateShardFailure() {
+		when(mockConfig.getShardCount()).thenReturn(3);
+		when(mockConfig.getShardIndex()).thenReturn(0);
+		doThrow(new AsyncMigrationException("failed")).when(mockFullMigration).runFullMigration();
+		try {
+			// call under test
+			client.migrate();
+			fail();
+		} catch (AsyncMigrationException e) {
+			// expected
+		}
+		verify(mockLeaseCoordinator, never()).shardFinished(anyInt(), anyInt());
+		verify(mockStackStatus, never()).setDestinationReadWrite();
+	}
+
 	@Test
 	public void testMigrateUnknownException() {
 		// setup a failure
@@ -107,6 +212,10 @@ public class MigrationClientImplTest {
 		// the destination must not be set back to READ-WRITE
 		verify(mockStackStatus, never()).setDestinationReadWrite();
 		verify(mockLogger, times(maxNumberRetries)).error(anyString(), any(Throwable.class));
+		// the metrics of the failed attempts are still exported.
+		verify(mockMetrics).export();
+		verify(mockRunReporter, times(maxNumberRetries)).attemptStarted();
+		verify(mockRunReporter).writeReport(false);
 	}
 	
 	@Test
@@ -128,4 +237,108 @@ public class MigrationClientImplTest {
 		verify(mockStackStatus).setDestinationReadWrite();
 
 	}
+
+	@Test
+	public void testRunDaemon() throws InterruptedException {
+		when(mockConfig.getDaemonPassIntervalMs()).thenReturn(0L);
+		// the final pass is requested after the second pass.
+		when(mockFinalPassFile.exists()).thenReturn(false, true);
+		// call under test
+		client.runDaemon();
+		// two daemon passes and the final pass.
+		verify(mockFullMigration, times(3)).runFullMigration();
+		verify(mockStackStatus).setDestinationReadOnly();
+		verify(mockStackStatus).setDestinationReadWrite();
+		verify(mockFinalPassFile).delete();
+		verify(mockClock, never()).sleep(anyLong());
+	}
+
+	@Test
+	public void testRunDaemonWaitsForInterval() throws InterruptedException {
+		when(mockConfig.getDaemonPassIntervalMs()).thenReturn(5000L);
+		when(mockClock.currentTimeMillis()).thenReturn(0L);
+		when(mockFinalPassFile.exists()).thenReturn(false, false, true);
+		// call under test
+		client.runDaemon();
+		verify(mockFullMigration, times(2)).runFullMigration();
+		verify(mockClock, times(2)).sleep(MigrationClientImpl.DAEMON_SLEEP_TIME_MS);
+	}
+
+	@Test
+	public void testRunDaemonPassFailure() {
+		when(mockConfig.getDaemonPassIntervalMs()).thenReturn(0L);
+		when(mockFinalPassFile.exists()).thenReturn(false, true);
+		AsyncMigrationException knownException = new AsyncMigrationException("a known exception");
+		// every attempt of the first pass fails.
+		doThrow(knownException).doThrow(knownException).doThrow(knownException).doNothing().when(mockFullMigration)
+				.runFullMigration();
+		// call under test
+		client.runDaemon();
+		verify(mockFullMigration, times(maxNumberRetries + 2)).runFullMigration();
+		verify(mockLogger).error(eq("Daemon pass failed:"), any(Throwable.class));
+		verify(mockStackStatus).setDestinationReadWrite();
+	}
+
+	@Test
+	public void testRunDaemonUnexpectedFailure() {
+		IllegalStateException unexpected = new IllegalStateException("not an async failure");
+		doThrow(unexpected).when(mockFullMigration).runFullMigration();
+		try {
+			// call under test
+			client.runDaemon();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(unexpected, e);
+		}
+		verify(mockFullMigration, times(1)).runFullMigration();
+		// the destination is restored to READ-WRITE mode.
+		verify(mockStackStatus).setDestinationReadWrite();
+		verify(mockRunReporter).writeReport(false);
+	}
+
+	@Test
+	public void testRunDaemonShardUnexpectedFailure() {
+		when(mockConfig.getShardCount()).thenReturn(2);
+		when(mockConfig.getShardIndex()).thenReturn(1);
+		IllegalStateException unexpected = new IllegalStateException("not an async failure");
+		doThrow(unexpected).when(mockFullMigration).runFullMigration();
+		try {
+			// call under test
+			client.runDaemon();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(unexpected, e);
+		}
+		// a shard that did not finish leaves the destination in READ-ONLY mode.
+		verify(mockLeaseCoordinator).shardStarted(1);
+		verify(mockLeaseCoordinator, never()).shardFinished(anyInt(), anyInt());
+		verify(mockStackStatus, never()).setDestinationReadWrite();
+	}
+
+	@Test
+	public void testIsFinalPassRequestedNoFileConfigured() {
+		when(mockConfig.getDaemonFinalPassFilePath()).thenReturn(Optional.empty());
+		// call under test
+		assertEquals(false, client.isFinalPassRequested());
+		verify(mockFileProvider, never()).getFile(anyString());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testIsFinalPassRequestedDeleteFailed() {
+		when(mockFinalPassFile.exists()).thenReturn(true);
+		when(mockFinalPassFile.delete()).thenReturn(false);
+		// call under test
+		client.isFinalPassRequested();
+	}
+
+	@Test
+	public void testGetDaemonWaitMs() {
+		when(mockConfig.getDaemonPassIntervalMs()).thenReturn(1000L);
+		// a short pass waits for the rest of the interval.
+		assertEquals(800L, client.getDaemonWaitMs(200L));
+		// a long pass waits as long as the pass at a 50% duty cycle.
+		assertEquals(3000L, client.getDaemonWaitMs(3000L));
+		when(mockConfig.getDaemonMaxDutyCyclePercent()).thenReturn(100);
+		assertEquals(0L, client.getDaemonWaitMs(3000L));
+	}
 }
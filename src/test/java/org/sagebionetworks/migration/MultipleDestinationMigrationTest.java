@@ -0,0 +1,45 @@
+package org.sagebionetworks.migration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MultipleDestinationMigrationTest {
+
+	@Mock
+	MigrationClient mockClientOne;
+	@Mock
+	MigrationClient mockClientTwo;
+
+	@Test
+	public void testMigrateAll() {
+		// call under test
+		MultipleDestinationMigration.migrateAll(Lists.newArrayList(mockClientOne, mockClientTwo));
+		verify(mockClientOne).migrate();
+		verify(mockClientTwo).migrate();
+	}
+
+	@Test
+	public void testMigrateAllFailure() {
+		AsyncMigrationException exception = new AsyncMigrationException("failed");
+		doThrow(exception).when(mockClientOne).migrate();
+		try {
+			// call under test
+			MultipleDestinationMigration.migrateAll(Lists.newArrayList(mockClientOne, mockClientTwo));
+			fail();
+		} catch (AsyncMigrationException e) {
+			assertEquals(exception, e);
+		}
+		// the other destination is still migrated.
+		verify(mockClientTwo).migrate();
+	}
+}
@@ -5,6 +5,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,6 +19,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.async.JobProgressBoard;
 import org.sagebionetworks.migration.async.JobTarget;
 import org.sagebionetworks.migration.async.ResultPair;
 import org.sagebionetworks.migration.config.Configuration;
@@ -25,7 +27,6 @@ import org.sagebionetworks.repo.model.asynch.AsynchJobState;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationRangeChecksumRequest;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
-import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeCountsRequest;
 import org.sagebionetworks.repo.model.migration.MigrationType;
 import org.sagebionetworks.repo.model.migration.MigrationTypeChecksum;
 import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
@@ -46,6 +47,8 @@ public class ReporterImplTest {
 	Logger mockLogger;
 	@Mock
 	Clock mockClock;
+	@Mock
+	JobProgressBoard mockJobProgressBoard;
 	
 	long delayMS;
 	
@@ -125,7 +128,7 @@ public class ReporterImplTest {
 		checksums.setSourceResult(sourceChecksum);
 		checksums.setDestinationResult(destinationChecksum);
 		
-		reporter = new ReporterImpl(mockConfig, mockLoggerFactory, mockClock);
+		reporter = new ReporterImpl(mockConfig, mockLoggerFactory, mockClock, mockJobProgressBoard);
 	}
 	
 	@Test
@@ -198,32 +201,13 @@ public class ReporterImplTest {
 		assertEquals(clone, jobStatus);
 	}
 	
-	@Test
-	public void testReportProgressHasMigrationType() {
-		// request with a type.
-		AsyncMigrationRangeChecksumRequest request = new AsyncMigrationRangeChecksumRequest();
-		request.setMigrationType(MigrationType.NODE);
-		asyncMigrationRequest = new AsyncMigrationRequest();
-		asyncMigrationRequest.setAdminRequest(request);
-		
-		jobStatus.setStartedOn(new Date(1517773464652L));
-		long elapseMS = 2545L;
-		when(mockClock.currentTimeMillis()).thenReturn(jobStatus.getStartedOn().getTime()+elapseMS);
-		// call under test
-		reporter.reportProgress(jobTarget, jobStatus);
-		verify(mockLogger).info("NODE job: 123 state: PROCESSING on: SOURCE type: 'AsyncMigrationRangeChecksumRequest' elapse: 00:00:02.545");
-	}
-	
 	@Test
 	public void testReportProgress() {
-		// request without a type
-		asyncMigrationRequest.setAdminRequest(new AsyncMigrationTypeCountsRequest());
-		jobStatus.setStartedOn(new Date(1517773464652L));
-		long elapseMS = 51234;
-		when(mockClock.currentTimeMillis()).thenReturn(jobStatus.getStartedOn().getTime()+elapseMS);
 		// call under test
 		reporter.reportProgress(jobTarget, jobStatus);
-		verify(mockLogger).info(" job: 123 state: PROCESSING on: SOURCE type: 'AsyncMigrationTypeCountsRequest' elapse: 00:00:51.234");
+		verify(mockJobProgressBoard).recordStatus(jobTarget, jobStatus);
+		// nothing is logged per job.
+		verify(mockLogger, never()).info(anyString());
 	}
 	
 	@Test
@@ -241,4 +225,32 @@ public class ReporterImplTest {
 		verify(mockLogger).warn("CHECKSUMS DO NOT MATCH FOR: NODE");
 	}
 	
+	@Test
+	public void testReportChecksumVerdictMatch() {
+		// call under test
+		reporter.reportChecksumVerdict(type, true);
+		verify(mockLogger).info("Checksums match for: NODE");
+	}
+	
+	@Test
+	public void testReportChecksumVerdictNoMatch() {
+		// call under test
+		reporter.reportChecksumVerdict(type, false);
+		verify(mockLogger).warn("CHECKSUMS DO NOT MATCH FOR: NODE");
+	}
+	
+	@Test
+	public void testReportChecksumDeltaPass() {
+		// call under test
+		reporter.reportChecksumDeltaPass(2, 15L);
+		verify(mockLogger).info("Checksum delta pass 2 restored 15 jobs");
+	}
+	
+	@Test
+	public void testReportRemainingDelta() {
+		// call under test
+		reporter.reportRemainingDelta(3, 4L);
+		verify(mockLogger).info("Remaining delta after 3 checksum delta passes: 4 restore jobs");
+	}
+	
 }
@@ -0,0 +1,173 @@
+package org.sagebionetworks.migration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
+import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.repo.model.migration.AdminRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeCountsRequest;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
+import org.sagebionetworks.repo.model.migration.MigrationTypeCounts;
+import org.sagebionetworks.util.Clock;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TypeCountsIteratorTest {
+
+	@Mock
+	AsynchronousJobExecutor mockAsynchronousJobExecutor;
+	@Mock
+	Future<MigrationTypeCounts> mockSourceFuture;
+	@Mock
+	Future<MigrationTypeCounts> mockDestinationFuture;
+	@Mock
+	Future<MigrationTypeCounts> mockSlowFuture;
+	@Mock
+	Clock mockClock;
+
+	List<MigrationType> types;
+	MigrationTypeCounts sourceCounts;
+	MigrationTypeCounts destinationCounts;
+
+	@Before
+	public void before() throws Exception {
+		types = Lists.newArrayList(MigrationType.NODE, MigrationType.NODE_REVISION, MigrationType.ACTIVITY);
+		sourceCounts = new MigrationTypeCounts();
+		sourceCounts.setList(Lists.newArrayList(new MigrationTypeCount().setType(MigrationType.NODE).setCount(1L)));
+		destinationCounts = new MigrationTypeCounts();
+		destinationCounts.setList(Lists.newArrayList(new MigrationTypeCount().setType(MigrationType.NODE).setCount(0L)));
+		when(mockAsynchronousJobExecutor.startSourceJob(any(AdminRequest.class), any())).thenReturn((Future) mockSourceFuture);
+		when(mockAsynchronousJobExecutor.startDestionationJob(any(AdminRequest.class), any())).thenReturn((Future) mockDestinationFuture);
+		when(mockSourceFuture.get()).thenReturn(sourceCounts);
+		when(mockDestinationFuture.get()).thenReturn(destinationCounts);
+		when(mockSourceFuture.isDone()).thenReturn(true);
+		when(mockDestinationFuture.isDone()).thenReturn(true);
+	}
+
+	@Test
+	public void testIterate() {
+		TypeCountsIterator iterator = new TypeCountsIterator(mockAsynchronousJobExecutor,
+				Iterators.partition(types.iterator(), 2), 1, mockClock, 1000L);
+		// call under test
+		assertTrue(iterator.hasNext());
+		// only one group is started at a time.
+		verify(mockAsynchronousJobExecutor, times(1)).startSourceJob(any(AdminRequest.class), any());
+		ResultPair<List<MigrationTypeCount>> result = iterator.next();
+		assertEquals(sourceCounts.getList(), result.getSourceResult());
+		assertEquals(destinationCounts.getList(), result.getDestinationResult());
+		// the next group is started as soon as the first is consumed.
+		verify(mockAsynchronousJobExecutor, times(2)).startSourceJob(any(AdminRequest.class), any());
+		assertTrue(iterator.hasNext());
+		iterator.next();
+		assertFalse(iterator.hasNext());
+
+		AsyncMigrationTypeCountsRequest first = new AsyncMigrationTypeCountsRequest();
+		first.setTypes(Lists.newArrayList(MigrationType.NODE, MigrationType.NODE_REVISION));
+		verify(mockAsynchronousJobExecutor).startSourceJob(first, MigrationTypeCounts.class);
+		verify(mockAsynchronousJobExecutor).startDestionationJob(first, MigrationTypeCounts.class);
+		AsyncMigrationTypeCountsRequest second = new AsyncMigrationTypeCountsRequest();
+		second.setTypes(Lists.newArrayList(MigrationType.ACTIVITY));
+		verify(mockAsynchronousJobExecutor).startSourceJob(second, MigrationTypeCounts.class);
+		verify(mockAsynchronousJobExecutor).startDestionationJob(second, MigrationTypeCounts.class);
+	}
+
+	@Test
+	public void testStartJobsConcurrently() {
+		TypeCountsIterator iterator = new TypeCountsIterator(mockAsynchronousJobExecutor,
+				Iterators.partition(types.iterator(), 1), 5, mockClock, 1000L);
+		// call under test
+		iterator.startJobs();
+		verify(mockAsynchronousJobExecutor, times(3)).startSourceJob(any(AdminRequest.class), any());
+		verify(mockAsynchronousJobExecutor, times(3)).startDestionationJob(any(AdminRequest.class), any());
+	}
+
+	@Test
+	public void testNextFailure() throws Exception {
+		when(mockDestinationFuture.get()).thenThrow(new IllegalStateException("failed"));
+		TypeCountsIterator iterator = new TypeCountsIterator(mockAsynchronousJobExecutor,
+				Iterators.partition(types.iterator(), 3), 1, mockClock, 1000L);
+		try {
+			// call under test
+			iterator.next();
+			fail();
+		} catch (AsyncMigrationException e) {
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testNextInCompletionOrder() throws Exception {
+		MigrationTypeCounts slowCounts = new MigrationTypeCounts();
+		slowCounts.setList(Lists.newArrayList(new MigrationTypeCount().setType(MigrationType.NODE).setCount(5L)));
+		// the first group is still running after the second finished.
+		when(mockSlowFuture.isDone()).thenReturn(false, true);
+		when(mockSlowFuture.get()).thenReturn(slowCounts);
+		when(mockAsynchronousJobExecutor.startSourceJob(createRequest(MigrationType.NODE), MigrationTypeCounts.class))
+				.thenReturn(mockSlowFuture);
+		TypeCountsIterator iterator = new TypeCountsIterator(mockAsynchronousJobExecutor,
+				Iterators.partition(types.iterator(), 1), 2, mockClock, 1000L);
+		// call under test
+		assertEquals(sourceCounts.getList(), iterator.next().getSourceResult());
+		assertEquals(slowCounts.getList(), iterator.next().getSourceResult());
+		assertEquals(sourceCounts.getList(), iterator.next().getSourceResult());
+		assertFalse(iterator.hasNext());
+		verify(mockClock, times(0)).sleep(TypeCountsIterator.SLEEP_TIME_MS);
+	}
+
+	@Test
+	public void testNextChangesAfterPreviousGroups() throws Exception {
+		types = Lists.newArrayList(MigrationType.NODE, MigrationType.CHANGE);
+		when(mockSlowFuture.isDone()).thenReturn(false, false, true);
+		when(mockSlowFuture.get()).thenReturn(sourceCounts);
+		when(mockAsynchronousJobExecutor.startSourceJob(createRequest(MigrationType.NODE), MigrationTypeCounts.class))
+				.thenReturn(mockSlowFuture);
+		TypeCountsIterator iterator = new TypeCountsIterator(mockAsynchronousJobExecutor,
+				Iterators.partition(types.iterator(), 1), 2, mockClock, 1000L);
+		// call under test
+		iterator.next();
+		// the changes finished first but wait for the first group.
+		verify(mockClock, times(2)).sleep(TypeCountsIterator.SLEEP_TIME_MS);
+		verify(mockSlowFuture, times(3)).isDone();
+	}
+
+	@Test
+	public void testNextTimeout() throws Exception {
+		when(mockSourceFuture.isDone()).thenReturn(false);
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 500L, 1001L);
+		TypeCountsIterator iterator = new TypeCountsIterator(mockAsynchronousJobExecutor,
+				Iterators.partition(types.iterator(), 3), 1, mockClock, 1000L);
+		try {
+			// call under test
+			iterator.next();
+			fail();
+		} catch (AsyncMigrationException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		verify(mockClock, times(1)).sleep(TypeCountsIterator.SLEEP_TIME_MS);
+	}
+
+	static AsyncMigrationTypeCountsRequest createRequest(MigrationType... types) {
+		AsyncMigrationTypeCountsRequest request = new AsyncMigrationTypeCountsRequest();
+		request.setTypes(Lists.newArrayList(types));
+		return request;
+	}
+}
@@ -1,8 +1,10 @@
 package org.sagebionetworks.migration;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Before;
@@ -14,6 +16,7 @@ import org.sagebionetworks.client.SynapseAdminClient;
 import org.sagebionetworks.client.exceptions.SynapseException;
 import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
 import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.migration.config.Configuration;
 import org.sagebionetworks.migration.factory.SynapseClientFactory;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeChecksumRequest;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeCountsRequest;
@@ -22,6 +25,7 @@ import org.sagebionetworks.repo.model.migration.MigrationTypeChecksum;
 import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
 import org.sagebionetworks.repo.model.migration.MigrationTypeCounts;
 import org.sagebionetworks.repo.model.migration.MigrationTypeNames;
+import org.sagebionetworks.util.Clock;
 import com.google.common.collect.Lists;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -35,6 +39,10 @@ public class TypeServiceImplTest {
 	SynapseAdminClient mockDestinationClient;
 	@Mock
 	AsynchronousJobExecutor mockAsynchronousJobExecutor;
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	Clock mockClock;
 
 	List<String> sourceNames;
 	List<String> sourcePrimaryNames;
@@ -52,7 +60,7 @@ public class TypeServiceImplTest {
 	public void before() throws SynapseException {
 		when(mockClientFactory.getSourceClient()).thenReturn(mockSourceClient);
 		when(mockClientFactory.getDestinationClient()).thenReturn(mockDestinationClient);
-		typeService = new TypeServiceImpl(mockClientFactory, mockAsynchronousJobExecutor);
+		typeService = new TypeServiceImpl(mockClientFactory, mockAsynchronousJobExecutor, mockConfig, mockClock);
 
 		sourceNames = Lists.newArrayList(
 				MigrationType.NODE.name(),
@@ -170,6 +178,18 @@ public class TypeServiceImplTest {
 		assertEquals(expected, results);
 	}
 	
+	@Test
+	public void testStreamMigrationTypeCounts() {
+		List<MigrationType> types = Lists.newArrayList(MigrationType.NODE, MigrationType.NODE_REVISION,
+				MigrationType.ACTIVITY);
+		// call under test
+		Iterator<ResultPair<List<MigrationTypeCount>>> results = typeService.streamMigrationTypeCounts(types, 1, 2);
+		assertTrue(results instanceof TypeCountsIterator);
+		// the first two groups are started before returning.
+		verify(mockAsynchronousJobExecutor, times(2)).startSourceJob(any(AsyncMigrationTypeCountsRequest.class), any());
+		verify(mockAsynchronousJobExecutor, times(2)).startDestionationJob(any(AsyncMigrationTypeCountsRequest.class), any());
+	}
+	
 	@Test
 	public void testGetFullTableChecksums() {
 		MigrationType type = MigrationType.NODE;
@@ -2,9 +2,11 @@ package org.sagebionetworks.migration.async;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -20,12 +22,19 @@ import org.sagebionetworks.client.exceptions.SynapseServerException;
 import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.migration.config.Configuration;
 import org.sagebionetworks.migration.factory.SynapseClientFactory;
+import org.sagebionetworks.migration.metrics.jfr.EventRecording;
+import org.sagebionetworks.migration.metrics.jfr.JobStartEvent;
 import org.sagebionetworks.repo.model.asynch.AsynchJobState;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
+import org.sagebionetworks.repo.model.migration.CalculateOptimalRangeRequest;
+import org.sagebionetworks.repo.model.migration.CalculateOptimalRangeResponse;
+import org.sagebionetworks.repo.model.migration.MigrationType;
 import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
 import org.sagebionetworks.repo.model.migration.RestoreTypeResponse;
 
+import jdk.jfr.consumer.RecordedEvent;
+
 @RunWith(MockitoJUnitRunner.class)
 public class AsynchronousJobExecutorImplTest {
 
@@ -43,6 +52,12 @@ public class AsynchronousJobExecutorImplTest {
 	AsynchronousJobFuture<RestoreTypeResponse> mockSourceFuture;
 	@Mock
 	AsynchronousJobFuture<RestoreTypeResponse> mockDestinationFuture;
+	@Mock
+	AsynchronousJobFuture<CalculateOptimalRangeResponse> mockRangeFuture;
+	@Mock
+	FutureFactory mockOtherFutureFactory;
+	@Mock
+	AsynchronousJobFuture<CalculateOptimalRangeResponse> mockOtherRangeFuture;
 
 	AsynchronousJobStatus status;
 
@@ -51,6 +66,7 @@ public class AsynchronousJobExecutorImplTest {
 	RestoreTypeResponse destinationResponse;
 	AsyncMigrationRequest migrationRequest;
 
+	SharedSourceJobs sharedSourceJobs;
 	AsynchronousJobExecutorImpl jobExecutor;
 
 	@Before
@@ -85,7 +101,9 @@ public class AsynchronousJobExecutorImplTest {
 		when(mockFutureFactory.createFuture(status, JobTarget.DESTINATION, mockDestinationClient,
 				RestoreTypeResponse.class)).thenReturn(mockDestinationFuture);
 
-		jobExecutor = new AsynchronousJobExecutorImpl(mockClientFactory, mockConfig, mockFutureFactory);
+		sharedSourceJobs = new SharedSourceJobs();
+		jobExecutor = new AsynchronousJobExecutorImpl(mockClientFactory, mockConfig, mockFutureFactory,
+				sharedSourceJobs);
 	}
 
 	@Test
@@ -94,6 +112,21 @@ public class AsynchronousJobExecutorImplTest {
 		assertEquals(mockDestinationClient, jobExecutor.getClientForJobTarget(JobTarget.DESTINATION));
 	}
 
+	@Test
+	public void testStartJobEvent() throws Exception {
+		request.setMigrationType(MigrationType.NODE);
+		try (EventRecording recording = new EventRecording(JobStartEvent.class)) {
+			// call under test
+			jobExecutor.startJob(JobTarget.DESTINATION, request, RestoreTypeResponse.class);
+			List<RecordedEvent> events = recording.stop(JobStartEvent.class);
+			assertEquals(1, events.size());
+			assertEquals(JobTarget.DESTINATION.name(), events.get(0).getString("target"));
+			assertEquals("RestoreTypeRequest", events.get(0).getString("request"));
+			assertEquals(MigrationType.NODE.name(), events.get(0).getString("migrationType"));
+			assertEquals("123", events.get(0).getString("jobId"));
+		}
+	}
+
 	@Test
 	public void testStartJobSource() throws SynapseException {
 		JobTarget jobTarget = JobTarget.SOURCE;
@@ -143,6 +176,32 @@ public class AsynchronousJobExecutorImplTest {
 		verify(mockFutureFactory).createFuture(status, JobTarget.SOURCE, mockSourceClient, RestoreTypeResponse.class);
 	}
 
+	@Test
+	public void testStartSourceJobShared() throws SynapseException {
+		sharedSourceJobs.setEnabled(true, 2);
+		CalculateOptimalRangeRequest rangeRequest = new CalculateOptimalRangeRequest().setMinimumId(1L)
+				.setMaximumId(99L);
+		AsyncMigrationRequest rangeMigrationRequest = new AsyncMigrationRequest().setAdminRequest(rangeRequest);
+		when(mockSourceClient.startAdminAsynchronousJob(rangeMigrationRequest)).thenReturn(status);
+		when(mockFutureFactory.createFuture(status, JobTarget.SOURCE, mockSourceClient,
+				CalculateOptimalRangeResponse.class)).thenReturn(mockRangeFuture);
+		when(mockOtherFutureFactory.createFuture(status, JobTarget.SOURCE, mockSourceClient,
+				CalculateOptimalRangeResponse.class)).thenReturn(mockOtherRangeFuture);
+		// the executor of another destination.
+		AsynchronousJobExecutorImpl otherExecutor = new AsynchronousJobExecutorImpl(mockClientFactory, mockConfig,
+				mockOtherFutureFactory, sharedSourceJobs);
+		// call under test
+		Future<CalculateOptimalRangeResponse> first = jobExecutor.startSourceJob(rangeRequest,
+				CalculateOptimalRangeResponse.class);
+		Future<CalculateOptimalRangeResponse> second = otherExecutor.startSourceJob(rangeRequest,
+				CalculateOptimalRangeResponse.class);
+		// each destination tracks the job with its own future.
+		assertEquals(mockRangeFuture, first);
+		assertEquals(mockOtherRangeFuture, second);
+		// the job only runs once on the source.
+		verify(mockSourceClient, times(1)).startAdminAsynchronousJob(rangeMigrationRequest);
+	}
+
 	@Test
 	public void testExecuteSourceAndDestinationJob() {
 		// call under test
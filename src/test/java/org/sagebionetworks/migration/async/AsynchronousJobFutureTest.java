@@ -8,6 +8,7 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.*;
 
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -26,6 +27,11 @@ import org.sagebionetworks.client.exceptions.SynapseServerException;
 import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.migration.Reporter;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorder;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.metrics.jfr.EventRecording;
+import org.sagebionetworks.migration.metrics.jfr.JobCompletionEvent;
+import org.sagebionetworks.migration.metrics.jfr.JobPollEvent;
 import org.sagebionetworks.repo.model.asynch.AsynchJobState;
 import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
 import org.sagebionetworks.repo.model.migration.AsyncMigrationResponse;
@@ -33,6 +39,8 @@ import org.sagebionetworks.repo.model.migration.MigrationType;
 import org.sagebionetworks.repo.model.migration.RestoreTypeResponse;
 import org.sagebionetworks.util.Clock;
 
+import jdk.jfr.consumer.RecordedEvent;
+
 @RunWith(MockitoJUnitRunner.class)
 public class AsynchronousJobFutureTest {
 
@@ -41,6 +49,10 @@ public class AsynchronousJobFutureTest {
 	@Mock
 	Reporter mockReporter;
 	@Mock
+	MigrationMetrics mockMetrics;
+	@Mock
+	JobTimelineRecorder mockTimelineRecorder;
+	@Mock
 	Clock mockClock;
 	@Mock
 	Configuration mockConfiguration;
@@ -95,7 +107,7 @@ public class AsynchronousJobFutureTest {
 		when(mockClient.getAdminAsynchronousJobStatus(jobId)).thenReturn(processingStatus, processingStatus, completeStatus);
 		type = MigrationType.NODE;
 		// Using the factory to create the future also tests the factory.
-		futureFactory = new FutureFactoryImpl(mockReporter, mockClock, mockConfiguration);
+		futureFactory = new FutureFactoryImpl(mockReporter, mockMetrics, mockTimelineRecorder, mockClock, mockConfiguration);
 		future = (AsynchronousJobFuture<RestoreTypeResponse>) futureFactory.createFuture(processingStatus, jobTarget,  mockClient, RestoreTypeResponse.class);
 		
 
@@ -112,10 +124,53 @@ public class AsynchronousJobFutureTest {
 		assertTrue(future.isDone());
 		// once done no more get status calls should occur
 		verify(mockClient, times(3)).getAdminAsynchronousJobStatus(jobId);
-		verify(mockReporter, times(1)).reportProgress(jobTarget, processingStatus);
+		// each fetched status is reported.
+		verify(mockReporter, times(2)).reportProgress(jobTarget, processingStatus);
+		verify(mockReporter, times(1)).reportProgress(jobTarget, completeStatus);
+		verify(mockMetrics).jobStarted(jobTarget, processingStatus);
+		// the finish is only recorded by the first poll that observed it.
+		verify(mockMetrics, times(1)).jobFinished(jobTarget, completeStatus, 5002L);
+		verify(mockTimelineRecorder).jobRequested(jobTarget, processingStatus);
+		verify(mockTimelineRecorder, times(1)).jobDetected(jobTarget, completeStatus, 5002L);
 	}
 	
 	
+	@Test
+	public void testIsDoneEvents() throws Exception {
+		try (EventRecording recording = new EventRecording(JobPollEvent.class)) {
+			assertFalse(future.isDone());
+			assertFalse(future.isDone());
+			assertTrue(future.isDone());
+			// call under test
+			assertTrue(future.isDone());
+			List<RecordedEvent> polls = recording.stop(JobPollEvent.class);
+			// a finished job is not polled again.
+			assertEquals(3, polls.size());
+			assertEquals(jobId, polls.get(0).getString("jobId"));
+			assertEquals(JobTarget.DESTINATION.name(), polls.get(0).getString("target"));
+			assertEquals(AsynchJobState.PROCESSING.name(), polls.get(0).getString("state"));
+			assertEquals(AsynchJobState.COMPLETE.name(), polls.get(2).getString("state"));
+		}
+	}
+
+	@Test
+	public void testIsDoneCompletionEvent() throws Exception {
+		try (EventRecording recording = new EventRecording(JobCompletionEvent.class)) {
+			assertFalse(future.isDone());
+			assertFalse(future.isDone());
+			assertTrue(future.isDone());
+			// call under test
+			assertTrue(future.isDone());
+			List<RecordedEvent> completions = recording.stop(JobCompletionEvent.class);
+			// only the first poll that observed the final state is recorded.
+			assertEquals(1, completions.size());
+			assertEquals(AsynchJobState.COMPLETE.name(), completions.get(0).getString("state"));
+			assertEquals(99L, completions.get(0).getLong("restoredRows"));
+			// the server did not report the times of the job.
+			assertEquals(-1L, completions.get(0).getLong("detectionLagMs"));
+		}
+	}
+
 	@Test
 	public void testIsDoneFailed() throws SynapseException {
 		// failed after two tries
@@ -127,31 +182,24 @@ public class AsynchronousJobFutureTest {
 		assertTrue(future.isDone());
 		// once done no more get status calls should occur
 		verify(mockClient, times(3)).getAdminAsynchronousJobStatus(jobId);
-		verify(mockReporter, times(1)).reportProgress(jobTarget, processingStatus);
+		verify(mockReporter, times(2)).reportProgress(jobTarget, processingStatus);
+		verify(mockReporter, times(1)).reportProgress(jobTarget, failedStatus);
+		verify(mockMetrics, times(1)).jobFinished(jobTarget, failedStatus, 5002L);
 	}
 	
 	@Test
-	public void testIsDoneReportThrottled() throws SynapseException {
-		// setup the clock such that every other call should trigger report.
-		Long startTime = MINIMUM_MS_BETWEEN_REPORTS+1;
-		Long halfTime = MINIMUM_MS_BETWEEN_REPORTS/2L;
-		when(mockClock.currentTimeMillis()).thenReturn(
-				startTime
-				,startTime+(1*halfTime)
-				,startTime+(2*halfTime)
-				,startTime+(3*halfTime)
-				,startTime+(4*halfTime)
-		);
-
-		// complete after two tries
+	public void testIsDoneReportEachFetch() throws SynapseException {
+		// complete after three tries
 		when(mockClient.getAdminAsynchronousJobStatus(jobId)).thenReturn(processingStatus, processingStatus, processingStatus, completeStatus);
 		// calls under test
 		assertFalse(future.isDone());
 		assertFalse(future.isDone());
 		assertFalse(future.isDone());
 		assertTrue(future.isDone());
-		// progress should occur the first time, then every other time.
-		verify(mockReporter, times(2)).reportProgress(jobTarget, processingStatus);
+		assertTrue(future.isDone());
+		// the status of a finished job is not fetched or reported again.
+		verify(mockReporter, times(3)).reportProgress(jobTarget, processingStatus);
+		verify(mockReporter, times(1)).reportProgress(jobTarget, completeStatus);
 	}
 	
 	@Test (expected=AsyncMigrationException.class)
@@ -177,7 +225,7 @@ public class AsynchronousJobFutureTest {
 		// should sleep twice.
 		verify(mockClock,times(2)).sleep(AsynchronousJobFuture.SLEEP_TIME);
 		verify(mockClock, atLeast(3)).currentTimeMillis();
-		verify(mockReporter, times(1)).reportProgress(jobTarget, processingStatus);
+		verify(mockReporter, times(2)).reportProgress(jobTarget, processingStatus);
 	}
 	
 	@Test
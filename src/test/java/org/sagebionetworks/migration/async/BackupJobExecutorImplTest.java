@@ -5,19 +5,25 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.PlanMode;
+import org.sagebionetworks.migration.plan.PlannedRange;
 import org.sagebionetworks.repo.model.daemon.BackupAliasType;
 import org.sagebionetworks.repo.model.migration.AdminRequest;
 import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
@@ -36,6 +42,10 @@ public class BackupJobExecutorImplTest {
 	Configuration mockConfiguration;
 	@Mock
 	AsynchronousJobExecutor mockAsynchronousJobExecutor;
+	@Mock
+	Future<CalculateOptimalRangeResponse> mockRangeFuture;
+	@Mock
+	Future<BackupTypeResponse> mockBackupFuture;
 
 	BackupJobExecutorImpl executor;
 
@@ -50,11 +60,12 @@ public class BackupJobExecutorImplTest {
 	String backupFile;
 
 	@Before
-	public void before() {
+	public void before() throws Exception {
 		batchSize = 1;
 		when(mockConfiguration.getMaximumBackupBatchSize()).thenReturn(batchSize);
 		backupAliasType = BackupAliasType.TABLE_NAME;
 		when(mockConfiguration.getBackupAliasType()).thenReturn(backupAliasType);
+		when(mockConfiguration.getPlanMode()).thenReturn(PlanMode.NONE);
 		migrationType = MigrationType.NODE;
 
 		rangeResponse = new CalculateOptimalRangeResponse();
@@ -65,7 +76,9 @@ public class BackupJobExecutorImplTest {
 		backupFile = "backupFile";
 		backupTypeResponse.setBackupFileKey(backupFile);
 		
-		when(mockAsynchronousJobExecutor.executeSourceJob(any(AdminRequest.class), any())).thenReturn(rangeResponse, backupTypeResponse);
+		when(mockAsynchronousJobExecutor.executeSourceJob(any(AdminRequest.class), any())).thenReturn(rangeResponse);
+		when(mockAsynchronousJobExecutor.startSourceJob(isA(BackupTypeRangeRequest.class), any())).thenReturn((Future) mockBackupFuture);
+		when(mockBackupFuture.get()).thenReturn(backupTypeResponse);
 
 		executor = new BackupJobExecutorImpl(mockConfiguration, mockAsynchronousJobExecutor);
 	}
@@ -209,4 +222,98 @@ public class BackupJobExecutorImplTest {
 		assertFalse(iterator.hasNext());
 	}
 
+	@Test
+	public void testStartBackupJob() throws Exception {
+		long minimumId = 1L;
+		long maximumId = 8L;
+		when(mockAsynchronousJobExecutor.startSourceJob(isA(CalculateOptimalRangeRequest.class), any()))
+				.thenReturn((Future) mockRangeFuture);
+		when(mockRangeFuture.get()).thenReturn(rangeResponse);
+		// call under test
+		Iterator<DestinationJob> iterator = executor.startBackupJob(migrationType, minimumId, maximumId);
+		assertNotNull(iterator);
+
+		CalculateOptimalRangeRequest expectedRangeRequset = new CalculateOptimalRangeRequest();
+		expectedRangeRequset.setMigrationType(migrationType);
+		expectedRangeRequset.setMinimumId(minimumId);
+		expectedRangeRequset.setMaximumId(maximumId);
+		expectedRangeRequset.setOptimalRowsPerRange((long) batchSize);
+		verify(mockAsynchronousJobExecutor).startSourceJob(expectedRangeRequset, CalculateOptimalRangeResponse.class);
+		// the calculation is not waited on until the jobs are needed.
+		verify(mockRangeFuture, never()).get();
+
+		assertTrue(iterator.hasNext());
+		RestoreDestinationJob restoreJob = (RestoreDestinationJob) iterator.next();
+		assertEquals(backupFile, restoreJob.getBackupFileKey());
+		assertEquals(new Long(minimumId), restoreJob.getMinimumId());
+		assertEquals(new Long(maximumId), restoreJob.getMaximumId());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test(expected = AsyncMigrationException.class)
+	public void testStartBackupJobFailed() throws Exception {
+		when(mockAsynchronousJobExecutor.startSourceJob(isA(CalculateOptimalRangeRequest.class), any()))
+				.thenReturn((Future) mockRangeFuture);
+		when(mockRangeFuture.get()).thenThrow(new AsyncMigrationException("failed"));
+		Iterator<DestinationJob> iterator = executor.startBackupJob(migrationType, 1L, 8L);
+		// call under test
+		iterator.hasNext();
+	}
+
+	@Test
+	public void testExecuteBackupJobPlan() {
+		when(mockConfiguration.getPlanMode()).thenReturn(PlanMode.PLAN);
+		batchSize = 10;
+		when(mockConfiguration.getMaximumBackupBatchSize()).thenReturn(batchSize);
+		rangeResponse.setRanges(Lists.newArrayList(createIdRange(2L, 4L), createIdRange(6L, 30L)));
+		// call under test
+		Iterator<DestinationJob> iterator = executor.executeBackupJob(migrationType, 1L, 40L);
+		assertEquals(new PlannedRange(migrationType, 1L, 4L, 4L), ((PlannedBackupJob) iterator.next()).getRange());
+		assertEquals(new PlannedRange(migrationType, 5L, 40L, 10L), ((PlannedBackupJob) iterator.next()).getRange());
+		assertFalse(iterator.hasNext());
+		// nothing is backed up while planning.
+		verify(mockAsynchronousJobExecutor, never()).startSourceJob(isA(BackupTypeRangeRequest.class), any());
+	}
+
+	@Test
+	public void testExecuteBackupJobPlanEmptyRange() {
+		when(mockConfiguration.getPlanMode()).thenReturn(PlanMode.PLAN);
+		rangeResponse.setRanges(Lists.newArrayList());
+		// call under test
+		Iterator<DestinationJob> iterator = executor.executeBackupJob(migrationType, 1L, 8L);
+		// the range only deletes from the destination.
+		assertEquals(new PlannedRange(migrationType, 1L, 8L, 0L), ((PlannedBackupJob) iterator.next()).getRange());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testExecuteBackupJobEstimate() {
+		when(mockConfiguration.getPlanMode()).thenReturn(PlanMode.ESTIMATE);
+		// call under test
+		Iterator<DestinationJob> iterator = executor.executeBackupJob(migrationType, 1L, 8L);
+		assertTrue(iterator.next() instanceof PlannedBackupJob);
+		// nothing is backed up while estimating.
+		verify(mockAsynchronousJobExecutor, never()).startSourceJob(isA(BackupTypeRangeRequest.class), any());
+	}
+
+	@Test
+	public void testExecutePlannedBackups() {
+		Iterator<PlannedRange> ranges = Lists.newArrayList(new PlannedRange(migrationType, 3L, 9L, 7L)).iterator();
+		// call under test
+		Iterator<DestinationJob> iterator = executor.executePlannedBackups(ranges);
+		RestoreDestinationJob restoreJob = (RestoreDestinationJob) iterator.next();
+		assertEquals(backupFile, restoreJob.getBackupFileKey());
+		assertEquals(new Long(3L), restoreJob.getMinimumId());
+		assertEquals(new Long(9L), restoreJob.getMaximumId());
+		assertFalse(iterator.hasNext());
+
+		BackupTypeRangeRequest expected = new BackupTypeRangeRequest();
+		expected.setAliasType(backupAliasType);
+		expected.setBatchSize((long) batchSize);
+		expected.setMigrationType(migrationType);
+		expected.setMinimumId(3L);
+		expected.setMaximumId(9L);
+		verify(mockAsynchronousJobExecutor).startSourceJob(expected, BackupTypeResponse.class);
+	}
+
 }
@@ -0,0 +1,124 @@
+package org.sagebionetworks.migration.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.AsyncMigrationException;
+import org.sagebionetworks.repo.model.migration.AdminRequest;
+import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
+import org.sagebionetworks.repo.model.migration.BackupTypeResponse;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BackupRangeIteratorTest {
+
+	@Mock
+	AsynchronousJobExecutor mockAsynchronousJobExecutor;
+	@Mock
+	Future<BackupTypeResponse> mockFutureOne;
+	@Mock
+	Future<BackupTypeResponse> mockFutureTwo;
+	@Mock
+	Future<BackupTypeResponse> mockFutureThree;
+
+	BackupTypeRangeRequest requestOne;
+	BackupTypeRangeRequest requestTwo;
+	BackupTypeRangeRequest requestThree;
+	List<BackupTypeRangeRequest> requests;
+
+	@Before
+	public void before() throws Exception {
+		requestOne = createRequest(1L, 10L);
+		requestTwo = createRequest(11L, 20L);
+		requestThree = createRequest(21L, 30L);
+		requests = Lists.newArrayList(requestOne, requestTwo, requestThree);
+		when(mockAsynchronousJobExecutor.startSourceJob(any(AdminRequest.class), any())).thenReturn((Future) mockFutureOne,
+				(Future) mockFutureTwo, (Future) mockFutureThree);
+		when(mockFutureOne.get()).thenReturn(new BackupTypeResponse().setBackupFileKey("one"));
+		when(mockFutureTwo.get()).thenReturn(new BackupTypeResponse().setBackupFileKey("two"));
+		when(mockFutureThree.get()).thenReturn(new BackupTypeResponse().setBackupFileKey("three"));
+	}
+
+	@Test
+	public void testPrefetch() {
+		BackupRangeIterator iterator = new BackupRangeIterator(mockAsynchronousJobExecutor, requests.iterator(), 1);
+		assertTrue(iterator.hasNext());
+		// nothing is started until the first job is requested.
+		verify(mockAsynchronousJobExecutor, never()).startSourceJob(any(AdminRequest.class), any());
+		// call under test
+		RestoreDestinationJob job = (RestoreDestinationJob) iterator.next();
+		assertEquals("one", job.getBackupFileKey());
+		assertEquals(MigrationType.NODE, job.getMigrationType());
+		assertEquals(new Long(1L), job.getMinimumId());
+		assertEquals(new Long(10L), job.getMaximumId());
+		// the next backup is running ahead of the caller.
+		verify(mockAsynchronousJobExecutor).startSourceJob(requestOne, BackupTypeResponse.class);
+		verify(mockAsynchronousJobExecutor).startSourceJob(requestTwo, BackupTypeResponse.class);
+		verify(mockAsynchronousJobExecutor, never()).startSourceJob(requestThree, BackupTypeResponse.class);
+
+		assertEquals("two", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		verify(mockAsynchronousJobExecutor).startSourceJob(requestThree, BackupTypeResponse.class);
+		assertTrue(iterator.hasNext());
+		assertEquals("three", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testNoPrefetch() {
+		BackupRangeIterator iterator = new BackupRangeIterator(mockAsynchronousJobExecutor, requests.iterator(), 0);
+		// call under test
+		assertEquals("one", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		verify(mockAsynchronousJobExecutor, times(1)).startSourceJob(any(AdminRequest.class), any());
+	}
+
+	@Test
+	public void testPrefetchDeeperThanRequests() {
+		BackupRangeIterator iterator = new BackupRangeIterator(mockAsynchronousJobExecutor, requests.iterator(), 5);
+		// call under test
+		assertEquals("one", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		verify(mockAsynchronousJobExecutor, times(3)).startSourceJob(any(AdminRequest.class), any());
+		assertEquals("two", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		assertEquals("three", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test(expected = AsyncMigrationException.class)
+	public void testBackupFailed() throws Exception {
+		when(mockFutureOne.get()).thenThrow(new AsyncMigrationException("failed"));
+		BackupRangeIterator iterator = new BackupRangeIterator(mockAsynchronousJobExecutor, requests.iterator(), 1);
+		// call under test
+		iterator.next();
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testNextWhenDone() {
+		BackupRangeIterator iterator = new BackupRangeIterator(mockAsynchronousJobExecutor, Lists.<BackupTypeRangeRequest>newArrayList().iterator(), 1);
+		// call under test
+		iterator.next();
+	}
+
+	private static BackupTypeRangeRequest createRequest(long min, long max) {
+		BackupTypeRangeRequest request = new BackupTypeRangeRequest();
+		request.setMigrationType(MigrationType.NODE);
+		request.setMinimumId(min);
+		request.setMaximumId(max);
+		return request;
+	}
+}
@@ -0,0 +1,81 @@
+package org.sagebionetworks.migration.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConcurrentRangeCalculationIteratorTest {
+
+	@Mock
+	MissingFromDestinationIterator mockOne;
+	@Mock
+	MissingFromDestinationIterator mockTwo;
+	@Mock
+	MissingFromDestinationIterator mockThree;
+
+	RestoreDestinationJob jobOne;
+	RestoreDestinationJob jobThree;
+
+	@Before
+	public void before() {
+		jobOne = new RestoreDestinationJob(MigrationType.NODE, "one");
+		jobThree = new RestoreDestinationJob(MigrationType.ACTIVITY, "three");
+		when(mockOne.hasNext()).thenReturn(true, false);
+		when(mockOne.next()).thenReturn(jobOne);
+		// the second type has nothing to backup.
+		when(mockTwo.hasNext()).thenReturn(false);
+		when(mockThree.hasNext()).thenReturn(true, false);
+		when(mockThree.next()).thenReturn(jobThree);
+	}
+
+	@Test
+	public void testIterate() {
+		ConcurrentRangeCalculationIterator iterator = new ConcurrentRangeCalculationIterator(
+				Lists.newArrayList(mockOne, mockTwo, mockThree).iterator(), 2);
+		// call under test
+		assertTrue(iterator.hasNext());
+		verify(mockOne).start();
+		verify(mockTwo).start();
+		verify(mockThree, never()).start();
+		assertEquals(jobOne, iterator.next());
+		assertTrue(iterator.hasNext());
+		// the third type is started once the first is done.
+		verify(mockThree).start();
+		assertEquals(jobThree, iterator.next());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testIterateMaxLessThanOne() {
+		ConcurrentRangeCalculationIterator iterator = new ConcurrentRangeCalculationIterator(
+				Lists.newArrayList(mockOne, mockTwo, mockThree).iterator(), 0);
+		// call under test
+		assertTrue(iterator.hasNext());
+		verify(mockOne).start();
+		verify(mockTwo, never()).start();
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testNextWhenDone() {
+		ConcurrentRangeCalculationIterator iterator = new ConcurrentRangeCalculationIterator(
+				Lists.newArrayList(mockTwo).iterator(), 2);
+		// call under test
+		iterator.next();
+	}
+
+}
@@ -12,6 +12,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.state.MigrationStateStore;
 import org.sagebionetworks.repo.model.daemon.BackupAliasType;
 import org.sagebionetworks.repo.model.migration.AdminRequest;
 import org.sagebionetworks.repo.model.migration.MigrationType;
@@ -27,6 +28,8 @@ public class DestinationJobExecutorImplTest {
 	AsynchronousJobExecutor mockAsynchronousJobExecutor;
 	@Mock
 	Future mockFuture;
+	@Mock
+	MigrationStateStore mockStateStore;
 	
 	DestinationJobExecutorImpl destinationExecutor;
 	
@@ -55,7 +58,7 @@ public class DestinationJobExecutorImplTest {
 		
 		when(mockAsynchronousJobExecutor.startDestionationJob(any(AdminRequest.class), any())).thenReturn(mockFuture);
 		
-		destinationExecutor = new DestinationJobExecutorImpl(mockConfig, mockAsynchronousJobExecutor);
+		destinationExecutor = new DestinationJobExecutorImpl(mockConfig, mockAsynchronousJobExecutor, mockStateStore);
 	}
 	
 	@Test
@@ -71,5 +74,6 @@ public class DestinationJobExecutorImplTest {
 		Future future = destinationExecutor.startDestinationJob(restoreJob);
 		assertEquals(mockFuture, future);
 		verify(mockAsynchronousJobExecutor).startDestionationJob(expectedRequest, RestoreTypeResponse.class);
+		verify(mockStateStore).invalidateDestinationRange(type, minimumId, maximumId);
 	}
 }
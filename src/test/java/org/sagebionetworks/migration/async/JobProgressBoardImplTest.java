@@ -0,0 +1,126 @@
+package org.sagebionetworks.migration.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.repo.model.asynch.AsynchJobState;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AdminRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationTypeCountsRequest;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobProgressBoardImplTest {
+
+	@Mock
+	Clock mockClock;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	JobProgressBoardImpl board;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		when(mockClock.currentTimeMillis()).thenReturn(0L);
+		board = new JobProgressBoardImpl(mockClock, mockLoggerFactory);
+	}
+
+	@Test
+	public void testBuildSnapshot() {
+		board.recordStatus(JobTarget.DESTINATION,
+				createStatus("1", AsynchJobState.PROCESSING, new RestoreTypeRequest().setMigrationType(MigrationType.NODE), 1000L));
+		board.recordStatus(JobTarget.DESTINATION,
+				createStatus("2", AsynchJobState.PROCESSING, new RestoreTypeRequest().setMigrationType(MigrationType.ACL), 3000L));
+		board.recordStatus(JobTarget.SOURCE,
+				createStatus("3", AsynchJobState.PROCESSING, new AsyncMigrationTypeCountsRequest(), 4000L));
+		// a running job is recorded once.
+		board.recordStatus(JobTarget.DESTINATION,
+				createStatus("2", AsynchJobState.PROCESSING, new RestoreTypeRequest().setMigrationType(MigrationType.ACL), 9000L));
+		board.recordStatus(JobTarget.DESTINATION,
+				createStatus("4", AsynchJobState.COMPLETE, new RestoreTypeRequest().setMigrationType(MigrationType.ACL), 500L));
+		board.recordStatus(JobTarget.DESTINATION,
+				createStatus("5", AsynchJobState.FAILED, new RestoreTypeRequest().setMigrationType(MigrationType.ACL), 500L));
+		// call under test
+		Optional<String> snapshot = board.buildSnapshot(5000L);
+		assertEquals(Optional.of("Jobs running: 3 {SOURCE=1, DESTINATION=2} completed: 1 failed: 1 rate: 0.4 jobs/s"
+				+ " oldest: NODE RestoreTypeRequest job: 1 on: DESTINATION elapse: 00:00:04.000"
+				+ " by type: ACL (running: 1 completed: 1 failed: 1) NODE (running: 1 completed: 0 failed: 0)"
+				+ " untyped (running: 1 completed: 0 failed: 0)"), snapshot);
+	}
+
+	@Test
+	public void testBuildSnapshotFinishedJob() {
+		board.recordStatus(JobTarget.DESTINATION,
+				createStatus("1", AsynchJobState.PROCESSING, new RestoreTypeRequest().setMigrationType(MigrationType.NODE), 1000L));
+		board.recordStatus(JobTarget.DESTINATION,
+				createStatus("1", AsynchJobState.COMPLETE, new RestoreTypeRequest().setMigrationType(MigrationType.NODE), 1000L));
+		// call under test
+		String snapshot = board.buildSnapshot(2000L).get();
+		assertTrue(snapshot, snapshot.startsWith("Jobs running: 0 {} completed: 1 failed: 0 rate: 0.5 jobs/s by type:"));
+		// nothing ran since the last snapshot.
+		assertEquals(Optional.empty(), board.buildSnapshot(3000L));
+	}
+
+	@Test
+	public void testRunIdle() {
+		// call under test
+		board.run();
+		verify(mockLogger, never()).info(anyString());
+	}
+
+	@Test
+	public void testRun() {
+		board.recordStatus(JobTarget.SOURCE,
+				createStatus("1", AsynchJobState.PROCESSING, new AsyncMigrationTypeCountsRequest(), null));
+		// call under test
+		board.run();
+		verify(mockLogger).info("Jobs running: 1 {SOURCE=1} completed: 0 failed: 0 rate: 0.0 jobs/s"
+				+ " oldest: untyped AsyncMigrationTypeCountsRequest job: 1 on: SOURCE elapse: 00:00:00.000"
+				+ " by type: untyped (running: 1 completed: 0 failed: 0)");
+	}
+
+	@Test
+	public void testFormatRate() {
+		assertEquals("0.0", JobProgressBoardImpl.formatRate(5L, 0L));
+		assertEquals("2.5", JobProgressBoardImpl.formatRate(5L, 2000L));
+		assertEquals("0.3", JobProgressBoardImpl.formatRate(1L, 3000L));
+	}
+
+	@Test
+	public void testGetTypeNameWithoutRequest() {
+		AsynchronousJobStatus status = new AsynchronousJobStatus();
+		assertEquals(JobProgressBoardImpl.UNTYPED, JobProgressBoardImpl.getTypeName(status));
+		assertEquals(JobProgressBoardImpl.UNTYPED, JobProgressBoardImpl.getRequestName(status));
+	}
+
+	static AsynchronousJobStatus createStatus(String jobId, AsynchJobState state, AdminRequest request,
+			Long startedOn) {
+		AsynchronousJobStatus status = new AsynchronousJobStatus();
+		status.setJobId(jobId);
+		status.setJobState(state);
+		status.setRequestBody(new AsyncMigrationRequest().setAdminRequest(request));
+		status.setStartedOn(startedOn == null ? null : new Date(startedOn));
+		return status;
+	}
+}
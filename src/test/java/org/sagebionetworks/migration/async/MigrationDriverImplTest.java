@@ -1,20 +1,42 @@
 package org.sagebionetworks.migration.async;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.AsyncMigrationException;
+import org.sagebionetworks.migration.Reporter;
 import org.sagebionetworks.migration.async.checksum.ChecksumDeltaBuilder;
 import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.estimate.MigrationEstimator;
+import org.sagebionetworks.migration.estimate.MigrationProgress;
+import org.sagebionetworks.migration.estimate.TypeThroughputStore;
+import org.sagebionetworks.migration.metrics.PhaseListener;
+import org.sagebionetworks.migration.metrics.TraceSpan;
+import org.sagebionetworks.migration.plan.MigrationPlanStore;
+import org.sagebionetworks.migration.plan.PlannedRange;
+import org.sagebionetworks.migration.state.MigrationStateStore;
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata.TypeToMigrateMetadataBuilder;
 import org.sagebionetworks.repo.model.migration.MigrationType;
@@ -36,6 +58,24 @@ public class MigrationDriverImplTest {
 	Clock mockClock;
 	@Mock
 	RestoreJobQueue mockRestoreJobQueue;
+	@Mock
+	MigrationStateStore mockStateStore;
+	@Mock
+	Reporter mockReporter;
+	@Mock
+	MigrationPlanStore mockPlanStore;
+	@Mock
+	BackupJobExecutor mockBackupJobExecutor;
+	@Mock
+	MigrationEstimator mockEstimator;
+	@Mock
+	TypeThroughputStore mockThroughputStore;
+	@Mock
+	MigrationProgress mockProgress;
+	@Mock
+	PhaseListener mockPhaseListener;
+	@Mock
+	TraceSpan mockSpan;
 
 	List<TypeToMigrateMetadata> primaryTypes;
 	RestoreDestinationJob jobOne;
@@ -69,7 +109,10 @@ public class MigrationDriverImplTest {
 		when(mockRestoreJobQueue.isDone()).thenReturn(false, false, true);
 
 		migrationDriver = new MigrationDriverImpl(mockConfig, mockMissingFromDestinationBuilder,
-				mockChecksumChangeBuilder, mockRestoreJobQueue, mockClock);
+				mockChecksumChangeBuilder, mockRestoreJobQueue, mockStateStore, mockPlanStore, mockBackupJobExecutor,
+				mockEstimator, mockThroughputStore, mockProgress, mockPhaseListener, mockReporter, mockClock);
+		when(mockPhaseListener.startPhase(any(String.class))).thenReturn(mockSpan);
+		when(mockThroughputStore.getRowsPerSecond(any(MigrationType.class))).thenReturn(Optional.empty());
 	}
 
 	@Test
@@ -86,6 +129,136 @@ public class MigrationDriverImplTest {
 
 		// Should sleep twice waiting for the restore jobs to finish.
 		verify(mockClock, times(2)).sleep(MigrationDriverImpl.SLEEP_TIME_MS);
+		
+		InOrder inOrder = inOrder(mockStateStore, mockMissingFromDestinationBuilder, mockChecksumChangeBuilder);
+		inOrder.verify(mockStateStore).beginRun();
+		inOrder.verify(mockMissingFromDestinationBuilder).buildDestinationJobs(primaryTypes);
+		inOrder.verify(mockChecksumChangeBuilder).buildAllRestoreJobsForMismatchedChecksums(primaryTypes);
+		inOrder.verify(mockStateStore).save();
+		// the throughput is saved and the progress reported after each phase.
+		verify(mockThroughputStore, times(2)).save();
+		InOrder progressOrder = inOrder(mockProgress);
+		progressOrder.verify(mockProgress).startPhase(MigrationDriverImpl.PHASE_MISSING);
+		progressOrder.verify(mockProgress).jobDiscovered(jobOne);
+		progressOrder.verify(mockProgress).jobDiscovered(jobTwo);
+		progressOrder.verify(mockProgress).report();
+		progressOrder.verify(mockProgress).startPhase(MigrationDriverImpl.PHASE_CHECKSUM + 1);
+		progressOrder.verify(mockProgress).jobDiscovered(jobThree);
+		progressOrder.verify(mockProgress).report();
+		// a single pass does not report a remaining delta.
+		verify(mockReporter).reportChecksumDeltaPass(1, 1L);
+		verify(mockReporter, never()).reportRemainingDelta(anyInt(), anyLong());
+		// each phase is started and ended.
+		verify(mockPhaseListener).startPhase(MigrationDriverImpl.PHASE_MISSING);
+		verify(mockPhaseListener).startPhase(MigrationDriverImpl.PHASE_CHECKSUM + 1);
+		verify(mockSpan, times(2)).close();
+	}
+	
+	@Test
+	public void testMigratePrimaryTypesConverges() {
+		when(mockConfig.getMaxChecksumDeltaPasses()).thenReturn(5);
+		when(mockChecksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(primaryTypes)).thenReturn(
+				Lists.newArrayList(jobOne, jobTwo, jobThree).iterator(), deltaJobs.iterator(),
+				Collections.<DestinationJob>emptyIterator());
+		// call under test
+		migrationDriver.migratePrimaryTypes(primaryTypes);
+		verify(mockChecksumChangeBuilder, times(3)).buildAllRestoreJobsForMismatchedChecksums(primaryTypes);
+		InOrder inOrder = inOrder(mockReporter, mockStateStore);
+		inOrder.verify(mockReporter).reportChecksumDeltaPass(1, 3L);
+		inOrder.verify(mockReporter).reportChecksumDeltaPass(2, 1L);
+		inOrder.verify(mockReporter).reportChecksumDeltaPass(3, 0L);
+		inOrder.verify(mockReporter).reportRemainingDelta(3, 0L);
+		inOrder.verify(mockStateStore).save();
+	}
+	
+	@Test
+	public void testMigratePrimaryTypesConvergesBelowThreshold() {
+		when(mockConfig.getMaxChecksumDeltaPasses()).thenReturn(5);
+		when(mockConfig.getChecksumDeltaThreshold()).thenReturn(1L);
+		when(mockChecksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(primaryTypes)).thenReturn(
+				Lists.newArrayList(jobOne, jobTwo, jobThree).iterator(), deltaJobs.iterator());
+		// call under test
+		migrationDriver.migratePrimaryTypes(primaryTypes);
+		verify(mockChecksumChangeBuilder, times(2)).buildAllRestoreJobsForMismatchedChecksums(primaryTypes);
+		verify(mockReporter).reportRemainingDelta(2, 1L);
+	}
+	
+	@Test
+	public void testMigratePrimaryTypesDeltaStopsShrinking() {
+		when(mockConfig.getMaxChecksumDeltaPasses()).thenReturn(5);
+		when(mockChecksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(primaryTypes)).thenReturn(
+				deltaJobs.iterator(), Lists.newArrayList(jobOne).iterator(), Lists.newArrayList(jobTwo).iterator());
+		// call under test
+		migrationDriver.migratePrimaryTypes(primaryTypes);
+		verify(mockChecksumChangeBuilder, times(2)).buildAllRestoreJobsForMismatchedChecksums(primaryTypes);
+		verify(mockReporter).reportRemainingDelta(2, 1L);
+	}
+	
+	@Test
+	public void testMigratePrimaryTypesMaxPasses() {
+		when(mockConfig.getMaxChecksumDeltaPasses()).thenReturn(2);
+		when(mockChecksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(primaryTypes)).thenReturn(
+				Lists.newArrayList(jobOne, jobTwo, jobThree).iterator(), Lists.newArrayList(jobOne, jobTwo).iterator(),
+				deltaJobs.iterator());
+		// call under test
+		migrationDriver.migratePrimaryTypes(primaryTypes);
+		verify(mockChecksumChangeBuilder, times(2)).buildAllRestoreJobsForMismatchedChecksums(primaryTypes);
+		verify(mockReporter).reportRemainingDelta(2, 2L);
+	}
+	
+	@Test
+	public void testMigratePrimaryTypesFromIterator() throws InterruptedException {
+		when(mockMissingFromDestinationBuilder.buildDestinationJobs(any(Iterator.class))).thenAnswer(invocation -> {
+			// consume the types as phase one would.
+			Iterator<TypeToMigrateMetadata> types = (Iterator<TypeToMigrateMetadata>) invocation.getArguments()[0];
+			types.forEachRemaining(t -> {});
+			return missingJobs.iterator();
+		});
+		// call under test
+		migrationDriver.migratePrimaryTypes(Collections.singletonList(primaryTypes).iterator());
+		// phase two receives the types that arrived during phase one.
+		verify(mockChecksumChangeBuilder).buildAllRestoreJobsForMismatchedChecksums(primaryTypes);
+		verify(mockRestoreJobQueue, times(3)).pushJob(any(DestinationJob.class));
+		InOrder inOrder = inOrder(mockStateStore, mockMissingFromDestinationBuilder, mockChecksumChangeBuilder);
+		inOrder.verify(mockStateStore).beginRun();
+		inOrder.verify(mockMissingFromDestinationBuilder).buildDestinationJobs(any(Iterator.class));
+		inOrder.verify(mockChecksumChangeBuilder).buildAllRestoreJobsForMismatchedChecksums(primaryTypes);
+		inOrder.verify(mockStateStore).save();
+	}
+
+	@Test
+	public void testMigratePrimaryTypesFromIteratorPrioritizesEachGroup() {
+		TypeToMigrateMetadata node = createType(MigrationType.NODE, 1L, 100L, null);
+		TypeToMigrateMetadata file = createType(MigrationType.FILE_HANDLE, 1L, 1000L, null);
+		TypeToMigrateMetadata acl = createType(MigrationType.ACL, 1L, 5000L, null);
+		when(mockThroughputStore.getRowsPerSecond(any(MigrationType.class))).thenReturn(Optional.of(10.0));
+		List<TypeToMigrateMetadata> consumed = new LinkedList<>();
+		when(mockMissingFromDestinationBuilder.buildDestinationJobs(any(Iterator.class))).thenAnswer(invocation -> {
+			((Iterator<TypeToMigrateMetadata>) invocation.getArguments()[0]).forEachRemaining(consumed::add);
+			return missingJobs.iterator();
+		});
+		when(mockChecksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(any(List.class)))
+				.thenReturn(deltaJobs.iterator());
+		// call under test
+		migrationDriver.migratePrimaryTypes(
+				Lists.newArrayList(Lists.newArrayList(node, file), Lists.newArrayList(acl)).iterator());
+		// the longest type of each group is first, but groups keep their order.
+		assertEquals(Lists.newArrayList(file, node, acl), consumed);
+		verify(mockChecksumChangeBuilder).buildAllRestoreJobsForMismatchedChecksums(consumed);
+	}
+	
+	@Test
+	public void testMigratePrimaryTypesFailureDoesNotSaveState() {
+		when(mockRestoreJobQueue.isDone()).thenThrow(new AsyncMigrationException("failed"));
+		try {
+			// call under test
+			migrationDriver.migratePrimaryTypes(primaryTypes);
+			fail();
+		} catch (AsyncMigrationException e) {
+			// expected
+		}
+		verify(mockStateStore).beginRun();
+		verify(mockStateStore, never()).save();
 	}
 
 	@Test(expected = RuntimeException.class)
@@ -96,4 +269,172 @@ public class MigrationDriverImplTest {
 		migrationDriver.migratePrimaryTypes(primaryTypes);
 	}
 
+	@Test
+	public void testPlanPrimaryTypes() {
+		PlannedRange missing = new PlannedRange(MigrationType.NODE, 4L, 99L, 10L);
+		PlannedRange delta = new PlannedRange(MigrationType.NODE, 1L, 4L, 3L);
+		when(mockMissingFromDestinationBuilder.buildDestinationJobs(primaryTypes))
+				.thenReturn(Lists.<DestinationJob>newArrayList(new PlannedBackupJob(missing)).iterator());
+		when(mockChecksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(anyListOf(TypeToMigrateMetadata.class)))
+				.thenReturn(Lists.<DestinationJob>newArrayList(new PlannedBackupJob(delta)).iterator());
+		List<PlannedRange> written = new LinkedList<>();
+		when(mockPlanStore.writePlan(any(Iterator.class))).thenAnswer(invocation -> {
+			((Iterator<PlannedRange>) invocation.getArguments()[0]).forEachRemaining(written::add);
+			return (long) written.size();
+		});
+		// call under test
+		migrationDriver.planPrimaryTypes(primaryTypes);
+		assertEquals(Lists.newArrayList(missing, delta), written);
+		// phase two only compares the range common to both stacks.
+		TypeToMigrateMetadata common = MigrationDriverImpl.getCommonRange(primaryTypes.get(0)).get();
+		verify(mockChecksumChangeBuilder).buildAllRestoreJobsForMismatchedChecksums(Lists.newArrayList(common));
+		// nothing is restored or saved.
+		verify(mockRestoreJobQueue, never()).pushJob(any(DestinationJob.class));
+		verify(mockStateStore, never()).beginRun();
+		verify(mockStateStore, never()).save();
+	}
+
+	@Test
+	public void testEstimatePrimaryTypes() {
+		PlannedRange missing = new PlannedRange(MigrationType.NODE, 4L, 99L, 10L);
+		when(mockMissingFromDestinationBuilder.buildDestinationJobs(primaryTypes))
+				.thenReturn(Lists.<DestinationJob>newArrayList(new PlannedBackupJob(missing)).iterator());
+		List<PlannedRange> estimated = new LinkedList<>();
+		when(mockEstimator.estimate(any(Iterator.class))).thenAnswer(invocation -> {
+			((Iterator<PlannedRange>) invocation.getArguments()[0]).forEachRemaining(estimated::add);
+			return Collections.emptyList();
+		});
+		// call under test
+		migrationDriver.estimatePrimaryTypes(primaryTypes);
+		assertEquals(Lists.newArrayList(missing), estimated);
+		// checksums are not compared by default.
+		verify(mockChecksumChangeBuilder, never())
+				.buildAllRestoreJobsForMismatchedChecksums(anyListOf(TypeToMigrateMetadata.class));
+		verify(mockRestoreJobQueue, never()).pushJob(any(DestinationJob.class));
+		verify(mockStateStore, never()).beginRun();
+	}
+
+	@Test
+	public void testEstimatePrimaryTypesIncludingChecksums() {
+		when(mockConfig.isEstimateIncludingChecksums()).thenReturn(true);
+		PlannedRange missing = new PlannedRange(MigrationType.NODE, 4L, 99L, 10L);
+		PlannedRange delta = new PlannedRange(MigrationType.NODE, 1L, 4L, 3L);
+		when(mockMissingFromDestinationBuilder.buildDestinationJobs(primaryTypes))
+				.thenReturn(Lists.<DestinationJob>newArrayList(new PlannedBackupJob(missing)).iterator());
+		when(mockChecksumChangeBuilder.buildAllRestoreJobsForMismatchedChecksums(anyListOf(TypeToMigrateMetadata.class)))
+				.thenReturn(Lists.<DestinationJob>newArrayList(new PlannedBackupJob(delta)).iterator());
+		List<PlannedRange> estimated = new LinkedList<>();
+		when(mockEstimator.estimate(any(Iterator.class))).thenAnswer(invocation -> {
+			((Iterator<PlannedRange>) invocation.getArguments()[0]).forEachRemaining(estimated::add);
+			return Collections.emptyList();
+		});
+		// call under test
+		migrationDriver.estimatePrimaryTypes(primaryTypes);
+		assertEquals(Lists.newArrayList(missing, delta), estimated);
+		TypeToMigrateMetadata common = MigrationDriverImpl.getCommonRange(primaryTypes.get(0)).get();
+		verify(mockChecksumChangeBuilder).buildAllRestoreJobsForMismatchedChecksums(Lists.newArrayList(common));
+	}
+
+	@Test
+	public void testExecutePlan() {
+		Iterator<PlannedRange> plan = Lists.newArrayList(new PlannedRange(MigrationType.NODE, 4L, 99L, 10L)).iterator();
+		when(mockPlanStore.readPlan()).thenReturn(plan);
+		when(mockBackupJobExecutor.executePlannedBackups(plan)).thenReturn(missingJobs.iterator());
+		// call under test
+		migrationDriver.executePlan();
+		verify(mockStateStore).beginRun();
+		verify(mockRestoreJobQueue).pushJob(jobOne);
+		verify(mockRestoreJobQueue).pushJob(jobTwo);
+		verify(mockStateStore, never()).save();
+	}
+
+	@Test
+	public void testGetCommonRange() {
+		TypeToMigrateMetadata type = TypeToMigrateMetadata.builder(false)
+				.setSource(new MigrationTypeCount().setType(MigrationType.NODE).setMinid(1L).setMaxid(99L))
+				.setDest(new MigrationTypeCount().setType(MigrationType.NODE).setMinid(5L).setMaxid(120L)).build();
+		// call under test
+		TypeToMigrateMetadata common = MigrationDriverImpl.getCommonRange(type).get();
+		assertEquals(Long.valueOf(5L), common.getSrcMinId());
+		assertEquals(Long.valueOf(99L), common.getSrcMaxId());
+		assertEquals(Long.valueOf(5L), common.getDestMinId());
+		assertEquals(Long.valueOf(99L), common.getDestMaxId());
+	}
+
+	@Test
+	public void testGetCommonRangeNoOverlap() {
+		TypeToMigrateMetadata type = TypeToMigrateMetadata.builder(false)
+				.setSource(new MigrationTypeCount().setType(MigrationType.NODE).setMinid(1L).setMaxid(9L))
+				.setDest(new MigrationTypeCount().setType(MigrationType.NODE).setMinid(10L).setMaxid(20L)).build();
+		// call under test
+		assertEquals(Optional.empty(), MigrationDriverImpl.getCommonRange(type));
+	}
+
+	@Test
+	public void testGetCommonRangeEmptyDestination() {
+		TypeToMigrateMetadata type = TypeToMigrateMetadata.builder(false)
+				.setSource(new MigrationTypeCount().setType(MigrationType.NODE).setMinid(1L).setMaxid(9L))
+				.setDest(new MigrationTypeCount().setType(MigrationType.NODE)).build();
+		// call under test
+		assertEquals(Optional.empty(), MigrationDriverImpl.getCommonRange(type));
+	}
+
+	@Test
+	public void testPrioritizeTypes() {
+		TypeToMigrateMetadata change = createType(MigrationType.CHANGE, 1L, 1000L, null);
+		TypeToMigrateMetadata node = createType(MigrationType.NODE, 1L, 100L, null);
+		TypeToMigrateMetadata unknown = createType(MigrationType.ACCESS_APPROVAL, 1L, 100L, null);
+		TypeToMigrateMetadata file = createType(MigrationType.FILE_HANDLE, 1L, 1000L, 500L);
+		when(mockThroughputStore.getRowsPerSecond(MigrationType.CHANGE)).thenReturn(Optional.of(1.0));
+		// 100 rows at 10 rows/s
+		when(mockThroughputStore.getRowsPerSecond(MigrationType.NODE)).thenReturn(Optional.of(10.0));
+		// 500 rows at 10 rows/s
+		when(mockThroughputStore.getRowsPerSecond(MigrationType.FILE_HANDLE)).thenReturn(Optional.of(10.0));
+		// call under test
+		List<TypeToMigrateMetadata> prioritized = migrationDriver
+				.prioritizeTypes(Lists.newArrayList(change, node, unknown, file));
+		// only the types with a known throughput are reordered.
+		assertEquals(Lists.newArrayList(change, file, unknown, node), prioritized);
+	}
+
+	@Test
+	public void testPrioritizeTypesWithoutHistory() {
+		// call under test
+		assertEquals(primaryTypes, migrationDriver.prioritizeTypes(primaryTypes));
+	}
+
+	@Test
+	public void testGetExpectedRestoreMs() {
+		when(mockThroughputStore.getRowsPerSecond(MigrationType.NODE)).thenReturn(Optional.of(100.0));
+		// 94 of the 98 rows are above the destination's maximum ID.
+		assertEquals(Optional.of(940L), migrationDriver.getExpectedRestoreMs(primaryTypes.get(0)));
+		// the source is empty
+		assertEquals(Optional.of(0L), migrationDriver
+				.getExpectedRestoreMs(createType(MigrationType.NODE, null, null, null)));
+	}
+
+	@Test
+	public void testEstimateMissingRows() {
+		TypeToMigrateMetadata sparse = TypeToMigrateMetadata.builder(false)
+				.setSource(new MigrationTypeCount().setType(MigrationType.NODE).setMinid(1L).setMaxid(1000L)
+						.setCount(100L))
+				.setDest(new MigrationTypeCount().setType(MigrationType.NODE).setMinid(1L).setMaxid(500L))
+				.build();
+		// call under test
+		assertEquals(50L, MigrationDriverImpl.estimateMissingRows(sparse));
+		// without a row count each missing ID is a row.
+		assertEquals(500L, MigrationDriverImpl.estimateMissingRows(createType(MigrationType.NODE, 1L, 1000L, 500L)));
+		// nothing is missing.
+		assertEquals(0L, MigrationDriverImpl.estimateMissingRows(createType(MigrationType.NODE, 1L, 1000L, 1000L)));
+		// the destination is empty.
+		assertEquals(1000L, MigrationDriverImpl.estimateMissingRows(createType(MigrationType.NODE, 1L, 1000L, null)));
+	}
+
+	static TypeToMigrateMetadata createType(MigrationType type, Long srcMin, Long srcMax, Long destMax) {
+		return TypeToMigrateMetadata.builder(false)
+				.setSource(new MigrationTypeCount().setType(type).setMinid(srcMin).setMaxid(srcMax))
+				.setDest(new MigrationTypeCount().setType(type).setMinid(destMax != null ? 1L : null).setMaxid(destMax))
+				.build();
+	}
+
 }
@@ -64,7 +64,7 @@ public class MissingFromDestinationBuilderImplTest {
 		List<DestinationJob> batchTwo = Lists.newArrayList(
 				new RestoreDestinationJob(MigrationType.ACTIVITY, "three")
 		);
-		when(mockBackupJobExecutor.executeBackupJob(any(MigrationType.class), anyLong(), anyLong())).thenReturn(
+		when(mockBackupJobExecutor.startBackupJob(any(MigrationType.class), anyLong(), anyLong())).thenReturn(
 				batchOne.iterator(),
 				batchTwo.iterator()
 		);
@@ -114,6 +114,34 @@ public class MissingFromDestinationBuilderImplTest {
 		assertFalse(iterator.hasNext());
 	}
 
+	@Test
+	public void testBuildDestinationJobsFromIterator() {
+		TypeToMigrateMetadata one = TypeToMigrateMetadata.builder(isSourceReadOnly)
+				.setSource(
+						new MigrationTypeCount().setType(MigrationType.NODE).setMinid(1L).setMaxid(99L))
+				.setDest(new MigrationTypeCount().setType(MigrationType.NODE).setMinid(null).setMaxid(null))
+				.build();
+		
+		TypeToMigrateMetadata two = TypeToMigrateMetadata.builder(isSourceReadOnly)
+				.setSource(
+						new MigrationTypeCount().setType(MigrationType.ACTIVITY).setMinid(4L).setMaxid(7L))
+				.setDest(new MigrationTypeCount().setType(MigrationType.ACTIVITY).setMinid(null).setMaxid(null))
+				.build();
+		
+		Iterator<TypeToMigrateMetadata> primaryTypes = Lists.newArrayList(one, two).iterator();
+		// call under test
+		Iterator<DestinationJob> iterator = builder.buildDestinationJobs(primaryTypes);
+		// nothing is read until the jobs are requested.
+		assertTrue(primaryTypes.hasNext());
+		assertEquals("one", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		assertEquals("two", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		// the second type is only read once the jobs of the first are built.
+		assertTrue(primaryTypes.hasNext());
+		assertEquals("three", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		assertFalse(iterator.hasNext());
+		assertFalse(primaryTypes.hasNext());
+	}
+
 	@Test
 	public void testBuildDestinationJobsWithNullMin() {
 		TypeToMigrateMetadata one = TypeToMigrateMetadata.builder(isSourceReadOnly)
@@ -151,10 +179,37 @@ public class MissingFromDestinationBuilderImplTest {
 		restoreJob = (RestoreDestinationJob) job;
 		assertEquals(MigrationType.ACTIVITY, restoreJob.getMigrationType());
 		assertEquals("three", restoreJob.getBackupFileKey());
-		verify(mockBackupJobExecutor, times(2)).executeBackupJob(any(), minIdCaptor.capture(), maxIdCaptor.capture());
+		verify(mockBackupJobExecutor, times(2)).startBackupJob(any(), minIdCaptor.capture(), maxIdCaptor.capture());
 		assertEquals(Arrays.asList(5L, 3L), minIdCaptor.getAllValues());
 		assertEquals(Arrays.asList(20L, 9L), maxIdCaptor.getAllValues());
 
 		assertFalse(iterator.hasNext());
 	}
+
+	@Test
+	public void testBuildDestinationJobsConcurrentRangeCalculations() {
+		when(mockConfig.getMaxConcurrentRangeCalculations()).thenReturn(2);
+		TypeToMigrateMetadata one = TypeToMigrateMetadata.builder(isSourceReadOnly)
+				.setSource(
+						new MigrationTypeCount().setType(MigrationType.NODE).setMinid(1L).setMaxid(99L))
+				.setDest(new MigrationTypeCount().setType(MigrationType.NODE).setMinid(null).setMaxid(null))
+				.build();
+		
+		TypeToMigrateMetadata two = TypeToMigrateMetadata.builder(isSourceReadOnly)
+				.setSource(
+						new MigrationTypeCount().setType(MigrationType.ACTIVITY).setMinid(4L).setMaxid(7L))
+				.setDest(new MigrationTypeCount().setType(MigrationType.ACTIVITY).setMinid(null).setMaxid(null))
+				.build();
+		
+		Iterator<DestinationJob> iterator = builder.buildDestinationJobs(Lists.newArrayList(one, two));
+		// call under test
+		assertTrue(iterator.hasNext());
+		// the ranges of both types are started before the first job is returned.
+		verify(mockBackupJobExecutor).startBackupJob(MigrationType.NODE, 1L, 99L);
+		verify(mockBackupJobExecutor).startBackupJob(MigrationType.ACTIVITY, 4L, 7L);
+		assertEquals("one", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		assertEquals("two", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		assertEquals("three", ((RestoreDestinationJob) iterator.next()).getBackupFileKey());
+		assertFalse(iterator.hasNext());
+	}
 }
@@ -58,7 +58,7 @@ public class MissingFromDestinationIteratorTest {
 		List<DestinationJob> batchTwo = Lists.newArrayList(
 				two
 		);
-		when(mockBackupJobExecutor.executeBackupJob(any(MigrationType.class), anyLong(), anyLong())).thenReturn(
+		when(mockBackupJobExecutor.startBackupJob(any(MigrationType.class), anyLong(), anyLong())).thenReturn(
 				batchOne.iterator(),
 				batchTwo.iterator()
 		);
@@ -89,8 +89,8 @@ public class MissingFromDestinationIteratorTest {
 		assertEquals(one, iterator.next());
 		assertFalse(iterator.hasNext());
 		// should backup the full range for this case
-		verify(mockBackupJobExecutor).executeBackupJob(type, 1L, 99L);
-		verify(mockBackupJobExecutor, times(1)).executeBackupJob(any(MigrationType.class), anyLong(), anyLong());
+		verify(mockBackupJobExecutor).startBackupJob(type, 1L, 99L);
+		verify(mockBackupJobExecutor, times(1)).startBackupJob(any(MigrationType.class), anyLong(), anyLong());
 	}
 	
 	@Test
@@ -104,7 +104,7 @@ public class MissingFromDestinationIteratorTest {
 		// call under test
 		it.hasNext();
 
-		verify(mockBackupJobExecutor).executeBackupJob(type, 1L, 99L);
+		verify(mockBackupJobExecutor).startBackupJob(type, 1L, 99L);
 	}
 	
 	@Test
@@ -118,8 +118,8 @@ public class MissingFromDestinationIteratorTest {
 		assertEquals(one, iterator.next());
 		assertFalse(iterator.hasNext());
 		// should backup the full range for this case
-		verify(mockBackupJobExecutor).executeBackupJob(type, 1L, 11L);
-		verify(mockBackupJobExecutor, times(1)).executeBackupJob(any(MigrationType.class), anyLong(), anyLong());
+		verify(mockBackupJobExecutor).startBackupJob(type, 1L, 11L);
+		verify(mockBackupJobExecutor, times(1)).startBackupJob(any(MigrationType.class), anyLong(), anyLong());
 	}
 	
 	
@@ -134,8 +134,8 @@ public class MissingFromDestinationIteratorTest {
 		assertEquals(one, iterator.next());
 		assertFalse(iterator.hasNext());
 		// should backup the full range for this case
-		verify(mockBackupJobExecutor).executeBackupJob(type, 2L, 12L);
-		verify(mockBackupJobExecutor, times(1)).executeBackupJob(any(MigrationType.class), anyLong(), anyLong());
+		verify(mockBackupJobExecutor).startBackupJob(type, 2L, 12L);
+		verify(mockBackupJobExecutor, times(1)).startBackupJob(any(MigrationType.class), anyLong(), anyLong());
 	}
 	
 	@Test
@@ -149,8 +149,8 @@ public class MissingFromDestinationIteratorTest {
 		assertEquals(one, iterator.next());
 		assertFalse(iterator.hasNext());
 		// should backup the full range for this case
-		verify(mockBackupJobExecutor).executeBackupJob(type, 89L, 99L);
-		verify(mockBackupJobExecutor, times(1)).executeBackupJob(any(MigrationType.class), anyLong(), anyLong());
+		verify(mockBackupJobExecutor).startBackupJob(type, 89L, 99L);
+		verify(mockBackupJobExecutor, times(1)).startBackupJob(any(MigrationType.class), anyLong(), anyLong());
 	}
 	
 	@Test
@@ -164,8 +164,8 @@ public class MissingFromDestinationIteratorTest {
 		assertEquals(one, iterator.next());
 		assertFalse(iterator.hasNext());
 		// should backup the full range for this case
-		verify(mockBackupJobExecutor).executeBackupJob(type, 99L, 102L);
-		verify(mockBackupJobExecutor, times(1)).executeBackupJob(any(MigrationType.class), anyLong(), anyLong());
+		verify(mockBackupJobExecutor).startBackupJob(type, 99L, 102L);
+		verify(mockBackupJobExecutor, times(1)).startBackupJob(any(MigrationType.class), anyLong(), anyLong());
 	}
 	
 	@Test
@@ -182,9 +182,9 @@ public class MissingFromDestinationIteratorTest {
 		assertFalse(iterator.hasNext());
 		
 		// should backup the full range for this case
-		verify(mockBackupJobExecutor).executeBackupJob(type, 1L, 25L);
-		verify(mockBackupJobExecutor).executeBackupJob(type, 51L, 99L);
-		verify(mockBackupJobExecutor, times(2)).executeBackupJob(any(MigrationType.class), anyLong(), anyLong());
+		verify(mockBackupJobExecutor).startBackupJob(type, 1L, 25L);
+		verify(mockBackupJobExecutor).startBackupJob(type, 51L, 99L);
+		verify(mockBackupJobExecutor, times(2)).startBackupJob(any(MigrationType.class), anyLong(), anyLong());
 	}
 
 	@Test
@@ -197,7 +197,25 @@ public class MissingFromDestinationIteratorTest {
 
 		assertTrue(iterator.hasNext());
 
-		verify(mockBackupJobExecutor).executeBackupJob(type, 1L, 8L);
+		verify(mockBackupJobExecutor).startBackupJob(type, 1L, 8L);
+	}
+
+	@Test
+	public void testStart() {
+		TypeToMigrateMetadata ranges = TypeToMigrateMetadata.builder(isSourceReadOnly)
+				.setSource(new MigrationTypeCount().setType(type).setMinid(1L).setMaxid(99L).setCount(98L))
+				.setDest(new MigrationTypeCount().setType(type).setMinid(1L).setMaxid(89L).setCount(88L)).build();
+
+		MissingFromDestinationIterator iterator = new MissingFromDestinationIterator(mockConfig, mockBackupJobExecutor, ranges);
+		// call under test
+		iterator.start();
+		verify(mockBackupJobExecutor).startBackupJob(type, 89L, 99L);
+		iterator.start();
+		assertTrue(iterator.hasNext());
+		assertEquals(one, iterator.next());
+		assertFalse(iterator.hasNext());
+		// the range calculation is only started once.
+		verify(mockBackupJobExecutor, times(1)).startBackupJob(any(MigrationType.class), anyLong(), anyLong());
 	}
 
 }
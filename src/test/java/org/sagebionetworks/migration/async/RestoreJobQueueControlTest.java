@@ -0,0 +1,126 @@
+package org.sagebionetworks.migration.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.estimate.MigrationProgress;
+import org.sagebionetworks.migration.estimate.TypeThroughputStore;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorder;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.shard.LocalRestoreLeaseCoordinator;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RestoreJobQueueControlTest {
+
+	@Mock
+	DestinationJobExecutor mockJobExecutor;
+	@Mock
+	TypeThroughputStore mockThroughputStore;
+	@Mock
+	MigrationProgress mockProgress;
+	@Mock
+	MigrationMetrics mockMetrics;
+	@Mock
+	JobTimelineRecorder mockTimelineRecorder;
+	@Mock
+	Clock mockClock;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	RestoreJobQueueImpl queue;
+	RestoreJobQueueControl control;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		queue = new RestoreJobQueueImpl(mockJobExecutor, new LocalRestoreLeaseCoordinator(), mockThroughputStore,
+				mockProgress, mockMetrics, mockTimelineRecorder, mockClock, mockLoggerFactory);
+		control = new RestoreJobQueueControl(queue);
+	}
+
+	@Test
+	public void testControls() {
+		queue.pushJob(new RestoreDestinationJob(MigrationType.NODE, "one"));
+		queue.pushJob(new RestoreDestinationJob(MigrationType.NODE, "two"));
+		// call under test
+		control.pauseType("node");
+		control.deprioritizeType("ACL");
+		control.setMaxRunningJobs(3);
+		control.setPollIntervalMs(5000L);
+		assertEquals(Collections.singletonMap("NODE", 2), control.getWaitingJobs());
+		assertEquals(Collections.emptyMap(), control.getRunningJobs());
+		assertEquals(Arrays.asList("NODE"), control.getPausedTypes());
+		assertEquals(Arrays.asList("ACL"), control.getDeprioritizedTypes());
+		assertEquals(3, control.getMaxRunningJobs());
+		assertEquals(5000L, control.getPollIntervalMs());
+		control.resumeType("NODE");
+		control.restoreTypePriority("ACL");
+		assertEquals(Collections.emptyList(), control.getPausedTypes());
+		assertEquals(Collections.emptyList(), control.getDeprioritizedTypes());
+	}
+
+	@Test
+	public void testParseTypeUnknown() {
+		try {
+			// call under test
+			RestoreJobQueueControl.parseType("notAType");
+			fail();
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testRegister() throws JMException {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		queue.pushJob(new RestoreDestinationJob(MigrationType.NODE, "one"));
+		// call under test
+		ObjectName name = control.register(server, "https://repo-staging.prod.sagebase.org/repo/v1");
+		assertEquals(RestoreJobQueueControl.DOMAIN, name.getDomain());
+		server.invoke(name, "pauseType", new Object[] { "NODE" }, new String[] { String.class.getName() });
+		assertEquals(Collections.singleton(MigrationType.NODE), queue.getPausedTypes());
+		TabularData waiting = (TabularData) server.getAttribute(name, "WaitingJobs");
+		CompositeData row = (CompositeData) waiting.values().iterator().next();
+		assertEquals("NODE", row.get("key"));
+		assertEquals(1, row.get("value"));
+	}
+
+	@Test
+	public void testRegisterReplacesStaleControl() throws JMException {
+		MBeanServer server = MBeanServerFactory.newMBeanServer();
+		String endpoint = "https://repo-staging.prod.sagebase.org/repo/v1";
+		control.register(server, endpoint);
+		RestoreJobQueueImpl liveQueue = new RestoreJobQueueImpl(mockJobExecutor, new LocalRestoreLeaseCoordinator(),
+				mockThroughputStore, mockProgress, mockMetrics, mockTimelineRecorder, mockClock, mockLoggerFactory);
+		// call under test
+		ObjectName name = new RestoreJobQueueControl(liveQueue).register(server, endpoint);
+		assertEquals(1, server.queryNames(name, null).size());
+		server.invoke(name, "pauseType", new Object[] { "NODE" }, new String[] { String.class.getName() });
+		// the control is bound to the live queue.
+		assertEquals(Collections.singleton(MigrationType.NODE), liveQueue.getPausedTypes());
+		assertEquals(Collections.emptySet(), queue.getPausedTypes());
+	}
+}
@@ -2,12 +2,19 @@ package org.sagebionetworks.migration.async;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -15,11 +22,25 @@ import org.apache.logging.log4j.Logger;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.migration.AsyncMigrationException;
 import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.estimate.MigrationProgress;
+import org.sagebionetworks.migration.estimate.TypeThroughputStore;
+import org.sagebionetworks.migration.metrics.JobTimelineRecorder;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.metrics.jfr.DispatchDecision;
+import org.sagebionetworks.migration.metrics.jfr.EventRecording;
+import org.sagebionetworks.migration.metrics.jfr.RestoreDispatchEvent;
+import org.sagebionetworks.migration.shard.LocalRestoreLeaseCoordinator;
+import org.sagebionetworks.migration.shard.RestoreLeaseCoordinator;
 import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RestoreTypeResponse;
+import org.sagebionetworks.util.Clock;
+
+import jdk.jfr.consumer.RecordedEvent;
 
 @RunWith(MockitoJUnitRunner.class)
 public class RestoreJobQueueImplTest {
@@ -40,7 +61,20 @@ public class RestoreJobQueueImplTest {
 	Future mockAclTwoFuture;
 	@Mock
 	Future mockChangeFuture;
+	@Mock
+	TypeThroughputStore mockThroughputStore;
+	@Mock
+	MigrationProgress mockProgress;
+	@Mock
+	MigrationMetrics mockMetrics;
+	@Mock
+	JobTimelineRecorder mockTimelineRecorder;
+	@Mock
+	Clock mockClock;
+	@Mock
+	RestoreLeaseCoordinator mockLeaseCoordinator;
 
+	RestoreLeaseCoordinator leaseCoordinator;
 	RestoreJobQueueImpl queue;
 
 	RestoreDestinationJob nodeOne;
@@ -53,7 +87,9 @@ public class RestoreJobQueueImplTest {
 	@Before
 	public void before() {
 		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
-		queue = new RestoreJobQueueImpl(mockJobExecutor, mockLoggerFactory);
+		leaseCoordinator = new LocalRestoreLeaseCoordinator();
+		queue = new RestoreJobQueueImpl(mockJobExecutor, leaseCoordinator, mockThroughputStore, mockProgress,
+				mockMetrics, mockTimelineRecorder, mockClock, mockLoggerFactory);
 
 		nodeOne = new RestoreDestinationJob(MigrationType.NODE, "keyOne");
 		nodeTwo = new RestoreDestinationJob(MigrationType.NODE, "keyTwo");
@@ -84,8 +120,10 @@ public class RestoreJobQueueImplTest {
 		queue.pushJob(aclTwo);
 
 		// Fire the timer until all jobs are done
+		int maxRunning = 0;
 		while (!queue.isDone()) {
 			queue.timerFired();
+			maxRunning = Math.max(maxRunning, queue.getRunningJobMs().size());
 		}
 
 		// all four jobs should be started
@@ -94,11 +132,7 @@ public class RestoreJobQueueImplTest {
 		verify(mockJobExecutor).startDestinationJob(nodeTwo);
 		verify(mockJobExecutor).startDestinationJob(aclOne);
 		verify(mockJobExecutor).startDestinationJob(aclTwo);
-
-		verify(mockLogger, times(3)).info("Currently running: 2 restore jobs.  Waiting to start 2 restore jobs.");
-		verify(mockLogger, times(1)).info("Currently running: 2 restore jobs.  Waiting to start 1 restore jobs.");
-		verify(mockLogger, times(2)).info("Currently running: 2 restore jobs.  Waiting to start 0 restore jobs.");
-		verify(mockLogger, times(1)).info("Currently running: 1 restore jobs.  Waiting to start 0 restore jobs.");
+		assertEquals(2, maxRunning);
 	}
 	
 	/**
@@ -112,18 +146,17 @@ public class RestoreJobQueueImplTest {
 		queue.pushJob(changeJob);
 
 		// Fire the timer until all jobs are done
+		int maxRunning = 0;
 		while (!queue.isDone()) {
 			queue.timerFired();
+			maxRunning = Math.max(maxRunning, queue.getRunningJobMs().size());
 		}
 		
 		verify(mockJobExecutor, times(3)).startDestinationJob(any(DestinationJob.class));
 		verify(mockJobExecutor).startDestinationJob(nodeOne);
 		verify(mockJobExecutor).startDestinationJob(aclOne);
 		verify(mockJobExecutor).startDestinationJob(changeJob);
-
-		verify(mockLogger, times(3)).info("Currently running: 2 restore jobs.  Waiting to start 1 restore jobs.");
-		verify(mockLogger, times(1)).info("Currently running: 1 restore jobs.  Waiting to start 1 restore jobs.");
-		verify(mockLogger, times(2)).info("Currently running: 1 restore jobs.  Waiting to start 0 restore jobs.");
+		assertEquals(2, maxRunning);
 	}
 	
 	@Test
@@ -223,4 +256,246 @@ public class RestoreJobQueueImplTest {
 		}
 	}
 	
+	/**
+	 * A type leased by another shard cannot be restored until the lease is
+	 * released.
+	 */
+	@Test
+	public void testLeaseHeldByAnotherShard() {
+		// another shard sharing the coordinator is restoring nodes.
+		leaseCoordinator.tryAcquire(MigrationType.NODE);
+		queue.pushJob(nodeOne);
+		queue.pushJob(aclOne);
+		queue.timerFired();
+		verify(mockJobExecutor, never()).startDestinationJob(nodeOne);
+		verify(mockJobExecutor).startDestinationJob(aclOne);
+		// the other shard finishes.
+		leaseCoordinator.release(MigrationType.NODE);
+		while (!queue.isDone()) {
+			queue.timerFired();
+		}
+		verify(mockJobExecutor).startDestinationJob(nodeOne);
+		// all leases are released once the jobs finish.
+		assertTrue(leaseCoordinator.tryAcquire(MigrationType.CHANGE));
+	}
+
+	/**
+	 * Another worker may restore a type once its lease is lost, so the run must
+	 * fail.
+	 */
+	@Test
+	public void testLostLease() throws Exception {
+		queue = new RestoreJobQueueImpl(mockJobExecutor, mockLeaseCoordinator, mockThroughputStore, mockProgress,
+				mockMetrics, mockTimelineRecorder, mockClock, mockLoggerFactory);
+		when(mockLeaseCoordinator.tryAcquire(MigrationType.NODE)).thenReturn(true);
+		when(mockLeaseCoordinator.renewAll()).thenReturn(Collections.<MigrationType>emptySet(),
+				EnumSet.of(MigrationType.NODE), Collections.<MigrationType>emptySet());
+		when(mockNodeOneFuture.isDone()).thenReturn(false, true);
+		queue.pushJob(nodeOne);
+		queue.timerFired();
+		verify(mockJobExecutor).startDestinationJob(nodeOne);
+		// call under test
+		queue.timerFired();
+		try {
+			while (!queue.isDone()) {
+				queue.timerFired();
+			}
+			fail();
+		} catch (AsyncMigrationException e) {
+			assertTrue(e.getMessage().contains("Lost the restore leases of: [NODE]"));
+		}
+	}
+
+	@Test
+	public void testLeaseReleasedWhenStartFails() {
+		when(mockJobExecutor.startDestinationJob(nodeOne)).thenThrow(new AsyncMigrationException("failed"));
+		queue.pushJob(nodeOne);
+		// call under test
+		queue.timerFired();
+		assertTrue(leaseCoordinator.tryAcquire(MigrationType.NODE));
+	}
+
+	@Test
+	public void testRecordFinishedJob() throws Exception {
+		// pushed at 400, started at 1000 and finished at 3500.
+		when(mockClock.currentTimeMillis()).thenReturn(400L, 1000L, 3500L);
+		when(mockNodeOneFuture.get()).thenReturn(new RestoreTypeResponse().setRestoredRowCount(50L));
+		queue.pushJob(nodeOne);
+		while (!queue.isDone()) {
+			queue.timerFired();
+		}
+		verify(mockThroughputStore).recordRestore(MigrationType.NODE, 50L, 2500L);
+		verify(mockProgress).jobFinished(MigrationType.NODE, 50L, 2500L);
+		verify(mockMetrics).recordQueueWait(MigrationType.NODE, 600L);
+		verify(mockTimelineRecorder).restoreDequeued(MigrationType.NODE, 400L);
+	}
+
+	@Test
+	public void testRecordFinishedJobNoResult() throws Exception {
+		queue.pushJob(nodeTwo);
+		while (!queue.isDone()) {
+			queue.timerFired();
+		}
+		verify(mockThroughputStore, never()).recordRestore(any(MigrationType.class), anyLong(), anyLong());
+		// the job still counts as a completed range.
+		verify(mockProgress).jobFinished(MigrationType.NODE, 0L, 0L);
+	}
+
+	@Test
+	public void testDispatchEvents() throws Exception {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		queue.pushJob(nodeOne);
+		queue.pushJob(nodeTwo);
+		queue.pushJob(changeJob);
+		try (EventRecording recording = new EventRecording(RestoreDispatchEvent.class)) {
+			// call under test
+			queue.startEligibleJobs();
+			// an unchanged reason is not recorded again.
+			queue.startEligibleJobs();
+			List<RecordedEvent> events = recording.stop(RestoreDispatchEvent.class);
+			assertEquals(3, events.size());
+			assertEquals(MigrationType.NODE.name(), events.get(0).getString("migrationType"));
+			assertEquals(DispatchDecision.STARTED.name(), events.get(0).getString("decision"));
+			assertEquals(1, events.get(0).getInt("runningJobs"));
+			assertEquals(2, events.get(0).getInt("waitingJobs"));
+			assertEquals(DispatchDecision.SAME_TYPE_RUNNING.name(), events.get(1).getString("decision"));
+			assertEquals(MigrationType.CHANGE.name(), events.get(2).getString("migrationType"));
+			assertEquals(DispatchDecision.CHANGE_BARRIER.name(), events.get(2).getString("decision"));
+		}
+	}
+
+	@Test
+	public void testPausedType() {
+		queue.setPaused(MigrationType.NODE, true);
+		queue.pushJob(nodeOne);
+		queue.pushJob(aclOne);
+		// call under test
+		queue.startEligibleJobs();
+		verify(mockJobExecutor, never()).startDestinationJob(nodeOne);
+		verify(mockJobExecutor).startDestinationJob(aclOne);
+		assertEquals(Collections.singletonMap(MigrationType.NODE, 1), queue.getWaitingJobCounts());
+		// resuming the type starts its jobs.
+		queue.setPaused(MigrationType.NODE, false);
+		queue.startEligibleJobs();
+		verify(mockJobExecutor).startDestinationJob(nodeOne);
+	}
+
+	@Test
+	public void testDeprioritizedType() {
+		queue.setDeprioritized(MigrationType.NODE, true);
+		queue.pushJob(nodeOne);
+		queue.pushJob(aclOne);
+		queue.pushJob(aclTwo);
+		// call under test
+		queue.startEligibleJobs();
+		verify(mockJobExecutor, never()).startDestinationJob(nodeOne);
+		verify(mockJobExecutor).startDestinationJob(aclOne);
+		while (!queue.isDone()) {
+			queue.timerFired();
+		}
+		// the node job starts once no ACL jobs are waiting.
+		InOrder inOrder = inOrder(mockJobExecutor);
+		inOrder.verify(mockJobExecutor).startDestinationJob(aclTwo);
+		inOrder.verify(mockJobExecutor).startDestinationJob(nodeOne);
+	}
+
+	@Test
+	public void testDeprioritizedTypeWithPausedType() {
+		queue.setDeprioritized(MigrationType.NODE, true);
+		queue.setPaused(MigrationType.ACL, true);
+		queue.pushJob(nodeOne);
+		queue.pushJob(aclOne);
+		// call under test
+		queue.startEligibleJobs();
+		// the jobs of paused types do not hold back deprioritized types.
+		verify(mockJobExecutor).startDestinationJob(nodeOne);
+		verify(mockJobExecutor, never()).startDestinationJob(aclOne);
+	}
+
+	@Test
+	public void testMaxRunningJobs() {
+		queue.setMaxRunningJobs(1);
+		queue.pushJob(nodeOne);
+		queue.pushJob(aclOne);
+		// call under test
+		queue.startEligibleJobs();
+		verify(mockJobExecutor).startDestinationJob(nodeOne);
+		verify(mockJobExecutor, never()).startDestinationJob(aclOne);
+		// removing the cap starts the waiting job.
+		queue.setMaxRunningJobs(0);
+		queue.startEligibleJobs();
+		verify(mockJobExecutor).startDestinationJob(aclOne);
+	}
+
+	@Test
+	public void testGetRunningJobMs() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1000L, 4000L);
+		queue.pushJob(nodeOne);
+		queue.startEligibleJobs();
+		// call under test
+		assertEquals(Collections.singletonMap(MigrationType.NODE, 3000L), queue.getRunningJobMs());
+	}
+
+	@Test
+	public void testRunPollInterval() {
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 0L, 0L, 500L, 700L);
+		queue.pushJob(nodeOne);
+		queue.setPollIntervalMs(500L);
+		// call under test
+		queue.run();
+		verify(mockJobExecutor).startDestinationJob(nodeOne);
+		queue.run();
+		// the interval has passed.
+		verify(mockNodeOneFuture, times(1)).isDone();
+		queue.run();
+		// too soon.
+		verify(mockNodeOneFuture, times(1)).isDone();
+	}
+
+	@Test
+	public void testRunRenewsLeasesBetweenPolls() {
+		queue = new RestoreJobQueueImpl(mockJobExecutor, mockLeaseCoordinator, mockThroughputStore, mockProgress,
+				mockMetrics, mockTimelineRecorder, mockClock, mockLoggerFactory);
+		when(mockLeaseCoordinator.renewAll()).thenReturn(Collections.<MigrationType>emptySet());
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 100L, 1000L, 1100L);
+		// a poll interval longer than the lease timeout.
+		queue.setPollIntervalMs(3600000L);
+		// call under test
+		queue.run();
+		verify(mockLeaseCoordinator, times(1)).renewAll();
+		queue.run();
+		// too soon.
+		verify(mockLeaseCoordinator, times(1)).renewAll();
+		queue.run();
+		// renewed without a poll.
+		verify(mockLeaseCoordinator, times(2)).renewAll();
+		queue.run();
+		verify(mockLeaseCoordinator, times(2)).renewAll();
+	}
+
+	@Test
+	public void testRunLostLeaseBetweenPolls() {
+		queue = new RestoreJobQueueImpl(mockJobExecutor, mockLeaseCoordinator, mockThroughputStore, mockProgress,
+				mockMetrics, mockTimelineRecorder, mockClock, mockLoggerFactory);
+		when(mockLeaseCoordinator.renewAll()).thenReturn(Collections.<MigrationType>emptySet(),
+				EnumSet.of(MigrationType.NODE));
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 1000L);
+		queue.setPollIntervalMs(3600000L);
+		queue.run();
+		// call under test
+		queue.run();
+		try {
+			queue.isDone();
+			fail();
+		} catch (AsyncMigrationException e) {
+			assertTrue(e.getMessage().contains("Lost the restore leases of: [NODE]"));
+		}
+	}
+
+	@Test
+	public void testSetPollIntervalMsMinimum() {
+		// call under test
+		queue.setPollIntervalMs(1L);
+		assertEquals(RestoreJobQueueImpl.TIMER_PERIOD_MS, queue.getPollIntervalMs());
+	}
 }
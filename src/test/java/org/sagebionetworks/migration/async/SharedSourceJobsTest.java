@@ -0,0 +1,126 @@
+package org.sagebionetworks.migration.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.function.Supplier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.AsyncMigrationException;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
+import org.sagebionetworks.repo.model.migration.CalculateOptimalRangeRequest;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SharedSourceJobsTest {
+
+	@Mock
+	Supplier<AsynchronousJobStatus> mockStarter;
+
+	AsynchronousJobStatus firstStatus;
+	AsynchronousJobStatus retryStatus;
+	CalculateOptimalRangeRequest rangeRequest;
+	BackupTypeRangeRequest backupRequest;
+	Object destinationOne;
+	Object destinationTwo;
+	Object destinationThree;
+
+	SharedSourceJobs sharedJobs;
+
+	@Before
+	public void before() {
+		rangeRequest = new CalculateOptimalRangeRequest().setMigrationType(MigrationType.NODE).setMinimumId(1L)
+				.setMaximumId(99L);
+		backupRequest = new BackupTypeRangeRequest().setMigrationType(MigrationType.NODE).setMinimumId(1L)
+				.setMaximumId(99L);
+		firstStatus = new AsynchronousJobStatus().setJobId("1");
+		retryStatus = new AsynchronousJobStatus().setJobId("2");
+		when(mockStarter.get()).thenReturn(firstStatus, retryStatus);
+		destinationOne = new Object();
+		destinationTwo = new Object();
+		destinationThree = new Object();
+		sharedJobs = new SharedSourceJobs();
+		sharedJobs.setEnabled(true, 3);
+	}
+
+	@Test
+	public void testStartSourceJobShared() {
+		// call under test
+		assertEquals(firstStatus, sharedJobs.startSourceJob(rangeRequest, destinationOne, mockStarter));
+		// an equal request from another destination.
+		CalculateOptimalRangeRequest equalRequest = new CalculateOptimalRangeRequest()
+				.setMigrationType(MigrationType.NODE).setMinimumId(1L).setMaximumId(99L);
+		assertEquals(firstStatus, sharedJobs.startSourceJob(equalRequest, destinationTwo, mockStarter));
+		assertEquals(1L, sharedJobs.jobs.size());
+		assertEquals(firstStatus, sharedJobs.startSourceJob(equalRequest, destinationThree, mockStarter));
+		verify(mockStarter, times(1)).get();
+		// the job is discarded once every destination has it.
+		assertEquals(0L, sharedJobs.jobs.size());
+	}
+
+	@Test
+	public void testStartSourceJobDisabled() {
+		sharedJobs.setEnabled(false, 3);
+		// call under test
+		assertEquals(firstStatus, sharedJobs.startSourceJob(rangeRequest, destinationOne, mockStarter));
+		assertEquals(retryStatus, sharedJobs.startSourceJob(rangeRequest, destinationTwo, mockStarter));
+		verify(mockStarter, times(2)).get();
+		assertEquals(0L, sharedJobs.jobs.size());
+	}
+
+	@Test
+	public void testStartSourceJobBackupNotShared() {
+		// call under test
+		sharedJobs.startSourceJob(backupRequest, destinationOne, mockStarter);
+		sharedJobs.startSourceJob(backupRequest, destinationTwo, mockStarter);
+		verify(mockStarter, times(2)).get();
+	}
+
+	@Test
+	public void testStartSourceJobRepeatedByDestination() {
+		sharedJobs.startSourceJob(rangeRequest, destinationOne, mockStarter);
+		// call under test
+		assertEquals(retryStatus, sharedJobs.startSourceJob(rangeRequest, destinationOne, mockStarter));
+		// the retry is shared.
+		assertEquals(retryStatus, sharedJobs.startSourceJob(rangeRequest, destinationTwo, mockStarter));
+		verify(mockStarter, times(2)).get();
+	}
+
+	@Test
+	public void testStartSourceJobNeverRepeated() {
+		// each destination requests its own range.
+		for (long i = 0; i < SharedSourceJobs.MAX_SHARED_JOBS * 2; i++) {
+			CalculateOptimalRangeRequest request = new CalculateOptimalRangeRequest()
+					.setMigrationType(MigrationType.NODE).setMinimumId(i).setMaximumId(i + 1);
+			// call under test
+			sharedJobs.startSourceJob(request, destinationOne, mockStarter);
+		}
+		// the jobs that are never shared are bounded.
+		assertTrue(sharedJobs.jobs.size() <= SharedSourceJobs.MAX_SHARED_JOBS);
+	}
+
+	@Test
+	public void testStartSourceJobStartFailed() {
+		AsyncMigrationException exception = new AsyncMigrationException("failed");
+		when(mockStarter.get()).thenThrow(exception).thenReturn(retryStatus);
+		try {
+			// call under test
+			sharedJobs.startSourceJob(rangeRequest, destinationOne, mockStarter);
+			fail();
+		} catch (AsyncMigrationException e) {
+			assertEquals(exception, e);
+		}
+		// a job that failed to start is started again.
+		assertEquals(retryStatus, sharedJobs.startSourceJob(rangeRequest, destinationTwo, mockStarter));
+		verify(mockStarter, times(2)).get();
+	}
+}
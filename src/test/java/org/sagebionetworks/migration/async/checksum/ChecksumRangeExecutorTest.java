@@ -7,9 +7,12 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -21,7 +24,12 @@ import org.sagebionetworks.migration.async.BackupJobExecutor;
 import org.sagebionetworks.migration.async.RestoreDestinationJob;
 import org.sagebionetworks.migration.async.DestinationJob;
 import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.state.DestinationChecksums;
+import org.sagebionetworks.migration.state.MigrationStateStore;
+import org.sagebionetworks.migration.state.VerifiedTypeState;
 import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
+import org.sagebionetworks.repo.model.migration.AdminRequest;
 import org.sagebionetworks.repo.model.migration.AdminResponse;
 import org.sagebionetworks.repo.model.migration.BatchChecksumRequest;
 import org.sagebionetworks.repo.model.migration.BatchChecksumResponse;
@@ -38,6 +46,14 @@ public class ChecksumRangeExecutorTest {
 	AsynchronousJobExecutor mockAsynchronousJobExecutor;
 	@Mock
 	BackupJobExecutor mockBackupJobExecutor;
+	@Mock
+	MigrationStateStore mockStateStore;
+	@Mock
+	RestoredBinVerifier mockRestoredBinVerifier;
+	@Mock
+	MigrationMetrics mockMetrics;
+	@Mock
+	Future<BatchChecksumResponse> mockSourceFuture;
 
 	Long batchSize;
 	MigrationType type;
@@ -52,6 +68,7 @@ public class ChecksumRangeExecutorTest {
 	RangeChecksum srcTwo;
 	RangeChecksum destOne;
 
+	TypeToMigrateMetadata metadata;
 	ChecksumRangeExecutor extractor;
 
 	@Before
@@ -107,12 +124,14 @@ public class ChecksumRangeExecutorTest {
 		resultPair.setSourceResult(sourceResponse);
 		resultPair.setDestinationResult(destinationResponse);
 		when(mockAsynchronousJobExecutor.executeSourceAndDestinationJob(any(), any())).thenReturn(resultPair);
+		when(mockStateStore.getDestinationChecksums(any(MigrationType.class), anyLong(), anyString()))
+				.thenReturn(Optional.empty());
 		
-		TypeToMigrateMetadata metadata = TypeToMigrateMetadata.builder(false)
+		metadata = TypeToMigrateMetadata.builder(false)
 				.setSource(new MigrationTypeCount().setMinid(minimumId).setMaxid(maximumId).setType(type))
 				.setDest(new MigrationTypeCount().setType(type)).build();
 
-		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, batchSize, metadata, salt);
+		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, mockStateStore, mockRestoredBinVerifier, mockMetrics, batchSize, metadata, salt, null, Optional.empty());
 	}
 
 	@Test
@@ -228,6 +247,157 @@ public class ChecksumRangeExecutorTest {
 
 		verify(mockAsynchronousJobExecutor).executeSourceAndDestinationJob(expectedRequest,
 				BatchChecksumResponse.class);
+		verify(mockMetrics).recordMismatchedBins(type, 2L);
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesRecordsPendingState() {
+		// call under test
+		extractor.findAllMismatchedRanges();
+		verify(mockStateStore).recordPendingState(
+				new VerifiedTypeState(type, batchSize, salt, maximumId, Lists.newArrayList(srcOne, srcTwo)));
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesRecordsComparison() {
+		// call under test
+		extractor.findAllMismatchedRanges();
+		BatchChecksumRequest expectedRequest = new BatchChecksumRequest();
+		expectedRequest.setMigrationType(this.type);
+		expectedRequest.setBatchSize(this.batchSize);
+		expectedRequest.setMinimumId(this.minimumId);
+		expectedRequest.setMaximumId(this.maximumId);
+		expectedRequest.setSalt(this.salt);
+		verify(mockRestoredBinVerifier).recordComparison(expectedRequest, Lists.newArrayList(srcOne, srcTwo), true);
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesIncremental() {
+		// bin zero changed on the source since the last run.
+		RangeChecksum verifiedOne = copy(srcOne);
+		verifiedOne.setChecksum("changed on source");
+		RangeChecksum verifiedTwo = copy(srcTwo);
+		// bin two was deleted from the source since the last run.
+		RangeChecksum verifiedThree = copy(srcTwo);
+		verifiedThree.setBinNumber(2L);
+		// bin four contains the high-water mark so it is compared on both stacks.
+		RangeChecksum verifiedFour = copy(srcTwo);
+		verifiedFour.setBinNumber(4L);
+		VerifiedTypeState verified = new VerifiedTypeState(type, batchSize, "oldSalt", 49L,
+				Lists.newArrayList(verifiedOne, verifiedTwo, verifiedThree, verifiedFour));
+
+		when(mockAsynchronousJobExecutor.executeSourceJob(any(AdminRequest.class), any()))
+				.thenReturn(new BatchChecksumResponse().setCheksums(Lists.newArrayList(srcOne, srcTwo)));
+		RangeChecksum srcFive = copy(srcTwo);
+		srcFive.setBinNumber(5L);
+		ResultPair<AdminResponse> resultPair = new ResultPair<>();
+		resultPair.setSourceResult(new BatchChecksumResponse().setCheksums(Lists.newArrayList(srcFive)));
+		resultPair.setDestinationResult(new BatchChecksumResponse().setCheksums(Lists.newArrayList(copy(srcFive))));
+		when(mockAsynchronousJobExecutor.executeSourceAndDestinationJob(any(), any())).thenReturn(resultPair);
+
+		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, mockStateStore, mockRestoredBinVerifier, mockMetrics, batchSize, metadata, salt, null, Optional.of(verified));
+		// call under test
+		Iterator<RangeChecksum> result = extractor.findAllMismatchedRanges();
+		assertNotNull(result);
+		assertEquals(srcOne, result.next());
+		assertEquals(verifiedThree, result.next());
+		assertFalse(result.hasNext());
+
+		// the verified bins are only computed on the source using the verified salt.
+		BatchChecksumRequest expectedSourceRequest = new BatchChecksumRequest();
+		expectedSourceRequest.setMigrationType(this.type);
+		expectedSourceRequest.setBatchSize(this.batchSize);
+		expectedSourceRequest.setMinimumId(this.minimumId);
+		expectedSourceRequest.setMaximumId(39L);
+		expectedSourceRequest.setSalt("oldSalt");
+		verify(mockAsynchronousJobExecutor).executeSourceJob(expectedSourceRequest, BatchChecksumResponse.class);
+
+		BatchChecksumRequest expectedRequest = new BatchChecksumRequest();
+		expectedRequest.setMigrationType(this.type);
+		expectedRequest.setBatchSize(this.batchSize);
+		expectedRequest.setMinimumId(40L);
+		expectedRequest.setMaximumId(this.maximumId);
+		expectedRequest.setSalt("oldSalt");
+		verify(mockAsynchronousJobExecutor).executeSourceAndDestinationJob(expectedRequest,
+				BatchChecksumResponse.class);
+
+		verify(mockStateStore).recordPendingState(new VerifiedTypeState(type, batchSize, "oldSalt", maximumId,
+				Lists.newArrayList(srcOne, srcTwo, srcFive)));
+		// the verified bins were not computed on the destination.
+		verify(mockRestoredBinVerifier).recordComparison(any(BatchChecksumRequest.class), any(), eq(false));
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesIncrementalHighWaterMarkInFirstBin() {
+		VerifiedTypeState verified = new VerifiedTypeState(type, batchSize, "oldSalt", 5L,
+				Lists.newArrayList(copy(srcOne)));
+		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, mockStateStore, mockRestoredBinVerifier, mockMetrics, batchSize, metadata, salt, null, Optional.of(verified));
+		// call under test
+		extractor.findAllMismatchedRanges();
+
+		verify(mockAsynchronousJobExecutor, never()).executeSourceJob(any(AdminRequest.class), any());
+		BatchChecksumRequest expectedRequest = new BatchChecksumRequest();
+		expectedRequest.setMigrationType(this.type);
+		expectedRequest.setBatchSize(this.batchSize);
+		expectedRequest.setMinimumId(this.minimumId);
+		expectedRequest.setMaximumId(this.maximumId);
+		expectedRequest.setSalt("oldSalt");
+		verify(mockAsynchronousJobExecutor).executeSourceAndDestinationJob(expectedRequest,
+				BatchChecksumResponse.class);
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesWithLowerBoundDoesNotRecordState() {
+		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, mockStateStore, mockRestoredBinVerifier, mockMetrics, batchSize, metadata, salt, 50L, Optional.empty());
+		// call under test
+		extractor.findAllMismatchedRanges();
+		verify(mockStateStore, never()).recordPendingState(any(VerifiedTypeState.class));
+		verify(mockRestoredBinVerifier, never()).recordComparison(any(BatchChecksumRequest.class), any(), anyBoolean());
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesWithLowerBound() {
+		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, mockStateStore, mockRestoredBinVerifier, mockMetrics, batchSize, metadata, salt, 50L, Optional.empty());
+		// call under test
+		Iterator<RangeChecksum> result = extractor.findAllMismatchedRanges();
+		assertNotNull(result);
+
+		BatchChecksumRequest expectedRequest = new BatchChecksumRequest();
+		expectedRequest.setMigrationType(this.type);
+		expectedRequest.setBatchSize(this.batchSize);
+		expectedRequest.setMinimumId(50L);
+		expectedRequest.setMaximumId(this.maximumId);
+		expectedRequest.setSalt(this.salt);
+
+		verify(mockAsynchronousJobExecutor).executeSourceAndDestinationJob(expectedRequest,
+				BatchChecksumResponse.class);
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesWithLowerBoundBelowMin() {
+		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, mockStateStore, mockRestoredBinVerifier, mockMetrics, batchSize, metadata, salt, 0L, Optional.empty());
+		// call under test
+		extractor.findAllMismatchedRanges();
+
+		BatchChecksumRequest expectedRequest = new BatchChecksumRequest();
+		expectedRequest.setMigrationType(this.type);
+		expectedRequest.setBatchSize(this.batchSize);
+		expectedRequest.setMinimumId(this.minimumId);
+		expectedRequest.setMaximumId(this.maximumId);
+		expectedRequest.setSalt(this.salt);
+
+		verify(mockAsynchronousJobExecutor).executeSourceAndDestinationJob(expectedRequest,
+				BatchChecksumResponse.class);
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesWithLowerBoundAboveMax() {
+		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, mockStateStore, mockRestoredBinVerifier, mockMetrics, batchSize, metadata, salt, 100L, Optional.empty());
+		// call under test
+		Iterator<RangeChecksum> it = extractor.findAllMismatchedRanges();
+		assertNotNull(it);
+		assertFalse(it.hasNext());
+		verify(mockAsynchronousJobExecutor, never()).executeSourceAndDestinationJob(any(), any());
 	}
 
 	@Test
@@ -237,7 +407,7 @@ public class ChecksumRangeExecutorTest {
 				.setSource(new MigrationTypeCount().setMinid(null).setMaxid(null).setType(type))
 				.setDest(new MigrationTypeCount().setType(type)).build();
 		
-		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, batchSize, metadata, salt);
+		extractor = new ChecksumRangeExecutor(mockAsynchronousJobExecutor, mockBackupJobExecutor, mockStateStore, mockRestoredBinVerifier, mockMetrics, batchSize, metadata, salt, null, Optional.empty());
 		// call under test
 		Iterator<RangeChecksum> it = extractor.findAllMismatchedRanges();
 		assertNotNull(it);
@@ -246,6 +416,72 @@ public class ChecksumRangeExecutorTest {
 	}
 
 
+	@Test
+	public void testFindAllMismatchedRangesCachesDestinationChecksums() {
+		// call under test
+		extractor.findAllMismatchedRanges();
+		RangeChecksum destOne = copy(srcOne);
+		destOne.setChecksum("no match");
+		RangeChecksum destTwo = copy(srcTwo);
+		destTwo.setChecksum("no match two");
+		verify(mockStateStore).putDestinationChecksums(new DestinationChecksums(type, batchSize, salt, minimumId,
+				maximumId, Lists.newArrayList(destOne, destTwo), Collections.emptySet()));
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesAllDestinationChecksumsCached() throws Exception {
+		DestinationChecksums cached = new DestinationChecksums(type, batchSize, salt, minimumId, maximumId,
+				Lists.newArrayList(copy(srcOne), copy(srcTwo)), Collections.emptySet());
+		when(mockStateStore.getDestinationChecksums(type, batchSize, salt)).thenReturn(Optional.of(cached));
+		when(mockAsynchronousJobExecutor.startSourceJob(any(AdminRequest.class), any())).thenReturn((Future) mockSourceFuture);
+		when(mockSourceFuture.get()).thenReturn(new BatchChecksumResponse().setCheksums(Lists.newArrayList(srcOne, srcTwo)));
+		// call under test
+		Iterator<RangeChecksum> result = extractor.findAllMismatchedRanges();
+		assertFalse(result.hasNext());
+
+		BatchChecksumRequest expectedRequest = new BatchChecksumRequest();
+		expectedRequest.setMigrationType(this.type);
+		expectedRequest.setBatchSize(this.batchSize);
+		expectedRequest.setMinimumId(this.minimumId);
+		expectedRequest.setMaximumId(this.maximumId);
+		expectedRequest.setSalt(this.salt);
+		verify(mockAsynchronousJobExecutor).startSourceJob(expectedRequest, BatchChecksumResponse.class);
+		verify(mockAsynchronousJobExecutor, never()).executeDestinationJob(any(AdminRequest.class), any());
+		verify(mockAsynchronousJobExecutor, never()).executeSourceAndDestinationJob(any(), any());
+		// the destination was not checksummed in this run.
+		verify(mockRestoredBinVerifier).recordComparison(any(BatchChecksumRequest.class), any(), eq(false));
+	}
+
+	@Test
+	public void testFindAllMismatchedRangesInvalidatedDestinationChecksum() throws Exception {
+		// bin one was restored after it was cached.
+		DestinationChecksums cached = new DestinationChecksums(type, batchSize, salt, minimumId, maximumId,
+				Lists.newArrayList(copy(srcOne), copy(srcTwo)), Collections.singleton(1L));
+		when(mockStateStore.getDestinationChecksums(type, batchSize, salt)).thenReturn(Optional.of(cached));
+		when(mockAsynchronousJobExecutor.startSourceJob(any(AdminRequest.class), any())).thenReturn((Future) mockSourceFuture);
+		when(mockSourceFuture.get()).thenReturn(new BatchChecksumResponse().setCheksums(Lists.newArrayList(srcOne, srcTwo)));
+		RangeChecksum destTwo = copy(srcTwo);
+		destTwo.setChecksum("no match two");
+		when(mockAsynchronousJobExecutor.executeDestinationJob(any(AdminRequest.class), any()))
+				.thenReturn(new BatchChecksumResponse().setCheksums(Lists.newArrayList(destTwo)));
+		// call under test
+		Iterator<RangeChecksum> result = extractor.findAllMismatchedRanges();
+		assertEquals(srcTwo, result.next());
+		assertFalse(result.hasNext());
+
+		// only the invalidated bin is computed on the destination.
+		BatchChecksumRequest expectedRequest = new BatchChecksumRequest();
+		expectedRequest.setMigrationType(this.type);
+		expectedRequest.setBatchSize(this.batchSize);
+		expectedRequest.setMinimumId(10L);
+		expectedRequest.setMaximumId(19L);
+		expectedRequest.setSalt(this.salt);
+		verify(mockAsynchronousJobExecutor).executeDestinationJob(expectedRequest, BatchChecksumResponse.class);
+		verify(mockStateStore).putDestinationChecksums(new DestinationChecksums(type, batchSize, salt, minimumId,
+				maximumId, Lists.newArrayList(copy(srcOne), destTwo), Collections.emptySet()));
+		verify(mockRestoredBinVerifier).recordComparison(any(BatchChecksumRequest.class), any(), eq(false));
+	}
+
 	@Test
 	public void testHasNextAndNext() {
 		// calls under test
@@ -0,0 +1,156 @@
+package org.sagebionetworks.migration.async.checksum;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
+import org.sagebionetworks.migration.async.BackupJobExecutor;
+import org.sagebionetworks.migration.async.DestinationJob;
+import org.sagebionetworks.migration.config.ChecksumHint;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.metrics.MigrationMetrics;
+import org.sagebionetworks.migration.state.MigrationStateStore;
+import org.sagebionetworks.migration.state.VerifiedTypeState;
+import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RangeCheksumBuilderImplTest {
+
+	@Mock
+	AsynchronousJobExecutor mockAsynchronousJobExecutor;
+	@Mock
+	BackupJobExecutor mockBackupJobExecutor;
+	@Mock
+	MigrationStateStore mockStateStore;
+	@Mock
+	RestoredBinVerifier mockRestoredBinVerifier;
+	@Mock
+	MigrationMetrics mockMetrics;
+	@Mock
+	Configuration mockConfig;
+
+	MigrationType type;
+	TypeToMigrateMetadata metadata;
+	String salt;
+
+	RangeCheksumBuilderImpl builder;
+
+	@Before
+	public void before() {
+		type = MigrationType.CHANGE;
+		salt = "salt";
+		when(mockConfig.getMaximumBackupBatchSize()).thenReturn(10);
+		when(mockConfig.getAppendMostlyBinCount()).thenReturn(3);
+		when(mockConfig.getChecksumHint(type)).thenReturn(ChecksumHint.FULL);
+		metadata = TypeToMigrateMetadata.builder(true)
+				.setSource(new MigrationTypeCount().setMinid(1L).setMaxid(123L).setType(type))
+				.setDest(new MigrationTypeCount().setMinid(1L).setMaxid(95L).setType(type)).build();
+		builder = new RangeCheksumBuilderImpl(mockAsynchronousJobExecutor, mockBackupJobExecutor, mockStateStore, mockRestoredBinVerifier, mockMetrics, mockConfig);
+	}
+
+	@Test
+	public void testProviderRangeCheckFull() {
+		// call under test
+		Iterator<DestinationJob> it = builder.providerRangeCheck(metadata, salt);
+		assertTrue(it instanceof ChecksumRangeExecutor);
+	}
+
+	@Test
+	public void testProviderRangeCheckAppendOnly() {
+		when(mockConfig.getChecksumHint(type)).thenReturn(ChecksumHint.APPEND_ONLY);
+		// call under test
+		Iterator<DestinationJob> it = builder.providerRangeCheck(metadata, salt);
+		assertFalse(it.hasNext());
+	}
+
+	@Test
+	public void testProviderRangeCheckAppendMostly() {
+		when(mockConfig.getChecksumHint(type)).thenReturn(ChecksumHint.APPEND_MOSTLY);
+		// call under test
+		Iterator<DestinationJob> it = builder.providerRangeCheck(metadata, salt);
+		assertTrue(it instanceof ChecksumRangeExecutor);
+	}
+
+	@Test
+	public void testProviderRangeCheckForceFull() {
+		when(mockConfig.forceFullChecksumVerification()).thenReturn(true);
+		when(mockConfig.getChecksumHint(type)).thenReturn(ChecksumHint.APPEND_ONLY);
+		// call under test
+		Iterator<DestinationJob> it = builder.providerRangeCheck(metadata, salt);
+		assertTrue(it instanceof ChecksumRangeExecutor);
+		verify(mockConfig, never()).getChecksumHint(type);
+	}
+
+	@Test
+	public void testGetIncrementalStateNotIncremental() {
+		when(mockConfig.isIncrementalMigration()).thenReturn(false);
+		// call under test
+		assertEquals(Optional.empty(), builder.getIncrementalState(metadata));
+		verify(mockStateStore, never()).getVerifiedState(type);
+	}
+
+	@Test
+	public void testGetIncrementalState() {
+		when(mockConfig.isIncrementalMigration()).thenReturn(true);
+		VerifiedTypeState state = new VerifiedTypeState(type, 10L, "salt", 99L, Collections.emptyList());
+		when(mockStateStore.getVerifiedState(type)).thenReturn(Optional.of(state));
+		// call under test
+		assertEquals(Optional.of(state), builder.getIncrementalState(metadata));
+	}
+
+	@Test
+	public void testGetIncrementalStateBatchSizeChanged() {
+		when(mockConfig.isIncrementalMigration()).thenReturn(true);
+		VerifiedTypeState state = new VerifiedTypeState(type, 11L, "salt", 99L, Collections.emptyList());
+		when(mockStateStore.getVerifiedState(type)).thenReturn(Optional.of(state));
+		// call under test
+		assertEquals(Optional.empty(), builder.getIncrementalState(metadata));
+	}
+
+	@Test
+	public void testGetIncrementalStateForceFull() {
+		when(mockConfig.isIncrementalMigration()).thenReturn(true);
+		when(mockConfig.forceFullChecksumVerification()).thenReturn(true);
+		// call under test
+		assertEquals(Optional.empty(), builder.getIncrementalState(metadata));
+		verify(mockStateStore, never()).getVerifiedState(type);
+	}
+
+	@Test
+	public void testGetAppendMostlyLowerBound() {
+		// destination max of 95 is in bin 9 so the last three bins are 7, 8 and 9.
+		assertEquals(Long.valueOf(70L), builder.getAppendMostlyLowerBound(metadata));
+	}
+
+	@Test
+	public void testGetAppendMostlyLowerBoundFewerBins() {
+		metadata = TypeToMigrateMetadata.builder(true)
+				.setSource(new MigrationTypeCount().setMinid(1L).setMaxid(123L).setType(type))
+				.setDest(new MigrationTypeCount().setMinid(1L).setMaxid(15L).setType(type)).build();
+		assertEquals(Long.valueOf(0L), builder.getAppendMostlyLowerBound(metadata));
+	}
+
+	@Test
+	public void testGetAppendMostlyLowerBoundEmptyDestination() {
+		metadata = TypeToMigrateMetadata.builder(true)
+				.setSource(new MigrationTypeCount().setMinid(1L).setMaxid(123L).setType(type))
+				.setDest(new MigrationTypeCount().setType(type)).build();
+		assertNull(builder.getAppendMostlyLowerBound(metadata));
+	}
+}
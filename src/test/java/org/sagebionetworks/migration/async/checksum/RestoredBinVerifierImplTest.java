@@ -0,0 +1,131 @@
+package org.sagebionetworks.migration.async.checksum;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.async.AsynchronousJobExecutor;
+import org.sagebionetworks.migration.async.ResultPair;
+import org.sagebionetworks.repo.model.migration.AdminResponse;
+import org.sagebionetworks.repo.model.migration.BatchChecksumRequest;
+import org.sagebionetworks.repo.model.migration.BatchChecksumResponse;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RangeChecksum;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RestoredBinVerifierImplTest {
+
+	@Mock
+	AsynchronousJobExecutor mockAsynchronousJobExecutor;
+
+	MigrationType type;
+	BatchChecksumRequest compared;
+	RangeChecksum binOne;
+	ResultPair<AdminResponse> matching;
+
+	RestoredBinVerifierImpl verifier;
+
+	@Before
+	public void before() {
+		type = MigrationType.NODE;
+		compared = new BatchChecksumRequest();
+		compared.setMigrationType(type);
+		compared.setBatchSize(10L);
+		compared.setMinimumId(5L);
+		compared.setMaximumId(95L);
+		compared.setSalt("salt");
+
+		binOne = new RangeChecksum().setBinNumber(1L).setChecksum("c1").setCount(10L).setMinimumId(10L)
+				.setMaximumId(19L);
+		matching = new ResultPair<>();
+		matching.setSourceResult(new BatchChecksumResponse().setCheksums(Lists.newArrayList(binOne)));
+		matching.setDestinationResult(new BatchChecksumResponse().setCheksums(Lists.newArrayList(binOne)));
+		when(mockAsynchronousJobExecutor.executeSourceAndDestinationJob(any(), any())).thenReturn(matching);
+
+		verifier = new RestoredBinVerifierImpl(mockAsynchronousJobExecutor);
+	}
+
+	@Test
+	public void testVerifyRestoredBinsNotCompared() {
+		// call under test
+		assertEquals(Optional.empty(), verifier.verifyRestoredBins(type));
+	}
+
+	@Test
+	public void testVerifyRestoredBinsNoneRestored() {
+		verifier.recordComparison(compared, Collections.emptyList(), true);
+		// call under test
+		assertEquals(Optional.of(true), verifier.verifyRestoredBins(type));
+		verify(mockAsynchronousJobExecutor, never()).executeSourceAndDestinationJob(any(), any());
+	}
+
+	@Test
+	public void testVerifyRestoredBinsGroupsConsecutiveBins() {
+		verifier.recordComparison(compared, Lists.newArrayList(bin(0L), bin(1L), bin(2L), bin(9L)), true);
+		// call under test
+		assertEquals(Optional.of(true), verifier.verifyRestoredBins(type));
+		verify(mockAsynchronousJobExecutor, times(2)).executeSourceAndDestinationJob(any(), any());
+		verify(mockAsynchronousJobExecutor).executeSourceAndDestinationJob(request(5L, 29L),
+				BatchChecksumResponse.class);
+		verify(mockAsynchronousJobExecutor).executeSourceAndDestinationJob(request(90L, 95L),
+				BatchChecksumResponse.class);
+	}
+
+	@Test
+	public void testVerifyRestoredBinsMismatch() {
+		ResultPair<AdminResponse> mismatch = new ResultPair<>();
+		mismatch.setSourceResult(new BatchChecksumResponse().setCheksums(Lists.newArrayList(binOne)));
+		mismatch.setDestinationResult(new BatchChecksumResponse());
+		when(mockAsynchronousJobExecutor.executeSourceAndDestinationJob(any(), any())).thenReturn(mismatch);
+		verifier.recordComparison(compared, Lists.newArrayList(bin(1L), bin(5L)), true);
+		// call under test
+		assertEquals(Optional.of(false), verifier.verifyRestoredBins(type));
+		// stops at the first mismatch.
+		verify(mockAsynchronousJobExecutor, times(1)).executeSourceAndDestinationJob(any(), any());
+	}
+
+	@Test
+	public void testRecordComparisonReplacesPreviousAttempt() {
+		verifier.recordComparison(compared, Lists.newArrayList(bin(1L)), true);
+		verifier.recordComparison(compared, Collections.emptyList(), true);
+		// call under test
+		assertEquals(Optional.of(true), verifier.verifyRestoredBins(type));
+		verify(mockAsynchronousJobExecutor, never()).executeSourceAndDestinationJob(any(), any());
+	}
+
+	@Test
+	public void testRecordComparisonDestinationNotComputed() {
+		verifier.recordComparison(compared, Collections.emptyList(), true);
+		// a retry compared some bins to cached checksums.
+		verifier.recordComparison(compared, Collections.emptyList(), false);
+		// call under test
+		assertEquals(Optional.empty(), verifier.verifyRestoredBins(type));
+	}
+
+	RangeChecksum bin(long binNumber) {
+		return new RangeChecksum().setBinNumber(binNumber).setChecksum("mismatch");
+	}
+
+	BatchChecksumRequest request(long minimumId, long maximumId) {
+		BatchChecksumRequest request = new BatchChecksumRequest();
+		request.setMigrationType(type);
+		request.setBatchSize(10L);
+		request.setMinimumId(minimumId);
+		request.setMaximumId(maximumId);
+		request.setSalt("salt");
+		return request;
+	}
+}
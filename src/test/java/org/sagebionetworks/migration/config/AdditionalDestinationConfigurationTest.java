@@ -0,0 +1,119 @@
+package org.sagebionetworks.migration.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Properties;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+
+import com.amazonaws.services.secretsmanager.AWSSecretsManager;
+import com.amazonaws.services.secretsmanager.model.GetSecretValueRequest;
+import com.amazonaws.services.secretsmanager.model.GetSecretValueResult;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AdditionalDestinationConfigurationTest {
+
+	@Mock
+	SystemPropertiesProvider mockPropertyProvider;
+	@Mock
+	FileProvider mockFileProvider;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+	@Mock
+	AWSSecretsManager mockSecretManager;
+
+	Properties props;
+
+	AdditionalDestinationConfiguration config;
+
+	@Before
+	public void before() throws IOException {
+		props = new Properties();
+		props.put(MigrationConfigurationImpl.KEY_SERVICE_KEY, "migration");
+		when(mockPropertyProvider.getSystemProperties()).thenReturn(props);
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		config = new AdditionalDestinationConfiguration(mockLoggerFactory, mockPropertyProvider, mockFileProvider,
+				mockSecretManager, "test1");
+	}
+
+	@Test
+	public void testGetDestinationConnectionInfo() {
+		props.put("org.sagebionetworks.destination.test1.repository.endpoint", "https://repo.test1");
+		props.put("org.sagebionetworks.destination.test1.authentication.endpoint", "https://auth.test1");
+		when(mockSecretManager.getSecretValue(
+				new GetSecretValueRequest().withSecretId("org.sagebionetworks.service.secret.destination.test1")))
+				.thenReturn(new GetSecretValueResult().withSecretString("test1Secret"));
+		// call under test
+		assertEquals(new SynapseConnectionInfo("https://auth.test1", "https://repo.test1", "migration", "test1Secret"),
+				config.getDestinationConnectionInfo());
+	}
+
+	@Test
+	public void testGetStateFilePath() {
+		assertEquals(Optional.empty(), config.getStateFilePath());
+		props.put(MigrationConfigurationImpl.KEY_STATE_FILE, "/tmp/state.json");
+		assertEquals(Optional.of("/tmp/state.json.test1"), config.getStateFilePath());
+	}
+
+	@Test
+	public void testGetPlanFilePath() {
+		props.put(MigrationConfigurationImpl.KEY_PLAN_FILE, "/tmp/plan");
+		assertEquals(Optional.of("/tmp/plan.test1"), config.getPlanFilePath());
+	}
+
+	@Test
+	public void testGetThroughputFilePath() {
+		props.put(MigrationConfigurationImpl.KEY_THROUGHPUT_FILE, "/tmp/throughput.json");
+		assertEquals(Optional.of("/tmp/throughput.json.test1"), config.getThroughputFilePath());
+	}
+
+	@Test
+	public void testGetStatusFilePath() {
+		props.put(MigrationConfigurationImpl.KEY_STATUS_FILE, "/tmp/status.json");
+		assertEquals(Optional.of("/tmp/status.json.test1"), config.getStatusFilePath());
+	}
+
+	@Test
+	public void testGetMetricsFilePaths() {
+		props.put(MigrationConfigurationImpl.KEY_METRICS_PROMETHEUS_FILE, "/tmp/migration.prom");
+		props.put(MigrationConfigurationImpl.KEY_METRICS_JSON_FILE, "/tmp/metrics.json");
+		assertEquals(Optional.of("/tmp/migration.prom.test1"), config.getMetricsPrometheusFilePath());
+		assertEquals(Optional.of("/tmp/metrics.json.test1"), config.getMetricsJsonFilePath());
+	}
+
+	@Test
+	public void testGetTraceFilePath() {
+		props.put(MigrationConfigurationImpl.KEY_TRACE_FILE, "/tmp/trace.json");
+		assertEquals(Optional.of("/tmp/trace.json.test1"), config.getTraceFilePath());
+	}
+
+	@Test
+	public void testGetRunReportFilePath() {
+		props.put(MigrationConfigurationImpl.KEY_RUN_REPORT_FILE, "/tmp/report.json");
+		assertEquals(Optional.of("/tmp/report.json.test1"), config.getRunReportFilePath());
+	}
+
+	@Test
+	public void testGetJobEventLogFilePath() {
+		props.put(MigrationConfigurationImpl.KEY_JOB_EVENT_LOG_FILE, "/tmp/events.json");
+		assertEquals(Optional.of("/tmp/events.json.test1"), config.getJobEventLogFilePath());
+	}
+
+	@Test
+	public void testGetShardLeaseDirectory() {
+		props.put(MigrationConfigurationImpl.KEY_SHARD_LEASE_DIRECTORY, "/tmp/leases");
+		assertEquals(Optional.of("/tmp/leases.test1"), config.getShardLeaseDirectory());
+	}
+}
@@ -16,7 +16,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Properties;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.Logger;
@@ -27,6 +30,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.migration.LoggerFactory;
 import org.sagebionetworks.repo.model.daemon.BackupAliasType;
+import org.sagebionetworks.repo.model.migration.MigrationType;
 
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import com.amazonaws.services.secretsmanager.model.GetSecretValueRequest;
@@ -125,7 +129,7 @@ public class MigrationConfigurationImplTest {
 
 		// call under test
 		config.logConfiguration();
-		verify(mockLogger, times(8)).info(anyString());
+		verify(mockLogger, times(26)).info(anyString());
 	}
 	
 	@Test
@@ -140,6 +144,310 @@ public class MigrationConfigurationImplTest {
 		props.put(MigrationConfigurationImpl.KEY_REMAIN_READ_ONLY_MODE, "true");
 		assertTrue(config.remainInReadOnlyAfterMigration());
 	}
+	@Test
+	public void testGetChecksumHintDefault() {
+		assertEquals(ChecksumHint.FULL, config.getChecksumHint(MigrationType.CHANGE));
+	}
+	
+	@Test
+	public void testGetChecksumHint() {
+		props.put(MigrationConfigurationImpl.KEY_APPEND_ONLY_TYPES, "CHANGE, ACCESS_APPROVAL");
+		props.put(MigrationConfigurationImpl.KEY_APPEND_MOSTLY_TYPES, "NODE");
+		assertEquals(ChecksumHint.APPEND_ONLY, config.getChecksumHint(MigrationType.CHANGE));
+		assertEquals(ChecksumHint.APPEND_ONLY, config.getChecksumHint(MigrationType.ACCESS_APPROVAL));
+		assertEquals(ChecksumHint.APPEND_MOSTLY, config.getChecksumHint(MigrationType.NODE));
+		assertEquals(ChecksumHint.FULL, config.getChecksumHint(MigrationType.PRINCIPAL));
+	}
+	
+	@Test (expected=IllegalArgumentException.class)
+	public void testGetChecksumHintUnknownType() {
+		props.put(MigrationConfigurationImpl.KEY_APPEND_ONLY_TYPES, "NOT_A_TYPE");
+		config.getChecksumHint(MigrationType.CHANGE);
+	}
+	
+	@Test
+	public void testGetAppendMostlyBinCount() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_APPEND_MOSTLY_BIN_COUNT, config.getAppendMostlyBinCount());
+		props.put(MigrationConfigurationImpl.KEY_APPEND_MOSTLY_BIN_COUNT, "3");
+		assertEquals(3, config.getAppendMostlyBinCount());
+	}
+	
+	@Test
+	public void testForceFullChecksumVerification() {
+		assertFalse(config.forceFullChecksumVerification());
+		props.put(MigrationConfigurationImpl.KEY_FORCE_FULL_CHECKSUM_VERIFICATION, "true");
+		assertTrue(config.forceFullChecksumVerification());
+	}
+	
+	@Test
+	public void testGetStateFilePath() {
+		assertFalse(config.getStateFilePath().isPresent());
+		props.put(MigrationConfigurationImpl.KEY_STATE_FILE, "/tmp/state.json");
+		assertEquals("/tmp/state.json", config.getStateFilePath().get());
+	}
+	
+	@Test
+	public void testIsIncrementalMigration() {
+		assertFalse(config.isIncrementalMigration());
+		props.put(MigrationConfigurationImpl.KEY_INCREMENTAL_MIGRATION, "true");
+		assertTrue(config.isIncrementalMigration());
+	}
+	
+	@Test
+	public void testGetMaxConcurrentFullTableChecksums() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_MAX_CONCURRENT_FULL_TABLE_CHECKSUMS, config.getMaxConcurrentFullTableChecksums());
+		props.put(MigrationConfigurationImpl.KEY_MAX_CONCURRENT_FULL_TABLE_CHECKSUMS, "8");
+		assertEquals(8, config.getMaxConcurrentFullTableChecksums());
+	}
+	
+	@Test
+	public void testGetTypeCountGroupSize() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_TYPE_COUNT_GROUP_SIZE, config.getTypeCountGroupSize());
+		props.put(MigrationConfigurationImpl.KEY_TYPE_COUNT_GROUP_SIZE, "5");
+		assertEquals(5, config.getTypeCountGroupSize());
+	}
+	
+	@Test
+	public void testGetMaxConcurrentTypeCounts() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_MAX_CONCURRENT_TYPE_COUNTS, config.getMaxConcurrentTypeCounts());
+		props.put(MigrationConfigurationImpl.KEY_MAX_CONCURRENT_TYPE_COUNTS, "3");
+		assertEquals(3, config.getMaxConcurrentTypeCounts());
+	}
+	
+	@Test
+	public void testGetMaxConcurrentRangeCalculations() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_MAX_CONCURRENT_RANGE_CALCULATIONS, config.getMaxConcurrentRangeCalculations());
+		props.put(MigrationConfigurationImpl.KEY_MAX_CONCURRENT_RANGE_CALCULATIONS, "2");
+		assertEquals(2, config.getMaxConcurrentRangeCalculations());
+	}
+	
+	@Test
+	public void testGetBackupPrefetchDepth() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_BACKUP_PREFETCH_DEPTH, config.getBackupPrefetchDepth());
+		props.put(MigrationConfigurationImpl.KEY_BACKUP_PREFETCH_DEPTH, "3");
+		assertEquals(3, config.getBackupPrefetchDepth());
+	}
+	
+	@Test
+	public void testGetMaxChecksumDeltaPasses() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_MAX_CHECKSUM_DELTA_PASSES, config.getMaxChecksumDeltaPasses());
+		props.put(MigrationConfigurationImpl.KEY_MAX_CHECKSUM_DELTA_PASSES, "5");
+		assertEquals(5, config.getMaxChecksumDeltaPasses());
+	}
+	
+	@Test
+	public void testGetChecksumDeltaThreshold() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_CHECKSUM_DELTA_THRESHOLD, config.getChecksumDeltaThreshold());
+		props.put(MigrationConfigurationImpl.KEY_CHECKSUM_DELTA_THRESHOLD, "20");
+		assertEquals(20L, config.getChecksumDeltaThreshold());
+	}
+	
+	@Test
+	public void testIsDaemonMode() {
+		assertFalse(config.isDaemonMode());
+		props.put(MigrationConfigurationImpl.KEY_DAEMON_MODE, "true");
+		assertTrue(config.isDaemonMode());
+	}
+	
+	@Test
+	public void testGetDaemonPassIntervalMs() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_DAEMON_PASS_INTERVAL_MS, config.getDaemonPassIntervalMs());
+		props.put(MigrationConfigurationImpl.KEY_DAEMON_PASS_INTERVAL_MS, "1000");
+		assertEquals(1000L, config.getDaemonPassIntervalMs());
+	}
+	
+	@Test
+	public void testGetDaemonMaxDutyCyclePercent() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_DAEMON_MAX_DUTY_CYCLE_PERCENT, config.getDaemonMaxDutyCyclePercent());
+		props.put(MigrationConfigurationImpl.KEY_DAEMON_MAX_DUTY_CYCLE_PERCENT, "25");
+		assertEquals(25, config.getDaemonMaxDutyCyclePercent());
+	}
+	
+	@Test
+	public void testGetDaemonFinalPassFilePath() {
+		assertEquals(Optional.empty(), config.getDaemonFinalPassFilePath());
+		props.put(MigrationConfigurationImpl.KEY_DAEMON_FINAL_PASS_FILE, "/tmp/final");
+		assertEquals(Optional.of("/tmp/final"), config.getDaemonFinalPassFilePath());
+	}
+	
+	@Test
+	public void testGetPlanMode() {
+		assertEquals(PlanMode.NONE, config.getPlanMode());
+		props.put(MigrationConfigurationImpl.KEY_PLAN_MODE, "execute");
+		assertEquals(PlanMode.EXECUTE, config.getPlanMode());
+		props.put(MigrationConfigurationImpl.KEY_PLAN_MODE, "estimate");
+		assertEquals(PlanMode.ESTIMATE, config.getPlanMode());
+	}
+	
+	@Test
+	public void testGetPlanFilePath() {
+		assertEquals(Optional.empty(), config.getPlanFilePath());
+		props.put(MigrationConfigurationImpl.KEY_PLAN_FILE, "/tmp/plan");
+		assertEquals(Optional.of("/tmp/plan"), config.getPlanFilePath());
+	}
+	
+	@Test
+	public void testIsEstimateIncludingChecksums() {
+		assertFalse(config.isEstimateIncludingChecksums());
+		props.put(MigrationConfigurationImpl.KEY_ESTIMATE_INCLUDE_CHECKSUMS, "true");
+		assertTrue(config.isEstimateIncludingChecksums());
+	}
+	
+	@Test
+	public void testGetThroughputFilePath() {
+		assertEquals(Optional.empty(), config.getThroughputFilePath());
+		props.put(MigrationConfigurationImpl.KEY_THROUGHPUT_FILE, "/tmp/throughput.json");
+		assertEquals(Optional.of("/tmp/throughput.json"), config.getThroughputFilePath());
+	}
+	
+	@Test
+	public void testGetThroughputMaxAgeMs() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_THROUGHPUT_MAX_AGE_MS, config.getThroughputMaxAgeMs());
+		props.put(MigrationConfigurationImpl.KEY_THROUGHPUT_MAX_AGE_MS, "0");
+		assertEquals(0L, config.getThroughputMaxAgeMs());
+	}
+	
+	@Test
+	public void testGetStatusFilePath() {
+		assertEquals(Optional.empty(), config.getStatusFilePath());
+		props.put(MigrationConfigurationImpl.KEY_STATUS_FILE, "/tmp/status.json");
+		assertEquals(Optional.of("/tmp/status.json"), config.getStatusFilePath());
+	}
+	
+	@Test
+	public void testGetProgressReportIntervalMs() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_PROGRESS_REPORT_INTERVAL_MS, config.getProgressReportIntervalMs());
+		props.put(MigrationConfigurationImpl.KEY_PROGRESS_REPORT_INTERVAL_MS, "5000");
+		assertEquals(5000L, config.getProgressReportIntervalMs());
+	}
+
+	@Test
+	public void testGetJobReportIntervalMs() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_JOB_REPORT_INTERVAL_MS, config.getJobReportIntervalMs());
+		props.put(MigrationConfigurationImpl.KEY_JOB_REPORT_INTERVAL_MS, "2000");
+		assertEquals(2000L, config.getJobReportIntervalMs());
+	}
+	
+	@Test
+	public void testGetMetricsPrometheusFilePath() {
+		assertEquals(Optional.empty(), config.getMetricsPrometheusFilePath());
+		props.put(MigrationConfigurationImpl.KEY_METRICS_PROMETHEUS_FILE, "/tmp/migration.prom");
+		assertEquals(Optional.of("/tmp/migration.prom"), config.getMetricsPrometheusFilePath());
+	}
+	
+	@Test
+	public void testGetMetricsJsonFilePath() {
+		assertEquals(Optional.empty(), config.getMetricsJsonFilePath());
+		props.put(MigrationConfigurationImpl.KEY_METRICS_JSON_FILE, "/tmp/metrics.json");
+		assertEquals(Optional.of("/tmp/metrics.json"), config.getMetricsJsonFilePath());
+	}
+	
+	@Test
+	public void testGetMetricsExportIntervalMs() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_METRICS_EXPORT_INTERVAL_MS, config.getMetricsExportIntervalMs());
+		props.put(MigrationConfigurationImpl.KEY_METRICS_EXPORT_INTERVAL_MS, "5000");
+		assertEquals(5000L, config.getMetricsExportIntervalMs());
+	}
+	
+	@Test
+	public void testGetTraceFilePath() {
+		assertEquals(Optional.empty(), config.getTraceFilePath());
+		props.put(MigrationConfigurationImpl.KEY_TRACE_FILE, "/tmp/trace.json");
+		assertEquals(Optional.of("/tmp/trace.json"), config.getTraceFilePath());
+	}
+	
+	@Test
+	public void testGetRunReportFilePath() {
+		assertEquals(Optional.empty(), config.getRunReportFilePath());
+		props.put(MigrationConfigurationImpl.KEY_RUN_REPORT_FILE, "/tmp/report.json");
+		assertEquals(Optional.of("/tmp/report.json"), config.getRunReportFilePath());
+	}
+
+	@Test
+	public void testGetJobEventLogFilePath() {
+		assertEquals(Optional.empty(), config.getJobEventLogFilePath());
+		props.put(MigrationConfigurationImpl.KEY_JOB_EVENT_LOG_FILE, "/tmp/events.json");
+		assertEquals(Optional.of("/tmp/events.json"), config.getJobEventLogFilePath());
+	}
+	
+	@Test
+	public void testIsClientCallAccountingEnabled() {
+		assertFalse(config.isClientCallAccountingEnabled());
+		props.put(MigrationConfigurationImpl.KEY_CLIENT_CALL_ACCOUNTING, "true");
+		assertTrue(config.isClientCallAccountingEnabled());
+	}
+
+	@Test
+	public void testIsQueueControlEnabled() {
+		assertFalse(config.isQueueControlEnabled());
+		props.put(MigrationConfigurationImpl.KEY_QUEUE_CONTROL, "true");
+		assertTrue(config.isQueueControlEnabled());
+	}
+	
+	@Test
+	public void testGetAdditionalDestinationNames() {
+		assertEquals(Collections.emptyList(), config.getAdditionalDestinationNames());
+		props.put(MigrationConfigurationImpl.KEY_ADDITIONAL_DESTINATIONS, "test1, test2,");
+		assertEquals(Arrays.asList("test1", "test2"), config.getAdditionalDestinationNames());
+	}
+	
+	@Test
+	public void testGetAdditionalDestinationConnectionInfo() {
+		props.put("org.sagebionetworks.destination.test1.repository.endpoint", "https://repo.test1");
+		props.put("org.sagebionetworks.destination.test1.authentication.endpoint", "https://auth.test1");
+		when(mockSecretManager.getSecretValue(
+				new GetSecretValueRequest().withSecretId("org.sagebionetworks.service.secret.destination.test1")))
+				.thenReturn(new GetSecretValueResult().withSecretString("test1Secret"));
+		// call under test
+		assertEquals(new SynapseConnectionInfo("https://auth.test1", "https://repo.test1", serviceKey, "test1Secret"),
+				config.getAdditionalDestinationConnectionInfo("test1"));
+	}
+	
+	@Test
+	public void testGetShardCountAndIndex() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_SHARD_COUNT, config.getShardCount());
+		assertEquals(MigrationConfigurationImpl.DEFAULT_SHARD_INDEX, config.getShardIndex());
+		props.put(MigrationConfigurationImpl.KEY_SHARD_COUNT, "3");
+		props.put(MigrationConfigurationImpl.KEY_SHARD_INDEX, "2");
+		assertEquals(3, config.getShardCount());
+		assertEquals(2, config.getShardIndex());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testGetShardIndexOutOfRange() {
+		props.put(MigrationConfigurationImpl.KEY_SHARD_COUNT, "3");
+		props.put(MigrationConfigurationImpl.KEY_SHARD_INDEX, "3");
+		config.getShardIndex();
+	}
+	
+	@Test
+	public void testGetShardSplitMinimumIdSpan() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_SHARD_SPLIT_MINIMUM_ID_SPAN, config.getShardSplitMinimumIdSpan());
+		props.put(MigrationConfigurationImpl.KEY_SHARD_SPLIT_MINIMUM_ID_SPAN, "1000000");
+		assertEquals(1000000L, config.getShardSplitMinimumIdSpan());
+	}
+	
+	@Test
+	public void testGetShardLeaseDirectory() {
+		assertEquals(Optional.empty(), config.getShardLeaseDirectory());
+		props.put(MigrationConfigurationImpl.KEY_SHARD_LEASE_DIRECTORY, "/tmp/leases");
+		assertEquals(Optional.of("/tmp/leases"), config.getShardLeaseDirectory());
+	}
+	
+	@Test
+	public void testGetShardLeaseTimeoutMs() {
+		assertEquals(MigrationConfigurationImpl.DEFAULT_SHARD_LEASE_TIMEOUT_MS, config.getShardLeaseTimeoutMs());
+		props.put(MigrationConfigurationImpl.KEY_SHARD_LEASE_TIMEOUT_MS, "1000");
+		assertEquals(1000L, config.getShardLeaseTimeoutMs());
+	}
+	
+	@Test
+	public void testGetStableChecksumSalt() {
+		assertFalse(config.getStableChecksumSalt().isPresent());
+		props.put(MigrationConfigurationImpl.KEY_STABLE_CHECKSUM_SALT, "stable");
+		assertEquals("stable", config.getStableChecksumSalt().get());
+	}
+	
 	@Test
 	public void testGetConnectionInfoProd() {
 		when(mockSecretManager
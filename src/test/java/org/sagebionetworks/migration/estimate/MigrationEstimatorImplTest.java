@@ -0,0 +1,77 @@
+package org.sagebionetworks.migration.estimate;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.plan.PlannedRange;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MigrationEstimatorImplTest {
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	TypeThroughputStore mockThroughputStore;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	MigrationEstimatorImpl estimator;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		when(mockConfig.getMaximumBackupBatchSize()).thenReturn(10);
+		when(mockThroughputStore.getRowsPerSecond(MigrationType.NODE)).thenReturn(Optional.of(5.0));
+		when(mockThroughputStore.getRowsPerSecond(MigrationType.ACL)).thenReturn(Optional.empty());
+		estimator = new MigrationEstimatorImpl(mockConfig, mockThroughputStore, mockLoggerFactory);
+	}
+
+	@Test
+	public void testEstimate() {
+		List<PlannedRange> ranges = Lists.newArrayList(new PlannedRange(MigrationType.NODE, 1L, 15L, 10L),
+				new PlannedRange(MigrationType.ACL, 3L, 9L, 7L),
+				new PlannedRange(MigrationType.NODE, 16L, 35L, 10L));
+		// call under test
+		List<TypeEstimate> estimates = estimator.estimate(ranges.iterator());
+		// the node ranges span bins 0 to 3 with bin 1 shared.
+		assertEquals(Lists.newArrayList(new TypeEstimate(MigrationType.NODE, 2L, 20L, 4L, 4000L),
+				new TypeEstimate(MigrationType.ACL, 1L, 7L, 1L, null)), estimates);
+		verify(mockLogger).info("Estimate for NODE: jobs: 2 rows: 20 bins: 4 ETA: 0:00:04");
+		verify(mockLogger).info("Estimate for ACL: jobs: 1 rows: 7 bins: 1 ETA: unknown");
+		verify(mockLogger).info(
+				"Estimate for all types: jobs: 3 rows: 27 ETA: 0:00:04 excluding 1 types without a known throughput");
+	}
+
+	@Test
+	public void testGetEstimatedTotalMs() {
+		List<TypeEstimate> estimates = Lists.newArrayList(new TypeEstimate(MigrationType.NODE, 1L, 1L, 1L, 4000L),
+				new TypeEstimate(MigrationType.ACL, 1L, 1L, 1L, 3000L),
+				new TypeEstimate(MigrationType.PRINCIPAL, 1L, 1L, 1L, null),
+				new TypeEstimate(MigrationType.CHANGE, 1L, 1L, 1L, 2000L));
+		// call under test
+		assertEquals(6000L, MigrationEstimatorImpl.getEstimatedTotalMs(estimates));
+	}
+
+	@Test
+	public void testFormatDuration() {
+		assertEquals("26:01:05", MigrationEstimatorImpl.formatDuration(93665000L));
+	}
+}
@@ -0,0 +1,163 @@
+package org.sagebionetworks.migration.estimate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.RestoreDestinationJob;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProviderImp;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MigrationProgressImplTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	TypeThroughputStore mockThroughputStore;
+	@Mock
+	Clock mockClock;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	File statusFile;
+
+	MigrationProgressImpl progress;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		when(mockConfig.getMaximumBackupBatchSize()).thenReturn(100);
+		statusFile = new File(folder.getRoot(), "status.json");
+		when(mockConfig.getStatusFilePath()).thenReturn(Optional.of(statusFile.getAbsolutePath()));
+		when(mockThroughputStore.getAverageRestoreMs(any(MigrationType.class))).thenReturn(Optional.empty());
+		progress = new MigrationProgressImpl(mockConfig, new FileProviderImp(), mockThroughputStore, mockClock,
+				mockLoggerFactory);
+	}
+
+	@Test
+	public void testReport() throws IOException {
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 10000L);
+		progress.startPhase("missing");
+		progress.jobDiscovered(new RestoreDestinationJob(MigrationType.NODE, "one", 1L, 100L));
+		progress.jobDiscovered(new RestoreDestinationJob(MigrationType.NODE, "two", 101L, 150L));
+		progress.jobDiscovered(new RestoreDestinationJob(MigrationType.CHANGE, "three"));
+		progress.jobFinished(MigrationType.NODE, 80L, 2000L);
+		// call under test
+		progress.report();
+		verify(mockLogger).info("Progress of NODE: ranges: 1/2 rows: 80/150 rows/s: 40.0 ETA: 0:00:02");
+		verify(mockLogger).info("Progress of CHANGE: ranges: 0/1 rows: 0/100 rows/s: unknown ETA: unknown");
+		verify(mockLogger).info("Progress of missing: ranges: 1/3 rows: 80/250 rows/s: 8.0 ETA: 0:00:02"
+				+ " excluding 1 types without a finished job projected completion: 1970-01-01T00:00:12Z");
+
+		JSONObject status = new JSONObject(new String(Files.readAllBytes(statusFile.toPath()), StandardCharsets.UTF_8));
+		assertEquals("missing", status.getString(MigrationProgressImpl.KEY_PHASE));
+		assertEquals(10000L, status.getLong(MigrationProgressImpl.KEY_ELAPSED_MS));
+		assertEquals(80L, status.getLong(MigrationProgressImpl.KEY_COMPLETED_ROWS));
+		assertEquals(2000L, status.getLong(MigrationProgressImpl.KEY_ESTIMATED_REMAINING_MS));
+		assertEquals(12000L, status.getLong(MigrationProgressImpl.KEY_PROJECTED_COMPLETION));
+		assertEquals(2, status.getJSONArray(MigrationProgressImpl.KEY_TYPES).length());
+		assertFalse(new File(statusFile.getAbsolutePath() + ".tmp").exists());
+	}
+
+	@Test
+	public void testReportWithHistory() {
+		when(mockThroughputStore.getAverageRestoreMs(MigrationType.CHANGE)).thenReturn(Optional.of(3000.0));
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 10000L);
+		progress.startPhase("missing");
+		progress.jobDiscovered(new RestoreDestinationJob(MigrationType.CHANGE, "one"));
+		progress.jobDiscovered(new RestoreDestinationJob(MigrationType.CHANGE, "two"));
+		// call under test
+		progress.report();
+		// the remaining time is known before the first job finishes.
+		verify(mockLogger).info("Progress of CHANGE: ranges: 0/2 rows: 0/200 rows/s: unknown ETA: 0:00:06");
+	}
+
+	@Test
+	public void testReportBeforePhase() {
+		// call under test
+		progress.report();
+		verify(mockLogger, never()).info(anyString());
+		assertFalse(statusFile.exists());
+	}
+
+	@Test
+	public void testReportNoStatusFile() {
+		when(mockConfig.getStatusFilePath()).thenReturn(Optional.empty());
+		progress.startPhase("missing");
+		// call under test
+		progress.report();
+		assertFalse(statusFile.exists());
+	}
+
+	@Test
+	public void testStartPhaseDiscardsProgress() {
+		progress.startPhase("missing");
+		progress.jobDiscovered(new RestoreDestinationJob(MigrationType.NODE, "one", 1L, 100L));
+		// call under test
+		progress.startPhase("checksum");
+		assertEquals("checksum", progress.phase);
+		assertEquals(0, progress.types.size());
+	}
+
+	@Test
+	public void testTypeProgressMovingAverage() {
+		TypeProgress type = new TypeProgress(MigrationType.NODE);
+		type.discoveredRanges = 3L;
+		assertEquals(Optional.empty(), type.getEstimatedRemainingMs());
+		type.addFinishedJob(100L, 2000L);
+		type.addFinishedJob(100L, 1000L);
+		assertEquals(Optional.of(1700L), type.getEstimatedRemainingMs());
+		assertEquals(65.0, type.getRowsPerSecond().get(), 0.001);
+		type.addFinishedJob(100L, 1000L);
+		// nothing remains.
+		assertEquals(Optional.of(0L), type.getEstimatedRemainingMs());
+	}
+
+	@Test
+	public void testTypeProgressWithHistory() {
+		TypeProgress type = new TypeProgress(MigrationType.NODE, 1000.0);
+		type.discoveredRanges = 3L;
+		assertEquals(Optional.of(3000L), type.getEstimatedRemainingMs());
+		// finished jobs move the historical average.
+		type.addFinishedJob(100L, 2000L);
+		assertEquals(Optional.of(2600L), type.getEstimatedRemainingMs());
+	}
+
+	@Test
+	public void testGetMaximumRowCount() {
+		assertEquals(10L, MigrationProgressImpl
+				.getMaximumRowCount(new RestoreDestinationJob(MigrationType.NODE, "one", 1L, 10L), 100L));
+		assertEquals(100L, MigrationProgressImpl
+				.getMaximumRowCount(new RestoreDestinationJob(MigrationType.NODE, "one", 1L, 1000L), 100L));
+		assertEquals(100L,
+				MigrationProgressImpl.getMaximumRowCount(new RestoreDestinationJob(MigrationType.NODE, "one"), 100L));
+	}
+}
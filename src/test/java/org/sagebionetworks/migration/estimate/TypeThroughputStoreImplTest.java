@@ -0,0 +1,145 @@
+package org.sagebionetworks.migration.estimate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProviderImp;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TypeThroughputStoreImplTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	Clock mockClock;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	File throughputFile;
+
+	TypeThroughputStoreImpl store;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		throughputFile = new File(folder.getRoot(), "throughput.json");
+		when(mockConfig.getThroughputFilePath()).thenReturn(Optional.of(throughputFile.getAbsolutePath()));
+		store = new TypeThroughputStoreImpl(mockConfig, new FileProviderImp(), mockClock, mockLoggerFactory);
+	}
+
+	@Test
+	public void testGetRowsPerSecondUnknown() {
+		// call under test
+		assertEquals(Optional.empty(), store.getRowsPerSecond(MigrationType.NODE));
+	}
+
+	@Test
+	public void testRecordAndSave() {
+		store.recordRestore(MigrationType.NODE, 100L, 2000L);
+		store.recordRestore(MigrationType.NODE, 50L, 1000L);
+		assertEquals(Optional.of(50.0), store.getRowsPerSecond(MigrationType.NODE));
+		// call under test
+		store.save();
+		assertTrue(throughputFile.exists());
+
+		// the next run adds to the totals of this run.
+		store = new TypeThroughputStoreImpl(mockConfig, new FileProviderImp(), mockClock, mockLoggerFactory);
+		assertEquals(Optional.of(50.0), store.getRowsPerSecond(MigrationType.NODE));
+		store.recordRestore(MigrationType.NODE, 300L, 1000L);
+		assertEquals(Optional.of(112.5), store.getRowsPerSecond(MigrationType.NODE));
+	}
+
+	@Test
+	public void testGetRowsPerSecondNoRows() {
+		store.recordRestore(MigrationType.NODE, 0L, 1000L);
+		// call under test
+		assertEquals(Optional.empty(), store.getRowsPerSecond(MigrationType.NODE));
+	}
+
+	@Test
+	public void testGetAverageRestoreMs() {
+		assertEquals(Optional.empty(), store.getAverageRestoreMs(MigrationType.NODE));
+		store.recordRestore(MigrationType.NODE, 100L, 2000L);
+		store.recordRestore(MigrationType.NODE, 0L, 1000L);
+		// call under test
+		assertEquals(Optional.of(1500.0), store.getAverageRestoreMs(MigrationType.NODE));
+	}
+
+	@Test
+	public void testStaleThroughput() {
+		when(mockConfig.getThroughputMaxAgeMs()).thenReturn(1000L);
+		when(mockClock.currentTimeMillis()).thenReturn(5000L);
+		store.recordRestore(MigrationType.NODE, 100L, 2000L);
+		assertEquals(Optional.of(50.0), store.getRowsPerSecond(MigrationType.NODE));
+		when(mockClock.currentTimeMillis()).thenReturn(6001L);
+		// call under test
+		assertEquals(Optional.empty(), store.getRowsPerSecond(MigrationType.NODE));
+		assertEquals(Optional.empty(), store.getAverageRestoreMs(MigrationType.NODE));
+		// the next restore replaces the stale totals.
+		store.recordRestore(MigrationType.NODE, 300L, 1000L);
+		assertEquals(Optional.of(300.0), store.getRowsPerSecond(MigrationType.NODE));
+		assertEquals(Optional.of(1000.0), store.getAverageRestoreMs(MigrationType.NODE));
+	}
+
+	@Test
+	public void testFileWithoutJobCount() throws IOException {
+		when(mockConfig.getThroughputMaxAgeMs()).thenReturn(1000L);
+		when(mockClock.currentTimeMillis()).thenReturn(5000L);
+		Files.write(throughputFile.toPath(), "{\"types\":[{\"type\":\"NODE\",\"rowCount\":100,\"elapsedMs\":2000}]}"
+				.getBytes(StandardCharsets.UTF_8));
+		// call under test
+		assertEquals(Optional.of(50.0), store.getRowsPerSecond(MigrationType.NODE));
+		assertEquals(Optional.empty(), store.getAverageRestoreMs(MigrationType.NODE));
+	}
+
+	@Test
+	public void testSaveUnchanged() {
+		// call under test
+		store.save();
+		assertFalse(throughputFile.exists());
+	}
+
+	@Test
+	public void testNoThroughputFile() {
+		when(mockConfig.getThroughputFilePath()).thenReturn(Optional.empty());
+		store.recordRestore(MigrationType.NODE, 100L, 1000L);
+		// call under test
+		store.save();
+		assertFalse(throughputFile.exists());
+		// the throughput of this run is still known.
+		assertEquals(Optional.of(100.0), store.getRowsPerSecond(MigrationType.NODE));
+	}
+
+	@Test
+	public void testUnreadableFile() throws IOException {
+		Files.write(throughputFile.toPath(), "not json".getBytes(StandardCharsets.UTF_8));
+		// call under test
+		assertEquals(Optional.empty(), store.getRowsPerSecond(MigrationType.NODE));
+	}
+}
@@ -0,0 +1,92 @@
+package org.sagebionetworks.migration.factory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.client.SynapseAdminClient;
+import org.sagebionetworks.client.exceptions.SynapseBadRequestException;
+import org.sagebionetworks.client.exceptions.SynapseException;
+import org.sagebionetworks.client.exceptions.SynapseServerException;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.metrics.ClientCallRecorder;
+import org.sagebionetworks.repo.model.asynch.AsynchJobState;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.schema.adapter.org.json.EntityFactory;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class InstrumentedSynapseAdminClientTest {
+
+	@Mock
+	SynapseAdminClient mockClient;
+	@Mock
+	ClientCallRecorder mockCallRecorder;
+	@Mock
+	Clock mockClock;
+
+	AsynchronousJobStatus status;
+	SynapseAdminClient client;
+
+	@Before
+	public void before() throws Exception {
+		status = new AsynchronousJobStatus();
+		status.setJobId("123");
+		status.setJobState(AsynchJobState.PROCESSING);
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1025L);
+		client = InstrumentedSynapseAdminClient.wrap(mockClient, JobTarget.DESTINATION, mockCallRecorder, mockClock);
+	}
+
+	@Test
+	public void testCall() throws Exception {
+		when(mockClient.getAdminAsynchronousJobStatus("123")).thenReturn(status);
+		// call under test
+		assertEquals(status, client.getAdminAsynchronousJobStatus("123"));
+		verify(mockCallRecorder).recordCall(JobTarget.DESTINATION, "getAdminAsynchronousJobStatus", 25L, false, 3L,
+				(long) EntityFactory.createJSONStringForEntity(status).length());
+	}
+
+	@Test
+	public void testCallFailed() throws Exception {
+		SynapseServerException exception = new SynapseBadRequestException();
+		when(mockClient.getAdminAsynchronousJobStatus("123")).thenThrow(exception);
+		try {
+			// call under test
+			client.getAdminAsynchronousJobStatus("123");
+			fail();
+		} catch (SynapseException e) {
+			// the original exception is thrown.
+			assertEquals(exception, e);
+		}
+		verify(mockCallRecorder).recordCall(JobTarget.DESTINATION, "getAdminAsynchronousJobStatus", 25L, true, 3L,
+				0L);
+	}
+
+	@Test
+	public void testObjectMethods() {
+		// call under test
+		client.hashCode();
+		verify(mockCallRecorder, never()).recordCall(eq(JobTarget.DESTINATION), anyString(), anyLong(), anyBoolean(),
+				anyLong(), anyLong());
+	}
+
+	@Test
+	public void testGetPayloadSize() throws Exception {
+		assertEquals(EntityFactory.createJSONStringForEntity(status).length(),
+				InstrumentedSynapseAdminClient.getPayloadSize(status));
+		assertEquals(3L, InstrumentedSynapseAdminClient.getPayloadSize("abc"));
+		assertEquals(0L, InstrumentedSynapseAdminClient.getPayloadSize(null));
+		assertEquals(0L, InstrumentedSynapseAdminClient.getPayloadSize(5L));
+	}
+}
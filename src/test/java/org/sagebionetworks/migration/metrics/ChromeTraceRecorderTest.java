@@ -0,0 +1,193 @@
+package org.sagebionetworks.migration.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProviderImp;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChromeTraceRecorderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	Clock mockClock;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	File traceFile;
+	MetricKey restoreKey;
+	MetricKey checksumKey;
+
+	ChromeTraceRecorder recorder;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		traceFile = new File(folder.getRoot(), "trace.json");
+		when(mockConfig.getTraceFilePath()).thenReturn(Optional.of(traceFile.getAbsolutePath()));
+		restoreKey = new MetricKey(JobTimelineRecorderImpl.LATENCY, MigrationMetricsImpl.LABEL_TARGET,
+				JobTarget.DESTINATION.name(), MigrationMetricsImpl.LABEL_TYPE, "NODE",
+				MigrationMetricsImpl.LABEL_REQUEST, "RestoreTypeRequest");
+		checksumKey = new MetricKey(JobTimelineRecorderImpl.LATENCY, MigrationMetricsImpl.LABEL_TARGET,
+				JobTarget.SOURCE.name(), MigrationMetricsImpl.LABEL_TYPE, "NODE", MigrationMetricsImpl.LABEL_REQUEST,
+				"AsyncMigrationRangeChecksumRequest");
+		recorder = new ChromeTraceRecorder(mockConfig, new FileProviderImp(), mockClock, mockLoggerFactory);
+	}
+
+	@Test
+	public void testToJSON() {
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 5000L);
+		recorder.startPhase("missing").close();
+		recorder.recordJob(restoreKey, new JobTimeline(100L, 200L, 300L, 800L, 1000L));
+		recorder.recordJob(checksumKey, new JobTimeline(null, 150L, null, null, 400L));
+		// call under test
+		JSONObject trace = recorder.toJSON(6000L);
+		assertEquals("ms", trace.getString("displayTimeUnit"));
+		JSONArray events = trace.getJSONArray("traceEvents");
+
+		JSONObject phase = findEvent(events, "X", "missing").get(0);
+		assertEquals(ChromeTraceRecorder.PHASES_PID, phase.getInt("pid"));
+		assertEquals(0L, phase.getLong("ts"));
+		assertEquals(5000000L, phase.getLong("dur"));
+
+		JSONObject restore = findEvent(events, "X", "RestoreTypeRequest").get(0);
+		assertEquals(ChromeTraceRecorder.getPid(JobTarget.DESTINATION), restore.getInt("pid"));
+		assertEquals(100000L, restore.getLong("ts"));
+		assertEquals(900000L, restore.getLong("dur"));
+		JSONObject args = restore.getJSONObject("args");
+		assertEquals("missing", args.getString("phase"));
+		assertEquals(100L, args.getLong("queueWaitMs"));
+		assertEquals(500L, args.getLong("serverRunMs"));
+		assertEquals(200L, args.getLong("detectionLagMs"));
+		assertEquals("NODE", getTrackName(events, restore));
+
+		JSONObject queued = findEvent(events, "X", "queued").get(0);
+		assertEquals(restore.getInt("tid"), queued.getInt("tid"));
+		assertEquals(100000L, queued.getLong("ts"));
+		assertEquals(100000L, queued.getLong("dur"));
+		JSONObject server = findEvent(events, "X", "server").get(0);
+		assertEquals(300000L, server.getLong("ts"));
+		assertEquals(500000L, server.getLong("dur"));
+
+		// jobs on other targets are written to their own process.
+		JSONObject checksum = findEvent(events, "X", "AsyncMigrationRangeChecksumRequest").get(0);
+		assertEquals(ChromeTraceRecorder.getPid(JobTarget.SOURCE), checksum.getInt("pid"));
+		// only the restore has a queued span and known server times.
+		assertEquals(1, findEvent(events, "X", "queued").size());
+		assertEquals(1, findEvent(events, "X", "server").size());
+	}
+
+	@Test
+	public void testToJSONOpenPhase() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		recorder.startPhase("checksum pass 1");
+		// call under test
+		JSONObject trace = recorder.toJSON(4000L);
+		JSONObject phase = findEvent(trace.getJSONArray("traceEvents"), "X", "checksum pass 1").get(0);
+		assertEquals(3000000L, phase.getLong("dur"));
+	}
+
+	@Test
+	public void testToJSONOverlappingJobs() {
+		recorder.recordJob(restoreKey, new JobTimeline(null, 200L, null, null, 1000L));
+		recorder.recordJob(restoreKey, new JobTimeline(null, 500L, null, null, 1500L));
+		recorder.recordJob(restoreKey, new JobTimeline(null, 1200L, null, null, 1300L));
+		// call under test
+		JSONArray events = recorder.toJSON(2000L).getJSONArray("traceEvents");
+		List<JSONObject> jobs = findEvent(events, "X", "RestoreTypeRequest");
+		assertEquals(3, jobs.size());
+		assertEquals("NODE", getTrackName(events, jobs.get(0)));
+		// the second job overlaps the first so it is on another track.
+		assertEquals("NODE #2", getTrackName(events, jobs.get(1)));
+		// the third job starts after the first finished.
+		assertEquals("NODE", getTrackName(events, jobs.get(2)));
+	}
+
+	@Test
+	public void testGetPhaseAt() {
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 100L, 100L);
+		recorder.startPhase("one").close();
+		recorder.startPhase("two");
+		assertEquals(Optional.of("one"), recorder.getPhaseAt(50L));
+		// the latest phase wins at the boundary.
+		assertEquals(Optional.of("two"), recorder.getPhaseAt(100L));
+		assertEquals(Optional.of("two"), recorder.getPhaseAt(5000L));
+		assertEquals(Optional.empty(), recorder.getPhaseAt(-1L));
+	}
+
+	@Test
+	public void testExport() throws IOException {
+		when(mockClock.currentTimeMillis()).thenReturn(0L, 5000L, 6000L);
+		recorder.startPhase("missing").close();
+		recorder.recordJob(restoreKey, new JobTimeline(100L, 200L, 300L, 800L, 1000L));
+		// call under test
+		recorder.export();
+		assertTrue(traceFile.exists());
+		JSONObject trace = new JSONObject(new String(Files.readAllBytes(traceFile.toPath()), StandardCharsets.UTF_8));
+		assertEquals(1, findEvent(trace.getJSONArray("traceEvents"), "X", "RestoreTypeRequest").size());
+		// the recorded spans are cleared for the next attempt.
+		assertTrue(recorder.jobs.isEmpty());
+		assertTrue(recorder.phases.isEmpty());
+	}
+
+	@Test
+	public void testNoTraceFile() {
+		when(mockConfig.getTraceFilePath()).thenReturn(Optional.empty());
+		// call under test
+		recorder.recordJob(restoreKey, new JobTimeline(100L, 200L, 300L, 800L, 1000L));
+		recorder.export();
+		assertTrue(recorder.jobs.isEmpty());
+		assertFalse(traceFile.exists());
+	}
+
+	static List<JSONObject> findEvent(JSONArray events, String phase, String name) {
+		List<JSONObject> found = new LinkedList<>();
+		for (int i = 0; i < events.length(); i++) {
+			JSONObject event = events.getJSONObject(i);
+			if (phase.equals(event.getString("ph")) && name.equals(event.getString("name"))) {
+				found.add(event);
+			}
+		}
+		return found;
+	}
+
+	static String getTrackName(JSONArray events, JSONObject span) {
+		for (JSONObject event : findEvent(events, "M", "thread_name")) {
+			if (event.getInt("pid") == span.getInt("pid") && event.getInt("tid") == span.getInt("tid")) {
+				return event.getJSONObject("args").getString("name");
+			}
+		}
+		return null;
+	}
+}
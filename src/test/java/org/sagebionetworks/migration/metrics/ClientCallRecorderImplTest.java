@@ -0,0 +1,90 @@
+package org.sagebionetworks.migration.metrics;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ClientCallRecorderImplTest {
+
+	@Mock
+	MigrationMetrics mockMetrics;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	ClientCallRecorderImpl recorder;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		recorder = new ClientCallRecorderImpl(mockMetrics, mockLoggerFactory);
+	}
+
+	@Test
+	public void testRecordCall() {
+		// call under test
+		recorder.recordCall(JobTarget.SOURCE, "startAdminAsynchronousJob", 30L, false, 100L, 200L);
+		verify(mockMetrics).recordClientCall(JobTarget.SOURCE, "startAdminAsynchronousJob", 30L, false, 100L, 200L);
+	}
+
+	@Test
+	public void testPhaseSummary() {
+		TraceSpan phase = recorder.startPhase("missing");
+		recorder.recordCall(JobTarget.DESTINATION, "startAdminAsynchronousJob", 30L, false, 100L, 200L);
+		for (int i = 0; i < 3; i++) {
+			recorder.recordCall(JobTarget.DESTINATION, ClientCallRecorderImpl.STATUS_POLL_METHOD, 20L, i == 0, 3L,
+					400L);
+		}
+		// call under test
+		phase.close();
+		InOrder inOrder = Mockito.inOrder(mockLogger);
+		inOrder.verify(mockLogger).info(
+				"Client calls of phase 'missing': 4 calls, errors: 1 (25.0%), status polls: 3 (75.0%)");
+		// the busiest method is first.
+		inOrder.verify(mockLogger).info("\tDESTINATION getAdminAsynchronousJobStatus: calls: 3 (75.0%) errors: 1 (33.3%)"
+				+ " mean: 20 ms p95: 20 ms max: 20 ms sent: 9 bytes received: 1 KB");
+		inOrder.verify(mockLogger).info("\tDESTINATION startAdminAsynchronousJob: calls: 1 (25.0%) errors: 0 (0.0%)"
+				+ " mean: 30 ms p95: 30 ms max: 30 ms sent: 100 bytes received: 200 bytes");
+	}
+
+	@Test
+	public void testPhaseSummaryNoCalls() {
+		// calls before the phase are not included.
+		recorder.recordCall(JobTarget.SOURCE, "getCurrentStackStatus", 30L, false, 0L, 50L);
+		TraceSpan phase = recorder.startPhase("missing");
+		// call under test
+		phase.close();
+		verify(mockLogger, never()).info(anyString());
+	}
+
+	@Test
+	public void testPhaseSummaryP95() {
+		TraceSpan phase = recorder.startPhase("final checks");
+		for (int i = 0; i < 19; i++) {
+			recorder.recordCall(JobTarget.SOURCE, "getCurrentStackStatus", 5L, false, 0L, 0L);
+		}
+		recorder.recordCall(JobTarget.SOURCE, "getCurrentStackStatus", 700L, false, 0L, 0L);
+		// call under test
+		phase.close();
+		// the 95th percentile is the bound of its bucket.
+		verify(mockLogger).info("\tSOURCE getCurrentStackStatus: calls: 20 (100.0%) errors: 0 (0.0%)"
+				+ " mean: 39 ms p95: 10 ms max: 700 ms sent: 0 bytes received: 0 bytes");
+		verify(mockLogger, times(2)).info(anyString());
+	}
+}
@@ -0,0 +1,93 @@
+package org.sagebionetworks.migration.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CompositePhaseListenerTest {
+
+	@Mock
+	PhaseListener mockListenerOne;
+	@Mock
+	PhaseListener mockListenerTwo;
+	@Mock
+	PhaseListener mockListenerThree;
+	@Mock
+	TraceSpan mockSpanOne;
+	@Mock
+	TraceSpan mockSpanTwo;
+	@Mock
+	TraceSpan mockSpanThree;
+
+	String phase;
+	CompositePhaseListener listener;
+
+	@Before
+	public void before() {
+		phase = "type counts";
+		when(mockListenerOne.startPhase(phase)).thenReturn(mockSpanOne);
+		when(mockListenerTwo.startPhase(phase)).thenReturn(mockSpanTwo);
+		when(mockListenerThree.startPhase(phase)).thenReturn(mockSpanThree);
+		listener = new CompositePhaseListener(mockListenerOne, mockListenerTwo, mockListenerThree);
+	}
+
+	@Test
+	public void testStartPhase() {
+		// call under test
+		listener.startPhase(phase).close();
+		InOrder inOrder = inOrder(mockListenerOne, mockListenerTwo, mockListenerThree, mockSpanOne, mockSpanTwo,
+				mockSpanThree);
+		inOrder.verify(mockListenerOne).startPhase(phase);
+		inOrder.verify(mockListenerTwo).startPhase(phase);
+		inOrder.verify(mockListenerThree).startPhase(phase);
+		// the spans end in the reverse order.
+		inOrder.verify(mockSpanThree).close();
+		inOrder.verify(mockSpanTwo).close();
+		inOrder.verify(mockSpanOne).close();
+	}
+
+	@Test
+	public void testStartPhaseFailure() {
+		IllegalStateException exception = new IllegalStateException("failed");
+		when(mockListenerTwo.startPhase(phase)).thenThrow(exception);
+		try {
+			// call under test
+			listener.startPhase(phase);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(exception, e);
+		}
+		// the phase ends for the listeners that started it.
+		verify(mockSpanOne).close();
+		verify(mockListenerThree, never()).startPhase(phase);
+	}
+
+	@Test
+	public void testCloseFailure() {
+		IllegalStateException exception = new IllegalStateException("failed");
+		doThrow(exception).when(mockSpanTwo).close();
+		TraceSpan span = listener.startPhase(phase);
+		try {
+			// call under test
+			span.close();
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals(exception, e);
+		}
+		// every span is closed.
+		verify(mockSpanThree).close();
+		verify(mockSpanOne).close();
+	}
+}
@@ -0,0 +1,54 @@
+package org.sagebionetworks.migration.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+	@Test
+	public void testObserve() {
+		Histogram histogram = new Histogram();
+		// call under test
+		histogram.observe(5L);
+		histogram.observe(10L);
+		histogram.observe(75L);
+		histogram.observe(1000000L);
+		assertEquals(4L, histogram.getCount());
+		assertEquals(1000090L, histogram.getSum());
+		long[] cumulative = histogram.getCumulativeCounts();
+		assertEquals(Histogram.BUCKET_BOUNDS_MS.length, cumulative.length);
+		// le 10
+		assertEquals(2L, cumulative[0]);
+		// le 50
+		assertEquals(2L, cumulative[1]);
+		// le 100
+		assertEquals(3L, cumulative[2]);
+		// observations above the last bound are only in the count.
+		assertEquals(3L, cumulative[cumulative.length - 1]);
+	}
+
+	@Test
+	public void testEmpty() {
+		Histogram histogram = new Histogram();
+		assertEquals(0L, histogram.getCount());
+		assertEquals(0L, histogram.getSum());
+		assertEquals(0L, histogram.getCumulativeCounts()[0]);
+		assertEquals(0L, histogram.getQuantileBound(0.95));
+	}
+
+	@Test
+	public void testGetQuantileBound() {
+		Histogram histogram = new Histogram();
+		for (int i = 0; i < 19; i++) {
+			histogram.observe(5L);
+		}
+		histogram.observe(400L);
+		// call under test
+		assertEquals(10L, histogram.getQuantileBound(0.5));
+		assertEquals(10L, histogram.getQuantileBound(0.95));
+		assertEquals(500L, histogram.getQuantileBound(0.99));
+		histogram.observe(1000000L);
+		assertEquals(Long.MAX_VALUE, histogram.getQuantileBound(1.0));
+	}
+}
@@ -0,0 +1,128 @@
+package org.sagebionetworks.migration.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.repo.model.asynch.AsynchJobState;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationResponse;
+import org.sagebionetworks.repo.model.migration.BackupTypeRangeRequest;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
+import org.sagebionetworks.repo.model.migration.RestoreTypeResponse;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobEventLogImplTest {
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockEventLogger;
+
+	AsynchronousJobStatus restoreStarted;
+	AsynchronousJobStatus restoreFinished;
+
+	JobEventLogImpl eventLog;
+
+	@Before
+	public void before() {
+		when(mockConfig.getJobEventLogFilePath()).thenReturn(Optional.of("events.log"));
+		when(mockLoggerFactory.getEventLogger(any())).thenReturn(mockEventLogger);
+		AsyncMigrationRequest restore = new AsyncMigrationRequest().setAdminRequest(new RestoreTypeRequest()
+				.setMigrationType(MigrationType.NODE).setMinimumRowId(10L).setMaximumRowId(20L));
+		restoreStarted = new AsynchronousJobStatus().setJobId("1").setJobState(AsynchJobState.PROCESSING)
+				.setRequestBody(restore);
+		restoreFinished = new AsynchronousJobStatus().setJobId("1").setJobState(AsynchJobState.COMPLETE)
+				.setRequestBody(restore).setStartedOn(new Date(1100L)).setChangedOn(new Date(3100L))
+				.setResponseBody(new AsyncMigrationResponse()
+						.setAdminResponse(new RestoreTypeResponse().setRestoredRowCount(11L)));
+		eventLog = new JobEventLogImpl(mockConfig, mockLoggerFactory);
+	}
+
+	@Test
+	public void testJobStarted() {
+		// call under test
+		eventLog.jobStarted(JobTarget.DESTINATION, restoreStarted, 400L, 1000L);
+		verify(mockLoggerFactory).getEventLogger("events.log");
+		JSONObject json = captureEvent();
+		assertEquals(JobEventLogImpl.STARTED, json.getString("event"));
+		assertEquals("1", json.getString("jobId"));
+		assertEquals("DESTINATION", json.getString("target"));
+		assertEquals("RestoreTypeRequest", json.getString("request"));
+		assertEquals("NODE", json.getString("type"));
+		assertEquals("PROCESSING", json.getString("state"));
+		assertEquals(10L, json.getLong("minimumId"));
+		assertEquals(20L, json.getLong("maximumId"));
+		assertEquals(400L, json.getLong("queuedOn"));
+		assertEquals(1000L, json.getLong("requestedOn"));
+	}
+
+	@Test
+	public void testJobFinished() {
+		// call under test
+		eventLog.jobFinished(JobTarget.DESTINATION, restoreFinished, new JobTimeline(400L, 1000L, 1100L, 3100L, 4000L));
+		JSONObject json = captureEvent();
+		assertEquals(JobEventLogImpl.FINISHED, json.getString("event"));
+		assertEquals("COMPLETE", json.getString("state"));
+		assertEquals(1100L, json.getLong("serverStartedOn"));
+		assertEquals(3100L, json.getLong("serverFinishedOn"));
+		assertEquals(4000L, json.getLong("detectedOn"));
+		assertEquals(600L, json.getLong("queueWaitMs"));
+		assertEquals(2000L, json.getLong("serverRunMs"));
+		assertEquals(900L, json.getLong("detectionLagMs"));
+		assertEquals(11L, json.getLong("restoredRows"));
+	}
+
+	@Test
+	public void testCreateEventJSONBackup() {
+		AsynchronousJobStatus backup = new AsynchronousJobStatus().setJobId("2")
+				.setRequestBody(new AsyncMigrationRequest().setAdminRequest(new BackupTypeRangeRequest()
+						.setMigrationType(MigrationType.ACTIVITY).setMinimumId(5L).setMaximumId(9L)));
+		// call under test
+		JSONObject json = JobEventLogImpl.createEventJSON(JobEventLogImpl.STARTED, JobTarget.SOURCE, backup);
+		assertEquals("BackupTypeRangeRequest", json.getString("request"));
+		assertEquals("ACTIVITY", json.getString("type"));
+		assertEquals(5L, json.getLong("minimumId"));
+		assertEquals(9L, json.getLong("maximumId"));
+		// unknown fields are omitted.
+		assertFalse(json.has("state"));
+	}
+
+	@Test
+	public void testNoEventLogFile() {
+		when(mockConfig.getJobEventLogFilePath()).thenReturn(Optional.empty());
+		eventLog = new JobEventLogImpl(mockConfig, mockLoggerFactory);
+		// call under test
+		eventLog.jobStarted(JobTarget.DESTINATION, restoreStarted, null, 1000L);
+		eventLog.jobFinished(JobTarget.DESTINATION, restoreFinished, new JobTimeline(null, 1000L, 1100L, 3100L, 4000L));
+		verify(mockEventLogger, never()).info(anyString());
+	}
+
+	JSONObject captureEvent() {
+		ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+		verify(mockEventLogger).info(captor.capture());
+		return new JSONObject(captor.getValue());
+	}
+}
@@ -0,0 +1,150 @@
+package org.sagebionetworks.migration.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.repo.model.asynch.AsynchJobState;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationRangeChecksumRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobTimelineRecorderImplTest {
+
+	@Mock
+	TraceRecorder mockTraceRecorder;
+	@Mock
+	JobEventLog mockEventLog;
+	@Mock
+	Clock mockClock;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	AsynchronousJobStatus restoreStarted;
+	AsynchronousJobStatus restoreFinished;
+	AsynchronousJobStatus checksumStarted;
+	AsynchronousJobStatus checksumFinished;
+
+	JobTimelineRecorderImpl recorder;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		AsyncMigrationRequest restore = new AsyncMigrationRequest()
+				.setAdminRequest(new RestoreTypeRequest().setMigrationType(MigrationType.NODE));
+		restoreStarted = new AsynchronousJobStatus().setJobId("1").setJobState(AsynchJobState.PROCESSING)
+				.setRequestBody(restore);
+		restoreFinished = new AsynchronousJobStatus().setJobId("1").setJobState(AsynchJobState.COMPLETE)
+				.setRequestBody(restore).setStartedOn(new Date(1100L)).setChangedOn(new Date(3100L));
+		AsyncMigrationRangeChecksumRequest checksumRequest = new AsyncMigrationRangeChecksumRequest();
+		checksumRequest.setMigrationType(MigrationType.NODE);
+		AsyncMigrationRequest checksum = new AsyncMigrationRequest().setAdminRequest(checksumRequest);
+		checksumStarted = new AsynchronousJobStatus().setJobId("1").setJobState(AsynchJobState.PROCESSING)
+				.setRequestBody(checksum);
+		checksumFinished = new AsynchronousJobStatus().setJobId("1").setJobState(AsynchJobState.COMPLETE)
+				.setRequestBody(checksum).setStartedOn(new Date(200L)).setChangedOn(new Date(700L));
+		recorder = new JobTimelineRecorderImpl(mockTraceRecorder, mockEventLog, mockClock, mockLoggerFactory);
+	}
+
+	@Test
+	public void testQueuedRestore() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L);
+		recorder.restoreDequeued(MigrationType.NODE, 400L);
+		recorder.jobRequested(JobTarget.DESTINATION, restoreStarted);
+		// call under test
+		recorder.jobDetected(JobTarget.DESTINATION, restoreFinished, 4000L);
+		LatencyBreakdown breakdown = recorder.getCriticalPath().get();
+		assertEquals(1L, breakdown.getJobCount());
+		assertEquals(600L, breakdown.getQueueWaitMs());
+		assertEquals(2000L, breakdown.getServerRunMs());
+		assertEquals(900L, breakdown.getDetectionLagMs());
+		assertEquals(3600L, breakdown.getSpanMs());
+		verify(mockTraceRecorder).recordJob(
+				MigrationMetricsImpl.createKey(JobTimelineRecorderImpl.LATENCY, JobTarget.DESTINATION, restoreFinished),
+				new JobTimeline(400L, 1000L, 1100L, 3100L, 4000L));
+		verify(mockEventLog).jobStarted(JobTarget.DESTINATION, restoreStarted, 400L, 1000L);
+		verify(mockEventLog).jobFinished(JobTarget.DESTINATION, restoreFinished,
+				new JobTimeline(400L, 1000L, 1100L, 3100L, 4000L));
+	}
+
+	@Test
+	public void testSourceJobIsNotQueued() {
+		when(mockClock.currentTimeMillis()).thenReturn(100L);
+		// a restore of the same type is about to start on the destination.
+		recorder.restoreDequeued(MigrationType.NODE, 50L);
+		recorder.jobRequested(JobTarget.SOURCE, checksumStarted);
+		// call under test
+		recorder.jobDetected(JobTarget.SOURCE, checksumFinished, 1000L);
+		// only restores form the critical path.
+		assertEquals(Optional.empty(), recorder.getCriticalPath());
+		// the dequeued time is still available to the restore.
+		assertEquals(Long.valueOf(50L), recorder.dequeuedRestores.get(MigrationType.NODE));
+		verify(mockEventLog).jobStarted(JobTarget.SOURCE, checksumStarted, null, 100L);
+	}
+
+	@Test
+	public void testDetectedWithoutRequest() {
+		// call under test
+		recorder.jobDetected(JobTarget.DESTINATION, restoreFinished, 4000L);
+		assertTrue(recorder.breakdowns.isEmpty());
+	}
+
+	@Test
+	public void testReportCriticalPath() {
+		when(mockClock.currentTimeMillis()).thenReturn(100L, 1000L);
+		recorder.jobRequested(JobTarget.SOURCE, checksumStarted);
+		recorder.jobDetected(JobTarget.SOURCE, checksumFinished, 1000L);
+		recorder.restoreDequeued(MigrationType.NODE, 400L);
+		recorder.jobRequested(JobTarget.DESTINATION, restoreStarted);
+		recorder.jobDetected(JobTarget.DESTINATION, restoreFinished, 4000L);
+		// call under test
+		recorder.reportCriticalPath();
+		verify(mockLogger).info("Job latency of DESTINATION NODE RestoreTypeRequest: jobs: 1 queue wait: 00:00:00.600"
+				+ " server run: 00:00:02.000 detection lag: 00:00:00.900 span: 00:00:03.600");
+		verify(mockLogger).info("Job latency of SOURCE NODE AsyncMigrationRangeChecksumRequest: jobs: 1 queue wait: 00:00:00.000"
+				+ " server run: 00:00:00.500 detection lag: 00:00:00.300 span: 00:00:00.900");
+		verify(mockLogger).info("Critical path: DESTINATION NODE RestoreTypeRequest total: 00:00:03.500"
+				+ " queue wait: 17% server run: 57% detection lag: 26%");
+		// the next run starts over.
+		assertTrue(recorder.breakdowns.isEmpty());
+	}
+
+	@Test
+	public void testReportCriticalPathEmpty() {
+		// call under test
+		recorder.reportCriticalPath();
+		verify(mockLogger, never()).info(anyString());
+	}
+
+	@Test
+	public void testJobTimelineWithoutServerTimes() {
+		JobTimeline timeline = new JobTimeline(null, 100L, null, null, 600L);
+		assertEquals(0L, timeline.getQueueWaitMs());
+		assertEquals(500L, timeline.getServerRunMs());
+		assertEquals(0L, timeline.getDetectionLagMs());
+		assertEquals(100L, timeline.getFirstOn());
+		assertFalse(timeline.equals(new JobTimeline(50L, 100L, null, null, 600L)));
+	}
+}
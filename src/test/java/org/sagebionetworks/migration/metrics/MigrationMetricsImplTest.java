@@ -0,0 +1,239 @@
+package org.sagebionetworks.migration.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.async.JobTarget;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProviderImp;
+import org.sagebionetworks.repo.model.asynch.AsynchJobState;
+import org.sagebionetworks.repo.model.asynch.AsynchronousJobStatus;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationRequest;
+import org.sagebionetworks.repo.model.migration.AsyncMigrationResponse;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RestoreTypeRequest;
+import org.sagebionetworks.repo.model.migration.RestoreTypeResponse;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MigrationMetricsImplTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	Clock mockClock;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	AsynchronousJobStatus startedStatus;
+	AsynchronousJobStatus completeStatus;
+	AsynchronousJobStatus failedStatus;
+	MetricKey completedKey;
+
+	MigrationMetricsImpl metrics;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		when(mockConfig.getMetricsPrometheusFilePath()).thenReturn(Optional.empty());
+		when(mockConfig.getMetricsJsonFilePath()).thenReturn(Optional.empty());
+		AsyncMigrationRequest request = new AsyncMigrationRequest()
+				.setAdminRequest(new RestoreTypeRequest().setMigrationType(MigrationType.NODE));
+		startedStatus = new AsynchronousJobStatus().setJobState(AsynchJobState.PROCESSING).setRequestBody(request)
+				.setStartedOn(new Date(1000L)).setChangedOn(new Date(1000L));
+		completeStatus = new AsynchronousJobStatus().setJobState(AsynchJobState.COMPLETE).setRequestBody(request)
+				.setStartedOn(new Date(1000L)).setChangedOn(new Date(4000L)).setRuntimeMS(2800L)
+				.setResponseBody(new AsyncMigrationResponse()
+						.setAdminResponse(new RestoreTypeResponse().setRestoredRowCount(50L)));
+		failedStatus = new AsynchronousJobStatus().setJobState(AsynchJobState.FAILED).setRequestBody(request)
+				.setStartedOn(new Date(1000L)).setChangedOn(new Date(2000L));
+		completedKey = new MetricKey(MigrationMetricsImpl.JOBS_COMPLETED, "target", "DESTINATION", "type", "NODE",
+				"request", "RestoreTypeRequest");
+		metrics = new MigrationMetricsImpl(mockConfig, new FileProviderImp(), mockClock, mockLoggerFactory);
+	}
+
+	@Test
+	public void testCreateKey() {
+		// call under test
+		assertEquals(completedKey, MigrationMetricsImpl.createKey(MigrationMetricsImpl.JOBS_COMPLETED,
+				JobTarget.DESTINATION, completeStatus));
+	}
+
+	@Test
+	public void testCreateKeyWithoutRequest() {
+		// call under test
+		MetricKey key = MigrationMetricsImpl.createKey(MigrationMetricsImpl.JOBS_STARTED, JobTarget.SOURCE,
+				new AsynchronousJobStatus());
+		assertEquals("migration_jobs_started_total{target=\"SOURCE\"}", key.toString());
+	}
+
+	@Test
+	public void testJobFinishedComplete() {
+		metrics.jobStarted(JobTarget.DESTINATION, startedStatus);
+		// call under test
+		metrics.jobFinished(JobTarget.DESTINATION, completeStatus, 4500L);
+		assertEquals(1L, metrics.counters.get(completedKey).sum());
+		assertEquals(50L, metrics.counters.get(new MetricKey(MigrationMetricsImpl.ROWS_RESTORED, "target",
+				"DESTINATION", "type", "NODE", "request", "RestoreTypeRequest")).sum());
+		Histogram server = metrics.histograms.get(new MetricKey(MigrationMetricsImpl.SERVER_EXECUTION_MS, "target",
+				"DESTINATION", "type", "NODE", "request", "RestoreTypeRequest"));
+		assertEquals(2800L, server.getSum());
+		Histogram lag = metrics.histograms.get(new MetricKey(MigrationMetricsImpl.POLL_DETECTION_LAG_MS, "target",
+				"DESTINATION", "type", "NODE", "request", "RestoreTypeRequest"));
+		assertEquals(500L, lag.getSum());
+	}
+
+	@Test
+	public void testJobFinishedFailed() {
+		// call under test
+		metrics.jobFinished(JobTarget.DESTINATION, failedStatus, 1500L);
+		assertEquals(1L, metrics.counters.get(new MetricKey(MigrationMetricsImpl.JOBS_FAILED, "target",
+				"DESTINATION", "type", "NODE", "request", "RestoreTypeRequest")).sum());
+		assertFalse(metrics.counters.containsKey(completedKey));
+		// without a runtime the server time is measured from the start to the last change.
+		Histogram server = metrics.histograms.get(new MetricKey(MigrationMetricsImpl.SERVER_EXECUTION_MS, "target",
+				"DESTINATION", "type", "NODE", "request", "RestoreTypeRequest"));
+		assertEquals(1000L, server.getSum());
+		// a client clock behind the server does not produce a negative lag.
+		Histogram lag = metrics.histograms.get(new MetricKey(MigrationMetricsImpl.POLL_DETECTION_LAG_MS, "target",
+				"DESTINATION", "type", "NODE", "request", "RestoreTypeRequest"));
+		assertEquals(0L, lag.getSum());
+	}
+
+	@Test
+	public void testRecordClientCall() {
+		metrics.recordClientCall(JobTarget.SOURCE, "getAdminAsynchronousJobStatus", 20L, false, 3L, 200L);
+		// call under test
+		metrics.recordClientCall(JobTarget.SOURCE, "getAdminAsynchronousJobStatus", 40L, true, 3L, 0L);
+		assertEquals(2L, metrics.counters.get(new MetricKey(MigrationMetricsImpl.CLIENT_CALLS, "target", "SOURCE",
+				"method", "getAdminAsynchronousJobStatus")).sum());
+		assertEquals(1L, metrics.counters.get(new MetricKey(MigrationMetricsImpl.CLIENT_ERRORS, "target", "SOURCE",
+				"method", "getAdminAsynchronousJobStatus")).sum());
+		assertEquals(6L, metrics.counters.get(new MetricKey(MigrationMetricsImpl.CLIENT_SENT_BYTES, "target",
+				"SOURCE", "method", "getAdminAsynchronousJobStatus")).sum());
+		assertEquals(200L, metrics.counters.get(new MetricKey(MigrationMetricsImpl.CLIENT_RECEIVED_BYTES, "target",
+				"SOURCE", "method", "getAdminAsynchronousJobStatus")).sum());
+		Histogram latency = metrics.histograms.get(new MetricKey(MigrationMetricsImpl.CLIENT_CALL_MS, "target",
+				"SOURCE", "method", "getAdminAsynchronousJobStatus"));
+		assertEquals(60L, latency.getSum());
+	}
+
+	@Test
+	public void testRecordMismatchedBins() {
+		metrics.recordMismatchedBins(MigrationType.NODE, 3L);
+		// call under test
+		metrics.recordMismatchedBins(MigrationType.NODE, 0L);
+		assertEquals(3L, metrics.counters
+				.get(new MetricKey(MigrationMetricsImpl.MISMATCHED_BINS, "type", "NODE")).sum());
+	}
+
+	@Test
+	public void testGetCounterValuesAndHistogramSums() {
+		metrics.jobFinished(JobTarget.DESTINATION, completeStatus, 4500L);
+		// call under test
+		Map<MetricKey, Long> counters = metrics.getCounterValues();
+		assertEquals(Long.valueOf(1L), counters.get(completedKey));
+		assertEquals(Long.valueOf(50L), counters.get(new MetricKey(MigrationMetricsImpl.ROWS_RESTORED, "target",
+				"DESTINATION", "type", "NODE", "request", "RestoreTypeRequest")));
+		// call under test
+		Map<MetricKey, Long> sums = metrics.getHistogramSums();
+		assertEquals(Long.valueOf(2800L), sums.get(new MetricKey(MigrationMetricsImpl.SERVER_EXECUTION_MS, "target",
+				"DESTINATION", "type", "NODE", "request", "RestoreTypeRequest")));
+		// the snapshot does not change with the metrics.
+		metrics.jobFinished(JobTarget.DESTINATION, completeStatus, 4500L);
+		assertEquals(Long.valueOf(1L), counters.get(completedKey));
+	}
+
+	@Test
+	public void testToPrometheus() {
+		metrics.jobStarted(JobTarget.DESTINATION, startedStatus);
+		metrics.recordQueueWait(MigrationType.NODE, 75L);
+		// call under test
+		String text = metrics.toPrometheus();
+		assertTrue(text.contains("# TYPE migration_jobs_started_total counter\n"
+				+ "migration_jobs_started_total{target=\"DESTINATION\",type=\"NODE\",request=\"RestoreTypeRequest\"} 1\n"));
+		assertTrue(text.contains("# TYPE migration_queue_wait_ms histogram\n"
+				+ "migration_queue_wait_ms_bucket{target=\"DESTINATION\",type=\"NODE\",le=\"10\"} 0\n"));
+		assertTrue(text.contains("migration_queue_wait_ms_bucket{target=\"DESTINATION\",type=\"NODE\",le=\"100\"} 1\n"));
+		assertTrue(text.contains("migration_queue_wait_ms_bucket{target=\"DESTINATION\",type=\"NODE\",le=\"+Inf\"} 1\n"
+				+ "migration_queue_wait_ms_sum{target=\"DESTINATION\",type=\"NODE\"} 75\n"
+				+ "migration_queue_wait_ms_count{target=\"DESTINATION\",type=\"NODE\"} 1\n"));
+	}
+
+	@Test
+	public void testExport() throws IOException {
+		File prometheusFile = new File(folder.getRoot(), "migration.prom");
+		File jsonFile = new File(folder.getRoot(), "metrics.json");
+		when(mockConfig.getMetricsPrometheusFilePath()).thenReturn(Optional.of(prometheusFile.getAbsolutePath()));
+		when(mockConfig.getMetricsJsonFilePath()).thenReturn(Optional.of(jsonFile.getAbsolutePath()));
+		when(mockClock.currentTimeMillis()).thenReturn(9000L);
+		metrics.jobStarted(JobTarget.DESTINATION, startedStatus);
+		metrics.jobFinished(JobTarget.DESTINATION, completeStatus, 4500L);
+		// call under test
+		metrics.export();
+		assertEquals(metrics.toPrometheus(),
+				new String(Files.readAllBytes(prometheusFile.toPath()), StandardCharsets.UTF_8));
+		JSONObject json = new JSONObject(new String(Files.readAllBytes(jsonFile.toPath()), StandardCharsets.UTF_8));
+		assertEquals(9000L, json.getLong("updatedOn"));
+		JSONArray counters = json.getJSONArray("counters");
+		assertEquals(3, counters.length());
+		JSONObject completed = counters.getJSONObject(0);
+		assertEquals(MigrationMetricsImpl.JOBS_COMPLETED, completed.getString("name"));
+		assertEquals("NODE", completed.getJSONObject("labels").getString("type"));
+		assertEquals(1L, completed.getLong("value"));
+		JSONArray histograms = json.getJSONArray("histograms");
+		assertEquals(2, histograms.length());
+		assertEquals(2800L, histograms.getJSONObject(1).getLong("sum"));
+	}
+
+	@Test
+	public void testExportNothingRecorded() {
+		File prometheusFile = new File(folder.getRoot(), "migration.prom");
+		File jsonFile = new File(folder.getRoot(), "metrics.json");
+		when(mockConfig.getMetricsPrometheusFilePath()).thenReturn(Optional.of(prometheusFile.getAbsolutePath()));
+		when(mockConfig.getMetricsJsonFilePath()).thenReturn(Optional.of(jsonFile.getAbsolutePath()));
+		// call under test
+		metrics.export();
+		assertFalse(prometheusFile.exists());
+		assertFalse(jsonFile.exists());
+	}
+
+	@Test
+	public void testExportWriteFailure() {
+		when(mockConfig.getMetricsJsonFilePath())
+				.thenReturn(Optional.of(new File(folder.getRoot(), "missing/metrics.json").getAbsolutePath()));
+		metrics.jobStarted(JobTarget.DESTINATION, startedStatus);
+		// call under test
+		metrics.export();
+		verify(mockLogger).warn(anyString());
+	}
+}
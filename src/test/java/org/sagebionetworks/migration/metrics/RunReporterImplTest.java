@@ -0,0 +1,187 @@
+package org.sagebionetworks.migration.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProviderImp;
+import org.sagebionetworks.migration.config.PlanMode;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RunReporterImplTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	MigrationMetrics mockMetrics;
+	@Mock
+	Clock mockClock;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	File reportFile;
+	MetricKey rowsKey;
+	MetricKey restoredKey;
+	MetricKey backedUpKey;
+	MetricKey binsKey;
+	MetricKey restoreMsKey;
+	Map<MetricKey, Long> startCounters;
+	Map<MetricKey, Long> endCounters;
+
+	RunReporterImpl reporter;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		reportFile = new File(folder.getRoot(), "report.json");
+		when(mockConfig.getRunReportFilePath()).thenReturn(Optional.of(reportFile.getAbsolutePath()));
+		when(mockConfig.getPlanMode()).thenReturn(PlanMode.NONE);
+		when(mockConfig.getMaximumBackupBatchSize()).thenReturn(5);
+		when(mockConfig.getMaximumNumberThreads()).thenReturn(3);
+
+		rowsKey = new MetricKey(MigrationMetricsImpl.ROWS_RESTORED, "target", "DESTINATION", "type", "NODE",
+				"request", "RestoreTypeRequest");
+		restoredKey = new MetricKey(MigrationMetricsImpl.JOBS_COMPLETED, "target", "DESTINATION", "type", "NODE",
+				"request", "RestoreTypeRequest");
+		backedUpKey = new MetricKey(MigrationMetricsImpl.JOBS_COMPLETED, "target", "SOURCE", "type", "NODE",
+				"request", "BackupTypeRangeRequest");
+		binsKey = new MetricKey(MigrationMetricsImpl.MISMATCHED_BINS, "type", "NODE");
+		restoreMsKey = new MetricKey(MigrationMetricsImpl.SERVER_EXECUTION_MS, "target", "DESTINATION", "type",
+				"NODE", "request", "RestoreTypeRequest");
+
+		// the first run restored 100 rows.
+		startCounters = new HashMap<>();
+		startCounters.put(rowsKey, 100L);
+		startCounters.put(restoredKey, 1L);
+		endCounters = new HashMap<>();
+		endCounters.put(rowsKey, 600L);
+		endCounters.put(restoredKey, 3L);
+		endCounters.put(backedUpKey, 2L);
+		endCounters.put(binsKey, 4L);
+		when(mockMetrics.getCounterValues()).thenReturn(startCounters, endCounters);
+		when(mockMetrics.getHistogramSums()).thenReturn(Collections.singletonMap(restoreMsKey, 1000L),
+				Collections.singletonMap(restoreMsKey, 3000L));
+
+		reporter = new RunReporterImpl(mockConfig, mockMetrics, new FileProviderImp(), mockClock, mockLoggerFactory);
+	}
+
+	@Test
+	public void testToJSON() {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 1500L, 3000L, 4000L);
+		reporter.beginRun();
+		reporter.attemptStarted();
+		reporter.startPhase("missing").close();
+		reporter.attemptStarted();
+		reporter.startPhase("checksum");
+		// call under test
+		JSONObject report = reporter.toJSON(true, 6000L);
+		assertEquals(1000L, report.getLong("startedOn"));
+		assertEquals(5000L, report.getLong("elapsedMs"));
+		assertTrue(report.getBoolean("successful"));
+		assertEquals(2, report.getInt("attempts"));
+		assertEquals(1, report.getInt("retries"));
+		assertEquals(5, report.getJSONObject("configuration").getInt("maximumBackupBatchSize"));
+		assertEquals(3, report.getJSONObject("configuration").getInt("maximumNumberThreads"));
+
+		JSONArray phases = report.getJSONArray("phases");
+		assertEquals(2, phases.length());
+		assertEquals("missing", phases.getJSONObject(0).getString("name"));
+		assertEquals(1, phases.getJSONObject(0).getInt("attempt"));
+		assertEquals(500L, phases.getJSONObject(0).getLong("startOffsetMs"));
+		assertEquals(1500L, phases.getJSONObject(0).getLong("elapsedMs"));
+		// the open phase ends now.
+		assertEquals(2, phases.getJSONObject(1).getInt("attempt"));
+		assertEquals(2000L, phases.getJSONObject(1).getLong("elapsedMs"));
+
+		// only the work of this run is included.
+		JSONObject node = report.getJSONArray("types").getJSONObject(0);
+		assertEquals("NODE", node.getString("type"));
+		assertEquals(500L, node.getLong("rowsRestored"));
+		assertEquals(2L, node.getLong("rangesRestored"));
+		assertEquals(2L, node.getLong("rangesBackedUp"));
+		assertEquals(4L, node.getLong("mismatchedBins"));
+		assertEquals(2000L, node.getLong("restoreServerMs"));
+		assertEquals(250.0, node.getDouble("rowsPerSecond"), 0.001);
+		// the throughput of the totals is per second of the run.
+		JSONObject totals = report.getJSONObject("totals");
+		assertEquals(500L, totals.getLong("rowsRestored"));
+		assertEquals(100.0, totals.getDouble("rowsPerSecond"), 0.001);
+	}
+
+	@Test
+	public void testGetTypeTotalsWithoutChange() {
+		when(mockMetrics.getCounterValues()).thenReturn(startCounters);
+		when(mockMetrics.getHistogramSums()).thenReturn(Collections.singletonMap(restoreMsKey, 1000L));
+		reporter.beginRun();
+		// call under test
+		assertTrue(reporter.getTypeTotals().isEmpty());
+	}
+
+	@Test
+	public void testGetPerSecond() {
+		assertEquals(0.0, RunReporterImpl.getPerSecond(10L, 0L), 0.001);
+		assertEquals(20.0, RunReporterImpl.getPerSecond(10L, 500L), 0.001);
+	}
+
+	@Test
+	public void testWriteReport() throws IOException {
+		when(mockClock.currentTimeMillis()).thenReturn(1000L, 2000L);
+		reporter.beginRun();
+		reporter.attemptStarted();
+		// call under test
+		reporter.writeReport(false);
+		JSONObject report = new JSONObject(new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8));
+		assertFalse(report.getBoolean("successful"));
+		assertEquals(1000L, report.getLong("elapsedMs"));
+	}
+
+	@Test
+	public void testWriteReportFailure() {
+		when(mockConfig.getRunReportFilePath())
+				.thenReturn(Optional.of(new File(folder.getRoot(), "missing/report.json").getAbsolutePath()));
+		reporter.beginRun();
+		// call under test
+		reporter.writeReport(true);
+		verify(mockLogger).warn(anyString());
+	}
+
+	@Test
+	public void testNoReportFile() {
+		when(mockConfig.getRunReportFilePath()).thenReturn(Optional.empty());
+		reporter.beginRun();
+		// call under test
+		reporter.writeReport(true);
+		assertFalse(reportFile.exists());
+	}
+}
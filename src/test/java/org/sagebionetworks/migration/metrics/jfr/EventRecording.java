@@ -0,0 +1,54 @@
+package org.sagebionetworks.migration.metrics.jfr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * A Java Flight Recorder recording of selected events for tests.
+ */
+public class EventRecording implements AutoCloseable {
+
+	Recording recording;
+
+	@SafeVarargs
+	public EventRecording(Class<? extends Event>... eventClasses) {
+		recording = new Recording();
+		for (Class<? extends Event> eventClass : eventClasses) {
+			recording.enable(eventClass).withoutThreshold();
+		}
+		recording.start();
+	}
+
+	/**
+	 * Stop the recording and read the recorded events of the given name.
+	 * 
+	 * @param eventClass
+	 * @return
+	 * @throws IOException
+	 */
+	public List<RecordedEvent> stop(Class<? extends Event> eventClass) throws IOException {
+		recording.stop();
+		Path file = Files.createTempFile("events", ".jfr");
+		try {
+			recording.dump(file);
+			String name = eventClass.getAnnotation(jdk.jfr.Name.class).value();
+			return RecordingFile.readAllEvents(file).stream().filter(e -> name.equals(e.getEventType().getName()))
+					.collect(Collectors.toList());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Override
+	public void close() {
+		recording.close();
+	}
+}
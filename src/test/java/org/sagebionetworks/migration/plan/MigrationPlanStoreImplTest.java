@@ -0,0 +1,110 @@
+package org.sagebionetworks.migration.plan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProviderImp;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MigrationPlanStoreImplTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	File planFile;
+	PlannedRange nodeRange;
+	PlannedRange changeRange;
+
+	MigrationPlanStoreImpl store;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		planFile = new File(folder.getRoot(), "plan.json");
+		when(mockConfig.getPlanFilePath()).thenReturn(Optional.of(planFile.getAbsolutePath()));
+		nodeRange = new PlannedRange(MigrationType.NODE, 1L, 10L, 7L);
+		changeRange = new PlannedRange(MigrationType.CHANGE, 20L, 39L, 20L);
+		store = new MigrationPlanStoreImpl(mockConfig, new FileProviderImp(), mockLoggerFactory);
+	}
+
+	@Test
+	public void testWriteAndReadPlan() {
+		// call under test
+		assertEquals(2L, store.writePlan(Lists.newArrayList(nodeRange, changeRange).iterator()));
+		assertTrue(planFile.exists());
+		// a new process should read the same plan.
+		store = new MigrationPlanStoreImpl(mockConfig, new FileProviderImp(), mockLoggerFactory);
+		// call under test
+		List<PlannedRange> read = Lists.newArrayList(store.readPlan());
+		assertEquals(Lists.newArrayList(nodeRange, changeRange), read);
+	}
+
+	@Test
+	public void testWriteEmptyPlan() {
+		// call under test
+		assertEquals(0L, store.writePlan(Lists.<PlannedRange>newArrayList().iterator()));
+		assertFalse(store.readPlan().hasNext());
+	}
+
+	@Test
+	public void testReadPlanSkipsBlankLines() throws IOException {
+		String content = MigrationPlanStoreImpl.toJSON(nodeRange).toString() + "\n\n  \n"
+				+ MigrationPlanStoreImpl.toJSON(changeRange).toString() + "\n";
+		Files.write(planFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		// call under test
+		Iterator<PlannedRange> it = store.readPlan();
+		assertEquals(nodeRange, it.next());
+		assertEquals(changeRange, it.next());
+		assertFalse(it.hasNext());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testReadPlanMissingFile() {
+		// call under test
+		store.readPlan();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWritePlanNoPath() {
+		when(mockConfig.getPlanFilePath()).thenReturn(Optional.empty());
+		// call under test
+		store.writePlan(Lists.newArrayList(nodeRange).iterator());
+	}
+
+	@Test
+	public void testToAndFromJSON() {
+		// call under test
+		assertEquals(changeRange, MigrationPlanStoreImpl.fromJSON(MigrationPlanStoreImpl.toJSON(changeRange)));
+	}
+}
@@ -0,0 +1,182 @@
+package org.sagebionetworks.migration.shard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProviderImp;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.util.Clock;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LeaseFileRestoreLeaseCoordinatorTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	Clock mockClock;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	File leaseDirectory;
+	long now;
+
+	LeaseFileRestoreLeaseCoordinator shardOne;
+	LeaseFileRestoreLeaseCoordinator shardTwo;
+
+	@Before
+	public void before() {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		leaseDirectory = new File(folder.getRoot(), "leases");
+		when(mockConfig.getShardLeaseDirectory()).thenReturn(Optional.of(leaseDirectory.getAbsolutePath()));
+		when(mockConfig.getShardLeaseTimeoutMs()).thenReturn(60000L);
+		now = System.currentTimeMillis();
+		when(mockClock.currentTimeMillis()).thenReturn(now);
+		// two workers sharing the same directory.
+		shardOne = new LeaseFileRestoreLeaseCoordinator(mockConfig, new FileProviderImp(), mockClock,
+				mockLoggerFactory);
+		shardTwo = new LeaseFileRestoreLeaseCoordinator(mockConfig, new FileProviderImp(), mockClock,
+				mockLoggerFactory);
+	}
+
+	@Test
+	public void testCreatesDirectory() {
+		assertTrue(leaseDirectory.isDirectory());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNoDirectory() {
+		when(mockConfig.getShardLeaseDirectory()).thenReturn(Optional.empty());
+		// call under test
+		new LeaseFileRestoreLeaseCoordinator(mockConfig, new FileProviderImp(), mockClock, mockLoggerFactory);
+	}
+
+	@Test
+	public void testTryAcquireSameType() {
+		// call under test
+		assertTrue(shardOne.tryAcquire(MigrationType.NODE));
+		assertTrue(new File(leaseDirectory, "NODE.lease").exists());
+		assertFalse(shardTwo.tryAcquire(MigrationType.NODE));
+		assertTrue(shardTwo.tryAcquire(MigrationType.ACL));
+		shardOne.release(MigrationType.NODE);
+		assertFalse(new File(leaseDirectory, "NODE.lease").exists());
+		assertTrue(shardTwo.tryAcquire(MigrationType.NODE));
+	}
+
+	@Test
+	public void testTryAcquireChange() {
+		assertTrue(shardOne.tryAcquire(MigrationType.NODE));
+		// call under test
+		assertFalse(shardTwo.tryAcquire(MigrationType.CHANGE));
+		// the lease file of the failed attempt is removed.
+		assertFalse(new File(leaseDirectory, "CHANGE.lease").exists());
+		shardOne.release(MigrationType.NODE);
+		assertTrue(shardTwo.tryAcquire(MigrationType.CHANGE));
+		assertFalse(shardOne.tryAcquire(MigrationType.ACL));
+	}
+
+	@Test
+	public void testReleaseNotHeld() {
+		assertTrue(shardOne.tryAcquire(MigrationType.NODE));
+		// call under test
+		shardTwo.release(MigrationType.NODE);
+		assertTrue(new File(leaseDirectory, "NODE.lease").exists());
+	}
+
+	@Test
+	public void testAbandonedLease() throws IOException {
+		assertTrue(shardOne.tryAcquire(MigrationType.NODE));
+		new File(leaseDirectory, "NODE.lease").setLastModified(now - 60001L);
+		// call under test
+		assertTrue(shardTwo.tryAcquire(MigrationType.NODE));
+		// the first worker loses its lease without removing the new one.
+		assertEquals(EnumSet.of(MigrationType.NODE), shardOne.renewAll());
+		shardOne.release(MigrationType.NODE);
+		assertTrue(new File(leaseDirectory, "NODE.lease").exists());
+		assertEquals(Collections.emptySet(), shardTwo.renewAll());
+	}
+
+	@Test
+	public void testHeldLeaseNotAbandoned() {
+		assertTrue(shardOne.tryAcquire(MigrationType.NODE));
+		File lease = new File(leaseDirectory, "NODE.lease");
+		lease.setLastModified(now - 60001L);
+		// call under test
+		assertTrue(shardOne.tryAcquire(MigrationType.ACL));
+		// a worker never removes a lease it holds.
+		assertTrue(lease.exists());
+		assertEquals(Collections.emptySet(), shardOne.renewAll());
+	}
+
+	@Test
+	public void testRenewAllLeaseRemoved() {
+		assertTrue(shardOne.tryAcquire(MigrationType.NODE));
+		new File(leaseDirectory, "NODE.lease").delete();
+		// call under test
+		assertEquals(EnumSet.of(MigrationType.NODE), shardOne.renewAll());
+		// the lost lease is no longer held.
+		assertEquals(Collections.emptySet(), shardOne.renewAll());
+	}
+
+	@Test
+	public void testShardFinished() {
+		// call under test
+		assertFalse(shardTwo.shardFinished(1, 2));
+		assertTrue(new File(leaseDirectory, "shard-1.finished").exists());
+		assertTrue(shardOne.shardFinished(0, 2));
+		// the marks are cleared for the next run.
+		assertFalse(new File(leaseDirectory, "shard-0.finished").exists());
+		assertFalse(new File(leaseDirectory, "shard-1.finished").exists());
+	}
+
+	@Test
+	public void testShardStarted() {
+		assertFalse(shardTwo.shardFinished(1, 2));
+		// call under test
+		shardTwo.shardStarted(1);
+		assertFalse(new File(leaseDirectory, "shard-1.finished").exists());
+		assertFalse(shardOne.shardFinished(0, 2));
+	}
+
+	@Test
+	public void testShardMarksAreNotLeases() {
+		assertFalse(shardTwo.shardFinished(1, 2));
+		// call under test
+		assertTrue(shardOne.tryAcquire(MigrationType.CHANGE));
+	}
+
+	@Test
+	public void testRenewAll() {
+		assertTrue(shardOne.tryAcquire(MigrationType.NODE));
+		File lease = new File(leaseDirectory, "NODE.lease");
+		lease.setLastModified(now - 60001L);
+		// call under test
+		assertEquals(Collections.emptySet(), shardOne.renewAll());
+		// the lease is no longer abandoned.
+		assertFalse(shardTwo.tryAcquire(MigrationType.NODE));
+		assertEquals(now / 1000, lease.lastModified() / 1000);
+	}
+}
@@ -0,0 +1,63 @@
+package org.sagebionetworks.migration.shard;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+
+public class LocalRestoreLeaseCoordinatorTest {
+
+	LocalRestoreLeaseCoordinator coordinator;
+
+	@Before
+	public void before() {
+		coordinator = new LocalRestoreLeaseCoordinator();
+	}
+
+	@Test
+	public void testTryAcquireSameType() {
+		assertTrue(coordinator.tryAcquire(MigrationType.NODE));
+		// call under test
+		assertFalse(coordinator.tryAcquire(MigrationType.NODE));
+		assertTrue(coordinator.tryAcquire(MigrationType.ACL));
+		coordinator.release(MigrationType.NODE);
+		assertTrue(coordinator.tryAcquire(MigrationType.NODE));
+	}
+
+	@Test
+	public void testTryAcquireChangeWithOtherLease() {
+		assertTrue(coordinator.tryAcquire(MigrationType.NODE));
+		// call under test
+		assertFalse(coordinator.tryAcquire(MigrationType.CHANGE));
+		coordinator.release(MigrationType.NODE);
+		assertTrue(coordinator.tryAcquire(MigrationType.CHANGE));
+	}
+
+	@Test
+	public void testTryAcquireWithChangeLease() {
+		assertTrue(coordinator.tryAcquire(MigrationType.CHANGE));
+		// call under test
+		assertFalse(coordinator.tryAcquire(MigrationType.NODE));
+		coordinator.release(MigrationType.CHANGE);
+		assertTrue(coordinator.tryAcquire(MigrationType.NODE));
+	}
+
+	@Test
+	public void testShardFinished() {
+		// call under test
+		assertFalse(coordinator.shardFinished(1, 2));
+		assertTrue(coordinator.shardFinished(0, 2));
+		// the marks are cleared for the next run.
+		assertFalse(coordinator.shardFinished(0, 2));
+	}
+
+	@Test
+	public void testShardStarted() {
+		assertFalse(coordinator.shardFinished(1, 2));
+		// call under test
+		coordinator.shardStarted(1);
+		assertFalse(coordinator.shardFinished(0, 2));
+	}
+}
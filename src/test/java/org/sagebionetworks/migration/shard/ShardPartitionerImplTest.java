@@ -0,0 +1,106 @@
+package org.sagebionetworks.migration.shard;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.utils.TypeToMigrateMetadata;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ShardPartitionerImplTest {
+
+	@Mock
+	Configuration mockConfig;
+
+	TypeToMigrateMetadata node;
+	TypeToMigrateMetadata acl;
+	List<TypeToMigrateMetadata> primaryTypes;
+
+	ShardPartitionerImpl partitioner;
+
+	@Before
+	public void before() {
+		when(mockConfig.getShardCount()).thenReturn(2);
+		when(mockConfig.getShardIndex()).thenReturn(0);
+		when(mockConfig.getShardSplitMinimumIdSpan()).thenReturn(0L);
+		when(mockConfig.getMaximumBackupBatchSize()).thenReturn(10);
+		node = createType(MigrationType.NODE, 3L, 95L, 1L, 50L);
+		acl = createType(MigrationType.ACL, 1L, 9L, null, null);
+		primaryTypes = Lists.newArrayList(node, acl);
+		partitioner = new ShardPartitionerImpl(mockConfig);
+	}
+
+	static TypeToMigrateMetadata createType(MigrationType type, Long srcMin, Long srcMax, Long destMin,
+			Long destMax) {
+		return TypeToMigrateMetadata.builder(true)
+				.setSource(new MigrationTypeCount().setType(type).setMinid(srcMin).setMaxid(srcMax))
+				.setDest(new MigrationTypeCount().setType(type).setMinid(destMin).setMaxid(destMax)).build();
+	}
+
+	@Test
+	public void testGetShardTypesNotSharded() {
+		when(mockConfig.getShardCount()).thenReturn(1);
+		// call under test
+		assertEquals(primaryTypes, partitioner.getShardTypes(primaryTypes));
+	}
+
+	@Test
+	public void testGetShardTypesByType() {
+		List<TypeToMigrateMetadata> shardZero = partitioner.getShardTypes(primaryTypes);
+		when(mockConfig.getShardIndex()).thenReturn(1);
+		List<TypeToMigrateMetadata> shardOne = partitioner.getShardTypes(primaryTypes);
+		// each type is migrated by exactly one shard.
+		assertEquals(2, shardZero.size() + shardOne.size());
+		assertEquals(MigrationType.NODE.ordinal() % 2 == 0, shardZero.contains(node));
+		assertEquals(MigrationType.NODE.ordinal() % 2 == 1, shardOne.contains(node));
+		assertEquals(MigrationType.ACL.ordinal() % 2 == 0, shardZero.contains(acl));
+		assertEquals(MigrationType.ACL.ordinal() % 2 == 1, shardOne.contains(acl));
+	}
+
+	@Test
+	public void testGetShardTypesSplit() {
+		when(mockConfig.getShardSplitMinimumIdSpan()).thenReturn(50L);
+		List<TypeToMigrateMetadata> shardZero = partitioner.getShardTypes(Collections.singletonList(node));
+		when(mockConfig.getShardIndex()).thenReturn(1);
+		List<TypeToMigrateMetadata> shardOne = partitioner.getShardTypes(Collections.singletonList(node));
+		// bins 0 to 9 of IDs 1 to 95 are split into bins 0-4 and 5-9.
+		assertEquals(Collections.singletonList(createType(MigrationType.NODE, 3L, 49L, 1L, 49L)), shardZero);
+		assertEquals(Collections.singletonList(createType(MigrationType.NODE, 50L, 95L, 50L, 50L)), shardOne);
+	}
+
+	@Test
+	public void testGetShardTypesSplitBelowMinimum() {
+		when(mockConfig.getShardSplitMinimumIdSpan()).thenReturn(100L);
+		// call under test
+		List<TypeToMigrateMetadata> shardTypes = partitioner.getShardTypes(Collections.singletonList(node));
+		assertEquals(MigrationType.NODE.ordinal() % 2 == 0, shardTypes.contains(node));
+	}
+
+	@Test
+	public void testGetShardRangeEmptySource() {
+		TypeToMigrateMetadata type = createType(MigrationType.NODE, 1L, 20L, 1L, 99L);
+		// call under test
+		assertEquals(Optional.of(createType(MigrationType.NODE, null, null, 50L, 99L)),
+				ShardPartitionerImpl.getShardRange(type, 1L, 99L, 2, 1, 10L));
+	}
+
+	@Test
+	public void testGetShardRangeNoIds() {
+		TypeToMigrateMetadata type = createType(MigrationType.NODE, 1L, 5L, null, null);
+		// call under test
+		assertEquals(Optional.empty(), ShardPartitionerImpl.getShardRange(type, 1L, 5L, 2, 1, 10L));
+	}
+}
@@ -1,22 +1,43 @@
 package org.sagebionetworks.migration.simulation;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.sagebionetworks.repo.model.migration.MigrationType.CHANGE;
 import static org.sagebionetworks.repo.model.migration.MigrationType.PRINCIPAL;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.json.JSONObject;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.sagebionetworks.migration.MigrationClient;
+import org.sagebionetworks.migration.MultipleDestinationMigration;
+import org.sagebionetworks.migration.async.SharedSourceJobs;
+import org.sagebionetworks.migration.config.ChecksumHint;
+import org.sagebionetworks.migration.config.PlanMode;
+import org.sagebionetworks.migration.metrics.MigrationMetricsImpl;
+import org.sagebionetworks.migration.shard.LocalRestoreLeaseCoordinator;
+import org.sagebionetworks.migration.shard.RestoreLeaseCoordinator;
 import org.sagebionetworks.repo.model.migration.MigrationTypeCount;
+import org.sagebionetworks.repo.model.status.StatusEnum;
 import org.sagebionetworks.repo.model.table.Row;
 
 @RunWith(MockitoJUnitRunner.class)
 public class SimulatedMigrationIntegrationTest {
+	
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
 
 	@Test
 	public void tesSimpleMigration() {
@@ -38,6 +59,166 @@ public class SimulatedMigrationIntegrationTest {
 		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
 	}
 	
+	@Test
+	public void testMigrationWithTypeCountGroups() {
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		StackSimulator simulator = new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(50)
+				.withTypeCountGroupSize(1);
+		MigrationClient client = simulator.createClientWithSimulatedServices();
+		// call under test
+		client.migrate();
+
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+	}
+	
+	@Test
+	public void testMigrationWithBackupPrefetch() {
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		StackSimulator simulator = new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(5)
+				.withBackupPrefetchDepth(3);
+		MigrationClient client = simulator.createClientWithSimulatedServices();
+		// call under test
+		client.migrate();
+
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+	}
+	
+	@Test
+	public void testMigrationExportsMetrics() throws IOException {
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L)));
+		File metricsFile = new File(folder.getRoot(), "metrics.json");
+		File traceFile = new File(folder.getRoot(), "trace.json");
+		File reportFile = new File(folder.getRoot(), "report.json");
+		StackSimulator simulator = new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(5)
+				.withMetricsJsonFilePath(metricsFile.getAbsolutePath()).withTraceFilePath(traceFile.getAbsolutePath())
+				.withRunReportFilePath(reportFile.getAbsolutePath()).withClientCallAccounting(true);
+		// call under test
+		simulator.createClientWithSimulatedServices().migrate();
+
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		// the final snapshot is exported when the migration finishes.
+		JSONObject metrics = new JSONObject(new String(Files.readAllBytes(metricsFile.toPath()), StandardCharsets.UTF_8));
+		assertTrue(metrics.getJSONArray("counters").length() > 0);
+		assertTrue(metrics.getJSONArray("histograms").length() > 0);
+		// the calls to both stacks are accounted for.
+		assertTrue(metrics.toString().contains(MigrationMetricsImpl.CLIENT_CALLS));
+		// so is the trace of the phases and jobs.
+		JSONObject trace = new JSONObject(new String(Files.readAllBytes(traceFile.toPath()), StandardCharsets.UTF_8));
+		assertTrue(trace.getJSONArray("traceEvents").length() > 0);
+		// and the report of the run.
+		JSONObject report = new JSONObject(new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8));
+		assertTrue(report.getBoolean("successful"));
+		assertEquals(0, report.getInt("retries"));
+		assertEquals(5, report.getJSONObject("configuration").getInt("maximumBackupBatchSize"));
+		assertTrue(report.getJSONArray("phases").length() > 0);
+		JSONObject principal = report.getJSONArray("types").getJSONObject(0);
+		assertEquals(PRINCIPAL.name(), principal.getString("type"));
+		assertTrue(principal.getLong("rowsRestored") > 0L);
+		assertTrue(principal.getLong("rangesBackedUp") > 0L);
+		assertTrue(principal.getLong("rangesRestored") > 0L);
+	}
+	
+	@Test
+	public void testShardedMigration() {
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		// the ID range of the change type is split across both shards.
+		RestoreLeaseCoordinator leaseCoordinator = new LocalRestoreLeaseCoordinator();
+		List<MigrationClient> clients = new ArrayList<>();
+		for (int shardIndex = 0; shardIndex < 2; shardIndex++) {
+			clients.add(new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(5)
+					.withShard(2, shardIndex, 50L).withRestoreLeaseCoordinator(leaseCoordinator)
+					.createClientWithSimulatedServices());
+		}
+		// call under test
+		MultipleDestinationMigration.migrateAll(clients);
+
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+		// the shards never restored the same type at the same time.
+		assertEquals(0, destinationStack.getOverlappingRestoreCount());
+		// the last shard to finish restored READ-WRITE mode.
+		assertEquals(StatusEnum.READ_WRITE, destinationStack.getCurrentStackStatus().getStatus());
+	}
+	
+	@Test
+	public void testMigrationToMultipleDestinations() {
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destinations
+		SimulatedStack destinationOne = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		SimulatedStack destinationTwo = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setCount(0L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(75L)));
+		SharedSourceJobs sharedSourceJobs = new SharedSourceJobs();
+		sharedSourceJobs.setEnabled(true, 2);
+		List<MigrationClient> clients = List.of(
+				new StackSimulator(sourceStack, destinationOne).withMaximumBackupBatchSize(5)
+						.withStableChecksumSalt("salt").withSharedSourceJobs(sharedSourceJobs)
+						.createClientWithSimulatedServices(),
+				new StackSimulator(sourceStack, destinationTwo).withMaximumBackupBatchSize(5)
+						.withStableChecksumSalt("salt").withSharedSourceJobs(sharedSourceJobs)
+						.createClientWithSimulatedServices());
+		// call under test
+		MultipleDestinationMigration.migrateAll(clients);
+
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationOne.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationOne.getRowsOfType(CHANGE));
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationTwo.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationTwo.getRowsOfType(CHANGE));
+	}
+
+	@Test
+	public void testMigrationWithChecksumDeltaPasses() {
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		StackSimulator simulator = new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(50)
+				.withMaxChecksumDeltaPasses(3);
+		MigrationClient client = simulator.createClientWithSimulatedServices();
+		// call under test
+		client.migrate();
+
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+	}
+	
 	@Test
 	public void tesMigrationWithEmptyDestination() {
 		// source
@@ -228,4 +409,148 @@ public class SimulatedMigrationIntegrationTest {
 		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
 	}
 
+	/**
+	 * Rows common to both stacks of an append-only type are not compared, so
+	 * only the rows above the destination's maximum are migrated.
+	 */
+	@Test
+	public void testMigrationWithAppendOnlyType() {
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		List<Row> destinationChangeRowsBefore = new ArrayList<>(destinationStack.getRowsOfType(CHANGE));
+		StackSimulator simulator = new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(50)
+				.withChecksumHint(CHANGE, ChecksumHint.APPEND_ONLY);
+		MigrationClient client = simulator.createClientWithSimulatedServices();
+		// call under test
+		client.migrate();
+
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		List<Row> destinationChangeRows = destinationStack.getRowsOfType(CHANGE);
+		assertEquals(101, destinationChangeRows.size());
+		// rows below the common maximum retain the destination's values.
+		assertEquals(destinationChangeRowsBefore.subList(0, 49), destinationChangeRows.subList(0, 49));
+		// rows from the common maximum up are copied from the source.
+		assertEquals(sourceStack.getRowsOfType(CHANGE).subList(49, 101), destinationChangeRows.subList(49, 101));
+	}
+	
+	@Test
+	public void testMigrationWithAppendOnlyTypeAndForceFullChecksum() {
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		StackSimulator simulator = new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(50)
+				.withChecksumHint(CHANGE, ChecksumHint.APPEND_ONLY).withForceFullChecksumVerification(true);
+		MigrationClient client = simulator.createClientWithSimulatedServices();
+		// call under test
+		client.migrate();
+
+		// the two stacks should be synchronized.
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+	}
+
+	/**
+	 * The second run only computes the checksums of the verified bins on the
+	 * source and must still find the rows that changed on the source.
+	 */
+	@Test
+	public void testIncrementalMigration() throws IOException {
+		String stateFile = new File(folder.getRoot(), "state.json").getAbsolutePath();
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		StackSimulator simulator = new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(10)
+				.withStateFilePath(stateFile).withIncrementalMigration(true);
+		// first run has no state so it is a full verification.
+		simulator.createClientWithSimulatedServices().migrate();
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+		assertTrue(new File(stateFile).exists());
+
+		// change the source between runs.
+		sourceStack.deleteUpdateAndAddRowForEachType();
+
+		// call under test
+		simulator.createClientWithSimulatedServices().migrate();
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+	}
+
+	@Test
+	public void testMigrationWithCachedDestinationChecksums() throws IOException {
+		String stateFile = new File(folder.getRoot(), "state.json").getAbsolutePath();
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		StackSimulator simulator = new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(10)
+				.withStateFilePath(stateFile).withStableChecksumSalt("stable");
+		// first run populates the cache.
+		simulator.createClientWithSimulatedServices().migrate();
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+
+		// change the source between runs.
+		sourceStack.deleteUpdateAndAddRowForEachType();
+
+		// call under test
+		simulator.createClientWithSimulatedServices().migrate();
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+	}
+
+	@Test
+	public void testEstimateThenMigrate() {
+		File throughputFile = new File(folder.getRoot(), "throughput.json");
+		// source
+		SimulatedStack sourceStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(42L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(101L)));
+		// destination
+		SimulatedStack destinationStack = new SimulatedStack(
+				List.of(new MigrationTypeCount().setType(PRINCIPAL).setMinid(12L).setMaxid(25L),
+						new MigrationTypeCount().setType(CHANGE).setMinid(1L).setMaxid(50L)));
+		List<Row> principalsBefore = new ArrayList<>(destinationStack.getRowsOfType(PRINCIPAL));
+		List<Row> changesBefore = new ArrayList<>(destinationStack.getRowsOfType(CHANGE));
+		StackSimulator simulator = new StackSimulator(sourceStack, destinationStack).withMaximumBackupBatchSize(10)
+				.withThroughputFilePath(throughputFile.getAbsolutePath()).withEstimateIncludingChecksums(true)
+				.withPlan(PlanMode.ESTIMATE, null);
+		// call under test
+		simulator.createClientWithSimulatedServices().migrate();
+		// estimating does not change the destination.
+		assertEquals(principalsBefore, destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(changesBefore, destinationStack.getRowsOfType(CHANGE));
+		assertFalse(throughputFile.exists());
+
+		// a migration records the throughput of its restores for the next estimate.
+		File statusFile = new File(folder.getRoot(), "status.json");
+		simulator.withPlan(PlanMode.NONE, null).withStatusFilePath(statusFile.getAbsolutePath())
+				.createClientWithSimulatedServices().migrate();
+		assertEquals(sourceStack.getRowsOfType(PRINCIPAL), destinationStack.getRowsOfType(PRINCIPAL));
+		assertEquals(sourceStack.getRowsOfType(CHANGE), destinationStack.getRowsOfType(CHANGE));
+		assertTrue(throughputFile.exists());
+		// the progress of the last phase is written when the phase finishes.
+		assertTrue(statusFile.exists());
+	}
+
 }
@@ -0,0 +1,97 @@
+package org.sagebionetworks.migration.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sagebionetworks.repo.model.migration.IdRange;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RangeChecksum;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class DestinationChecksumsTest {
+
+	RangeChecksum one;
+	RangeChecksum two;
+	RangeChecksum four;
+	DestinationChecksums checksums;
+
+	@Before
+	public void before() {
+		one = new RangeChecksum().setBinNumber(1L).setChecksum("c1").setCount(10L).setMinimumId(10L).setMaximumId(19L);
+		two = new RangeChecksum().setBinNumber(2L).setChecksum("c2").setCount(10L).setMinimumId(20L).setMaximumId(29L);
+		four = new RangeChecksum().setBinNumber(4L).setChecksum("c4").setCount(5L).setMinimumId(40L).setMaximumId(45L);
+		// covers bins one through four.
+		checksums = new DestinationChecksums(MigrationType.NODE, 10L, "salt", 13L, 49L,
+				Lists.newArrayList(one, two, four), Collections.emptySet());
+	}
+
+	@Test
+	public void testGetUnknownRangeAllKnown() {
+		// the destination has no rows below the minimum, so the first bin can start lower.
+		assertEquals(Optional.empty(), checksums.getUnknownRange(15L, 49L));
+		assertEquals(Lists.newArrayList(one, two, four),
+				checksums.getKnownChecksums(15L, 49L, Optional.empty()));
+	}
+
+	@Test
+	public void testGetUnknownRangeAboveCovered() {
+		assertEquals(Optional.of(new IdRange().setMinimumId(50L).setMaximumId(75L)),
+				checksums.getUnknownRange(13L, 75L));
+	}
+
+	@Test
+	public void testGetUnknownRangeBelowCovered() {
+		// bin one is only partially covered.
+		assertEquals(Optional.of(new IdRange().setMinimumId(0L).setMaximumId(19L)),
+				checksums.getUnknownRange(0L, 49L));
+		assertEquals(Lists.newArrayList(two, four),
+				checksums.getKnownChecksums(0L, 49L, checksums.getUnknownRange(0L, 49L)));
+	}
+
+	@Test
+	public void testGetUnknownRangeLastBinPartiallyCovered() {
+		// the cached bin four ends at 49 so it cannot be used for a range ending at 44.
+		assertEquals(Optional.of(new IdRange().setMinimumId(40L).setMaximumId(44L)),
+				checksums.getUnknownRange(13L, 44L));
+	}
+
+	@Test
+	public void testGetUnknownRangeNoOverlap() {
+		assertEquals(Optional.of(new IdRange().setMinimumId(100L).setMaximumId(150L)),
+				checksums.getUnknownRange(100L, 150L));
+		assertTrue(checksums.getKnownChecksums(100L, 150L, checksums.getUnknownRange(100L, 150L)).isEmpty());
+	}
+
+	@Test
+	public void testInvalidate() {
+		// call under test
+		checksums.invalidate(25L, 31L);
+		assertEquals(Sets.newHashSet(2L, 3L), checksums.getInvalidatedBins());
+		assertEquals(Optional.of(new IdRange().setMinimumId(20L).setMaximumId(39L)),
+				checksums.getUnknownRange(13L, 49L));
+		assertEquals(Lists.newArrayList(one, four),
+				checksums.getKnownChecksums(13L, 49L, checksums.getUnknownRange(13L, 49L)));
+	}
+
+	@Test
+	public void testInvalidateOutsideCovered() {
+		// call under test
+		checksums.invalidate(100L, 1000000000L);
+		assertTrue(checksums.getInvalidatedBins().isEmpty());
+	}
+
+	@Test
+	public void testIsKnown() {
+		assertTrue(checksums.isKnown(3L, 13L, 49L));
+		assertFalse(checksums.isKnown(1L, 10L, 49L));
+		assertFalse(checksums.isKnown(5L, 13L, 59L));
+	}
+}
@@ -0,0 +1,225 @@
+package org.sagebionetworks.migration.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Optional;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.sagebionetworks.migration.LoggerFactory;
+import org.sagebionetworks.migration.config.Configuration;
+import org.sagebionetworks.migration.config.FileProviderImp;
+import org.sagebionetworks.repo.model.migration.MigrationType;
+import org.sagebionetworks.repo.model.migration.RangeChecksum;
+
+import com.google.common.collect.Lists;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MigrationStateStoreImplTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Mock
+	Configuration mockConfig;
+	@Mock
+	LoggerFactory mockLoggerFactory;
+	@Mock
+	Logger mockLogger;
+
+	File stateFile;
+	VerifiedTypeState nodeState;
+	VerifiedTypeState changeState;
+	DestinationChecksums nodeChecksums;
+
+	MigrationStateStoreImpl store;
+
+	@Before
+	public void before() throws IOException {
+		when(mockLoggerFactory.getLogger(any())).thenReturn(mockLogger);
+		stateFile = new File(folder.getRoot(), "state.json");
+		when(mockConfig.getStateFilePath()).thenReturn(Optional.of(stateFile.getAbsolutePath()));
+
+		RangeChecksum one = new RangeChecksum().setBinNumber(0L).setChecksum("c1").setCount(7L).setMinimumId(2L)
+				.setMaximumId(9L);
+		RangeChecksum two = new RangeChecksum().setBinNumber(1L).setChecksum("c2").setCount(10L).setMinimumId(10L)
+				.setMaximumId(19L);
+		nodeState = new VerifiedTypeState(MigrationType.NODE, 10L, "salt", 19L, Lists.newArrayList(one, two));
+		changeState = new VerifiedTypeState(MigrationType.CHANGE, 10L, "salt", 9L, Lists.newArrayList(one));
+		nodeChecksums = new DestinationChecksums(MigrationType.NODE, 10L, "salt", 2L, 19L, Lists.newArrayList(one, two),
+				Collections.emptySet());
+		when(mockConfig.getStableChecksumSalt()).thenReturn(Optional.of("salt"));
+
+		store = new MigrationStateStoreImpl(mockConfig, new FileProviderImp(), mockLoggerFactory);
+	}
+
+	@Test
+	public void testSaveAndLoad() {
+		store.beginRun();
+		store.recordPendingState(nodeState);
+		// pending state is not verified until saved.
+		assertEquals(Optional.empty(), store.getVerifiedState(MigrationType.NODE));
+		// call under test
+		store.save();
+		assertTrue(stateFile.exists());
+
+		// a new process should load the state.
+		store = new MigrationStateStoreImpl(mockConfig, new FileProviderImp(), mockLoggerFactory);
+		// call under test
+		store.beginRun();
+		assertEquals(Optional.of(nodeState), store.getVerifiedState(MigrationType.NODE));
+		// the file is removed until the run is successful.
+		assertFalse(stateFile.exists());
+	}
+
+	@Test
+	public void testSaveReplacesVerified() {
+		store.beginRun();
+		store.recordPendingState(nodeState);
+		store.save();
+
+		store = new MigrationStateStoreImpl(mockConfig, new FileProviderImp(), mockLoggerFactory);
+		store.beginRun();
+		store.recordPendingState(changeState);
+		// call under test
+		store.save();
+
+		store = new MigrationStateStoreImpl(mockConfig, new FileProviderImp(), mockLoggerFactory);
+		store.beginRun();
+		// the second run did not verify nodes.
+		assertEquals(Optional.empty(), store.getVerifiedState(MigrationType.NODE));
+		assertEquals(Optional.of(changeState), store.getVerifiedState(MigrationType.CHANGE));
+	}
+
+	@Test
+	public void testBeginRunAfterFailedAttempt() {
+		store.beginRun();
+		store.recordPendingState(nodeState);
+		store.save();
+
+		store = new MigrationStateStoreImpl(mockConfig, new FileProviderImp(), mockLoggerFactory);
+		store.beginRun();
+		store.recordPendingState(changeState);
+		// call under test, second attempt without a save.
+		store.beginRun();
+		assertEquals(Optional.empty(), store.getVerifiedState(MigrationType.NODE));
+		assertEquals(Optional.empty(), store.getVerifiedState(MigrationType.CHANGE));
+	}
+
+	@Test
+	public void testBeginRunNoFile() {
+		// call under test
+		store.beginRun();
+		assertEquals(Optional.empty(), store.getVerifiedState(MigrationType.NODE));
+	}
+
+	@Test
+	public void testBeginRunUnreadableFile() throws IOException {
+		Files.write(stateFile.toPath(), "not json".getBytes(StandardCharsets.UTF_8));
+		// call under test
+		store.beginRun();
+		assertEquals(Optional.empty(), store.getVerifiedState(MigrationType.NODE));
+		assertFalse(stateFile.exists());
+	}
+
+	@Test
+	public void testNoStateFile() {
+		when(mockConfig.getStateFilePath()).thenReturn(Optional.empty());
+		store.beginRun();
+		store.recordPendingState(nodeState);
+		// call under test
+		store.save();
+		assertFalse(stateFile.exists());
+		// the state is still available in memory.
+		assertEquals(Optional.of(nodeState), store.getVerifiedState(MigrationType.NODE));
+	}
+
+	@Test
+	public void testDestinationChecksumsSaveAndLoad() {
+		store.beginRun();
+		// call under test
+		store.putDestinationChecksums(nodeChecksums);
+		assertEquals(Optional.of(nodeChecksums), store.getDestinationChecksums(MigrationType.NODE, 10L, "salt"));
+		store.save();
+
+		store = new MigrationStateStoreImpl(mockConfig, new FileProviderImp(), mockLoggerFactory);
+		store.beginRun();
+		assertEquals(Optional.of(nodeChecksums), store.getDestinationChecksums(MigrationType.NODE, 10L, "salt"));
+	}
+
+	@Test
+	public void testGetDestinationChecksumsMismatch() {
+		store.beginRun();
+		store.putDestinationChecksums(nodeChecksums);
+		// call under test
+		assertEquals(Optional.empty(), store.getDestinationChecksums(MigrationType.NODE, 11L, "salt"));
+		assertEquals(Optional.empty(), store.getDestinationChecksums(MigrationType.NODE, 10L, "other"));
+		assertEquals(Optional.empty(), store.getDestinationChecksums(MigrationType.CHANGE, 10L, "salt"));
+	}
+
+	@Test
+	public void testPutDestinationChecksumsWithoutStableSalt() {
+		when(mockConfig.getStableChecksumSalt()).thenReturn(Optional.empty());
+		store.beginRun();
+		// call under test
+		store.putDestinationChecksums(nodeChecksums);
+		assertEquals(Optional.empty(), store.getDestinationChecksums(MigrationType.NODE, 10L, "salt"));
+	}
+
+	@Test
+	public void testInvalidateDestinationRange() {
+		store.beginRun();
+		store.putDestinationChecksums(nodeChecksums);
+		// call under test
+		store.invalidateDestinationRange(MigrationType.NODE, 12L, 15L);
+		assertEquals(Collections.singleton(1L),
+				store.getDestinationChecksums(MigrationType.NODE, 10L, "salt").get().getInvalidatedBins());
+		store.save();
+
+		// invalidated bins are persisted.
+		store = new MigrationStateStoreImpl(mockConfig, new FileProviderImp(), mockLoggerFactory);
+		store.beginRun();
+		assertEquals(Collections.singleton(1L),
+				store.getDestinationChecksums(MigrationType.NODE, 10L, "salt").get().getInvalidatedBins());
+	}
+
+	@Test
+	public void testInvalidateDestinationRangeEntireType() {
+		store.beginRun();
+		store.putDestinationChecksums(nodeChecksums);
+		// call under test
+		store.invalidateDestinationRange(MigrationType.NODE, null, null);
+		assertEquals(Optional.empty(), store.getDestinationChecksums(MigrationType.NODE, 10L, "salt"));
+	}
+
+	@Test
+	public void testBeginRunAfterFailedAttemptDiscardsDestinationChecksums() {
+		store.beginRun();
+		store.putDestinationChecksums(nodeChecksums);
+		// call under test
+		store.beginRun();
+		assertEquals(Optional.empty(), store.getDestinationChecksums(MigrationType.NODE, 10L, "salt"));
+	}
+
+	@Test
+	public void testToAndFromJSON() throws Exception {
+		// call under test
+		assertEquals(Collections.singletonMap(MigrationType.NODE, nodeState), MigrationStateStoreImpl
+				.fromJSON(MigrationStateStoreImpl.toJSON(Collections.singletonMap(MigrationType.NODE, nodeState))));
+	}
+}
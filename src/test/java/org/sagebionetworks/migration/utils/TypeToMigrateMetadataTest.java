@@ -191,5 +191,13 @@ public class TypeToMigrateMetadataTest {
 		Optional<Long> result = meta.getMaxOfMax();
 		assertEquals(Optional.empty(), result);
 	}
+	
+	@Test
+	public void testGetSrcCount() {
+		src.setCount(3L);
+		TypeToMigrateMetadata meta = new TypeToMigrateMetadata(isSourceReadOnly, src, dest);
+		// call under test
+		assertEquals(Long.valueOf(3L), meta.getSrcCount());
+	}
 
 }